@@ -0,0 +1,42 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import util.IdGenerator;
+import util.TimeOrderedIds;
+
+/**
+ * Record ID generation with 64 threads at once: UUID.randomUUID (one shared
+ * SecureRandom) versus TimeOrderedIds (per-thread state).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class IdBenchmark {
+    private final IdGenerator timeOrdered = new TimeOrderedIds();
+
+    @Benchmark
+    public String randomUuid() {
+        return IdGenerator.RANDOM.nextId();
+    }
+
+    @Benchmark
+    public String timeOrdered() {
+        return timeOrdered.nextId();
+    }
+}
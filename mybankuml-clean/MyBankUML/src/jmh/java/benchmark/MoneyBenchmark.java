@@ -0,0 +1,77 @@
+package benchmark;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Money;
+
+/**
+ * Transfer-path arithmetic (validate positive, check funds, debit, credit)
+ * with the old BigDecimal code versus Money.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+    private static final int SIZE = 1024;
+
+    private BigDecimal[] decimalBalances = new BigDecimal[SIZE];
+    private BigDecimal[] decimalAmounts = new BigDecimal[SIZE];
+    private Money[] moneyBalances = new Money[SIZE];
+    private Money[] moneyAmounts = new Money[SIZE];
+    private int i;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        for (int k = 0; k < SIZE; k++) {
+            decimalBalances[k] = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            decimalAmounts[k] = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+            moneyBalances[k] = Money.of(decimalBalances[k]);
+            moneyAmounts[k] = Money.of(decimalAmounts[k]);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTransfer() {
+        int k = i++ & (SIZE - 1);
+        BigDecimal amount = decimalAmounts[k];
+        BigDecimal source = decimalBalances[k];
+        BigDecimal target = decimalBalances[(k + 1) & (SIZE - 1)];
+        if (amount.compareTo(BigDecimal.ZERO) <= 0 || source.compareTo(amount) < 0) {
+            return source;
+        }
+        decimalBalances[k] = source.subtract(amount);
+        decimalBalances[(k + 1) & (SIZE - 1)] = target.add(amount);
+        return decimalBalances[k];
+    }
+
+    @Benchmark
+    public Money moneyTransfer() {
+        int k = i++ & (SIZE - 1);
+        Money amount = moneyAmounts[k];
+        Money source = moneyBalances[k];
+        Money target = moneyBalances[(k + 1) & (SIZE - 1)];
+        if (!amount.isPositive() || source.isLessThan(amount)) {
+            return source;
+        }
+        moneyBalances[k] = source.minus(amount);
+        moneyBalances[(k + 1) & (SIZE - 1)] = target.plus(amount);
+        return moneyBalances[k];
+    }
+}
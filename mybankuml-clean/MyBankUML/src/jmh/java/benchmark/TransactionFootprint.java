@@ -0,0 +1,76 @@
+package benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import data.TransactionStore;
+import model.Transaction;
+
+/**
+ * Retained heap of the ledger as a List<Transaction> (as loaded from JSON: every
+ * record has its own strings) versus TransactionStore.
+ *
+ * Run: mvn -Pbenchmark compile exec:exec -Dbenchmark.main=benchmark.TransactionFootprint
+ */
+public class TransactionFootprint {
+    private static final int TRANSACTIONS = 1_000_000;
+    private static final int ACCOUNTS = 10_000;
+
+    public static void main(String[] args) {
+        // The profile passes ${benchmark} through; only a plain number overrides the count
+        int count = args.length > 0 && args[0].matches("\\d+") ? Integer.parseInt(args[0]) : TRANSACTIONS;
+
+        long baseline = usedHeap();
+        List<Transaction> list = new ArrayList<>();
+        fill(count, list::add);
+        long listBytes = usedHeap() - baseline;
+        report("List<Transaction>", listBytes, count);
+        list = null;
+
+        baseline = usedHeap();
+        TransactionStore store = new TransactionStore();
+        fill(count, store::append);
+        long storeBytes = usedHeap() - baseline;
+        report("TransactionStore", storeBytes, count);
+
+        System.out.printf("ratio: %.1fx (%d transactions in store)%n", (double) listBytes / storeBytes, store.size());
+    }
+
+    private static void fill(int count, java.util.function.Consumer<Transaction> sink) {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < count; i++) {
+            Transaction tx = new Transaction();
+            tx.setTransactionID(UUID.randomUUID().toString());
+            // new String(...) mimics Jackson, which allocates a fresh string per field
+            tx.setSourceAccountNumber(new String("ACC" + random.nextInt(ACCOUNTS)));
+            boolean transfer = random.nextInt(3) == 0;
+            tx.setTargetAccountNumber(transfer ? new String("ACC" + random.nextInt(ACCOUNTS)) : null);
+            tx.setAmount(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+            tx.setType(transfer ? Transaction.Type.TRANSFER : Transaction.Type.DEPOSIT);
+            tx.setTimestamp(start.plusNanos(i * 1_234_567L).toString());
+            sink.accept(tx);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String name, long bytes, int count) {
+        System.out.printf("%-18s %,12d bytes  %6.1f bytes/transaction%n", name, bytes, (double) bytes / count);
+    }
+}
@@ -1,69 +1,365 @@
+import application.AccountEventPublisher;
 import application.AccountManager;
 import application.AdminManager;
 import application.AuthenticationManager;
+import application.BatchTransactionManager;
+import application.InterestAccrual;
 import application.RoleManager;
+import application.RoleManager.Feature;
+import application.ScheduledTransferManager;
 import application.SearchManager;
+import application.StatementGenerator;
 import application.TransactionManager;
+import application.VelocityLimits;
+import data.CachingRepository;
+import data.ClusterNode;
+import data.ClusterProtocol;
+import data.ClusterRepository;
+import data.DatabaseRepository;
+import data.FollowerRepository;
+import data.HttpClusterNode;
 import data.JsonFileService;
+import data.LocalClusterNode;
+import data.SqlDatabaseService;
+import data.VersionTrackingRepository;
 import io.javalin.Javalin;
+import io.javalin.compression.CompressionStrategy;
 import io.javalin.http.staticfiles.Location;
 import presentation.AccountController;
 import presentation.AdminController;
 import presentation.AuthController;
+import presentation.AuthFilter;
+import presentation.ClusterController;
+import presentation.EventController;
+import presentation.RateLimitFilter;
+import presentation.ScheduleController;
 import presentation.SearchController;
+import presentation.StatementController;
+import util.IdGenerator;
+import util.Metrics;
+import util.RateLimiter;
+import util.SecurityUtils;
+import util.SessionTokens;
+import util.TokenRevocations;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         System.out.println("Starting MyBankUML Backend...");
 
-        // 1. Initialize Database Layer (Loads JSON files)
-        JsonFileService database = new JsonFileService();
+        // 1. Initialize Database Layer
+        Metrics metrics = new Metrics();
+        // Read-only follower of a primary on this host: -Dmybank.follow=<the primary's data directory>
+        String followDir = System.getProperty("mybank.follow");
+        if (followDir != null) {
+            startFollower(metrics, followDir);
+            return;
+        }
+        // Record IDs are time-ordered UUIDs unless -Dmybank.ids=random
+        if ("random".equals(System.getProperty("mybank.ids"))) {
+            SecurityUtils.setIdGenerator(IdGenerator.RANDOM);
+        }
+        int port = 8080;
+        DatabaseRepository storage;
+        String dataDir = JsonFileService.DEFAULT_DATA_DIR;
+        List<byte[]> tokenKeys;
+        // Sessions are signed tokens; the key (data/token.key) and revocations survive restarts
+        long sessionLifetime = AuthenticationManager.SESSION_LIFETIME_MINUTES * 60_000L;
+        TokenRevocations revocations;
+        ClusterController clusterController = null;
+        DatabaseRepository ownAccounts = null; // The accounts batch jobs run over: this node's partition on a cluster
+        LocalClusterNode localNode = null;
+        List<ClusterNode> nodes = null; // Every node of the cluster, this one included
+
+        // Multi-node mode (see README): -Dmybank.cluster.nodes=<url,url,...> -Dmybank.cluster.self=<index>
+        // -Dmybank.cluster.secret=<shared secret>. Each node stores its partition in data/node<index>/.
+        String clusterNodes = System.getProperty("mybank.cluster.nodes", "");
+        if (clusterNodes.isEmpty()) {
+            storage = openStorage(metrics, dataDir);
+            tokenKeys = SessionTokens.loadKeys(Paths.get(dataDir, "token.key"));
+            revocations = new TokenRevocations(sessionLifetime, Paths.get(dataDir, "revoked_tokens.json"));
+        } else {
+            String[] urls = clusterNodes.split(",");
+            int self = Integer.parseInt(System.getProperty("mybank.cluster.self", "0"));
+            String secret = System.getProperty("mybank.cluster.secret");
+            if (secret == null || secret.isEmpty()) {
+                throw new IllegalArgumentException("-Dmybank.cluster.secret is required in multi-node mode");
+            }
+            port = URI.create(urls[self].trim()).getPort();
+
+            dataDir = "data/node" + self + "/";
+            DatabaseRepository partition = openStorage(metrics, dataDir);
+            if (partition.findAllUsers().isEmpty()) {
+                ClusterRepository.importPartition(JsonFileService.DEFAULT_DATA_DIR, partition, self, urls.length);
+                System.out.println("Imported node " + self + "'s share of data/*.json");
+            }
+            // Prepared cross-node transfers and the commit decisions this node holds survive restarts
+            LocalClusterNode local = new LocalClusterNode(partition, Paths.get(dataDir, "transfers.json"),
+                    LocalClusterNode.PREPARE_TIMEOUT_MILLIS);
+            ownAccounts = local;
+            localNode = local;
+            nodes = new ArrayList<>();
+            for (int i = 0; i < urls.length; i++) {
+                nodes.add(i == self ? local : new HttpClusterNode(urls[i].trim(), secret));
+            }
+            local.setCluster(nodes);
+            // A logout or lockout on any node ends the session on all of them
+            revocations = new TokenRevocations(sessionLifetime, Paths.get(dataDir, "revoked_tokens.json"));
+            local.setRevocations(revocations);
+            // Asks deciders about transfers whose coordinator went quiet, and pulls revocations peers could not deliver
+            local.start(TimeUnit.SECONDS.toMillis(5));
+            storage = new ClusterRepository(nodes);
+            // Every node accepts every node's tokens; signed with a key derived from the secret, not the secret itself
+            tokenKeys = List.of(SessionTokens.secretKey(secret));
+            clusterController = new ClusterController(local, secret);
+        }
+        // Wrapped so every account/ledger write bumps the counters used for ETags, and saves of unmodified records are skipped
+        VersionTrackingRepository database = new VersionTrackingRepository(storage);
+        metrics.register("writes", database::writeStats);
 
         // 2. Initialize Application Logic Layer (Managers)
-        AuthenticationManager authMgr = new AuthenticationManager(database);
-        RoleManager roleMgr = new RoleManager();
-        AccountManager accountMgr = new AccountManager(database);
-        TransactionManager txMgr = new TransactionManager(database);
-        SearchManager searchMgr = new SearchManager(database);
+        SessionTokens sessionTokens = new SessionTokens(tokenKeys, sessionLifetime, revocations);
+        AuthenticationManager authMgr = new AuthenticationManager(database, sessionTokens);
+        String rolePolicy = System.getProperty("mybank.rolePolicy");
+        RoleManager roleMgr = rolePolicy == null ? new RoleManager() : RoleManager.load(Paths.get(rolePolicy));
+        // Daily withdrawal limits and transfer velocity per account; on a cluster counted on the account's node
+        String limitPolicy = System.getProperty("mybank.limitPolicy");
+        VelocityLimits limits = limitPolicy == null ? new VelocityLimits(database) : VelocityLimits.load(database, Paths.get(limitPolicy));
+        if (localNode != null) {
+            localNode.setLimits(limits);
+            limits.setCluster(nodes);
+        }
+        metrics.register("limits", limits::stats);
+        AccountEventPublisher eventPublisher = new AccountEventPublisher();
+        AccountManager accountMgr = new AccountManager(database, eventPublisher, limits);
+        TransactionManager txMgr = new TransactionManager(database, eventPublisher, limits);
+        BatchTransactionManager batchMgr = new BatchTransactionManager(database, eventPublisher, limits);
+        // Customer overviews read accounts in parallel only where reads wait on I/O (H2, cluster nodes)
+        SearchManager searchMgr = new SearchManager(database, !(storage instanceof JsonFileService));
         AdminManager adminMgr = new AdminManager(database);
+        // Standing orders; on a cluster each node keeps and runs the ones paid from its accounts
+        ScheduledTransferManager scheduleMgr = new ScheduledTransferManager(database, batchMgr, Paths.get(dataDir, "schedules.json"));
+        if (localNode != null) {
+            localNode.setSchedules(scheduleMgr);
+            scheduleMgr.setCluster(nodes);
+        }
+        metrics.register("schedules", scheduleMgr::stats);
+        scheduleMgr.start();
+        // Daily interest on SAVINGS accounts at -Dmybank.savingsRate (a yearly fraction, default 0.02)
+        InterestAccrual interest = new InterestAccrual(ownAccounts != null ? ownAccounts : database,
+                new BigDecimal(System.getProperty("mybank.savingsRate", "0.02")), Paths.get(dataDir, "interest.json"));
+        metrics.register("interest", interest::stats);
+        interest.start();
+        // Monthly statements; on a cluster each node writes its own accounts' and serves their downloads
+        StatementGenerator statementGen = new StatementGenerator(ownAccounts != null ? ownAccounts : database, Paths.get(dataDir, "statements"));
+        if (localNode != null) {
+            localNode.setStatements(statementGen);
+            statementGen.setCluster(nodes);
+        }
 
         // 3. Initialize Presentation Layer (Controllers)
         AuthController authController = new AuthController(authMgr);
-        AccountController accountController = new AccountController(accountMgr, txMgr, authMgr, roleMgr);
-        AdminController adminController = new AdminController(adminMgr, authMgr, roleMgr);
-        SearchController searchController = new SearchController(searchMgr, authMgr, roleMgr);
+        // Other nodes change this node's view of accounts without going through its
+        // version counters, so ETags are only offered on a single node
+        AccountController accountController = new AccountController(accountMgr, txMgr, batchMgr, roleMgr,
+                clusterController == null ? database.getVersions() : null);
+        AdminController adminController = new AdminController(adminMgr, authMgr, metrics);
+        SearchController searchController = new SearchController(searchMgr);
+        EventController eventController = new EventController(eventPublisher, accountMgr, roleMgr);
+        ScheduleController scheduleController = new ScheduleController(scheduleMgr, accountMgr, roleMgr);
+        StatementController statementController = new StatementController(statementGen, accountMgr, roleMgr);
+
+        // Authenticates once per request and checks the requirements each route is registered with
+        AuthFilter authFilter = new AuthFilter(authMgr, roleMgr);
+        metrics.register("auth", authFilter::stats);
 
         // 4. Configure and Start Web Server
-        Javalin app = Javalin.create(config -> {
-            // Enables Cross-Origin Resource Sharing (useful for local testing)
-            config.plugins.enableCors(cors -> cors.add(it -> it.anyHost()));
-            // Serve the frontend files from src/main/resources/public
-            config.staticFiles.add("/public", Location.CLASSPATH);
-        }).start(8080);
+        Javalin app = startServer(authFilter, port);
 
         // 5. Register API Routes
+
+        // --- Rate limits (per IP, per user, stricter for login and search) ---
+        RateLimiter rateLimiter = new RateLimiter(100_000);
+        metrics.register("rateLimiter", rateLimiter::stats);
+        app.before(authFilter::verify); // Verifies the session token once, for the rate limits and the routes
+        app.before(new RateLimitFilter(rateLimiter, trustedProxies()));
         
         // --- Auth ---
         app.post("/api/login", authController::login);
         app.post("/api/logout", authController::logout);
-        app.post("/api/change-password", authController::changePassword);  // <-- ADD THIS
+        app.post("/api/change-password", authController::changePassword, AuthFilter.AUTHENTICATED);
 
 
         // --- Account & Transactions ---
-        app.get("/api/accounts", accountController::getAccounts);  // Get logged-in user's accounts
-        app.get("/api/accounts/user/{userId}", accountController::getAccountsByUser);  // Get specific user's accounts (Teller/Admin)
-        app.get("/api/transactions/{accountNumber}", accountController::getTransactionHistory);  // NEW: Get transaction history
-        app.post("/api/transaction", accountController::handleTransaction);
+        app.get("/api/accounts", accountController::getAccounts, AuthFilter.AUTHENTICATED);  // Get logged-in user's accounts
+        app.get("/api/accounts/user/{userId}", accountController::getAccountsByUser, AuthFilter.requires(Feature.SEARCH_CUSTOMERS));  // Get specific user's accounts (Teller/Admin)
+        app.get("/api/transactions/{accountNumber}", accountController::getTransactionHistory, AuthFilter.AUTHENTICATED);  // NEW: Get transaction history
+        app.post("/api/transaction", accountController::handleTransaction, AuthFilter.requires(Feature.PROCESS_TRANSACTION));
+        app.post("/api/transactions/bulk", accountController::handleBulkTransactions, AuthFilter.requires(Feature.PROCESS_TRANSACTION));  // JSON-lines batch (payroll/settlement)
+        app.sse(AuthFilter.EVENTS_PATH, eventController::streamEvents, AuthFilter.AUTHENTICATED);  // Live balance/transaction push for dashboards
+        app.post("/api/schedules", scheduleController::createSchedule, AuthFilter.requires(Feature.PROCESS_TRANSACTION));  // Standing orders
+        app.get("/api/schedules", scheduleController::getSchedules, AuthFilter.AUTHENTICATED);
+        app.delete("/api/schedules/{scheduleId}", scheduleController::cancelSchedule, AuthFilter.AUTHENTICATED);
+        app.get("/api/statements/{accountNumber}/{month}", statementController::getStatement, AuthFilter.AUTHENTICATED);  // Monthly statement file
         
         // --- Admin ---
-        app.post("/api/admin/create-user", adminController::createUser);
-        app.patch("/api/admin/users/{id}", adminController::updateUser);
-        app.get("/api/admin/audit-logs", adminController::getAuditLogs);
+        app.post("/api/admin/create-user", adminController::createUser, AuthFilter.requires(Feature.MANAGE_USERS));
+        app.patch("/api/admin/users/{id}", adminController::updateUser, AuthFilter.requires(Feature.MANAGE_USERS));
+        app.get("/api/admin/audit-logs", adminController::getAuditLogs, AuthFilter.requires(Feature.VIEW_AUDIT_LOGS));
+        app.get("/api/admin/metrics", adminController::getMetrics, AuthFilter.requires(Feature.MANAGE_USERS));
+        app.post("/api/admin/statements/{month}", statementController::generateStatements, AuthFilter.requires(Feature.MANAGE_USERS));
 
         
         // --- Search ---
-        app.get("/api/search", searchController::searchUsers);
+        app.get("/api/search", searchController::searchUsers, AuthFilter.requires(Feature.SEARCH_CUSTOMERS));
+        app.get("/api/search/accounts", searchController::searchAccounts, AuthFilter.requires(Feature.SEARCH_CUSTOMERS));  // Balance/creation/activity ranges, paged
+        app.get("/api/customers/{userId}/overview", searchController::getCustomerOverview, AuthFilter.requires(Feature.SEARCH_CUSTOMERS));  // Teller customer screen in one request
+
+        // --- Cluster (node-to-node) ---
+        if (clusterController != null) {
+            app.post(ClusterProtocol.PATH_PREFIX + "{operation}", clusterController::handle);
+        }
+
+        System.out.println("Backend running on http://localhost:" + port);
+    }
+
+    /** Load balancer addresses from -Dmybank.trustedProxies (comma-separated); their X-Forwarded-For is used. */
+    private static Set<String> trustedProxies() {
+        Set<String> proxies = new HashSet<>();
+        for (String proxy : System.getProperty("mybank.trustedProxies", "").split(",")) {
+            if (!proxy.isBlank()) {
+                proxies.add(proxy.trim());
+            }
+        }
+        return proxies;
+    }
+
+    private static Javalin startServer(AuthFilter authFilter, int port) {
+        return Javalin.create(config -> {
+            config.accessManager(authFilter);
+            // Enables Cross-Origin Resource Sharing (useful for local testing)
+            config.plugins.enableCors(cors -> cors.add(it -> it.anyHost()));
+            // Serve the frontend files from src/main/resources/public
+            config.staticFiles.add("/public", Location.CLASSPATH);
+            // Compress large responses (e.g. transaction history); Brotli needs the native brotli4j library
+            if (CompressionStrategy.Companion.brotliImplAvailable()) {
+                config.compression.brotliAndGzip();
+            } else {
+                config.compression.gzipOnly();
+            }
+        }).start(port);
+    }
+
+    /**
+     * Follower mode (see README): serves the read-only routes from a copy of the primary's data
+     * directory (JSON backend, single node) that is kept current by tailing its files. Accepts
+     * the primary's login tokens; logins and writes go to the primary.
+     */
+    private static void startFollower(Metrics metrics, String primaryDir) throws IOException {
+        String dataDir = primaryDir.endsWith("/") ? primaryDir : primaryDir + "/";
+        int port = Integer.getInteger("mybank.follower.port", 8081);
+        if (!Files.exists(Paths.get(dataDir, "token.key"))) {
+            throw new IllegalStateException(dataDir + "token.key not found; start the primary first");
+        }
+
+        FollowerRepository database = new FollowerRepository(dataDir);
+        metrics.register("follower", database::stats);
+        database.start(Long.getLong("mybank.follower.pollMillis", 200));
+
+        // Logouts and lockouts on the primary reach the follower through its revocations file
+        long sessionLifetime = AuthenticationManager.SESSION_LIFETIME_MINUTES * 60_000L;
+        TokenRevocations revocations = new TokenRevocations(sessionLifetime, Paths.get(dataDir, "revoked_tokens.json"), true);
+        ScheduledExecutorService revocationPoller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "follower-revocations");
+            t.setDaemon(true);
+            return t;
+        });
+        revocationPoller.scheduleWithFixedDelay(() -> {
+            try {
+                revocations.reload();
+            } catch (IOException e) {
+                e.printStackTrace(); // Keeps the revocations it has; tried again next second
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+        AuthenticationManager authMgr = new AuthenticationManager(database,
+                new SessionTokens(SessionTokens.loadKeys(Paths.get(dataDir, "token.key")), sessionLifetime, revocations));
+
+        String rolePolicy = System.getProperty("mybank.rolePolicy");
+        RoleManager roleMgr = rolePolicy == null ? new RoleManager() : RoleManager.load(Paths.get(rolePolicy));
+        AccountManager accountMgr = new AccountManager(database);
+        AccountController accountController = new AccountController(accountMgr, new TransactionManager(database),
+                new BatchTransactionManager(database), roleMgr, null);
+        AdminController adminController = new AdminController(new AdminManager(database), authMgr, metrics);
+        SearchController searchController = new SearchController(new SearchManager(database));
+
+        AuthFilter authFilter = new AuthFilter(authMgr, roleMgr);
+        metrics.register("auth", authFilter::stats);
+        Javalin app = startServer(authFilter, port);
+
+        RateLimiter rateLimiter = new RateLimiter(100_000);
+        metrics.register("rateLimiter", rateLimiter::stats);
+        app.before(authFilter::verify); // Verifies the session token once, for the rate limits and the routes
+        app.before(new RateLimitFilter(rateLimiter, trustedProxies()));
+
+        // The primary's read routes; everything else is 404 here
+        app.get("/api/accounts", accountController::getAccounts, AuthFilter.AUTHENTICATED);
+        app.get("/api/accounts/user/{userId}", accountController::getAccountsByUser, AuthFilter.requires(Feature.SEARCH_CUSTOMERS));
+        app.get("/api/transactions/{accountNumber}", accountController::getTransactionHistory, AuthFilter.AUTHENTICATED);
+        app.get("/api/admin/audit-logs", adminController::getAuditLogs, AuthFilter.requires(Feature.VIEW_AUDIT_LOGS));
+        app.get("/api/admin/metrics", adminController::getMetrics, AuthFilter.requires(Feature.MANAGE_USERS));
+        app.get("/api/search", searchController::searchUsers, AuthFilter.requires(Feature.SEARCH_CUSTOMERS));
+        app.get("/api/search/accounts", searchController::searchAccounts, AuthFilter.requires(Feature.SEARCH_CUSTOMERS));
+        app.get("/api/customers/{userId}/overview", searchController::getCustomerOverview, AuthFilter.requires(Feature.SEARCH_CUSTOMERS));
+
+        System.out.println("Read-only follower of " + dataDir + " running on http://localhost:" + port);
+    }
 
-        System.out.println("Backend running on http://localhost:8080");
+    /**
+     * Storage backend, chosen with -Dmybank.storage (or MYBANK_STORAGE):
+     *   json (default) - the *.json files in dataDir, all held in memory
+     *   h2             - embedded H2 database (dataDir/mybankuml.mv.db, or -Dmybank.jdbcUrl);
+     *                    the JSON files are imported the first time it starts; reads of users
+     *                    and accounts go through a CachingRepository (-Dmybank.cache=false to disable)
+     */
+    private static DatabaseRepository openStorage(Metrics metrics, String dataDir) {
+        String storage = System.getProperty("mybank.storage", System.getenv().getOrDefault("MYBANK_STORAGE", "json"));
+        switch (storage.toLowerCase()) {
+            case "json":
+                JsonFileService json = new JsonFileService(dataDir);
+                metrics.register("checkpoint", json::checkpointStats);
+                // Restarts load the ledger from the last checkpoint and only parse entries added after it
+                json.startCheckpoints(TimeUnit.MINUTES.toMillis(Long.getLong("mybank.checkpointMinutes", 5)));
+                Runtime.getRuntime().addShutdownHook(new Thread(json::checkpoint));
+                return json;
+            case "h2":
+                String defaultUrl = dataDir.equals(JsonFileService.DEFAULT_DATA_DIR)
+                        ? SqlDatabaseService.DEFAULT_URL
+                        : "jdbc:h2:file:./" + dataDir + "mybankuml;QUERY_CACHE_SIZE=64";
+                SqlDatabaseService sql = new SqlDatabaseService(System.getProperty("mybank.jdbcUrl", defaultUrl));
+                if (sql.migrateFromJson(dataDir)) {
+                    System.out.println("Imported " + dataDir + "*.json into the H2 database");
+                }
+                Runtime.getRuntime().addShutdownHook(new Thread(sql::close));
+                if (!Boolean.parseBoolean(System.getProperty("mybank.cache", "true"))) {
+                    return sql;
+                }
+                CachingRepository cached = new CachingRepository(sql);
+                metrics.register("repositoryCache", cached::stats);
+                return cached;
+            default:
+                throw new IllegalArgumentException("Unknown storage backend: " + storage + " (expected json or h2)");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package application;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import model.Account;
+import model.Transaction;
+
+/**
+ * Pushes balance changes and new transactions to dashboards that subscribed
+ * to a set of accounts.
+ *
+ * Each subscriber has a bounded buffer that is flushed on a fixed tick:
+ * several balance changes to one account within a tick collapse into the
+ * latest value, and if more transactions arrive than the buffer holds the
+ * oldest are dropped and the subscriber is told to resync.
+ */
+public class AccountEventPublisher {
+    public static final int MAX_PENDING_TRANSACTIONS = 100;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 250;
+
+    /**
+     * Where events for one subscriber are written (an SSE connection in production).
+     */
+    public interface Sink {
+        void send(String event, Object data);
+        boolean isClosed();
+    }
+
+    public static class Subscription {
+        private final Set<String> accountNumbers;
+        private final Sink sink;
+
+        // Guarded by 'this'
+        private final Map<String, BigDecimal> pendingBalances = new LinkedHashMap<>();
+        private final ArrayDeque<Transaction> pendingTransactions = new ArrayDeque<>();
+        private boolean overflowed;
+
+        private Subscription(Set<String> accountNumbers, Sink sink) {
+            this.accountNumbers = accountNumbers;
+            this.sink = sink;
+        }
+
+        public Set<String> getAccountNumbers() { return accountNumbers; }
+
+        synchronized void offerBalance(String accountNumber, BigDecimal balance) {
+            pendingBalances.put(accountNumber, balance); // Coalesce: keep only the latest
+        }
+
+        synchronized void offerTransaction(Transaction tx) {
+            if (pendingTransactions.size() >= MAX_PENDING_TRANSACTIONS) {
+                pendingTransactions.pollFirst();
+                overflowed = true;
+            }
+            pendingTransactions.addLast(tx);
+        }
+
+        void flush() {
+            Map<String, BigDecimal> balances;
+            List<Transaction> transactions;
+            boolean resync;
+            synchronized (this) {
+                if (pendingBalances.isEmpty() && pendingTransactions.isEmpty()) {
+                    return;
+                }
+                balances = new LinkedHashMap<>(pendingBalances);
+                transactions = new ArrayList<>(pendingTransactions);
+                resync = overflowed;
+                pendingBalances.clear();
+                pendingTransactions.clear();
+                overflowed = false;
+            }
+
+            if (resync) {
+                sink.send("resync", Map.of("reason", "Too many updates; reload history"));
+            }
+            for (Transaction tx : transactions) {
+                sink.send("transaction", tx);
+            }
+            for (Map.Entry<String, BigDecimal> entry : balances.entrySet()) {
+                sink.send("balance", Map.of("accountNumber", entry.getKey(), "balance", entry.getValue()));
+            }
+        }
+    }
+
+    private final Map<String, Set<Subscription>> subscriptionsByAccount = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public AccountEventPublisher() {
+        this(DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * @param flushIntervalMs How often buffers are pushed to subscribers; 0 disables the
+     *                        background flusher so callers drive flushAll() themselves.
+     */
+    public AccountEventPublisher(long flushIntervalMs) {
+        if (flushIntervalMs <= 0) {
+            this.flusher = null;
+            return;
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "account-event-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher.scheduleAtFixedRate(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public Subscription subscribe(Collection<String> accountNumbers, Sink sink) {
+        Subscription subscription = new Subscription(Set.copyOf(accountNumbers), sink);
+        for (String accountNumber : subscription.getAccountNumbers()) {
+            subscriptionsByAccount.computeIfAbsent(accountNumber, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+        return subscription;
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        for (String accountNumber : subscription.getAccountNumbers()) {
+            subscriptionsByAccount.computeIfPresent(accountNumber, (k, subs) -> {
+                subs.remove(subscription);
+                return subs.isEmpty() ? null : subs;
+            });
+        }
+    }
+
+    public void publishBalance(Account account) {
+        Set<Subscription> subs = subscriptionsByAccount.get(account.getAccountNumber());
+        if (subs == null) return;
+        for (Subscription sub : subs) {
+            sub.offerBalance(account.getAccountNumber(), account.getBalance());
+        }
+    }
+
+    public void publishTransaction(Transaction tx) {
+        Set<Subscription> notified = new HashSet<>();
+        notify(tx.getSourceAccountNumber(), tx, notified);
+        notify(tx.getTargetAccountNumber(), tx, notified);
+    }
+
+    private void notify(String accountNumber, Transaction tx, Set<Subscription> notified) {
+        if (accountNumber == null) return;
+        Set<Subscription> subs = subscriptionsByAccount.get(accountNumber);
+        if (subs == null) return;
+        for (Subscription sub : subs) {
+            // A subscriber watching both sides of a transfer gets it once
+            if (notified.add(sub)) {
+                sub.offerTransaction(tx);
+            }
+        }
+    }
+
+    // Normally driven by the flusher thread
+    public void flushAll() {
+        Set<Subscription> all = new HashSet<>();
+        for (Set<Subscription> subs : subscriptionsByAccount.values()) {
+            all.addAll(subs);
+        }
+        for (Subscription sub : all) {
+            if (sub.sink.isClosed()) {
+                unsubscribe(sub);
+                continue;
+            }
+            try {
+                sub.flush();
+            } catch (Exception e) {
+                unsubscribe(sub);
+            }
+        }
+    }
+}
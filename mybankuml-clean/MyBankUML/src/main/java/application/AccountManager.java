@@ -5,14 +5,30 @@ import java.util.List;
 
 import data.DatabaseRepository;
 import model.Account;
+import model.Money;
 import model.Transaction;
 import util.SecurityUtils;
 
 public class AccountManager {
     private DatabaseRepository database;
+    private AccountEventPublisher publisher;
+    private VelocityLimits limits;
 
     public AccountManager(DatabaseRepository database) {
+        this(database, null);
+    }
+
+    public AccountManager(DatabaseRepository database, AccountEventPublisher publisher) {
+        this(database, publisher, null);
+    }
+
+    /**
+     * @param limits withdrawal limits to enforce, or null for none
+     */
+    public AccountManager(DatabaseRepository database, AccountEventPublisher publisher, VelocityLimits limits) {
         this.database = database;
+        this.publisher = publisher;
+        this.limits = limits;
     }
 
     /**
@@ -22,34 +38,59 @@ public class AccountManager {
         return database.findAccountsByUserID(userId);
     }
 
+    /**
+     * Whether the account belongs to the user, from the account -> owner index
+     */
+    public boolean isOwner(String userId, String accountNumber) {
+        return database.findAccountOwner(accountNumber).map(userId::equals).orElse(false);
+    }
+
     public void deposit(String accountNumber, BigDecimal amount) throws Exception {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+        Money value = Money.of(amount); // Rejects fractions of a cent
+        if (!value.isPositive()) {
             throw new Exception("Deposit amount must be positive");
         }
 
-        Account account = getAccount(accountNumber);
-        account.setBalance(account.getBalance().add(amount));
-        
-        database.saveAccount(account);
-        recordTransaction(accountNumber, null, amount, Transaction.Type.DEPOSIT);
+        // Re-read and re-apply if another writer saved the account in between
+        Account account = OptimisticRetry.run(() -> {
+            Account current = getAccount(accountNumber);
+            current.setBalanceMoney(current.getBalanceMoney().plus(value));
+            return database.saveIfVersion(current) ? current : null;
+        });
+        recordTransaction(accountNumber, null, value, Transaction.Type.DEPOSIT);
+        publishBalance(account);
     }
 
     public void withdraw(String accountNumber, BigDecimal amount) throws Exception {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+        Money value = Money.of(amount);
+        if (!value.isPositive()) {
             throw new Exception("Withdrawal amount must be positive");
         }
 
-        Account account = getAccount(accountNumber);
+        // Counts against the daily limit up front; given back if the withdrawal fails
+        long reservedAt = limits != null ? limits.reserve(accountNumber, Transaction.Type.WITHDRAWAL, value) : 0;
+        Account account;
+        try {
+            account = OptimisticRetry.run(() -> {
+                Account current = getAccount(accountNumber);
+                Money balance = current.getBalanceMoney();
 
-        // REAL-TIME VALIDATION (Revision #3)
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new Exception("Insufficient Funds");
-        }
+                // REAL-TIME VALIDATION (Revision #3); re-checked on every retry
+                if (balance.isLessThan(value)) {
+                    throw new Exception("Insufficient Funds");
+                }
 
-        account.setBalance(account.getBalance().subtract(amount));
-        
-        database.saveAccount(account);
-        recordTransaction(accountNumber, null, amount, Transaction.Type.WITHDRAWAL);
+                current.setBalanceMoney(balance.minus(value));
+                return database.saveIfVersion(current) ? current : null;
+            });
+        } catch (Exception e) {
+            if (limits != null) {
+                limits.cancel(accountNumber, Transaction.Type.WITHDRAWAL, value, reservedAt);
+            }
+            throw e;
+        }
+        recordTransaction(accountNumber, null, value, Transaction.Type.WITHDRAWAL);
+        publishBalance(account);
     }
 
     public BigDecimal getBalance(String accountNumber) throws Exception {
@@ -62,8 +103,17 @@ public class AccountManager {
                 .orElseThrow(() -> new Exception("Account not found: " + accountNumber));
     }
 
-    private void recordTransaction(String source, String target, BigDecimal amount, Transaction.Type type) {
+    private void recordTransaction(String source, String target, Money amount, Transaction.Type type) {
         Transaction tx = new Transaction(SecurityUtils.generateUUID(), source, target, amount, type);
         database.logTransaction(tx);
+        if (publisher != null) {
+            publisher.publishTransaction(tx);
+        }
+    }
+
+    private void publishBalance(Account account) {
+        if (publisher != null) {
+            publisher.publishBalance(account);
+        }
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package application;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import data.DatabaseRepository;
 import model.AuditLog;
@@ -26,34 +27,52 @@ public class AdminManager {
     }
 
     public void updateUserStatus(User adminUser, String targetUserId, String statusStr) throws Exception {
-        User target = getUser(targetUserId);
-        try {
-            User.Status newStatus = User.Status.valueOf(statusStr.toUpperCase());
-            target.setStatus(newStatus);
-            database.saveUser(target);
-            logAudit(adminUser, "UPDATE_STATUS_" + newStatus, targetUserId);
-        } catch (IllegalArgumentException e) {
-            throw new Exception("Invalid Status");
-        }
+        updateUser(adminUser, targetUserId, statusStr, null, null);
     }
 
     public void updateUserRole(User adminUser, String targetUserId, String roleStr) throws Exception {
-        User target = getUser(targetUserId);
-        try {
-            User.Role newRole = User.Role.valueOf(roleStr.toUpperCase());
-            target.setRole(newRole); 
-            database.saveUser(target);
-            logAudit(adminUser, "UPDATE_ROLE_" + newRole, targetUserId);
-        } catch (IllegalArgumentException e) {
-            throw new Exception("Invalid Role");
-        }
+        updateUser(adminUser, targetUserId, null, roleStr, null);
     }
 
     public void toggle2FA(User adminUser, String targetUserId, boolean enabled) throws Exception {
-        User target = getUser(targetUserId);
-        target.setTwoFactorEnabled(enabled);
-        database.saveUser(target);
-        logAudit(adminUser, "TOGGLE_2FA_" + enabled, targetUserId);
+        updateUser(adminUser, targetUserId, null, null, enabled);
+    }
+
+    /**
+     * Applies any of status, role and 2FA (null = leave as is) in one save, so
+     * a PATCH touching several fields is one write, and nothing is written if
+     * one of the values is invalid. Each requested change is audited.
+     */
+    public void updateUser(User adminUser, String targetUserId, String statusStr, String roleStr, Boolean twoFactorEnabled) throws Exception {
+        User.Status newStatus = null;
+        if (statusStr != null) {
+            try {
+                newStatus = User.Status.valueOf(statusStr.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new Exception("Invalid Status");
+            }
+        }
+        User.Role newRole = null;
+        if (roleStr != null) {
+            try {
+                newRole = User.Role.valueOf(roleStr.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new Exception("Invalid Role");
+            }
+        }
+
+        User.Status status = newStatus;
+        User.Role role = newRole;
+        // Versioned save, so e.g. a concurrent failed-login counter update is not overwritten
+        updateUser(targetUserId, target -> {
+            if (status != null) target.setStatus(status);
+            if (role != null) target.setRole(role);
+            if (twoFactorEnabled != null) target.setTwoFactorEnabled(twoFactorEnabled);
+        });
+
+        if (status != null) logAudit(adminUser, "UPDATE_STATUS_" + status, targetUserId);
+        if (role != null) logAudit(adminUser, "UPDATE_ROLE_" + role, targetUserId);
+        if (twoFactorEnabled != null) logAudit(adminUser, "TOGGLE_2FA_" + twoFactorEnabled, targetUserId);
     }
 
     // NEW: Fetch all audit logs
@@ -65,6 +84,15 @@ public class AdminManager {
         return database.findUserByID(id).orElseThrow(() -> new Exception("User not found"));
     }
 
+    // Read-modify-write with retry on version conflicts
+    private void updateUser(String id, Consumer<User> change) throws Exception {
+        OptimisticRetry.run(() -> {
+            User target = getUser(id);
+            change.accept(target);
+            return database.saveIfVersion(target) ? target : null;
+        });
+    }
+
     private void logAudit(User admin, String action, String targetId) {
         AuditLog log = new AuditLog(SecurityUtils.generateUUID(), admin.getUserID(), action, targetId);
         database.logAudit(log);
@@ -3,33 +3,27 @@ package application;
 import data.DatabaseRepository;
 import model.User;
 import util.SecurityUtils;
+import util.SessionTokens;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class AuthenticationManager {
     private DatabaseRepository database;
-    
-    // Session Management
-    private static class Session {
-        String userId;
-        LocalDateTime lastAccessed;
-        
-        Session(String userId) {
-            this.userId = userId;
-            this.lastAccessed = LocalDateTime.now();
-        }
-    }
 
-    // Static map to persist sessions
-    private static Map<String, Session> activeSessions = new HashMap<>();
-    private static final int SESSION_TIMEOUT_MINUTES = 30;
+    // Sessions are signed tokens (see SessionTokens); nothing is stored per session.
+    // Short-lived, but renewed while in use (renewSession)
+    public static final int SESSION_LIFETIME_MINUTES = 30;
+    private final SessionTokens tokens;
 
+    // Tokens signed with a key that only lives as long as this manager (tests, tools)
     public AuthenticationManager(DatabaseRepository database) {
+        this(database, SessionTokens.withRandomKey(SESSION_LIFETIME_MINUTES * 60_000L));
+    }
+
+    public AuthenticationManager(DatabaseRepository database, SessionTokens tokens) {
         this.database = database;
+        this.tokens = tokens;
     }
 
     public String login(String username, String password) throws Exception {
@@ -49,45 +43,80 @@ public class AuthenticationManager {
 
         // VERIFY PASSWORD
         if (SecurityUtils.checkPassword(password, user.getPasswordHash())) {
-            user.resetFailedAttempts();
-            database.saveUser(user);
-            
-            String token = SecurityUtils.generateUUID();
-            activeSessions.put(token, new Session(user.getUserID())); 
-            return token;
+            updateUser(user, User::resetFailedAttempts);
+            return tokens.issue(user.getUserID(), user.getRole().name());
         } else {
-            user.incrementFailedAttempts();
-            if (user.getFailedLoginAttempts() >= 5) {
-                user.setStatus(User.Status.LOCKED);
-            }
-            database.saveUser(user);
+            // Counted with a versioned save, so parallel wrong guesses (or an admin
+            // changing the status meanwhile) are not lost
+            updateUser(user, u -> {
+                u.incrementFailedAttempts();
+                if (u.getFailedLoginAttempts() >= 5) {
+                    u.setStatus(User.Status.LOCKED);
+                }
+            });
             throw new Exception("Invalid credentials");
         }
     }
 
+    // Applies change to the copy we have, re-reading the user if someone else saved first
+    private void updateUser(User user, Consumer<User> change) throws Exception {
+        User[] current = {user};
+        OptimisticRetry.run(() -> {
+            User target = current[0];
+            if (target == null) {
+                target = database.findUserByID(user.getUserID()).orElseThrow(() -> new Exception("User not found"));
+            }
+            current[0] = null;
+            change.accept(target);
+            return database.saveIfVersion(target) ? target : null;
+        });
+    }
+
     public void logout(String token) {
-        activeSessions.remove(token);
+        try {
+            tokens.revoke(tokens.verify(token));
+        } catch (Exception e) {
+            // Already invalid or expired; nothing to revoke
+        }
+    }
+
+    /**
+     * Ends every session the user has open, e.g. when an admin locks the
+     * account or changes its role (tokens carry the role they were issued with).
+     */
+    public void revokeSessions(String userId) {
+        tokens.revokeUser(userId);
     }
 
     public User getUserByToken(String token) throws Exception {
-        if (!activeSessions.containsKey(token)) {
-            throw new Exception("Invalid session");
-        }
+        return getUser(verifySession(token));
+    }
 
-        Session session = activeSessions.get(token);
-        
-        // CHECK TIMEOUT
-        long minutesInactive = ChronoUnit.MINUTES.between(session.lastAccessed, LocalDateTime.now());
-        if (minutesInactive > SESSION_TIMEOUT_MINUTES) {
-            activeSessions.remove(token);
-            throw new Exception("Session expired");
-        }
+    /**
+     * @throws Exception if the token is not a valid, unexpired, unrevoked session
+     */
+    public SessionTokens.Claims verifySession(String token) throws Exception {
+        return tokens.verify(token);
+    }
 
-        // Refresh timestamp
-        session.lastAccessed = LocalDateTime.now();
-        
-        return database.findUserByID(session.userId)
+    /**
+     * The user a verified session belongs to. Also checks their status, so a locked or deactivated
+     * user is shut out even where the revocation of their sessions has not arrived yet.
+     */
+    public User getUser(SessionTokens.Claims claims) throws Exception {
+        User user = database.findUserByID(claims.getUserId())
                 .orElseThrow(() -> new Exception("User not found"));
+        if (user.getStatus() != User.Status.ACTIVE) {
+            throw new Exception("Account is locked/inactive (" + user.getStatus() + "). Contact Admin.");
+        }
+        return user;
+    }
+
+    /**
+     * A replacement token once the session is past half its lifetime, or null (see SessionTokens.renewIfDue).
+     */
+    public String renewSession(SessionTokens.Claims claims) {
+        return tokens.renewIfDue(claims);
     }
 
     public void changePassword(String username, String currentPassword, String newPassword) throws Exception {
@@ -103,7 +132,6 @@ public class AuthenticationManager {
     }
     
     String newPasswordHash = util.SecurityUtils.hashPassword(newPassword);
-    user.setPasswordHash(newPasswordHash);
-    database.saveUser(user);
+    updateUser(user, u -> u.setPasswordHash(newPasswordHash));
 }
 }
\ No newline at end of file
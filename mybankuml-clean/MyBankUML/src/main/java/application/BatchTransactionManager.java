@@ -0,0 +1,360 @@
+package application;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import data.DatabaseRepository;
+import model.Account;
+import model.Money;
+import model.Transaction;
+import util.SecurityUtils;
+
+/**
+ * Executes bulk submissions (payroll, merchant settlement) of deposits,
+ * withdrawals and transfers.
+ *
+ * Items touching the same account run in submission order; items whose
+ * accounts are unrelated run in parallel. All successful postings of a batch
+ * are committed with one grouped write per file instead of one write per item.
+ */
+public class BatchTransactionManager {
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    private DatabaseRepository database;
+    private AccountEventPublisher publisher;
+    private VelocityLimits limits;
+
+    public BatchTransactionManager(DatabaseRepository database) {
+        this(database, null);
+    }
+
+    public BatchTransactionManager(DatabaseRepository database, AccountEventPublisher publisher) {
+        this(database, publisher, null);
+    }
+
+    /**
+     * @param limits withdrawal and transfer limits to enforce per item, or null for none
+     */
+    public BatchTransactionManager(DatabaseRepository database, AccountEventPublisher publisher, VelocityLimits limits) {
+        this.database = database;
+        this.publisher = publisher;
+        this.limits = limits;
+    }
+
+    /**
+     * One line of a bulk submission.
+     */
+    public static class Item {
+        private final int index;
+        private final Transaction.Type type;
+        private final String accountNumber;
+        private final String targetAccount;
+        private final BigDecimal amount;
+
+        public Item(int index, Transaction.Type type, String accountNumber, String targetAccount, BigDecimal amount) {
+            this.index = index;
+            this.type = type;
+            this.accountNumber = accountNumber;
+            this.targetAccount = targetAccount;
+            this.amount = amount;
+        }
+
+        public int getIndex() { return index; }
+        public Transaction.Type getType() { return type; }
+        public String getAccountNumber() { return accountNumber; }
+        public String getTargetAccount() { return targetAccount; }
+        public BigDecimal getAmount() { return amount; }
+    }
+
+    /**
+     * Outcome of one item, returned in submission order.
+     */
+    public static class Result {
+        private final int index;
+        private final boolean success;
+        private final String transactionID;
+        private final String error;
+
+        private Result(int index, boolean success, String transactionID, String error) {
+            this.index = index;
+            this.success = success;
+            this.transactionID = transactionID;
+            this.error = error;
+        }
+
+        public static Result ok(int index, String transactionID) {
+            return new Result(index, true, transactionID, null);
+        }
+
+        public static Result failed(int index, String error) {
+            return new Result(index, false, null, error);
+        }
+
+        public int getIndex() { return index; }
+        public boolean isSuccess() { return success; }
+        public String getTransactionID() { return transactionID; }
+        public String getError() { return error; }
+    }
+
+    // A posting counted against an account's limits, given back if the batch is not committed
+    private static class Reservation {
+        final Item item;
+        final long reservedAt;
+
+        Reservation(Item item, long reservedAt) {
+            this.item = item;
+            this.reservedAt = reservedAt;
+        }
+    }
+
+    public List<Result> execute(List<Item> items) throws Exception {
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new Exception("Batch exceeds maximum of " + MAX_BATCH_SIZE + " items");
+        }
+
+        // If a concurrent write touched any of the batch's accounts, the whole batch is re-run on fresh balances
+        return OptimisticRetry.run(() -> attempt(items));
+    }
+
+    // One pass over the batch; null if the grouped commit lost a version race (nothing was written)
+    private List<Result> attempt(List<Item> items) {
+        Result[] results = new Result[items.size()];
+        Map<String, Account> accounts = new HashMap<>();
+        List<Item> valid = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+
+        // 1. Validate every item and load each referenced account once
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            String error = validate(item, accounts);
+            if (error != null) {
+                results[i] = Result.failed(item.getIndex(), error);
+            } else {
+                valid.add(item);
+                positions.add(i);
+            }
+        }
+
+        // 2. Group items into independent sets of accounts (transfers link two accounts)
+        Map<String, List<Integer>> groups = groupByAccounts(valid);
+
+        // 3. Run each group sequentially, and the groups in parallel, against working balances
+        Map<Integer, Transaction> postings = Collections.synchronizedMap(new HashMap<>());
+        Map<String, Money> balances = Collections.synchronizedMap(new HashMap<>());
+        List<Reservation> reserved = Collections.synchronizedList(new ArrayList<>());
+
+        groups.values().parallelStream().forEach(group -> {
+            Map<String, Money> working = new HashMap<>();
+            for (int i : group) {
+                Item item = valid.get(i);
+                String error = apply(item, accounts, working, reserved);
+                if (error != null) {
+                    results[positions.get(i)] = Result.failed(item.getIndex(), error);
+                } else {
+                    postings.put(i, new Transaction(
+                        SecurityUtils.generateUUID(),
+                        item.getAccountNumber(),
+                        item.getType() == Transaction.Type.TRANSFER ? item.getTargetAccount() : null,
+                        Money.of(item.getAmount()),
+                        item.getType()
+                    ));
+                }
+            }
+            balances.putAll(working);
+        });
+
+        // 4. Grouped commit: one versioned account write and one ledger write for the whole batch
+        List<Account> changed = new ArrayList<>();
+        for (Map.Entry<String, Money> entry : balances.entrySet()) {
+            Account account = accounts.get(entry.getKey());
+            account.setBalanceMoney(entry.getValue());
+            changed.add(account);
+        }
+
+        List<Transaction> ledger = new ArrayList<>();
+        for (int i = 0; i < valid.size(); i++) {
+            Transaction tx = postings.get(i);
+            if (tx != null) {
+                ledger.add(tx);
+                results[positions.get(i)] = Result.ok(valid.get(i).getIndex(), tx.getTransactionID());
+            }
+        }
+
+        if (!changed.isEmpty() && !database.saveAccountsIfVersion(changed)) {
+            for (Reservation r : reserved) {
+                limits.cancel(r.item.getAccountNumber(), r.item.getType(), Money.of(r.item.getAmount()), r.reservedAt);
+            }
+            return null;
+        }
+        if (!ledger.isEmpty()) {
+            database.logTransactions(ledger);
+        }
+
+        // Push to live dashboards; subscribers coalesce repeated balance updates
+        if (publisher != null) {
+            ledger.forEach(publisher::publishTransaction);
+            changed.forEach(publisher::publishBalance);
+        }
+
+        List<Result> ordered = new ArrayList<>(results.length);
+        Collections.addAll(ordered, results);
+        return ordered;
+    }
+
+    // Mirrors the checks done by AccountManager/TransactionManager on the single-item path
+    private String validate(Item item, Map<String, Account> accounts) {
+        if (item.getType() == null) {
+            return "Invalid transaction type";
+        }
+        if (item.getAmount() == null) {
+            return "Amount is required";
+        }
+        Money amount;
+        try {
+            amount = Money.of(item.getAmount());
+        } catch (ArithmeticException e) {
+            return e.getMessage();
+        }
+        if (!amount.isPositive()) {
+            switch (item.getType()) {
+                case DEPOSIT: return "Deposit amount must be positive";
+                case WITHDRAWAL: return "Withdrawal amount must be positive";
+                default: return "Transfer amount must be positive";
+            }
+        }
+
+        if (item.getType() == Transaction.Type.TRANSFER) {
+            if (item.getTargetAccount() == null) {
+                return "Target account required for transfer";
+            }
+            if (item.getTargetAccount().equals(item.getAccountNumber())) {
+                return "Cannot transfer to the same account";
+            }
+            if (!load(item.getAccountNumber(), accounts)) {
+                return "Source account not found";
+            }
+            if (!load(item.getTargetAccount(), accounts)) {
+                return "Target account not found";
+            }
+            return null;
+        }
+
+        if (!load(item.getAccountNumber(), accounts)) {
+            return "Account not found: " + item.getAccountNumber();
+        }
+        return null;
+    }
+
+    private boolean load(String accountNumber, Map<String, Account> accounts) {
+        if (accountNumber == null) {
+            return false;
+        }
+        if (accounts.containsKey(accountNumber)) {
+            return true;
+        }
+        Optional<Account> account = database.findAccountByNumber(accountNumber);
+        account.ifPresent(a -> accounts.put(accountNumber, a));
+        return account.isPresent();
+    }
+
+    private String apply(Item item, Map<String, Account> accounts, Map<String, Money> working, List<Reservation> reserved) {
+        String source = item.getAccountNumber();
+        Money amount = Money.of(item.getAmount());
+        Money sourceBalance = working.computeIfAbsent(source, n -> accounts.get(n).getBalanceMoney());
+
+        try {
+            switch (item.getType()) {
+                case DEPOSIT:
+                    working.put(source, sourceBalance.plus(amount));
+                    return null;
+                case WITHDRAWAL:
+                    if (sourceBalance.isLessThan(amount)) {
+                        return "Insufficient Funds";
+                    }
+                    String overLimit = reserve(item, amount, reserved);
+                    if (overLimit != null) {
+                        return overLimit;
+                    }
+                    working.put(source, sourceBalance.minus(amount));
+                    return null;
+                default:
+                    if (sourceBalance.isLessThan(amount)) {
+                        return "Insufficient Funds for Transfer";
+                    }
+                    String target = item.getTargetAccount();
+                    Money targetBalance = working.computeIfAbsent(target, n -> accounts.get(n).getBalanceMoney());
+                    Money credited = targetBalance.plus(amount); // Overflow check before either side changes
+                    String overTransferLimit = reserve(item, amount, reserved);
+                    if (overTransferLimit != null) {
+                        return overTransferLimit;
+                    }
+                    working.put(source, sourceBalance.minus(amount));
+                    working.put(target, credited);
+                    return null;
+            }
+        } catch (ArithmeticException e) {
+            return "Amount is out of range";
+        }
+    }
+
+    // Null if the item is within its account's limits (and is now counted against them)
+    private String reserve(Item item, Money amount, List<Reservation> reserved) {
+        if (limits == null) {
+            return null;
+        }
+        try {
+            reserved.add(new Reservation(item, limits.reserve(item.getAccountNumber(), item.getType(), amount)));
+            return null;
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    // Union-find over account numbers; returns positions in 'valid' keyed by group root, in submission order
+    private Map<String, List<Integer>> groupByAccounts(List<Item> valid) {
+        Map<String, String> parent = new HashMap<>();
+        for (Item item : valid) {
+            union(parent, item.getAccountNumber(), item.getAccountNumber());
+            if (item.getType() == Transaction.Type.TRANSFER) {
+                union(parent, item.getAccountNumber(), item.getTargetAccount());
+            }
+        }
+
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < valid.size(); i++) {
+            String root = find(parent, valid.get(i).getAccountNumber());
+            groups.computeIfAbsent(root, r -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    private String find(Map<String, String> parent, String account) {
+        String root = account;
+        while (!parent.get(root).equals(root)) {
+            root = parent.get(root);
+        }
+        // Path compression
+        while (!account.equals(root)) {
+            String next = parent.get(account);
+            parent.put(account, root);
+            account = next;
+        }
+        return root;
+    }
+
+    private void union(Map<String, String> parent, String a, String b) {
+        parent.putIfAbsent(a, a);
+        parent.putIfAbsent(b, b);
+        String rootA = find(parent, a);
+        String rootB = find(parent, b);
+        if (!rootA.equals(rootB)) {
+            parent.put(rootB, rootA);
+        }
+    }
+}
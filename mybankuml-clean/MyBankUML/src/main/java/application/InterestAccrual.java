@@ -0,0 +1,290 @@
+package application;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import data.DatabaseRepository;
+import data.Partitioner;
+import model.Account;
+import model.Money;
+import model.Transaction;
+
+/**
+ * Daily interest on SAVINGS accounts: balance * annual rate / 365, rounded
+ * half-even to the cent, posted as a DEPOSIT once the day is over.
+ *
+ * Accounts are split into PARTITIONS by account number and the partitions are
+ * processed in parallel on the common fork-join pool. Each partition is one
+ * ledger write followed by one grouped commit: a versioned save of all its
+ * credited accounts. No account is locked while interest is computed; if an
+ * online deposit or withdrawal saved one of the partition's accounts in
+ * between, that partition falls back to per-account optimistic retries for
+ * its accounts, crediting the amounts already posted.
+ *
+ * Progress is saved after each partition (data/interest.json), so a run that is
+ * interrupted resumes with the partitions it had not finished. A credited
+ * account records the day in Account.interestPaidThrough, in the same save as
+ * its balance, and is skipped from then on. Postings have an ID derived from
+ * the day and account; a resumed run that finds one for an account not yet
+ * credited (interrupted between the two writes) credits the posted amount
+ * without posting again. So no account is credited or posted twice for a day.
+ */
+public class InterestAccrual {
+    public static final int PARTITIONS = 64;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final BigDecimal DAYS_PER_YEAR = BigDecimal.valueOf(365);
+
+    // Saved between partitions; public fields for Jackson
+    static class Progress {
+        public String lastCompletedDay; // Nullable: never run
+        public String day;              // Nullable: no run in progress
+        public Set<Integer> donePartitions = new TreeSet<>();
+    }
+
+    private final DatabaseRepository database;
+    private final BigDecimal annualRate;
+    private final Path file; // Nullable: in-memory only
+    private final Partitioner partitioner = new Partitioner(PARTITIONS);
+    private Progress progress = new Progress();
+    private ScheduledExecutorService runner;
+
+    private final AtomicLong accountsCredited = new AtomicLong();
+    private final AtomicLong interestMinor = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong alreadyCredited = new AtomicLong();
+    private volatile long lastRunMillis;
+
+    /**
+     * @param annualRate e.g. 0.02 for 2% a year
+     * @param file       where progress is kept across restarts, or null
+     */
+    public InterestAccrual(DatabaseRepository database, BigDecimal annualRate, Path file) {
+        if (annualRate.signum() < 0) {
+            throw new IllegalArgumentException("Interest rate must not be negative");
+        }
+        this.database = database;
+        this.annualRate = annualRate;
+        this.file = file;
+        if (file != null && Files.exists(file)) {
+            try {
+                progress = MAPPER.readValue(file.toFile(), Progress.class);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Accrues every day from the one after the last completed day (or just yesterday,
+     * on the first run) through yesterday. Checked hourly, so a day is paid within the
+     * hour after midnight, and days missed while the server was down are caught up.
+     */
+    public synchronized void start() {
+        if (runner != null) return;
+        runner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "interest-accrual");
+            t.setDaemon(true);
+            return t;
+        });
+        runner.scheduleWithFixedDelay(() -> {
+            try {
+                catchUp(LocalDate.now().minusDays(1));
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // Try again next hour
+            }
+        }, 0, 1, TimeUnit.HOURS);
+    }
+
+    public synchronized void catchUp(LocalDate throughDay) {
+        LocalDate day = progress.lastCompletedDay == null ? throughDay : LocalDate.parse(progress.lastCompletedDay).plusDays(1);
+        for (; !day.isAfter(throughDay); day = day.plusDays(1)) {
+            accrue(day);
+        }
+    }
+
+    /**
+     * Credits one day's interest to every SAVINGS account, resuming a run for the same
+     * day that was interrupted. Does nothing for days up to the last completed one.
+     * @return accounts credited by this call
+     */
+    public synchronized int accrue(LocalDate day) {
+        if (progress.lastCompletedDay != null && !day.isAfter(LocalDate.parse(progress.lastCompletedDay))) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        boolean resumed = day.toString().equals(progress.day);
+        if (!resumed) {
+            progress.day = day.toString();
+            progress.donePartitions.clear();
+            save();
+        }
+
+        Map<Integer, List<Account>> partitions = database.findAllAccounts().stream()
+                .filter(a -> a.getType() == Account.AccountType.SAVINGS)
+                .collect(Collectors.groupingBy(a -> partitioner.nodeFor(a.getAccountNumber())));
+
+        int[] todo = IntStream.range(0, PARTITIONS).filter(p -> !progress.donePartitions.contains(p)).toArray();
+        int credited = IntStream.of(todo).parallel()
+                .map(p -> {
+                    int n = accruePartition(day, partitions.getOrDefault(p, List.of()), resumed);
+                    markDone(p);
+                    return n;
+                })
+                .sum();
+
+        progress.lastCompletedDay = day.toString();
+        progress.day = null;
+        progress.donePartitions.clear();
+        save();
+        lastRunMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return credited;
+    }
+
+    private int accruePartition(LocalDate day, List<Account> accounts, boolean resumed) {
+        String paidThrough = day.toString();
+        List<Account> changed = new ArrayList<>();
+        Map<String, Money> credits = new HashMap<>(); // accountNumber -> the day's interest, as posted
+        List<Transaction> ledger = new ArrayList<>();  // Postings not in the ledger yet
+        for (Account account : accounts) {
+            if (isPaidThrough(account, day)) {
+                alreadyCredited.incrementAndGet();
+                continue;
+            }
+            String txId = postingId(day, account.getAccountNumber());
+            Transaction posted = resumed ? findPosting(day, account.getAccountNumber(), txId) : null;
+            Money interest;
+            if (posted != null) {
+                interest = posted.getAmountMoney(); // Posted before the run was interrupted, but not credited
+            } else {
+                interest = dailyInterest(account.getBalanceMoney());
+                if (!interest.isPositive()) continue;
+                ledger.add(new Transaction(txId, account.getAccountNumber(), null, interest, Transaction.Type.DEPOSIT));
+            }
+            account.setBalanceMoney(account.getBalanceMoney().plus(interest));
+            account.setInterestPaidThrough(paidThrough);
+            changed.add(account);
+            credits.put(account.getAccountNumber(), interest);
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+
+        // Ledger first: if the balances are not saved after it, the resumed run finds the postings and credits them
+        if (!ledger.isEmpty()) {
+            database.logTransactions(ledger);
+        }
+        if (!database.saveAccountsIfVersion(changed)) {
+            // Some account moved since it was read; credit them one at a time on fresh balances
+            conflicts.incrementAndGet();
+            for (Account account : changed) {
+                Money interest = credits.get(account.getAccountNumber());
+                try {
+                    OptimisticRetry.run(() -> {
+                        Account current = database.findAccountByNumber(account.getAccountNumber()).orElse(null);
+                        if (current == null || isPaidThrough(current, day)) return Boolean.FALSE; // Closed, or credited, since
+                        current.setBalanceMoney(current.getBalanceMoney().plus(interest));
+                        current.setInterestPaidThrough(paidThrough);
+                        return database.saveIfVersion(current) ? Boolean.TRUE : null;
+                    });
+                } catch (Exception e) {
+                    // Posted but not credited: the partition is left unfinished, so the resumed run credits it
+                    throw new IllegalStateException("Could not credit interest to " + account.getAccountNumber(), e);
+                }
+            }
+        }
+
+        for (Money interest : credits.values()) {
+            interestMinor.addAndGet(interest.getMinorUnits());
+        }
+        accountsCredited.addAndGet(changed.size());
+        return changed.size();
+    }
+
+    // The balance already includes the day's interest; saved with it in the same versioned write
+    private static boolean isPaidThrough(Account account, LocalDate day) {
+        return account.getInterestPaidThrough() != null && !LocalDate.parse(account.getInterestPaidThrough()).isBefore(day);
+    }
+
+    Money dailyInterest(Money balance) {
+        if (!balance.isPositive()) return Money.ZERO;
+        return Money.ofMinor(BigDecimal.valueOf(balance.getMinorUnits()).multiply(annualRate)
+                .divide(DAYS_PER_YEAR, 0, RoundingMode.HALF_EVEN).longValueExact());
+    }
+
+    // Same for every run of the day, so a resumed run can tell what was already posted
+    private static String postingId(LocalDate day, String accountNumber) {
+        return UUID.nameUUIDFromBytes(("interest:" + day + ":" + accountNumber).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    // Looks back through postings made since the day ended; null if the day's posting is not among them
+    private Transaction findPosting(LocalDate day, String accountNumber, String txId) {
+        String dayEnd = day.plusDays(1).atStartOfDay().toString();
+        List<Transaction> history = database.findTransactionsByAccount(accountNumber);
+        for (int i = history.size() - 1; i >= 0; i--) {
+            Transaction tx = history.get(i);
+            if (tx.getTimestamp() != null && LocalDateTime.parse(tx.getTimestamp()).isBefore(LocalDateTime.parse(dayEnd))) {
+                return null;
+            }
+            if (txId.equals(tx.getTransactionID())) {
+                return tx;
+            }
+        }
+        return null;
+    }
+
+    private void markDone(int partition) {
+        synchronized (progress) {
+            progress.donePartitions.add(partition);
+        }
+        save();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("annualRate", annualRate.toPlainString());
+        stats.put("lastCompletedDay", progress.lastCompletedDay);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("accountsCredited", accountsCredited.get());
+        stats.put("interestPosted", Money.toBigDecimal(interestMinor.get()).toPlainString());
+        stats.put("partitionConflicts", conflicts.get());
+        stats.put("skippedAlreadyCredited", alreadyCredited.get());
+        return stats;
+    }
+
+    // Written next to the file and renamed, so a crash leaves the old or the new state
+    private void save() {
+        if (file == null) return;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        synchronized (progress) {
+            try {
+                MAPPER.writeValue(temp.toFile(), progress);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
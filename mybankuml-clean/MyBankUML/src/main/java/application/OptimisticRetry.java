@@ -0,0 +1,36 @@
+package application;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded retry loop for read-modify-saveIfVersion updates. No locks are held
+ * between the read and the save; a conflicting writer just makes us re-read.
+ */
+final class OptimisticRetry {
+    static final int MAX_ATTEMPTS = 5;
+    static final String CONFLICT_MESSAGE = "The record was updated concurrently, please try again";
+
+    /**
+     * One read-modify-write pass. Returns null if the save lost a version race,
+     * and throws for business errors (which are not retried).
+     */
+    @FunctionalInterface
+    interface Attempt<T> {
+        T run() throws Exception;
+    }
+
+    private OptimisticRetry() {}
+
+    static <T> T run(Attempt<T> attempt) throws Exception {
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            T result = attempt.run();
+            if (result != null) {
+                return result;
+            }
+            // Small randomized pause so two colliding writers do not collide again in lockstep
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(10_000L << i));
+        }
+        throw new Exception(CONFLICT_MESSAGE);
+    }
+}
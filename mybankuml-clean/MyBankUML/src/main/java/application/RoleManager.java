@@ -1,8 +1,26 @@
 package application;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.Set;
+
 import model.User;
 
+/**
+ * Role-based access control.
+ *
+ * Which role may use which feature comes from a policy file (roles.properties
+ * on the classpath by default, one "ROLE=FEATURE, FEATURE" line per role).
+ * It is compiled once into a bitmask per role, so canAccess is a shift and an AND.
+ */
 public class RoleManager {
+    public static final String DEFAULT_POLICY = "/roles.properties";
 
     public enum Feature {
         VIEW_OWN_ACCOUNT,
@@ -12,23 +30,66 @@ public class RoleManager {
         VIEW_AUDIT_LOGS     // Admin only
     }
 
-    public boolean canAccess(User user, Feature feature) {
-        switch (user.getRole()) {
-            case CUSTOMER:
-                return feature == Feature.VIEW_OWN_ACCOUNT 
-                    || feature == Feature.PROCESS_TRANSACTION;
-            
-            case TELLER:
-                return feature == Feature.SEARCH_CUSTOMERS 
-                    || feature == Feature.PROCESS_TRANSACTION; // On behalf of others
-            
-            case ADMIN:
-                return feature == Feature.MANAGE_USERS 
-                    || feature == Feature.VIEW_AUDIT_LOGS 
-                    || feature == Feature.SEARCH_CUSTOMERS;
-            
-            default:
-                return false;
+    private final long[] permissions = new long[User.Role.values().length]; // Role ordinal -> bit per Feature ordinal
+
+    public RoleManager() {
+        this(loadDefaultPolicy());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the policy names an unknown role or feature
+     */
+    public RoleManager(Properties policy) {
+        for (String name : policy.stringPropertyNames()) {
+            User.Role role;
+            try {
+                role = User.Role.valueOf(name.trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown role in policy: " + name);
+            }
+            long mask = 0;
+            for (Feature feature : parseFeatures(policy.getProperty(name))) {
+                mask |= 1L << feature.ordinal();
+            }
+            permissions[role.ordinal()] = mask;
         }
     }
-}
\ No newline at end of file
+
+    public static RoleManager load(Path policyFile) throws IOException {
+        Properties policy = new Properties();
+        try (Reader reader = Files.newBufferedReader(policyFile, StandardCharsets.UTF_8)) {
+            policy.load(reader);
+        }
+        return new RoleManager(policy);
+    }
+
+    private static Properties loadDefaultPolicy() {
+        Properties policy = new Properties();
+        try (InputStream in = RoleManager.class.getResourceAsStream(DEFAULT_POLICY)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing role policy " + DEFAULT_POLICY);
+            }
+            policy.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read role policy " + DEFAULT_POLICY, e);
+        }
+        return policy;
+    }
+
+    private static Set<Feature> parseFeatures(String list) {
+        Set<Feature> features = EnumSet.noneOf(Feature.class);
+        for (String name : list.split(",")) {
+            if (name.trim().isEmpty()) continue;
+            try {
+                features.add(Feature.valueOf(name.trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown feature in policy: " + name.trim());
+            }
+        }
+        return features;
+    }
+
+    public boolean canAccess(User user, Feature feature) {
+        return (permissions[user.getRole().ordinal()] & (1L << feature.ordinal())) != 0;
+    }
+}
@@ -0,0 +1,397 @@
+package application;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import data.ClusterNode;
+import data.DatabaseRepository;
+import data.LocalClusterNode;
+import data.Partitioner;
+import model.Money;
+import model.ScheduledTransfer;
+import model.Transaction;
+import util.SecurityUtils;
+import util.TimingWheel;
+
+/**
+ * Standing orders: transfers that run once or repeatedly at a set time.
+ *
+ * Active schedules wait in a timing wheel keyed by their next run. Each tick
+ * takes everything that came due and runs it through BatchTransactionManager,
+ * so a tick's payments are one grouped commit, in due-time order per account,
+ * with the usual balance checks and limits. An occurrence that fails (e.g.
+ * insufficient funds) is skipped and recorded on the schedule; a recurring
+ * schedule then moves on to its next occurrence.
+ *
+ * Schedules are kept in their own file (data/schedules.json). A schedule's
+ * next run is advanced and saved before its payment is made, so a crash in
+ * between can miss an occurrence but never pays one twice; if that save fails,
+ * the tick pays nothing and the occurrences are tried again. After downtime,
+ * missed occurrences are caught up one per schedule per tick, oldest first.
+ *
+ * On a cluster (setCluster) a schedule is kept and run by the node owning its
+ * source account, whichever node it was created through; lists, lookups and
+ * cancels are passed on to the nodes that hold the schedules. Each node's manager is
+ * its share (LocalClusterNode.Schedules).
+ */
+public class ScheduledTransferManager implements LocalClusterNode.Schedules {
+    public static final long TICK_MILLIS = 1000;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final DatabaseRepository database;
+    private final BatchTransactionManager batchManager;
+    private final Path file; // Nullable: in-memory only
+    private final LongSupplier clock;
+    private final Map<String, ScheduledTransfer> schedules = new LinkedHashMap<>();
+    private final TimingWheel<ScheduledTransfer> wheel;
+    private ScheduledExecutorService ticker;
+    private volatile List<? extends ClusterNode> cluster; // Null on a single node
+    private volatile Partitioner partitioner;
+
+    // Guarded by this
+    private long paymentsMade;
+    private long paymentsFailed;
+    private int lastTickPayments;
+    private long lastTickMillis;
+
+    public ScheduledTransferManager(DatabaseRepository database, BatchTransactionManager batchManager, Path file) {
+        this(database, batchManager, file, System::currentTimeMillis);
+    }
+
+    public ScheduledTransferManager(DatabaseRepository database, BatchTransactionManager batchManager, Path file, LongSupplier millisClock) {
+        this.database = database;
+        this.batchManager = batchManager;
+        this.file = file;
+        this.clock = millisClock;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, millisClock.getAsLong());
+        if (file != null && Files.exists(file)) {
+            try {
+                List<ScheduledTransfer> saved = MAPPER.readValue(file.toFile(), new TypeReference<List<ScheduledTransfer>>(){});
+                for (ScheduledTransfer s : saved) {
+                    schedules.put(s.getScheduleID(), s);
+                    if (s.getStatus() == ScheduledTransfer.Status.ACTIVE) {
+                        wheel.schedule(s, epochMillis(s.getNextRun()));
+                    }
+                }
+            } catch (IOException e) {
+                // Starting empty would overwrite every standing order with the next save
+                throw new IllegalStateException("Cannot read " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Every node of the cluster in partition order, this node's LocalClusterNode included;
+     * schedules are stored on, listed from and cancelled through them from now on.
+     */
+    public void setCluster(List<? extends ClusterNode> nodes) {
+        this.partitioner = new Partitioner(nodes.size());
+        this.cluster = new ArrayList<>(nodes);
+    }
+
+    /**
+     * @param firstRun    local date-time of the first run, or null for as soon as possible
+     * @param recurrence  ONCE, DAILY, WEEKLY or MONTHLY; null means ONCE
+     */
+    public ScheduledTransfer create(String ownerUserId, String sourceAccNum, String targetAccNum, BigDecimal amount,
+                                    String firstRun, String recurrence) throws Exception {
+        if (sourceAccNum == null || targetAccNum == null) {
+            throw new Exception("Source and target accounts are required");
+        }
+        if (sourceAccNum.equals(targetAccNum)) {
+            throw new Exception("Cannot transfer to the same account");
+        }
+        if (amount == null) {
+            throw new Exception("Amount is required");
+        }
+        Money value = Money.of(amount); // Rejects fractions of a cent
+        if (!value.isPositive()) {
+            throw new Exception("Transfer amount must be positive");
+        }
+        ScheduledTransfer.Recurrence repeat;
+        try {
+            repeat = recurrence == null ? ScheduledTransfer.Recurrence.ONCE : ScheduledTransfer.Recurrence.valueOf(recurrence.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Invalid recurrence");
+        }
+        LocalDateTime first;
+        try {
+            first = firstRun == null ? now() : LocalDateTime.parse(firstRun);
+        } catch (DateTimeParseException e) {
+            throw new Exception("Invalid first run time");
+        }
+        if (!database.findAccountByNumber(sourceAccNum).isPresent()) {
+            throw new Exception("Source account not found");
+        }
+        if (!database.findAccountByNumber(targetAccNum).isPresent()) {
+            throw new Exception("Target account not found");
+        }
+
+        ScheduledTransfer s = new ScheduledTransfer(SecurityUtils.generateUUID(), ownerUserId, sourceAccNum, targetAccNum, value, repeat, first);
+        List<? extends ClusterNode> nodes = cluster;
+        if (nodes == null) {
+            addSchedule(s);
+        } else {
+            nodes.get(partitioner.nodeFor(sourceAccNum)).addSchedule(s);
+        }
+        return s;
+    }
+
+    public List<ScheduledTransfer> getSchedulesByOwner(String ownerUserId) {
+        List<? extends ClusterNode> nodes = cluster;
+        if (nodes == null) {
+            return schedulesByOwner(ownerUserId);
+        }
+        List<ScheduledTransfer> all = new ArrayList<>();
+        for (ClusterNode node : nodes) {
+            all.addAll(node.schedulesByOwner(ownerUserId));
+        }
+        return all;
+    }
+
+    public ScheduledTransfer getSchedule(String scheduleId) throws Exception {
+        List<? extends ClusterNode> nodes = cluster;
+        ScheduledTransfer s = null;
+        if (nodes == null) {
+            s = schedule(scheduleId);
+        } else {
+            for (int i = 0; i < nodes.size() && s == null; i++) {
+                s = nodes.get(i).schedule(scheduleId);
+            }
+        }
+        if (s == null) {
+            throw new Exception("Schedule not found");
+        }
+        return s;
+    }
+
+    /**
+     * Stops further runs; a payment already taken by the current tick still goes through.
+     */
+    public void cancel(String scheduleId) throws Exception {
+        List<? extends ClusterNode> nodes = cluster;
+        if (nodes == null) {
+            getSchedule(scheduleId);
+            if (!cancelSchedule(scheduleId)) {
+                throw new Exception("Schedule is not active");
+            }
+            return;
+        }
+        // Cancelled on the node that keeps it: the source account's, or for one created
+        // before schedules moved there, the node it was created through
+        for (ClusterNode node : nodes) {
+            if (node.schedule(scheduleId) != null) {
+                if (!node.cancelSchedule(scheduleId)) {
+                    throw new Exception("Schedule is not active");
+                }
+                return;
+            }
+        }
+        throw new Exception("Schedule not found");
+    }
+
+    // This node's share: the schedules kept in its own file
+
+    @Override
+    public synchronized void addSchedule(ScheduledTransfer s) {
+        schedules.put(s.getScheduleID(), s);
+        try {
+            save();
+        } catch (IOException e) {
+            schedules.remove(s.getScheduleID());
+            throw new IllegalStateException("Could not save the schedule", e);
+        }
+        wheel.schedule(s, epochMillis(s.getNextRun()));
+    }
+
+    @Override
+    public synchronized List<ScheduledTransfer> schedulesByOwner(String ownerUserId) {
+        return schedules.values().stream()
+                .filter(s -> s.getOwnerUserID().equals(ownerUserId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized ScheduledTransfer schedule(String scheduleId) {
+        return schedules.get(scheduleId);
+    }
+
+    @Override
+    public synchronized boolean cancelSchedule(String scheduleId) {
+        ScheduledTransfer s = schedules.get(scheduleId);
+        if (s == null || s.getStatus() != ScheduledTransfer.Status.ACTIVE) {
+            return false;
+        }
+        s.setStatus(ScheduledTransfer.Status.CANCELLED); // Left in the wheel; skipped when it comes due
+        try {
+            save();
+        } catch (IOException e) {
+            s.setStatus(ScheduledTransfer.Status.ACTIVE);
+            throw new IllegalStateException("Could not save the schedule", e);
+        }
+        return true;
+    }
+
+    public synchronized void start() {
+        if (ticker != null) return;
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "scheduled-transfers");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                runDue();
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // Keep ticking
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Makes every payment that is due now. Called by the ticker; public for tests and admin tooling.
+     * @return how many payments went through
+     */
+    public int runDue() {
+        long started = System.nanoTime();
+        List<ScheduledTransfer> due = new ArrayList<>();
+        List<String> dueRuns = new ArrayList<>();
+        synchronized (this) {
+            for (ScheduledTransfer s : wheel.advance(clock.getAsLong())) {
+                if (s.getStatus() == ScheduledTransfer.Status.ACTIVE) {
+                    due.add(s);
+                }
+            }
+            if (due.isEmpty()) {
+                return 0;
+            }
+            // Oldest occurrence first, so each account sees its payments in due order
+            due.sort(Comparator.comparing((ScheduledTransfer s) -> LocalDateTime.parse(s.getNextRun()))
+                    .thenComparing(ScheduledTransfer::getScheduleID));
+
+            // Advance before paying: a crash from here on skips these occurrences instead of repeating them
+            for (ScheduledTransfer s : due) {
+                dueRuns.add(s.getNextRun());
+                LocalDateTime following = ScheduledTransfer.following(LocalDateTime.parse(s.getNextRun()), s.getRecurrence());
+                if (following == null) {
+                    s.setStatus(ScheduledTransfer.Status.COMPLETED);
+                } else {
+                    s.setNextRun(following.toString());
+                }
+            }
+            try {
+                save();
+            } catch (IOException e) {
+                // Not durably advanced, so paying now could pay again after a crash: put them back for the next tick
+                for (int i = 0; i < due.size(); i++) {
+                    ScheduledTransfer s = due.get(i);
+                    s.setNextRun(dueRuns.get(i));
+                    s.setStatus(ScheduledTransfer.Status.ACTIVE);
+                    wheel.schedule(s, epochMillis(s.getNextRun()));
+                }
+                System.err.println("Scheduled payments postponed; could not save " + file + ": " + e.getMessage());
+                return 0;
+            }
+        }
+
+        List<BatchTransactionManager.Result> results = new ArrayList<>(due.size());
+        for (int from = 0; from < due.size(); from += BatchTransactionManager.MAX_BATCH_SIZE) {
+            List<BatchTransactionManager.Item> items = new ArrayList<>();
+            for (int i = from; i < Math.min(due.size(), from + BatchTransactionManager.MAX_BATCH_SIZE); i++) {
+                ScheduledTransfer s = due.get(i);
+                items.add(new BatchTransactionManager.Item(i, Transaction.Type.TRANSFER,
+                        s.getSourceAccountNumber(), s.getTargetAccountNumber(), s.getAmount()));
+            }
+            try {
+                results.addAll(batchManager.execute(items));
+            } catch (Exception e) {
+                // Lost too many version races; the rest of this tick counts as failed
+                for (BatchTransactionManager.Item item : items) {
+                    results.add(BatchTransactionManager.Result.failed(item.getIndex(), e.getMessage()));
+                }
+            }
+        }
+
+        int made = 0;
+        synchronized (this) {
+            String ranAt = now().toString();
+            for (int i = 0; i < due.size(); i++) {
+                ScheduledTransfer s = due.get(i);
+                BatchTransactionManager.Result result = results.get(i);
+                s.setLastRun(ranAt);
+                if (result.isSuccess()) {
+                    s.setRuns(s.getRuns() + 1);
+                    made++;
+                } else {
+                    s.setFailures(s.getFailures() + 1);
+                    s.setLastError(dueRuns.get(i) + ": " + result.getError());
+                    if (s.getStatus() == ScheduledTransfer.Status.COMPLETED) {
+                        s.setStatus(ScheduledTransfer.Status.FAILED);
+                    }
+                }
+                if (s.getStatus() == ScheduledTransfer.Status.ACTIVE) {
+                    wheel.schedule(s, epochMillis(s.getNextRun())); // Still in the past if catching up: due next tick
+                }
+            }
+            try {
+                save();
+            } catch (IOException e) {
+                // The advanced runs are already saved; only these outcomes (run and failure counts) are lost
+                e.printStackTrace();
+            }
+            paymentsMade += made;
+            paymentsFailed += due.size() - made;
+            lastTickPayments = due.size();
+            lastTickMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        }
+        return made;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("schedules", schedules.size());
+        stats.put("waiting", wheel.size());
+        stats.put("paymentsMade", paymentsMade);
+        stats.put("paymentsFailed", paymentsFailed);
+        stats.put("lastTickPayments", lastTickPayments);
+        stats.put("lastTickMillis", lastTickMillis);
+        return stats;
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.getAsLong()), ZoneId.systemDefault());
+    }
+
+    // Schedule times are local date-times, like ledger timestamps
+    private static long epochMillis(String localDateTime) {
+        return LocalDateTime.parse(localDateTime).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Caller holds the monitor. Written next to the file and renamed, so a crash leaves the old or the new list
+    private void save() throws IOException {
+        if (file == null) return;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        MAPPER.writeValue(temp.toFile(), new ArrayList<>(schedules.values()));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
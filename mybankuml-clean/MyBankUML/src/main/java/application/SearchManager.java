@@ -1,19 +1,51 @@
 package application;
 
+import data.AccountIndex;
 import data.DatabaseRepository;
 import model.Account;
+import model.Money;
 import model.User;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 public class SearchManager {
+    public static final int MAX_RECENT_TRANSACTIONS = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int FETCH_THREADS = 8;
+
     private DatabaseRepository database;
+    private ExecutorService fetchPool; // Nullable: per-account reads run on the caller's thread
 
     public SearchManager(DatabaseRepository database) {
+        this(database, false);
+    }
+
+    /**
+     * @param parallelFetch read each account's transactions on a small pool, for backends where
+     *                      a read waits on I/O (H2, other cluster nodes) rather than on the CPU
+     */
+    public SearchManager(DatabaseRepository database, boolean parallelFetch) {
         this.database = database;
+        if (parallelFetch) {
+            this.fetchPool = Executors.newFixedThreadPool(FETCH_THREADS, r -> {
+                Thread t = new Thread(r, "overview-fetch");
+                t.setDaemon(true);
+                return t;
+            });
+        }
     }
 
     /**
@@ -41,4 +73,122 @@ public class SearchManager {
         return database.findAccountByNumber(accountNumber)
                 .orElseThrow(() -> new Exception("Account not found"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Everything a teller's customer screen shows, in one call: the profile (without
+     * credentials), the accounts with balances, and each account's latest transactions.
+     */
+    public Map<String, Object> customerOverview(String userId, int recentTransactions) throws Exception {
+        if (recentTransactions < 0 || recentTransactions > MAX_RECENT_TRANSACTIONS) {
+            throw new Exception("Transaction count must be between 0 and " + MAX_RECENT_TRANSACTIONS);
+        }
+        User user = database.findUserByID(userId).orElseThrow(() -> new Exception("User not found"));
+        List<Account> accounts = database.findAccountsByUserID(userId);
+
+        List<Map<String, Object>> accountViews = new ArrayList<>();
+        if (fetchPool == null || accounts.size() < 2) {
+            for (Account account : accounts) {
+                accountViews.add(accountView(account, recentTransactions));
+            }
+        } else {
+            List<CompletableFuture<Map<String, Object>>> pending = new ArrayList<>();
+            for (Account account : accounts) {
+                pending.add(CompletableFuture.supplyAsync(() -> accountView(account, recentTransactions), fetchPool));
+            }
+            try {
+                for (CompletableFuture<Map<String, Object>> view : pending) {
+                    accountViews.add(view.join());
+                }
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("userID", user.getUserID());
+        profile.put("username", user.getUsername());
+        profile.put("fullName", user.getFullName());
+        profile.put("role", user.getRole());
+        profile.put("status", user.getStatus());
+        profile.put("twoFactorEnabled", user.isTwoFactorEnabled());
+
+        Map<String, Object> overview = new LinkedHashMap<>();
+        overview.put("profile", profile);
+        overview.put("accounts", accountViews);
+        return overview;
+    }
+
+    private Map<String, Object> accountView(Account account, int recentTransactions) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("accountNumber", account.getAccountNumber());
+        view.put("type", account.getType());
+        view.put("balance", account.getBalance());
+        view.put("creationDate", account.getCreationDate());
+        view.put("recentTransactions", recentTransactions == 0 ? List.of()
+                : database.findRecentTransactionsByAccount(account.getAccountNumber(), recentTransactions));
+        return view;
+    }
+
+    /**
+     * Accounts whose balance, creation date or latest posting ("balance", "created",
+     * "lastActivity") is at least min and below max, ordered by it, one page at a time.
+     * Bounds are amounts for balance and dates ("2026-10-12") or date-times otherwise;
+     * either may be null. Accounts never posted to come first by lastActivity, so
+     * max alone finds dormant accounts.
+     * @param after the previous page's "next" cursor, or null for the first page
+     */
+    public Map<String, Object> findAccounts(String by, String min, String max, String after, int limit) throws Exception {
+        AccountIndex.Field field = parseField(by);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new Exception("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long from = min == null ? Long.MIN_VALUE : parseBound(field, min);
+        long to = max == null ? Long.MAX_VALUE : parseBound(field, max);
+
+        AccountIndex.Page page;
+        try {
+            page = database.findAccountsByRange(field, from, to, after, limit);
+        } catch (IllegalArgumentException e) {
+            throw new Exception(e.getMessage()); // Malformed cursor
+        }
+
+        List<Map<String, Object>> accounts = new ArrayList<>();
+        for (AccountIndex.Hit hit : page.hits) {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("accountNumber", hit.account.getAccountNumber());
+            view.put("ownerUserID", hit.account.getOwnerUserID());
+            view.put("type", hit.account.getType());
+            view.put("balance", hit.account.getBalance());
+            view.put("creationDate", hit.account.getCreationDate());
+            if (field == AccountIndex.Field.LAST_ACTIVITY) {
+                view.put("lastActivity", AccountIndex.timestamp(hit.key));
+            }
+            accounts.add(view);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("accounts", accounts);
+        result.put("next", page.next);
+        return result;
+    }
+
+    private static AccountIndex.Field parseField(String by) throws Exception {
+        switch (by == null ? "" : by.toLowerCase()) {
+            case "balance": return AccountIndex.Field.BALANCE;
+            case "created": return AccountIndex.Field.CREATED;
+            case "lastactivity": return AccountIndex.Field.LAST_ACTIVITY;
+            default: throw new Exception("Order must be balance, created or lastActivity");
+        }
+    }
+
+    private static long parseBound(AccountIndex.Field field, String value) throws Exception {
+        try {
+            if (field == AccountIndex.Field.BALANCE) {
+                return Money.toMinor(new BigDecimal(value));
+            }
+            LocalDateTime at = value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+            return AccountIndex.timestampKey(at.toString());
+        } catch (NumberFormatException | ArithmeticException | DateTimeParseException e) {
+            throw new Exception("Invalid bound: " + value);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package application;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import data.ClusterNode;
+import data.DatabaseRepository;
+import data.LocalClusterNode;
+import data.Partitioner;
+import model.Account;
+import model.Money;
+import model.Transaction;
+
+/**
+ * Monthly statements, one file per account (statements/<yyyy-MM>/<account>.csv
+ * or .json), listing the month's postings with opening and closing balances.
+ *
+ * The ledger is read once, sequentially, from the start of the month. Postings
+ * in the month are handed to writer threads through bounded queues (each
+ * account belongs to one writer), so the reader waits rather than buffering
+ * when the disks fall behind. A writer collects lines per account up to a
+ * fixed budget, then appends each account's lines to its file in one go, so
+ * files are opened a few times per run rather than once per posting.
+ * Postings after the month only add up to a per-account total: the closing
+ * balance is the current balance minus those, and the opening balance is the
+ * closing balance minus the month's. Memory is a few counters per account,
+ * whatever the size of the ledger.
+ *
+ * Balances are read before the ledger, so postings made while a run is in
+ * progress can make that run's balances slightly off; run it for a month that
+ * has ended.
+ *
+ * On a cluster (setCluster) every node writes the statements of its own
+ * accounts, with the ledger it keeps for them, into its own data directory:
+ * generate runs each node's share in turn, and openStatement fetches a file
+ * from the node owning the account. This generator is its node's share
+ * (LocalClusterNode.Statements), built over that node's partition.
+ */
+public class StatementGenerator implements LocalClusterNode.Statements {
+    public enum Format { CSV, JSON }
+
+    static final int QUEUE_CAPACITY = 8192;
+    static final long BUFFER_CHARS = 8L << 20; // Per writer
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // One account's statement; the net totals are the reader's until END is queued, the rest its writer's
+    private static final class AccountState {
+        final String accountNumber;
+        final long currentMinor;
+        long monthNetMinor;
+        long laterNetMinor;
+        int written;
+        boolean started;          // File created and header written
+        StringBuilder pending;    // Postings not yet written out
+
+        AccountState(Account account) {
+            this.accountNumber = account.getAccountNumber();
+            this.currentMinor = account.getBalanceMoney().getMinorUnits();
+        }
+    }
+
+    // One posting for one account's statement
+    private static final class Line {
+        final AccountState account;
+        final Transaction tx;
+        final long signedMinor;
+
+        Line(AccountState account, Transaction tx, long signedMinor) {
+            this.account = account;
+            this.tx = tx;
+            this.signedMinor = signedMinor;
+        }
+    }
+
+    private static final Line END = new Line(null, null, 0);
+
+    private final DatabaseRepository database;
+    private final Path outputDir;
+    private final int writerCount;
+    private volatile List<? extends ClusterNode> cluster; // Null on a single node
+    private volatile Partitioner partitioner;
+
+    public StatementGenerator(DatabaseRepository database, Path outputDir) {
+        this(database, outputDir, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public StatementGenerator(DatabaseRepository database, Path outputDir, int writerCount) {
+        this.database = database;
+        this.outputDir = outputDir;
+        this.writerCount = writerCount;
+    }
+
+    /**
+     * Every node of the cluster in partition order, this node's LocalClusterNode included;
+     * generate and openStatement go through them from now on.
+     */
+    public void setCluster(List<? extends ClusterNode> nodes) {
+        this.partitioner = new Partitioner(nodes.size());
+        this.cluster = new ArrayList<>(nodes);
+    }
+
+    /**
+     * The statement file for an account and month on this node, whether or not it has been generated.
+     */
+    public Path statementFile(YearMonth month, String accountNumber, Format format) {
+        return outputDir.resolve(month.toString()).resolve(accountNumber + "." + format.name().toLowerCase());
+    }
+
+    /**
+     * Writes the statements of every account for the month, replacing earlier ones.
+     * @return counts and timing of the run
+     */
+    public Map<String, Object> generate(YearMonth month, Format format) throws Exception {
+        List<? extends ClusterNode> nodes = cluster;
+        if (nodes == null) {
+            return generateHere(month, format);
+        }
+        long started = System.nanoTime();
+        int statements = 0;
+        long postings = 0;
+        for (ClusterNode node : nodes) {
+            Map<String, Object> run = node.generateStatements(month.toString(), format.name());
+            statements += ((Number) run.get("statements")).intValue();
+            postings += ((Number) run.get("postings")).longValue();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("month", month.toString());
+        stats.put("statements", statements);
+        stats.put("postings", postings);
+        stats.put("nodes", nodes.size());
+        stats.put("millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return stats;
+    }
+
+    /**
+     * One account's statement for the month, read from the node that owns the account.
+     * @return the file's contents, or null if it has not been generated
+     */
+    public InputStream openStatement(YearMonth month, String accountNumber, Format format) throws IOException {
+        List<? extends ClusterNode> nodes = cluster;
+        if (nodes != null) {
+            String text = nodes.get(partitioner.nodeFor(accountNumber)).statement(month.toString(), accountNumber, format.name());
+            return text == null ? null : new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+        Path file = statementFile(month, accountNumber, format);
+        return Files.exists(file) ? Files.newInputStream(file) : null;
+    }
+
+    // This node's share on a cluster: the statements of the accounts in this node's database
+
+    @Override
+    public Map<String, Object> generateStatements(String month, String format) {
+        try {
+            return generateHere(YearMonth.parse(month), Format.valueOf(format));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String statement(String month, String accountNumber, String format) {
+        Path file = statementFile(YearMonth.parse(month), accountNumber, Format.valueOf(format));
+        try {
+            return Files.exists(file) ? Files.readString(file) : null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + file, e);
+        }
+    }
+
+    private synchronized Map<String, Object> generateHere(YearMonth month, Format format) throws Exception {
+        long started = System.nanoTime();
+        Files.createDirectories(outputDir.resolve(month.toString()));
+
+        // Every account gets a statement, with or without postings; each belongs to one writer
+        Partitioner shards = new Partitioner(writerCount);
+        Map<String, AccountState> accounts = new HashMap<>();
+        List<List<AccountState>> owned = new ArrayList<>();
+        for (int i = 0; i < writerCount; i++) owned.add(new ArrayList<>());
+        for (Account account : database.findAllAccounts()) {
+            AccountState state = new AccountState(account);
+            accounts.put(state.accountNumber, state);
+            owned.get(shards.nodeFor(state.accountNumber)).add(state);
+        }
+
+        List<BlockingQueue<Line>> queues = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(writerCount, r -> {
+            Thread t = new Thread(r, "statement-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < writerCount; i++) {
+            BlockingQueue<Line> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            List<AccountState> mine = owned.get(i);
+            queues.add(queue);
+            writers.add(pool.submit(() -> {
+                write(month, format, queue, mine);
+                return null;
+            }));
+        }
+
+        // The one pass over the ledger
+        String monthEnd = month.plusMonths(1).atDay(1).atStartOfDay().toString();
+        long[] postings = new long[1];
+        try {
+            database.forEachTransactionSince(month.atDay(1).atStartOfDay().toString(), tx -> {
+                boolean inMonth = tx.getTimestamp().compareTo(monthEnd) < 0;
+                long amount = tx.getAmountMoney().getMinorUnits();
+                long sourceSign = tx.getType() == Transaction.Type.DEPOSIT ? 1 : -1;
+                post(accounts.get(tx.getSourceAccountNumber()), tx, sourceSign * amount, inMonth, queues, shards);
+                if (tx.getType() == Transaction.Type.TRANSFER) {
+                    post(accounts.get(tx.getTargetAccountNumber()), tx, amount, inMonth, queues, shards);
+                }
+                if (inMonth) postings[0]++;
+            });
+        } finally {
+            for (BlockingQueue<Line> queue : queues) {
+                putUninterruptibly(queue, END);
+            }
+            pool.shutdown();
+        }
+        try {
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } catch (ExecutionException e) {
+            pool.shutdownNow();
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("month", month.toString());
+        stats.put("statements", accounts.size());
+        stats.put("postings", postings[0]);
+        stats.put("millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return stats;
+    }
+
+    private static void post(AccountState account, Transaction tx, long signedMinor, boolean inMonth,
+                             List<BlockingQueue<Line>> queues, Partitioner shards) {
+        if (account == null) return; // Closed or on another node
+        if (!inMonth) {
+            account.laterNetMinor += signedMinor;
+            return;
+        }
+        account.monthNetMinor += signedMinor;
+        putUninterruptibly(queues.get(shards.nodeFor(account.accountNumber)), new Line(account, tx, signedMinor));
+    }
+
+    private static void putUninterruptibly(BlockingQueue<Line> queue, Line line) {
+        try {
+            queue.put(line); // Blocks while the writer is QUEUE_CAPACITY lines behind
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating statements", e);
+        }
+    }
+
+    // Runs on a writer thread: buffers postings per account, writing the buffers out whenever they
+    // reach BUFFER_CHARS in total, then finishes every statement it owns once END arrives
+    private void write(YearMonth month, Format format, BlockingQueue<Line> queue, List<AccountState> mine) throws Exception {
+        List<AccountState> buffered = new ArrayList<>();
+        long bufferedChars = 0;
+        for (Line line = queue.take(); line != END; line = queue.take()) {
+            AccountState account = line.account;
+            if (account.pending == null) {
+                account.pending = new StringBuilder();
+                buffered.add(account);
+            }
+            int before = account.pending.length();
+            appendPosting(account.pending, line, format);
+            account.written++;
+            bufferedChars += account.pending.length() - before;
+            if (bufferedChars >= BUFFER_CHARS) {
+                try {
+                    for (AccountState a : buffered) {
+                        flush(a, month, format, false);
+                    }
+                } catch (IOException e) {
+                    // Keep taking lines so the reader is not left blocked on a full queue
+                    while (queue.take() != END) { }
+                    throw e;
+                }
+                buffered.clear();
+                bufferedChars = 0;
+            }
+        }
+        for (AccountState account : mine) {
+            flush(account, month, format, true);
+        }
+    }
+
+    // One open, write and close of the account's file
+    private void flush(AccountState account, YearMonth month, Format format, boolean last) throws IOException {
+        Path file = statementFile(month, account.accountNumber, format);
+        try (Writer out = account.started
+                ? Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND)
+                : Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (!account.started) {
+                writeHeader(out, account, month, format);
+                account.started = true;
+            }
+            if (account.pending != null) {
+                out.append(account.pending);
+                account.pending = null;
+            }
+            if (last) {
+                writeFooter(out, account, format);
+            }
+        }
+    }
+
+    private static void writeHeader(Writer out, AccountState account, YearMonth month, Format format) throws IOException {
+        if (format == Format.CSV) {
+            out.write("accountNumber,month\n" + account.accountNumber + "," + month + "\n");
+            out.write("timestamp,transactionID,type,counterparty,amount\n");
+        } else {
+            out.write("{\"accountNumber\":" + MAPPER.writeValueAsString(account.accountNumber)
+                    + ",\"month\":\"" + month + "\",\"transactions\":[");
+        }
+    }
+
+    private static void appendPosting(StringBuilder out, Line line, Format format) throws IOException {
+        Transaction tx = line.tx;
+        String counterparty = tx.getType() != Transaction.Type.TRANSFER ? ""
+                : line.account.accountNumber.equals(tx.getSourceAccountNumber()) ? tx.getTargetAccountNumber() : tx.getSourceAccountNumber();
+        BigDecimal amount = Money.toBigDecimal(line.signedMinor);
+        if (format == Format.CSV) {
+            out.append(tx.getTimestamp()).append(',').append(tx.getTransactionID()).append(',').append(tx.getType())
+                    .append(',').append(counterparty).append(',').append(amount.toPlainString()).append('\n');
+        } else {
+            Map<String, Object> posting = new LinkedHashMap<>();
+            posting.put("timestamp", tx.getTimestamp());
+            posting.put("transactionID", tx.getTransactionID());
+            posting.put("type", tx.getType());
+            posting.put("counterparty", counterparty.isEmpty() ? null : counterparty);
+            posting.put("amount", amount);
+            out.append(line.account.written > 0 ? "," : "").append(MAPPER.writeValueAsString(posting));
+        }
+    }
+
+    private static void writeFooter(Writer out, AccountState account, Format format) throws IOException {
+        String closing = Money.toBigDecimal(account.currentMinor - account.laterNetMinor).toPlainString();
+        String opening = Money.toBigDecimal(account.currentMinor - account.laterNetMinor - account.monthNetMinor).toPlainString();
+        if (format == Format.CSV) {
+            out.write("openingBalance,closingBalance,postings\n" + opening + "," + closing + "," + account.written + "\n");
+        } else {
+            out.write("],\"openingBalance\":" + opening + ",\"closingBalance\":" + closing + ",\"postings\":" + account.written + "}\n");
+        }
+    }
+}
@@ -5,14 +5,30 @@ import java.util.List;
 
 import data.DatabaseRepository;
 import model.Account;
+import model.Money;
 import model.Transaction;
 import util.SecurityUtils;
 
 public class TransactionManager {
     private DatabaseRepository database;
+    private AccountEventPublisher publisher;
+    private VelocityLimits limits;
 
     public TransactionManager(DatabaseRepository database) {
+        this(database, null);
+    }
+
+    public TransactionManager(DatabaseRepository database, AccountEventPublisher publisher) {
+        this(database, publisher, null);
+    }
+
+    /**
+     * @param limits transfer limits to enforce on the source account, or null for none
+     */
+    public TransactionManager(DatabaseRepository database, AccountEventPublisher publisher, VelocityLimits limits) {
         this.database = database;
+        this.publisher = publisher;
+        this.limits = limits;
     }
 
     /**
@@ -26,37 +42,63 @@ public class TransactionManager {
         if (sourceAccNum.equals(targetAccNum)) {
             throw new Exception("Cannot transfer to the same account");
         }
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+        Money value = Money.of(amount); // Rejects fractions of a cent
+        if (!value.isPositive()) {
             throw new Exception("Transfer amount must be positive");
         }
 
-        // Load both accounts
-        Account source = database.findAccountByNumber(sourceAccNum)
-                .orElseThrow(() -> new Exception("Source account not found"));
-        Account target = database.findAccountByNumber(targetAccNum)
-                .orElseThrow(() -> new Exception("Target account not found"));
-
-        // Validate Source Balance
-        if (source.getBalance().compareTo(amount) < 0) {
-            throw new Exception("Insufficient Funds for Transfer");
+        // Both accounts must exist before any money moves
+        if (!database.findAccountByNumber(sourceAccNum).isPresent()) {
+            throw new Exception("Source account not found");
+        }
+        if (!database.findAccountByNumber(targetAccNum).isPresent()) {
+            throw new Exception("Target account not found");
         }
 
-        // Execute Transfer (In a real DB, this would be a @Transactional block)
-        // Here we modify objects and save strictly sequentially
-        source.setBalance(source.getBalance().subtract(amount));
-        target.setBalance(target.getBalance().add(amount));
+        // Counts against the source account's limits up front; given back if the transfer fails
+        long reservedAt = limits != null ? limits.reserve(sourceAccNum, Transaction.Type.TRANSFER, value) : 0;
 
-        database.saveAccount(source);
-        database.saveAccount(target);
+        // Debit and credit are saved together, all-or-nothing; on a cluster where the
+        // two accounts live on different nodes this is a two-phase commit
+        Account[] moved;
+        try {
+            moved = OptimisticRetry.run(() -> {
+                Account source = database.findAccountByNumber(sourceAccNum)
+                        .orElseThrow(() -> new Exception("Source account not found"));
+                Account target = database.findAccountByNumber(targetAccNum)
+                        .orElseThrow(() -> new Exception("Target account not found"));
+                Money sourceBalance = source.getBalanceMoney();
+                if (sourceBalance.isLessThan(value)) {
+                    throw new Exception("Insufficient Funds for Transfer");
+                }
+                source.setBalanceMoney(sourceBalance.minus(value));
+                target.setBalanceMoney(target.getBalanceMoney().plus(value));
+                return database.saveAccountsIfVersion(List.of(source, target)) ? new Account[] {source, target} : null;
+            });
+        } catch (Exception e) {
+            if (limits != null) {
+                limits.cancel(sourceAccNum, Transaction.Type.TRANSFER, value, reservedAt);
+            }
+            throw e;
+        }
+        Account source = moved[0];
+        Account target = moved[1];
 
         // Log Transaction
         Transaction tx = new Transaction(
             SecurityUtils.generateUUID(), 
             sourceAccNum, 
             targetAccNum, 
-            amount, 
+            value, 
             Transaction.Type.TRANSFER
         );
         database.logTransaction(tx);
+
+        // Push to live dashboards
+        if (publisher != null) {
+            publisher.publishTransaction(tx);
+            publisher.publishBalance(source);
+            publisher.publishBalance(target);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,357 @@
+package application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import data.ClusterNode;
+import data.DatabaseRepository;
+import data.LocalClusterNode;
+import data.Partitioner;
+import model.Account;
+import model.Money;
+import model.Transaction;
+
+/**
+ * Per-account limits over sliding time windows, e.g. "at most 5,000.00
+ * withdrawn per day" or "at most 10 transfers per minute", with rules per
+ * Account.AccountType read from a policy file (limits.properties on the
+ * classpath by default):
+ *
+ *   CHECKING.WITHDRAWAL.amount=5000.00/1d
+ *   CHECKING.TRANSFER.count=10/1m
+ *
+ * Each window is a ring of BUCKETS buckets (a 1-day window has 24-minute
+ * buckets) held in two long arrays per account: bucket totals and the bucket
+ * number each slot currently holds. Checking and recording a posting touches
+ * only those arrays, under the account's own lock, and allocates nothing.
+ *
+ * reserve() checks every rule for the posting and records it in one step, so
+ * concurrent requests cannot both squeeze under a limit; callers cancel() the
+ * reservation if the posting then fails. An account's windows are rebuilt from
+ * its ledger the first time it is used, reading back only as far as the
+ * longest window.
+ *
+ * On a cluster (setCluster) an account's windows live only on the node that
+ * owns it: every node sends its reservations and cancels there, so postings
+ * made through any node count against the same limit. Each node's
+ * VelocityLimits is its share (LocalClusterNode.Limits).
+ */
+public class VelocityLimits implements LocalClusterNode.Limits {
+    public static final String DEFAULT_POLICY = "/limits.properties";
+    static final int BUCKETS = 60;
+
+    /**
+     * A limit on the count or total amount of one transaction type per window.
+     */
+    public static final class Rule {
+        private final Transaction.Type type;
+        private final boolean amount;   // Else count
+        private final long limit;       // Cents or count
+        private final long windowMillis;
+        private final long bucketMillis;
+
+        public Rule(Transaction.Type type, boolean amount, long limit, long windowMillis) {
+            this.type = type;
+            this.amount = amount;
+            this.limit = limit;
+            this.windowMillis = windowMillis;
+            this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        }
+
+        String message() {
+            String window = describe(windowMillis);
+            if (amount) {
+                return (type == Transaction.Type.WITHDRAWAL ? "Withdrawal" : "Transfer") + " limit of "
+                        + Money.ofMinor(limit).toBigDecimal().toPlainString() + " per " + window + " exceeded";
+            }
+            return "Too many " + (type == Transaction.Type.WITHDRAWAL ? "withdrawals" : "transfers")
+                    + " (limit " + limit + " per " + window + "); try again later";
+        }
+    }
+
+    // One account's windows: rules[r] uses slots [r * BUCKETS, (r + 1) * BUCKETS) of both arrays
+    private static final class Windows {
+        final Rule[] rules;
+        final long[] totals;
+        final long[] bucketNumbers;
+
+        Windows(Rule[] rules) {
+            this.rules = rules;
+            this.totals = new long[rules.length * BUCKETS];
+            this.bucketNumbers = new long[rules.length * BUCKETS];
+        }
+    }
+
+    private static final Rule[] NO_RULES = new Rule[0];
+    private static final Windows UNLIMITED = new Windows(NO_RULES);
+
+    private final DatabaseRepository database;
+    private final Map<Account.AccountType, Rule[]> rulesByType = new EnumMap<>(Account.AccountType.class);
+    private final LongSupplier clock;
+    private final Map<String, Windows> windows = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong rebuilt = new AtomicLong();
+    private volatile List<? extends ClusterNode> cluster; // Null on a single node
+    private volatile Partitioner partitioner;
+
+    public VelocityLimits(DatabaseRepository database) {
+        this(database, loadDefaultPolicy(), System::currentTimeMillis);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the policy has a malformed rule
+     */
+    public VelocityLimits(DatabaseRepository database, Properties policy, LongSupplier millisClock) {
+        this.database = database;
+        this.clock = millisClock;
+        Map<Account.AccountType, List<Rule>> rules = new EnumMap<>(Account.AccountType.class);
+        for (String key : policy.stringPropertyNames()) {
+            Account.AccountType accountType = parseRule(key, policy.getProperty(key), rules);
+            rulesByType.put(accountType, rules.get(accountType).toArray(NO_RULES));
+        }
+    }
+
+    /**
+     * Every node of the cluster in partition order, this node's LocalClusterNode included;
+     * reservations go to the node owning the account from now on.
+     */
+    public void setCluster(List<? extends ClusterNode> nodes) {
+        this.partitioner = new Partitioner(nodes.size());
+        this.cluster = new ArrayList<>(nodes);
+    }
+
+    public static VelocityLimits load(DatabaseRepository database, Path policyFile) throws IOException {
+        Properties policy = new Properties();
+        try (Reader reader = Files.newBufferedReader(policyFile, StandardCharsets.UTF_8)) {
+            policy.load(reader);
+        }
+        return new VelocityLimits(database, policy, System::currentTimeMillis);
+    }
+
+    private static Properties loadDefaultPolicy() {
+        Properties policy = new Properties();
+        try (InputStream in = VelocityLimits.class.getResourceAsStream(DEFAULT_POLICY)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing limit policy " + DEFAULT_POLICY);
+            }
+            policy.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read limit policy " + DEFAULT_POLICY, e);
+        }
+        return policy;
+    }
+
+    // "<ACCOUNT_TYPE>.<WITHDRAWAL|TRANSFER>.<amount|count>" = "<limit>/<window: 30s, 1m, 24h, 1d>"
+    private static Account.AccountType parseRule(String key, String value, Map<Account.AccountType, List<Rule>> rules) {
+        String[] parts = key.trim().split("\\.");
+        String[] limitAndWindow = value.trim().split("/");
+        try {
+            if (parts.length != 3 || limitAndWindow.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            Account.AccountType accountType = Account.AccountType.valueOf(parts[0]);
+            Transaction.Type type = Transaction.Type.valueOf(parts[1]);
+            if (type == Transaction.Type.DEPOSIT || !(parts[2].equals("amount") || parts[2].equals("count"))) {
+                throw new IllegalArgumentException();
+            }
+            boolean amount = parts[2].equals("amount");
+            long limit = amount ? Money.of(new java.math.BigDecimal(limitAndWindow[0].trim())).getMinorUnits()
+                                : Long.parseLong(limitAndWindow[0].trim());
+            rules.computeIfAbsent(accountType, t -> new ArrayList<>())
+                    .add(new Rule(type, amount, limit, parseWindow(limitAndWindow[1].trim())));
+            return accountType;
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid limit rule: " + key + "=" + value);
+        }
+    }
+
+    private static long parseWindow(String window) {
+        long n = Long.parseLong(window.substring(0, window.length() - 1));
+        switch (window.charAt(window.length() - 1)) {
+            case 's': return TimeUnit.SECONDS.toMillis(n);
+            case 'm': return TimeUnit.MINUTES.toMillis(n);
+            case 'h': return TimeUnit.HOURS.toMillis(n);
+            case 'd': return TimeUnit.DAYS.toMillis(n);
+            default: throw new IllegalArgumentException();
+        }
+    }
+
+    private static String describe(long windowMillis) {
+        if (windowMillis % TimeUnit.DAYS.toMillis(1) == 0) return plural(windowMillis / TimeUnit.DAYS.toMillis(1), "day");
+        if (windowMillis % TimeUnit.HOURS.toMillis(1) == 0) return plural(windowMillis / TimeUnit.HOURS.toMillis(1), "hour");
+        if (windowMillis % TimeUnit.MINUTES.toMillis(1) == 0) return plural(windowMillis / TimeUnit.MINUTES.toMillis(1), "minute");
+        return plural(windowMillis / 1000, "second");
+    }
+
+    private static String plural(long n, String unit) {
+        return n == 1 ? unit : n + " " + unit + "s";
+    }
+
+    /**
+     * Checks the posting against the account's limits and records it.
+     * Unknown accounts are let through (the posting itself will fail).
+     * @return the reservation time, to pass to cancel() if the posting fails
+     * @throws Exception naming the limit that would be exceeded
+     */
+    public long reserve(String accountNumber, Transaction.Type type, Money amount) throws Exception {
+        long now = clock.getAsLong();
+        List<? extends ClusterNode> nodes = cluster;
+        String exceeded = nodes == null ? reserveLimit(accountNumber, type, amount.getMinorUnits(), now)
+                : nodes.get(partitioner.nodeFor(accountNumber)).reserveLimit(accountNumber, type, amount.getMinorUnits(), now);
+        if (exceeded != null) {
+            throw new Exception(exceeded);
+        }
+        return now;
+    }
+
+    /**
+     * Takes back a reservation whose posting did not happen.
+     */
+    public void cancel(String accountNumber, Transaction.Type type, Money amount, long reservedAt) {
+        List<? extends ClusterNode> nodes = cluster;
+        if (nodes == null) {
+            cancelLimit(accountNumber, type, amount.getMinorUnits(), reservedAt);
+            return;
+        }
+        try {
+            nodes.get(partitioner.nodeFor(accountNumber)).cancelLimit(accountNumber, type, amount.getMinorUnits(), reservedAt);
+        } catch (RuntimeException e) {
+            // Called while a failed posting is being reported; that error is the one to surface
+            System.err.println("Limit reservation on " + accountNumber + " not taken back: " + e.getMessage());
+        }
+    }
+
+    // This node's share: the windows of the accounts it counts
+
+    @Override
+    public String reserveLimit(String accountNumber, Transaction.Type type, long amountMinor, long at) {
+        Windows w = windowsOf(accountNumber);
+        if (w.rules.length == 0) {
+            return null;
+        }
+        synchronized (w) {
+            // All rules must pass before any is recorded
+            for (int r = 0; r < w.rules.length; r++) {
+                Rule rule = w.rules[r];
+                if (rule.type == type && sum(w, r, at) + (rule.amount ? amountMinor : 1) > rule.limit) {
+                    rejected.incrementAndGet();
+                    return rule.message();
+                }
+            }
+            add(w, type, amountMinor, at, 1);
+        }
+        return null;
+    }
+
+    @Override
+    public void cancelLimit(String accountNumber, Transaction.Type type, long amountMinor, long at) {
+        Windows w = windows.get(accountNumber);
+        if (w == null || w.rules.length == 0) {
+            return;
+        }
+        synchronized (w) {
+            add(w, type, amountMinor, at, -1);
+        }
+    }
+
+    // Caller holds w's lock
+    private static void add(Windows w, Transaction.Type type, long amountMinor, long at, int sign) {
+        for (int r = 0; r < w.rules.length; r++) {
+            Rule rule = w.rules[r];
+            if (rule.type != type) continue;
+            long bucket = at / rule.bucketMillis;
+            int slot = r * BUCKETS + (int) (bucket % BUCKETS);
+            if (w.bucketNumbers[slot] != bucket) {
+                if (w.bucketNumbers[slot] > bucket || sign < 0) {
+                    continue; // Older than the window (or already rotated out)
+                }
+                w.bucketNumbers[slot] = bucket;
+                w.totals[slot] = 0;
+            }
+            w.totals[slot] += sign * (rule.amount ? amountMinor : 1);
+        }
+    }
+
+    // Caller holds w's lock
+    private static long sum(Windows w, int r, long now) {
+        long oldest = now / w.rules[r].bucketMillis - BUCKETS + 1;
+        long total = 0;
+        for (int slot = r * BUCKETS; slot < (r + 1) * BUCKETS; slot++) {
+            if (w.bucketNumbers[slot] >= oldest) {
+                total += w.totals[slot];
+            }
+        }
+        return total;
+    }
+
+    private Windows windowsOf(String accountNumber) {
+        Windows w = windows.get(accountNumber);
+        if (w != null) {
+            return w;
+        }
+        Optional<Account> account = database.findAccountByNumber(accountNumber);
+        if (!account.isPresent()) {
+            return UNLIMITED; // Not cached: the account may be created later
+        }
+        Rule[] rules = rulesByType.getOrDefault(account.get().getType(), NO_RULES);
+        Windows rebuiltWindows = rules.length == 0 ? UNLIMITED : rebuild(accountNumber, rules);
+        Windows raced = windows.putIfAbsent(accountNumber, rebuiltWindows);
+        return raced != null ? raced : rebuiltWindows;
+    }
+
+    // Replays the account's recent outgoing postings, newest first, back to the longest window
+    private Windows rebuild(String accountNumber, Rule[] rules) {
+        Windows w = new Windows(rules);
+        long longest = 0;
+        for (Rule rule : rules) longest = Math.max(longest, rule.windowMillis);
+        long since = clock.getAsLong() - longest;
+
+        List<Transaction> history = database.findTransactionsByAccount(accountNumber);
+        for (int i = history.size() - 1; i >= 0; i--) {
+            Transaction tx = history.get(i);
+            long at = epochMillis(tx.getTimestamp());
+            if (at < since) break;
+            if (accountNumber.equals(tx.getSourceAccountNumber()) && tx.getType() != Transaction.Type.DEPOSIT) {
+                add(w, tx.getType(), tx.getAmountMoney().getMinorUnits(), at, 1);
+            }
+        }
+        rebuilt.incrementAndGet();
+        return w;
+    }
+
+    // Ledger timestamps are local date-times
+    private static long epochMillis(String timestamp) {
+        if (timestamp == null) return Long.MIN_VALUE;
+        try {
+            return LocalDateTime.parse(timestamp).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("accounts", windows.size());
+        stats.put("rebuiltFromLedger", rebuilt.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+}
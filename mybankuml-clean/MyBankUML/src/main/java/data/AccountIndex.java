@@ -0,0 +1,215 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+import model.Account;
+import model.Transaction;
+
+/**
+ * Accounts ordered by one field, for range queries ("balance of at least X",
+ * "created since D", "no posting since D") that read one page at a time
+ * instead of scanning every account.
+ *
+ * Keys are longs: the balance in minor units, or a time as epoch nanoseconds
+ * (the creation date, or the timestamp of the latest posting). Accounts with
+ * no value (no creation date, never posted to) have key NONE, which sorts
+ * first. Entries are kept in a concurrent skip list ordered by key, then
+ * account number, so readers walk it without locking while the repository
+ * (which writes one change at a time) moves accounts around; a read racing a
+ * change to an account's key may miss that account or see it twice.
+ *
+ * Pages are resumed with a cursor, the position of the last account returned,
+ * so each page costs its own size whatever its position in the range.
+ */
+public class AccountIndex {
+    public enum Field { BALANCE, CREATED, LAST_ACTIVITY }
+
+    public static final long NONE = Long.MIN_VALUE;
+
+    // One result; public fields for Jackson (pages cross the cluster protocol)
+    public static class Hit {
+        public long key;
+        public Account account;
+
+        public Hit() {}
+
+        public Hit(long key, Account account) {
+            this.key = key;
+            this.account = account;
+        }
+    }
+
+    public static class Page {
+        public List<Hit> hits = new ArrayList<>();
+        public String next; // Nullable: no further accounts in the range
+    }
+
+    // Ordered by key, then account number
+    private static final class Entry implements Comparable<Entry> {
+        final long key;
+        final String accountNumber;
+
+        Entry(long key, String accountNumber) {
+            this.key = key;
+            this.accountNumber = accountNumber;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = Long.compare(key, other.key);
+            return byKey != 0 ? byKey : accountNumber.compareTo(other.accountNumber);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && compareTo((Entry) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(key) * 31 + accountNumber.hashCode();
+        }
+    }
+
+    private static final Comparator<Hit> HIT_ORDER = Comparator.<Hit>comparingLong(h -> h.key)
+            .thenComparing(h -> h.account.getAccountNumber());
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+    private final Map<String, Long> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Sets an account's key; callers write one at a time.
+     */
+    public void put(String accountNumber, long key) {
+        Long old = keys.put(accountNumber, key);
+        if (old != null) {
+            if (old == key) return;
+            entries.remove(new Entry(old, accountNumber));
+        }
+        entries.add(new Entry(key, accountNumber));
+    }
+
+    /**
+     * Sets an account's key unless it already has a larger one (e.g. the latest posting time).
+     */
+    public void raise(String accountNumber, long key) {
+        Long old = keys.get(accountNumber);
+        if (old == null || key > old) {
+            put(accountNumber, key);
+        }
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Accounts with from <= key < to, in key order, starting after the cursor (null for the first page).
+     * @param lookup materializes an account; accounts it does not find are left out
+     */
+    public Page page(long from, long to, String after, int limit, Function<String, Optional<Account>> lookup) {
+        Entry start = new Entry(from, "");
+        boolean inclusive = true;
+        if (after != null) {
+            Entry cursor = parseCursor(after);
+            if (cursor.compareTo(start) >= 0) {
+                start = cursor;
+                inclusive = false;
+            }
+        }
+
+        Page page = new Page();
+        Iterator<Entry> it = entries.tailSet(start, inclusive).iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.key >= to) break;
+            if (page.hits.size() == limit) {
+                page.next = cursor(page.hits.get(limit - 1));
+                break;
+            }
+            lookup.apply(entry.accountNumber).ifPresent(account -> page.hits.add(new Hit(entry.key, account)));
+        }
+        return page;
+    }
+
+    /**
+     * The same page as page(), cut from a list of every account's hit (unordered), for
+     * backends without an index and for merging the pages of several cluster nodes.
+     */
+    public static Page page(List<Hit> hits, long from, long to, String after, int limit) {
+        Entry cursor = after != null ? parseCursor(after) : null;
+        List<Hit> inRange = new ArrayList<>();
+        for (Hit hit : hits) {
+            if (hit.key < from || hit.key >= to) continue;
+            if (cursor != null && new Entry(hit.key, hit.account.getAccountNumber()).compareTo(cursor) <= 0) continue;
+            inRange.add(hit);
+        }
+        inRange.sort(HIT_ORDER);
+
+        Page page = new Page();
+        page.hits.addAll(inRange.subList(0, Math.min(limit, inRange.size())));
+        if (inRange.size() > limit) {
+            page.next = cursor(page.hits.get(limit - 1));
+        }
+        return page;
+    }
+
+    /**
+     * An account's key for a field, read from the repository (for backends without an index).
+     */
+    public static long keyOf(Field field, Account account, DatabaseRepository database) {
+        switch (field) {
+            case BALANCE:
+                return account.getBalanceMoney().getMinorUnits();
+            case CREATED:
+                return timestampKey(account.getCreationDate());
+            default:
+                List<Transaction> latest = database.findRecentTransactionsByAccount(account.getAccountNumber(), 1);
+                return latest.isEmpty() ? NONE : timestampKey(latest.get(0).getTimestamp());
+        }
+    }
+
+    /**
+     * The key of a local date-time such as "2026-10-12T09:30:00", or NONE if it is missing or malformed.
+     */
+    public static long timestampKey(String timestamp) {
+        return TransactionStore.parseTimestamp(timestamp); // NONE is also the store's "no timestamp"
+    }
+
+    /**
+     * Inverse of timestampKey; null for NONE.
+     */
+    public static String timestamp(long key) {
+        return TransactionStore.formatTimestamp(key);
+    }
+
+    private static String cursor(Hit hit) {
+        return hit.key + ":" + hit.account.getAccountNumber();
+    }
+
+    // Key and account number of a cursor, for backends that page in their own query language
+    static long cursorKey(String cursor) {
+        return parseCursor(cursor).key;
+    }
+
+    static String cursorAccount(String cursor) {
+        return parseCursor(cursor).accountNumber;
+    }
+
+    private static Entry parseCursor(String cursor) {
+        int colon = cursor.indexOf(':');
+        try {
+            return new Entry(Long.parseLong(cursor.substring(0, colon)), cursor.substring(colon + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import model.Account;
+import model.Money;
+
+/**
+ * Column-oriented account store.
+ *
+ * Each account gets a dense ordinal; hot fields live in primitive arrays indexed
+ * by that ordinal (balance in cents, type, owner ordinal, version), so a large
+ * customer base costs a few bytes per account per column and nothing for the
+ * GC to trace. Account objects are only created when a caller asks for one,
+ * and are detached copies: changes take effect through upsert().
+ */
+public class AccountTable {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final Account.AccountType[] TYPES = Account.AccountType.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // accountNumber -> ordinal
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    // Owner user IDs are dictionary-encoded; many accounts share one owner
+    private final StringDictionary ownerIds = new StringDictionary();
+    private final List<IntList> accountsByOwner = new ArrayList<>();
+
+    // Columns, indexed by account ordinal
+    private String[] accountNumbers = new String[INITIAL_CAPACITY];
+    private long[] balances = new long[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] owners = new int[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private String[] creationDates = new String[INITIAL_CAPACITY]; // Cold; only read when materializing
+    private String[] interestDays = new String[INITIAL_CAPACITY];  // Cold; Account.interestPaidThrough
+    private int size;
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the account's ordinal, or -1 if unknown.
+     */
+    public int ordinalOf(String accountNumber) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(accountNumber);
+            return ordinal == null ? -1 : ordinal;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long balanceMinor(int ordinal) {
+        lock.readLock().lock();
+        try {
+            checkOrdinal(ordinal);
+            return balances[ordinal];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long version(int ordinal) {
+        lock.readLock().lock();
+        try {
+            checkOrdinal(ordinal);
+            return versions[ordinal];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Account get(int ordinal) {
+        lock.readLock().lock();
+        try {
+            if (ordinal < 0 || ordinal >= size) {
+                throw new IndexOutOfBoundsException("No account at ordinal " + ordinal);
+            }
+            return materialize(ordinal);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<Account> find(String accountNumber) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(accountNumber);
+            return ordinal == null ? Optional.empty() : Optional.of(materialize(ordinal));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Account> findByOwner(String userID) {
+        lock.readLock().lock();
+        try {
+            int owner = ownerIds.lookup(userID);
+            if (owner < 0) {
+                return new ArrayList<>();
+            }
+            IntList postings = accountsByOwner.get(owner);
+            List<Account> result = new ArrayList<>(postings.size());
+            for (int i = 0; i < postings.size(); i++) {
+                result.add(materialize(postings.get(i)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The owner's user ID without materializing the account; null if unknown.
+     */
+    public String ownerOf(String accountNumber) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(accountNumber);
+            return ordinal == null ? null : ownerIds.get(owners[ordinal]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every account in ordinal (insertion) order, e.g. for writing accounts.json.
+     */
+    public List<Account> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Account> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(materialize(i));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts a new account or overwrites the columns of an existing one and bumps its version.
+     * The account's version is set to the stored one.
+     * @return the account's ordinal.
+     */
+    public int upsert(Account account) {
+        lock.writeLock().lock();
+        try {
+            return write(account);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * upsert() for every account, but only if none of them changed since it was read
+     * (stored version equals the account's version; unknown accounts count as version 0).
+     * @return false, and nothing is written, on a version mismatch.
+     */
+    public boolean upsertIfVersion(Collection<Account> accounts) {
+        lock.writeLock().lock();
+        try {
+            for (Account account : accounts) {
+                Integer existing = ordinals.get(account.getAccountNumber());
+                long stored = existing == null ? 0 : versions[existing];
+                if (stored != account.getVersion()) {
+                    return false;
+                }
+            }
+            for (Account account : accounts) {
+                write(account);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private int write(Account account) {
+        Integer existing = ordinals.get(account.getAccountNumber());
+        int ordinal;
+        if (existing == null) {
+            ordinal = size++;
+            ensureCapacity(size);
+            ordinals.put(account.getAccountNumber(), ordinal);
+            accountNumbers[ordinal] = account.getAccountNumber();
+            versions[ordinal] = account.getVersion(); // Loaded from file, or 0 for a new account
+        } else {
+            ordinal = existing;
+            versions[ordinal]++;
+        }
+
+        int owner = ownerOrdinal(account.getOwnerUserID());
+        if (existing == null) {
+            accountsByOwner.get(owner).add(ordinal);
+        } else if (owners[ordinal] != owner) {
+            rebuildOwnerPostings(ordinal, owner);
+        }
+
+        owners[ordinal] = owner;
+        balances[ordinal] = account.getBalanceMoney().getMinorUnits();
+        types[ordinal] = account.getType() == null ? -1 : (byte) account.getType().ordinal();
+        creationDates[ordinal] = account.getCreationDate();
+        interestDays[ordinal] = account.getInterestPaidThrough();
+        account.setVersion(versions[ordinal]);
+        return ordinal;
+    }
+
+    // Caller holds a lock
+    private Account materialize(int ordinal) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumbers[ordinal]);
+        account.setOwnerUserID(ownerIds.get(owners[ordinal]));
+        account.setType(types[ordinal] < 0 ? null : TYPES[types[ordinal]]);
+        account.setBalanceMoney(Money.ofMinor(balances[ordinal]));
+        account.setCreationDate(creationDates[ordinal]);
+        account.setInterestPaidThrough(interestDays[ordinal]);
+        account.setVersion(versions[ordinal]);
+        return account;
+    }
+
+    // Caller holds the write lock
+    private int ownerOrdinal(String userID) {
+        int owner = ownerIds.intern(userID);
+        if (owner == accountsByOwner.size()) {
+            accountsByOwner.add(new IntList());
+        }
+        return owner;
+    }
+
+    // Rare: an account moved to another owner. Caller holds the write lock.
+    private void rebuildOwnerPostings(int ordinal, int newOwner) {
+        int oldOwner = owners[ordinal];
+        IntList remaining = new IntList();
+        IntList old = accountsByOwner.get(oldOwner);
+        for (int i = 0; i < old.size(); i++) {
+            if (old.get(i) != ordinal) {
+                remaining.add(old.get(i));
+            }
+        }
+        accountsByOwner.set(oldOwner, remaining);
+        accountsByOwner.get(newOwner).add(ordinal);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= balances.length) return;
+        int newCapacity = Math.max(capacity, balances.length * 2);
+        accountNumbers = Arrays.copyOf(accountNumbers, newCapacity);
+        balances = Arrays.copyOf(balances, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        owners = Arrays.copyOf(owners, newCapacity);
+        versions = Arrays.copyOf(versions, newCapacity);
+        creationDates = Arrays.copyOf(creationDates, newCapacity);
+        interestDays = Arrays.copyOf(interestDays, newCapacity);
+    }
+
+    private void checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("No account with ordinal " + ordinal);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package data;
+
+import model.Account;
+import model.AuditLog;
+import model.Transaction;
+import model.User;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of a DatabaseRepository whose reads are not free
+ * (e.g. SqlDatabaseService). Caches users by ID and by username, and accounts
+ * by number, in bounded segmented-LRU caches. Writes go to the backend first
+ * and then replace the cached entry.
+ *
+ * Unknown usernames are cached as absent, so repeated logins for made-up names
+ * do not each cost a query; creating that user replaces the negative entry.
+ *
+ * Users and accounts are handed out as copies, so a caller that changes a
+ * balance and then fails validation cannot leave the change in the cache, and
+ * saveIfVersion compares against what the caller actually read.
+ */
+public class CachingRepository implements DatabaseRepository {
+    public static final int DEFAULT_MAX_USERS = 10_000;
+    public static final int DEFAULT_MAX_ACCOUNTS = 50_000;
+
+    private final DatabaseRepository delegate;
+    private final SegmentedLruCache<String, User> usersById;
+    private final SegmentedLruCache<String, Optional<User>> usersByUsername; // Key is the lower-cased username
+    private final SegmentedLruCache<String, Account> accountsByNumber;
+
+    public CachingRepository(DatabaseRepository delegate) {
+        this(delegate, DEFAULT_MAX_USERS, DEFAULT_MAX_ACCOUNTS);
+    }
+
+    public CachingRepository(DatabaseRepository delegate, int maxUsers, int maxAccounts) {
+        this.delegate = delegate;
+        this.usersById = new SegmentedLruCache<>(maxUsers);
+        this.usersByUsername = new SegmentedLruCache<>(maxUsers);
+        this.accountsByNumber = new SegmentedLruCache<>(maxAccounts);
+    }
+
+    /**
+     * Hit/miss/eviction counters and current size for each cache.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("usersById", stats(usersById));
+        stats.put("usersByUsername", stats(usersByUsername));
+        stats.put("accountsByNumber", stats(accountsByNumber));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(SegmentedLruCache<?, ?> cache) {
+        long hits = cache.hits();
+        long misses = cache.misses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", cache.evictions());
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
+    }
+
+    // --- USER OPERATIONS ---
+    @Override
+    public Optional<User> findUserByUsername(String username) {
+        if (username == null) return delegate.findUserByUsername(null);
+        String key = username.toLowerCase(Locale.ROOT);
+        Optional<User> cached = usersByUsername.get(key);
+        if (cached != null) {
+            return cached.map(User::copy);
+        }
+        long stamp = usersByUsername.stamp();
+        Optional<User> loaded = delegate.findUserByUsername(username);
+        usersByUsername.putIfUnchanged(key, loaded.map(User::copy), stamp);
+        return loaded;
+    }
+
+    @Override
+    public Optional<User> findUserByID(String id) {
+        if (id == null) return delegate.findUserByID(null);
+        User cached = usersById.get(id);
+        if (cached != null) {
+            return Optional.of(cached.copy());
+        }
+        long stamp = usersById.stamp();
+        Optional<User> loaded = delegate.findUserByID(id);
+        loaded.ifPresent(user -> usersById.putIfUnchanged(id, user.copy(), stamp));
+        return loaded;
+    }
+
+    @Override
+    public List<User> findAllUsers() { return delegate.findAllUsers(); }
+
+    @Override
+    public void saveUser(User user) {
+        delegate.saveUser(user);
+        cacheUser(user);
+    }
+
+    @Override
+    public boolean saveIfVersion(User user) {
+        if (delegate.saveIfVersion(user)) {
+            cacheUser(user);
+            return true;
+        }
+        // Our copy is stale; the next read reloads it
+        usersById.invalidate(user.getUserID());
+        usersByUsername.invalidate(user.getUsername().toLowerCase(Locale.ROOT));
+        return false;
+    }
+
+    private void cacheUser(User user) {
+        User copy = user.copy();
+        usersById.put(user.getUserID(), copy);
+        usersByUsername.put(user.getUsername().toLowerCase(Locale.ROOT), Optional.of(copy));
+    }
+
+    // --- ACCOUNT OPERATIONS ---
+    @Override
+    public List<Account> findAccountsByUserID(String userID) { return delegate.findAccountsByUserID(userID); }
+
+    @Override
+    public List<Account> findAllAccounts() { return delegate.findAllAccounts(); }
+
+    @Override
+    public Optional<Account> findAccountByNumber(String accountNumber) {
+        if (accountNumber == null) return delegate.findAccountByNumber(null);
+        Account cached = accountsByNumber.get(accountNumber);
+        if (cached != null) {
+            return Optional.of(cached.copy());
+        }
+        long stamp = accountsByNumber.stamp();
+        Optional<Account> loaded = delegate.findAccountByNumber(accountNumber);
+        loaded.ifPresent(account -> accountsByNumber.putIfUnchanged(accountNumber, account.copy(), stamp));
+        return loaded;
+    }
+
+    @Override
+    public void saveAccount(Account account) {
+        delegate.saveAccount(account);
+        accountsByNumber.put(account.getAccountNumber(), account.copy());
+    }
+
+    @Override
+    public boolean saveIfVersion(Account account) {
+        if (delegate.saveIfVersion(account)) {
+            accountsByNumber.put(account.getAccountNumber(), account.copy());
+            return true;
+        }
+        accountsByNumber.invalidate(account.getAccountNumber());
+        return false;
+    }
+
+    // --- TRANSACTION OPERATIONS ---
+    @Override
+    public void logTransaction(Transaction transaction) { delegate.logTransaction(transaction); }
+
+    @Override
+    public List<Transaction> findTransactionsByAccount(String accountNumber) { return delegate.findTransactionsByAccount(accountNumber); }
+
+    @Override
+    public List<Transaction> findRecentTransactionsByAccount(String accountNumber, int limit) { return delegate.findRecentTransactionsByAccount(accountNumber, limit); }
+
+    @Override
+    public AccountIndex.Page findAccountsByRange(AccountIndex.Field field, long from, long to, String after, int limit) {
+        return delegate.findAccountsByRange(field, from, to, after, limit);
+    }
+
+    @Override
+    public void forEachTransactionSince(String fromTimestamp, Consumer<Transaction> visitor) { delegate.forEachTransactionSince(fromTimestamp, visitor); }
+
+    // --- AUDIT OPERATIONS ---
+    @Override
+    public void logAudit(AuditLog log) { delegate.logAudit(log); }
+
+    @Override
+    public List<AuditLog> findAllAuditLogs() { return delegate.findAllAuditLogs(); }
+
+    // --- BATCH OPERATIONS ---
+    @Override
+    public void saveAccounts(Collection<Account> accounts) {
+        delegate.saveAccounts(accounts);
+        for (Account account : accounts) {
+            accountsByNumber.put(account.getAccountNumber(), account.copy());
+        }
+    }
+
+    @Override
+    public boolean saveAccountsIfVersion(Collection<Account> accounts) {
+        boolean saved = delegate.saveAccountsIfVersion(accounts);
+        for (Account account : accounts) {
+            if (saved) {
+                accountsByNumber.put(account.getAccountNumber(), account.copy());
+            } else {
+                accountsByNumber.invalidate(account.getAccountNumber());
+            }
+        }
+        return saved;
+    }
+
+    @Override
+    public void logTransactions(List<Transaction> transactions) { delegate.logTransactions(transactions); }
+}
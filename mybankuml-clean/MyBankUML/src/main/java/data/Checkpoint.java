@@ -0,0 +1,283 @@
+package data;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import model.AuditLog;
+
+/**
+ * Binary image of the ledger (TransactionStore with its posting lists) and the
+ * audit log, so a restart does not have to parse and re-index all of history.
+ *
+ * transactions.json and audit_logs.json only ever grow: every save leaves the
+ * bytes of old entries alone and adds new ones before the closing bracket. The
+ * image records, per file, how many entries it holds and the byte offset just
+ * after the last of them (an Anchor). On startup only the bytes after that
+ * offset are parsed and appended. A CRC over the last few KB before the offset
+ * detects files that were rewritten differently since; a CRC trailer over the
+ * whole image detects a torn or corrupt checkpoint. Either makes the caller
+ * fall back to the JSON files.
+ *
+ * Layout: MAGIC, FORMAT, created-at millis, transactions anchor, audit anchor,
+ * TransactionStore.writeTo(), audit entries, CRC32 of everything before it.
+ */
+final class Checkpoint {
+    private static final int MAGIC = 0x4D42434B; // "MBCK"
+    private static final int FORMAT = 1;
+    private static final int WINDOW_BYTES = 4096;
+
+    static final Anchor EMPTY = new Anchor(0, 0, 0);
+
+    /**
+     * Entries read past an anchor, and the anchor after them.
+     */
+    static final class Tail<T> {
+        final List<T> entries;
+        final Anchor next;
+
+        Tail(List<T> entries, Anchor next) {
+            this.entries = entries;
+            this.next = next;
+        }
+    }
+
+    /**
+     * How far into a JSON array file the image reaches.
+     */
+    static final class Anchor {
+        final int count;
+        final long offset;     // Just after the count-th entry; 0 if count is 0
+        final long windowCrc;  // CRC32 of up to WINDOW_BYTES before offset
+
+        private Anchor(int count, long offset, long windowCrc) {
+            this.count = count;
+            this.offset = offset;
+            this.windowCrc = windowCrc;
+        }
+
+        /**
+         * Anchor at the end of file, which must currently hold exactly count entries.
+         */
+        static Anchor of(Path file, int count) throws IOException {
+            if (count == 0) {
+                return EMPTY;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+                long pos = skipWhitespaceBackwards(raf, raf.length() - 1);
+                if (pos < 0 || readByte(raf, pos) != ']') {
+                    throw new IOException(file + " does not end with a JSON array");
+                }
+                long end = skipWhitespaceBackwards(raf, pos - 1) + 1;
+                if (end <= 0 || readByte(raf, end - 1) != '}') {
+                    throw new IOException(file + " does not end with an object");
+                }
+                return new Anchor(count, end, windowCrc(raf, end));
+            }
+        }
+
+        /**
+         * Entries added to file after the anchor (e.g. since the last checkpoint), with the
+         * anchor just after them. Both come from one read of the end of the file, so they agree
+         * even if another process is rewriting it; a count-0 anchor reads the whole file.
+         * @throws IOException if the part of file the anchor stands for has changed, or the file
+         *                     is not a complete array (e.g. caught in the middle of a save)
+         */
+        <T> Tail<T> readTail(Path file, ObjectMapper mapper, TypeReference<List<T>> type) throws IOException {
+            if (!Files.exists(file)) {
+                if (count == 0) return new Tail<>(new ArrayList<>(), this);
+                throw new IOException(file + " is missing");
+            }
+            long start = offset - Math.min(WINDOW_BYTES, offset);
+            byte[] bytes;
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+                if (raf.length() < offset) {
+                    throw new IOException(file + " changed before the checkpoint position");
+                }
+                bytes = new byte[(int) (raf.length() - start)];
+                raf.seek(start);
+                raf.readFully(bytes);
+            }
+            int at = (int) (offset - start); // The anchor, within bytes; the window is everything before it
+            if (count > 0 && crc(bytes, 0, at) != windowCrc) {
+                throw new IOException(file + " changed before the checkpoint position");
+            }
+
+            // The tail is "]" or ", {...}, {...} ]" (the whole "[ {...}, ... ]" for count 0)
+            int close = skipWhitespaceBackwards(bytes, bytes.length - 1);
+            if (close < at || bytes[close] != ']') {
+                throw new IOException(file + " does not end with a JSON array");
+            }
+            int end = skipWhitespaceBackwards(bytes, close - 1) + 1;
+            if (end <= at || bytes[end - 1] == '[') {
+                return new Tail<>(new ArrayList<>(), this);
+            }
+            if (bytes[end - 1] != '}') {
+                throw new IOException(file + " does not end with an object");
+            }
+            String rest = new String(bytes, at, end - at, StandardCharsets.UTF_8).trim();
+            List<T> entries;
+            if (count == 0) {
+                entries = mapper.readValue(rest + "]", type);
+            } else if (rest.startsWith(",")) {
+                entries = mapper.readValue("[" + rest.substring(1) + "]", type);
+            } else {
+                throw new IOException(file + " has no entry separator at the checkpoint position");
+            }
+            int window = (int) Math.min(WINDOW_BYTES, start + end);
+            return new Tail<>(entries, new Anchor(count + entries.size(), start + end, crc(bytes, end - window, end)));
+        }
+
+        private static int skipWhitespaceBackwards(byte[] bytes, int pos) {
+            while (pos >= 0 && Character.isWhitespace(bytes[pos])) {
+                pos--;
+            }
+            return pos;
+        }
+
+        private static long crc(byte[] bytes, int from, int to) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes, from, to - from);
+            return crc.getValue();
+        }
+
+        private static long skipWhitespaceBackwards(RandomAccessFile raf, long pos) throws IOException {
+            while (pos >= 0 && Character.isWhitespace(readByte(raf, pos))) {
+                pos--;
+            }
+            return pos;
+        }
+
+        private static int readByte(RandomAccessFile raf, long pos) throws IOException {
+            raf.seek(pos);
+            return raf.read();
+        }
+
+        private static long windowCrc(RandomAccessFile raf, long end) throws IOException {
+            int length = (int) Math.min(WINDOW_BYTES, end);
+            byte[] window = new byte[length];
+            raf.seek(end - length);
+            raf.readFully(window);
+            CRC32 crc = new CRC32();
+            crc.update(window);
+            return crc.getValue();
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(count);
+            out.writeLong(offset);
+            out.writeLong(windowCrc);
+        }
+
+        private static Anchor readFrom(DataInputStream in) throws IOException {
+            return new Anchor(in.readInt(), in.readLong(), in.readLong());
+        }
+    }
+
+    final long createdAt;
+    final Anchor transactionsAnchor;
+    final Anchor auditAnchor;
+    final TransactionStore transactions;
+    final List<AuditLog> auditLogs;
+
+    private Checkpoint(long createdAt, Anchor transactionsAnchor, Anchor auditAnchor,
+                       TransactionStore transactions, List<AuditLog> auditLogs) {
+        this.createdAt = createdAt;
+        this.transactionsAnchor = transactionsAnchor;
+        this.auditAnchor = auditAnchor;
+        this.transactions = transactions;
+        this.auditLogs = auditLogs;
+    }
+
+    /**
+     * Writes the image next to target and renames it into place, so a crash
+     * leaves either the old checkpoint or the new one.
+     * @return the size of the image in bytes
+     */
+    static long write(Path target, TransactionStore transactions, List<AuditLog> auditLogs,
+                      Anchor transactionsAnchor, Anchor auditAnchor) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(temp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(System.currentTimeMillis());
+            transactionsAnchor.writeTo(out);
+            auditAnchor.writeTo(out);
+            transactions.writeTo(out);
+            out.writeInt(auditAnchor.count);
+            for (int i = 0; i < auditAnchor.count; i++) {
+                AuditLog log = auditLogs.get(i);
+                writeNullable(out, log.getLogID());
+                writeNullable(out, log.getAdminID());
+                writeNullable(out, log.getAction());
+                writeNullable(out, log.getTargetUserID());
+                writeNullable(out, log.getTimestamp());
+            }
+            out.flush();
+            new DataOutputStream(file).writeLong(crc.getValue()); // Trailer, outside the checksum
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(target);
+    }
+
+    /**
+     * @throws IOException if the file is not a complete checkpoint of this format
+     */
+    static Checkpoint read(Path file) throws IOException {
+        byte[] image = Files.readAllBytes(file);
+        if (image.length < 8 + 8) {
+            throw new IOException("Checkpoint is truncated");
+        }
+        int body = image.length - 8;
+        CRC32 crc = new CRC32();
+        crc.update(image, 0, body);
+        if (ByteBuffer.wrap(image, body, 8).getLong() != crc.getValue()) {
+            throw new IOException("Checkpoint checksum mismatch");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(image, 0, body));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+            throw new IOException("Not a checkpoint of format " + FORMAT);
+        }
+        long createdAt = in.readLong();
+        Anchor transactionsAnchor = Anchor.readFrom(in);
+        Anchor auditAnchor = Anchor.readFrom(in);
+        TransactionStore transactions = TransactionStore.readFrom(in);
+        int auditCount = in.readInt();
+        List<AuditLog> auditLogs = new ArrayList<>(auditCount);
+        for (int i = 0; i < auditCount; i++) {
+            auditLogs.add(new AuditLog(readNullable(in), readNullable(in), readNullable(in), readNullable(in), readNullable(in)));
+        }
+        if (transactions.size() != transactionsAnchor.count || auditCount != auditAnchor.count) {
+            throw new IOException("Checkpoint anchors do not match its contents");
+        }
+        return new Checkpoint(createdAt, transactionsAnchor, auditAnchor, transactions, auditLogs);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,68 @@
+package data;
+
+import model.Account;
+import model.ScheduledTransfer;
+import model.Transaction;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One node of a cluster as seen by ClusterRepository: its partition of the
+ * data, plus the participant side of the two-phase commit used when one
+ * versioned account write spans several nodes, the session revocations
+ * every node must know about, and the batch jobs that run on the node owning
+ * the accounts they cover.
+ */
+public interface ClusterNode extends DatabaseRepository {
+    // Phase 1: checks every account's version and locks them against other writes.
+    // Returns false (and locks nothing) if any account changed or is held by another transfer.
+    // decider is the node (index in the cluster) to ask for the outcome if the coordinator goes quiet.
+    boolean prepare(String txId, Collection<Account> accounts, int decider);
+
+    // Phase 2: writes the prepared accounts and returns them with their new versions
+    List<Account> commit(String txId);
+
+    // Phase 2 on failure: releases the locks without writing
+    void abort(String txId);
+
+    // On the decider, between the phases: durably records that the transfer commits, unless it
+    // was already presumed aborted. Returns whether it commits; repeated calls give the same answer.
+    boolean decide(String txId);
+
+    // On the decider, for participants in doubt: whether the transfer committed. One without a
+    // decision is presumed aborted from then on, so a late decide() cannot commit it.
+    boolean outcome(String txId);
+
+    // Session revocations made on another node (see TokenRevocations.merge for the form)
+    void addRevocations(Map<String, Map<String, Long>> revoked);
+
+    // Every session revocation this node knows about, in the same form
+    Map<String, Map<String, Long>> revocations();
+
+    // Writes the monthly statements (month like 2026-09, format CSV or JSON) of this node's
+    // accounts and returns the run's counts (see StatementGenerator)
+    Map<String, Object> generateStatements(String month, String format);
+
+    // One of this node's statements, or null if it has not been generated
+    String statement(String month, String accountNumber, String format);
+
+    // Stores and runs a new standing order paid from one of this node's accounts
+    void addSchedule(ScheduledTransfer schedule);
+
+    // The standing orders stored on this node that the user created
+    List<ScheduledTransfer> schedulesByOwner(String ownerUserId);
+
+    // A standing order stored on this node, or null
+    ScheduledTransfer schedule(String scheduleId);
+
+    // Stops a standing order stored on this node; false if it is not here or not active
+    boolean cancelSchedule(String scheduleId);
+
+    // Checks a posting at time 'at' (epoch ms) against the limits of one of this node's accounts
+    // and records it. Returns null if it is within them, else the message of the limit it breaks.
+    String reserveLimit(String accountNumber, Transaction.Type type, long amountMinor, long at);
+
+    // Takes back a reservation made with reserveLimit whose posting did not happen
+    void cancelLimit(String accountNumber, Transaction.Type type, long amountMinor, long at);
+}
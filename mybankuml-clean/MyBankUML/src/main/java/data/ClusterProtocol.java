@@ -0,0 +1,208 @@
+package data;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.Account;
+import model.AuditLog;
+import model.ScheduledTransfer;
+import model.Transaction;
+import model.User;
+import util.SecurityUtils;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire format between cluster nodes: POST /internal/cluster/{operation} with
+ * the arguments as a JSON object, answered with the result as JSON. The server
+ * side (handle) and HttpClusterNode share it so they cannot drift apart.
+ *
+ * Versioned saves answer {"saved": ..., "value": ...} so the caller can copy
+ * the new versions back into its objects, as the local backends do.
+ */
+public final class ClusterProtocol {
+    public static final String PATH_PREFIX = "/internal/cluster/";
+    public static final String SECRET_HEADER = "X-Cluster-Secret"; // Carries peerCredential(secret)
+
+    static final ObjectMapper MAPPER = new ObjectMapper();
+    static final TypeReference<List<User>> USERS = new TypeReference<List<User>>(){};
+    static final TypeReference<List<Account>> ACCOUNTS = new TypeReference<List<Account>>(){};
+    static final TypeReference<List<Transaction>> TRANSACTIONS = new TypeReference<List<Transaction>>(){};
+    static final TypeReference<List<AuditLog>> AUDIT_LOGS = new TypeReference<List<AuditLog>>(){};
+    static final TypeReference<Map<String, Map<String, Long>>> REVOCATIONS = new TypeReference<Map<String, Map<String, Long>>>(){};
+    static final TypeReference<Map<String, Object>> STATS = new TypeReference<Map<String, Object>>(){};
+    static final TypeReference<List<ScheduledTransfer>> SCHEDULES = new TypeReference<List<ScheduledTransfer>>(){};
+
+    private ClusterProtocol() {}
+
+    /**
+     * What nodes present to each other in SECRET_HEADER: a key derived from the cluster
+     * secret for this purpose only, so peer traffic carries neither the secret nor the
+     * key session tokens are signed with.
+     */
+    public static String peerCredential(String secret) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(SecurityUtils.deriveKey(secret, "peer-auth"));
+    }
+
+    /**
+     * Runs one operation against this node's partition.
+     * @return the JSON response body
+     */
+    public static String handle(ClusterNode node, String operation, String body) throws IOException {
+        JsonNode args = MAPPER.readTree(body == null || body.isEmpty() ? "{}" : body);
+        Object result;
+        switch (operation) {
+            // Users
+            case "findUserByUsername":
+                result = node.findUserByUsername(args.path("username").asText()).orElse(null);
+                break;
+            case "findUserByID":
+                result = node.findUserByID(args.path("id").asText()).orElse(null);
+                break;
+            case "findAllUsers":
+                result = node.findAllUsers();
+                break;
+            case "saveUser": {
+                User user = MAPPER.treeToValue(args.get("user"), User.class);
+                node.saveUser(user);
+                result = user;
+                break;
+            }
+            case "saveUserIfVersion": {
+                User user = MAPPER.treeToValue(args.get("user"), User.class);
+                result = versioned(node.saveIfVersion(user), user);
+                break;
+            }
+
+            // Accounts
+            case "findAccountsByUserID":
+                result = node.findAccountsByUserID(args.path("userID").asText());
+                break;
+            case "findAccountByNumber":
+                result = node.findAccountByNumber(args.path("accountNumber").asText()).orElse(null);
+                break;
+            case "findAccountsByRange":
+                result = node.findAccountsByRange(AccountIndex.Field.valueOf(args.path("field").asText()),
+                        args.path("from").asLong(), args.path("to").asLong(),
+                        args.hasNonNull("after") ? args.get("after").asText() : null, args.path("limit").asInt());
+                break;
+            case "saveAccount": {
+                Account account = MAPPER.treeToValue(args.get("account"), Account.class);
+                node.saveAccount(account);
+                result = account;
+                break;
+            }
+            case "saveAccountIfVersion": {
+                Account account = MAPPER.treeToValue(args.get("account"), Account.class);
+                result = versioned(node.saveIfVersion(account), account);
+                break;
+            }
+            case "saveAccounts": {
+                List<Account> accounts = MAPPER.convertValue(args.get("accounts"), ACCOUNTS);
+                node.saveAccounts(accounts);
+                result = accounts;
+                break;
+            }
+            case "saveAccountsIfVersion": {
+                List<Account> accounts = MAPPER.convertValue(args.get("accounts"), ACCOUNTS);
+                result = versioned(node.saveAccountsIfVersion(accounts), accounts);
+                break;
+            }
+
+            // Ledger and audit
+            case "logTransactions":
+                node.logTransactions(MAPPER.convertValue(args.get("transactions"), TRANSACTIONS));
+                result = null;
+                break;
+            case "findTransactionsByAccount":
+                result = new ArrayList<>(node.findTransactionsByAccount(args.path("accountNumber").asText()));
+                break;
+            case "findRecentTransactionsByAccount":
+                result = node.findRecentTransactionsByAccount(args.path("accountNumber").asText(), args.path("limit").asInt());
+                break;
+            case "logAudit":
+                node.logAudit(MAPPER.treeToValue(args.get("log"), AuditLog.class));
+                result = null;
+                break;
+            case "findAllAuditLogs":
+                result = node.findAllAuditLogs();
+                break;
+
+            // Two-phase commit
+            case "prepare":
+                result = node.prepare(args.path("txId").asText(), MAPPER.convertValue(args.get("accounts"), ACCOUNTS),
+                        args.path("decider").asInt());
+                break;
+            case "commit":
+                result = node.commit(args.path("txId").asText());
+                break;
+            case "abort":
+                node.abort(args.path("txId").asText());
+                result = null;
+                break;
+            case "decide":
+                result = node.decide(args.path("txId").asText());
+                break;
+            case "outcome":
+                result = node.outcome(args.path("txId").asText());
+                break;
+
+            // Session revocations
+            case "addRevocations":
+                node.addRevocations(MAPPER.convertValue(args.get("revoked"), REVOCATIONS));
+                result = null;
+                break;
+            case "revocations":
+                result = node.revocations();
+                break;
+
+            // Statements
+            case "generateStatements":
+                result = node.generateStatements(args.path("month").asText(), args.path("format").asText());
+                break;
+            case "statement":
+                result = node.statement(args.path("month").asText(), args.path("accountNumber").asText(), args.path("format").asText());
+                break;
+
+            // Standing orders
+            case "addSchedule":
+                node.addSchedule(MAPPER.treeToValue(args.get("schedule"), ScheduledTransfer.class));
+                result = null;
+                break;
+            case "schedulesByOwner":
+                result = node.schedulesByOwner(args.path("ownerUserID").asText());
+                break;
+            case "schedule":
+                result = node.schedule(args.path("scheduleID").asText());
+                break;
+            case "cancelSchedule":
+                result = node.cancelSchedule(args.path("scheduleID").asText());
+                break;
+
+            // Limits
+            case "reserveLimit":
+                result = node.reserveLimit(args.path("accountNumber").asText(), Transaction.Type.valueOf(args.path("type").asText()),
+                        args.path("amountMinor").asLong(), args.path("at").asLong());
+                break;
+            case "cancelLimit":
+                node.cancelLimit(args.path("accountNumber").asText(), Transaction.Type.valueOf(args.path("type").asText()),
+                        args.path("amountMinor").asLong(), args.path("at").asLong());
+                result = null;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown cluster operation: " + operation);
+        }
+        return MAPPER.writeValueAsString(result);
+    }
+
+    private static Map<String, Object> versioned(boolean saved, Object value) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("saved", saved);
+        result.put("value", value);
+        return result;
+    }
+}
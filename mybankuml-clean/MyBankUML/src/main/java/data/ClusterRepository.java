@@ -0,0 +1,308 @@
+package data;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.Account;
+import model.AuditLog;
+import model.Transaction;
+import model.User;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * DatabaseRepository for one node of a multi-node deployment. Users and
+ * accounts are hash-partitioned across the nodes (by user ID and account
+ * number); each call is forwarded to the node that owns the record, or
+ * answered locally when that is this node.
+ *
+ * - Username lookups and "all users"/"accounts of a user" ask every node.
+ * - A transaction is written to the ledger of each node owning one of its
+ *   accounts, so every node can answer history queries for its own accounts.
+ * - Audit logs live on node 0.
+ * - saveAccountsIfVersion across several nodes (a cross-partition transfer or
+ *   bulk batch) runs a two-phase commit: every node prepares (checks versions
+ *   and locks its accounts), then all commit, or all abort if any said no.
+ *
+ * The commit decision is recorded on the lowest-numbered participant (the
+ * decider) before any node writes. A node that does not receive its commit
+ * (this coordinator crashed, or the call failed) asks the decider once its
+ * prepare times out and applies the transfer itself; see LocalClusterNode.
+ */
+public class ClusterRepository implements DatabaseRepository {
+    static final int AUDIT_NODE = 0;
+    static final int COMMIT_ATTEMPTS = 3;
+
+    private final Partitioner partitioner;
+    private final List<ClusterNode> nodes;
+
+    /**
+     * @param nodes every node of the cluster in the same order on all nodes;
+     *              this node's entry is its LocalClusterNode
+     */
+    public ClusterRepository(List<? extends ClusterNode> nodes) {
+        this.partitioner = new Partitioner(nodes.size());
+        this.nodes = new ArrayList<>(nodes);
+    }
+
+    private ClusterNode nodeFor(String key) {
+        return nodes.get(partitioner.nodeFor(key));
+    }
+
+    // --- USER OPERATIONS ---
+    @Override
+    public Optional<User> findUserByUsername(String username) {
+        if (username == null) return Optional.empty();
+        for (ClusterNode node : nodes) {
+            Optional<User> user = node.findUserByUsername(username);
+            if (user.isPresent()) {
+                return user;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<User> findUserByID(String id) {
+        if (id == null) return Optional.empty();
+        return nodeFor(id).findUserByID(id);
+    }
+
+    @Override
+    public List<User> findAllUsers() {
+        List<User> all = new ArrayList<>();
+        for (ClusterNode node : nodes) {
+            all.addAll(node.findAllUsers());
+        }
+        return all;
+    }
+
+    @Override
+    public void saveUser(User user) { nodeFor(user.getUserID()).saveUser(user); }
+
+    @Override
+    public boolean saveIfVersion(User user) { return nodeFor(user.getUserID()).saveIfVersion(user); }
+
+    // --- ACCOUNT OPERATIONS ---
+    @Override
+    public List<Account> findAccountsByUserID(String userID) {
+        List<Account> all = new ArrayList<>();
+        for (ClusterNode node : nodes) {
+            all.addAll(node.findAccountsByUserID(userID));
+        }
+        return all;
+    }
+
+    @Override
+    public Optional<Account> findAccountByNumber(String accountNumber) {
+        if (accountNumber == null) return Optional.empty();
+        return nodeFor(accountNumber).findAccountByNumber(accountNumber);
+    }
+
+    @Override
+    public void saveAccount(Account account) { nodeFor(account.getAccountNumber()).saveAccount(account); }
+
+    @Override
+    public boolean saveIfVersion(Account account) { return nodeFor(account.getAccountNumber()).saveIfVersion(account); }
+
+    @Override
+    public void saveAccounts(Collection<Account> accounts) {
+        partition(accounts).forEach((node, group) -> nodes.get(node).saveAccounts(group));
+    }
+
+    @Override
+    public boolean saveAccountsIfVersion(Collection<Account> accounts) {
+        Map<Integer, List<Account>> groups = partition(accounts);
+        if (groups.size() == 1) {
+            Map.Entry<Integer, List<Account>> only = groups.entrySet().iterator().next();
+            return nodes.get(only.getKey()).saveAccountsIfVersion(only.getValue());
+        }
+        return twoPhaseCommit(groups);
+    }
+
+    private boolean twoPhaseCommit(Map<Integer, List<Account>> groups) {
+        String txId = UUID.randomUUID().toString();
+        int decider = groups.keySet().iterator().next(); // Lowest-numbered participant
+        try {
+            for (Map.Entry<Integer, List<Account>> group : groups.entrySet()) {
+                if (!nodes.get(group.getKey()).prepare(txId, group.getValue(), decider)) {
+                    abortAll(groups, txId);
+                    return false;
+                }
+            }
+        } catch (RuntimeException e) {
+            // A node may have prepared and then failed to answer; abort is a no-op where nothing was prepared
+            abortAll(groups, txId);
+            throw e;
+        }
+
+        // Every node voted yes. Once the decider has recorded it the transfer commits
+        // everywhere, whatever happens to this coordinator
+        if (!decide(decider, txId)) {
+            abortAll(groups, txId); // A participant timed out and the decider presumed an abort
+            return false;
+        }
+        for (Map.Entry<Integer, List<Account>> group : groups.entrySet()) {
+            try {
+                HttpClusterNode.copyVersions(group.getValue(), commit(group.getKey(), txId));
+            } catch (RuntimeException e) {
+                System.err.println("Transfer " + txId + " is committed; node " + group.getKey()
+                        + " will apply it when it asks node " + decider + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    // decide() answers the same when repeated, so a lost answer can be asked for again
+    private boolean decide(int decider, String txId) {
+        RuntimeException failure = null;
+        for (int attempt = 0; attempt < COMMIT_ATTEMPTS; attempt++) {
+            try {
+                return nodes.get(decider).decide(txId);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        throw new IllegalStateException("Outcome of transfer " + txId + " is unknown; node " + decider
+                + " decides it once it can be reached", failure);
+    }
+
+    private List<Account> commit(int node, String txId) {
+        RuntimeException failure = null;
+        for (int attempt = 0; attempt < COMMIT_ATTEMPTS; attempt++) {
+            try {
+                return nodes.get(node).commit(txId);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        throw new IllegalStateException("Node " + node + " did not confirm the commit", failure);
+    }
+
+    private void abortAll(Map<Integer, List<Account>> groups, String txId) {
+        for (Integer node : groups.keySet()) {
+            try {
+                nodes.get(node).abort(txId);
+            } catch (RuntimeException e) {
+                // The node asks the decider once the prepare times out, and is told to abort
+                System.err.println("Could not abort transfer " + txId + " on node " + node + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Node index -> accounts it owns, in the callers' order; nodes in ascending order
+    private Map<Integer, List<Account>> partition(Collection<Account> accounts) {
+        Map<Integer, List<Account>> groups = new TreeMap<>();
+        for (Account account : accounts) {
+            groups.computeIfAbsent(partitioner.nodeFor(account.getAccountNumber()), k -> new ArrayList<>()).add(account);
+        }
+        return groups;
+    }
+
+    // --- TRANSACTION OPERATIONS ---
+    @Override
+    public void logTransaction(Transaction transaction) {
+        logTransactions(List.of(transaction));
+    }
+
+    @Override
+    public void logTransactions(List<Transaction> transactions) {
+        Map<Integer, List<Transaction>> groups = new TreeMap<>();
+        for (Transaction transaction : transactions) {
+            for (int node : ledgerNodes(transaction)) {
+                groups.computeIfAbsent(node, k -> new ArrayList<>()).add(transaction);
+            }
+        }
+        groups.forEach((node, group) -> nodes.get(node).logTransactions(group));
+    }
+
+    // The nodes owning the transaction's source and (for transfers) target account
+    private int[] ledgerNodes(Transaction transaction) {
+        int source = partitioner.nodeFor(transaction.getSourceAccountNumber());
+        String targetAccount = transaction.getTargetAccountNumber();
+        if (targetAccount == null) {
+            return new int[] {source};
+        }
+        int target = partitioner.nodeFor(targetAccount);
+        return source == target ? new int[] {source} : new int[] {source, target};
+    }
+
+    @Override
+    public List<Transaction> findTransactionsByAccount(String accountNumber) {
+        return nodeFor(accountNumber).findTransactionsByAccount(accountNumber);
+    }
+
+    // Each node returns its own page after the cursor; the first 'limit' of their union is the cluster's page
+    @Override
+    public AccountIndex.Page findAccountsByRange(AccountIndex.Field field, long from, long to, String after, int limit) {
+        List<AccountIndex.Hit> hits = new ArrayList<>();
+        for (ClusterNode node : nodes) {
+            hits.addAll(node.findAccountsByRange(field, from, to, after, limit).hits);
+        }
+        return AccountIndex.page(hits, from, to, after, limit);
+    }
+
+    @Override
+    public List<Transaction> findRecentTransactionsByAccount(String accountNumber, int limit) {
+        return nodeFor(accountNumber).findRecentTransactionsByAccount(accountNumber, limit);
+    }
+
+    // --- AUDIT OPERATIONS ---
+    @Override
+    public void logAudit(AuditLog log) { nodes.get(AUDIT_NODE).logAudit(log); }
+
+    @Override
+    public List<AuditLog> findAllAuditLogs() { return nodes.get(AUDIT_NODE).findAllAuditLogs(); }
+
+    // --- BOOTSTRAP ---
+    /**
+     * Copies this node's share of a single-node data directory (data/*.json)
+     * into its own, empty storage. Run once per node when a deployment is split.
+     */
+    public static void importPartition(String sourceDir, DatabaseRepository local, int self, int nodeCount) {
+        Partitioner partitioner = new Partitioner(nodeCount);
+        ObjectMapper json = new ObjectMapper();
+        for (User user : readJson(json, sourceDir + "users.json", new TypeReference<List<User>>(){})) {
+            if (partitioner.nodeFor(user.getUserID()) == self) {
+                local.saveUser(user);
+            }
+        }
+        List<Account> accounts = new ArrayList<>();
+        for (Account account : readJson(json, sourceDir + "accounts.json", new TypeReference<List<Account>>(){})) {
+            if (partitioner.nodeFor(account.getAccountNumber()) == self) {
+                accounts.add(account);
+            }
+        }
+        local.saveAccounts(accounts);
+        List<Transaction> ledger = new ArrayList<>();
+        for (Transaction tx : readJson(json, sourceDir + "transactions.json", new TypeReference<List<Transaction>>(){})) {
+            boolean ownsSource = partitioner.nodeFor(tx.getSourceAccountNumber()) == self;
+            boolean ownsTarget = tx.getTargetAccountNumber() != null && partitioner.nodeFor(tx.getTargetAccountNumber()) == self;
+            if (ownsSource || ownsTarget) {
+                ledger.add(tx);
+            }
+        }
+        local.logTransactions(ledger);
+        if (self == AUDIT_NODE) {
+            for (AuditLog log : readJson(json, sourceDir + "audit_logs.json", new TypeReference<List<AuditLog>>(){})) {
+                local.logAudit(log);
+            }
+        }
+    }
+
+    private static <T> List<T> readJson(ObjectMapper json, String path, TypeReference<List<T>> typeRef) {
+        File file = new File(path);
+        if (!file.exists()) return new ArrayList<>();
+        try {
+            return json.readValue(file, typeRef);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + path, e);
+        }
+    }
+}
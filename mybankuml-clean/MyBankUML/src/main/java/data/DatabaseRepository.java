@@ -4,14 +4,20 @@ import model.Account;
 import model.AuditLog;
 import model.Transaction;
 import model.User;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface DatabaseRepository {
     // User Operations
     Optional<User> findUserByUsername(String username);
     Optional<User> findUserByID(String id);
-    List<User> findAllUsers(); // For Admin/Tellers
+    List<User> findAllUsers(); // For Admin/Tellers; may be a shared read-only snapshot
     void saveUser(User user); // Handles Create and Update
     
     // Account Operations
@@ -19,11 +25,116 @@ public interface DatabaseRepository {
     Optional<Account> findAccountByNumber(String accountNumber);
     void saveAccount(Account account); // Handles Balance Updates
 
+    // Every account, e.g. for batch jobs; backends that can list accounts directly override this
+    default List<Account> findAllAccounts() {
+        List<Account> all = new ArrayList<>();
+        for (User user : findAllUsers()) {
+            all.addAll(findAccountsByUserID(user.getUserID()));
+        }
+        return all;
+    }
+
+    // Owner's user ID of an account (e.g. for access checks); backends with an owner index override this
+    default Optional<String> findAccountOwner(String accountNumber) {
+        return findAccountByNumber(accountNumber).map(Account::getOwnerUserID);
+    }
+
+    // A page of accounts whose field lies in [from, to), ordered by it, resumed after a previous page's
+    // 'next' cursor (see AccountIndex). This default scans every account; indexed backends override it
+    default AccountIndex.Page findAccountsByRange(AccountIndex.Field field, long from, long to, String after, int limit) {
+        List<AccountIndex.Hit> hits = new ArrayList<>();
+        for (Account account : findAllAccounts()) {
+            hits.add(new AccountIndex.Hit(AccountIndex.keyOf(field, account, this), account));
+        }
+        return AccountIndex.page(hits, from, to, after, limit);
+    }
+
     // Transaction Operations
     void logTransaction(Transaction transaction);
     List<Transaction> findTransactionsByAccount(String accountNumber);
 
+    // An account's latest transactions, newest first (e.g. for a summary screen); backends that can
+    // read just the end of an account's history override this
+    default List<Transaction> findRecentTransactionsByAccount(String accountNumber, int limit) {
+        List<Transaction> history = findTransactionsByAccount(accountNumber);
+        List<Transaction> recent = new ArrayList<>(Math.min(limit, history.size()));
+        for (int i = history.size() - 1; i >= 0 && recent.size() < limit; i--) {
+            recent.add(history.get(i));
+        }
+        return recent;
+    }
+
+    // Transactions logged at or after a local date-time (e.g. "2026-09-01T00:00"), in ledger order, for
+    // reports that make one pass over the ledger. This default collects every account's history in memory;
+    // backends that can stream the ledger override it
+    default void forEachTransactionSince(String fromTimestamp, Consumer<Transaction> visitor) {
+        Map<String, Transaction> all = new LinkedHashMap<>();
+        for (Account account : findAllAccounts()) {
+            for (Transaction tx : findTransactionsByAccount(account.getAccountNumber())) {
+                all.putIfAbsent(tx.getTransactionID(), tx);
+            }
+        }
+        all.values().stream()
+                .filter(tx -> tx.getTimestamp() != null && tx.getTimestamp().compareTo(fromTimestamp) >= 0)
+                .sorted(Comparator.comparing(Transaction::getTimestamp))
+                .forEach(visitor);
+    }
+
     // Audit Operations
     void logAudit(AuditLog log);
-    List<AuditLog> findAllAuditLogs();
+    List<AuditLog> findAllAuditLogs(); // May be a shared read-only snapshot
+
+    // Optimistic Concurrency
+    // Every save bumps the stored version and writes the new version back into the object.
+    // saveIfVersion only saves if the stored version still equals the object's version
+    // (i.e. nobody saved since it was read) and returns false otherwise.
+    // These defaults are only atomic against other saveIfVersion calls; backends override them.
+    default boolean saveIfVersion(Account account) {
+        synchronized (this) {
+            long stored = findAccountByNumber(account.getAccountNumber()).map(Account::getVersion).orElse(0L);
+            if (stored != account.getVersion()) {
+                return false;
+            }
+            saveAccount(account);
+            return true;
+        }
+    }
+
+    default boolean saveIfVersion(User user) {
+        synchronized (this) {
+            long stored = findUserByID(user.getUserID()).map(User::getVersion).orElse(0L);
+            if (stored != user.getVersion()) {
+                return false;
+            }
+            saveUser(user);
+            return true;
+        }
+    }
+
+    // All-or-nothing: saves none of the accounts if any of them changed since it was read
+    default boolean saveAccountsIfVersion(Collection<Account> accounts) {
+        synchronized (this) {
+            for (Account account : accounts) {
+                long stored = findAccountByNumber(account.getAccountNumber()).map(Account::getVersion).orElse(0L);
+                if (stored != account.getVersion()) {
+                    return false;
+                }
+            }
+            saveAccounts(accounts);
+            return true;
+        }
+    }
+
+    // Batch Operations (used by bulk submission; implementations should persist each group in one write)
+    default void saveAccounts(Collection<Account> accounts) {
+        for (Account account : accounts) {
+            saveAccount(account);
+        }
+    }
+
+    default void logTransactions(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            logTransaction(transaction);
+        }
+    }
 }
\ No newline at end of file
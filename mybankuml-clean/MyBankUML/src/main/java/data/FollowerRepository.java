@@ -0,0 +1,190 @@
+package data;
+
+import model.Account;
+import model.AuditLog;
+import model.Transaction;
+import model.User;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Read-only copy of a primary's JSON data directory, for a second process on
+ * the same host that serves reads (search, history, audit) so they do not
+ * compete with the primary's writes.
+ *
+ * The data is loaded like the primary loads it (checkpoint plus the entries
+ * after it) into a JsonFileService of its own, which is then kept current by
+ * polling: ledger and audit entries the primary appended are parsed from where
+ * the last poll stopped, users and accounts are re-read when their file
+ * changes (see JsonFileService.catchUp). A poll that finds a file in the middle
+ * of a save is simply retried. If the history files were rewritten rather than
+ * appended to (e.g. restored from a backup), polls keep failing, and after
+ * RESYNC_AFTER_FAILURES of them the directory is loaded again from scratch.
+ *
+ * Every write throws; clients send them (and logins) to the primary.
+ */
+public class FollowerRepository implements DatabaseRepository {
+    public static final int RESYNC_AFTER_FAILURES = 50;
+
+    private final String dataDir;
+    private volatile JsonFileService store;
+    private ScheduledExecutorService poller;
+
+    // Written by polls (one at a time), read by stats() without waiting for a poll
+    private volatile long caughtUpAt; // Start of the last successful poll (epoch ms)
+    private volatile long lastPollMillis;
+    private volatile long applied;
+    private volatile long failedPolls;
+    private volatile long resyncs;
+    private volatile String lastError;
+    private int failuresInARow;
+
+    public FollowerRepository(String dataDir) {
+        this.dataDir = dataDir;
+        this.store = new JsonFileService(dataDir);
+        poll();
+    }
+
+    /**
+     * Polls every intervalMillis in the background, which bounds the lag while the primary's saves succeed.
+     */
+    public synchronized void start(long intervalMillis) {
+        if (poller != null) return;
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "follower-poll");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::poll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies what the primary saved since the last poll.
+     * @return whether every file was read; if not, the next poll tries again
+     */
+    public synchronized boolean poll() {
+        long started = System.currentTimeMillis();
+        try {
+            applied += store.catchUp();
+            caughtUpAt = started;
+            failuresInARow = 0;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            failedPolls++;
+            lastError = e.getMessage();
+            if (++failuresInARow >= RESYNC_AFTER_FAILURES) {
+                resync();
+            }
+            return false;
+        } finally {
+            lastPollMillis = System.currentTimeMillis() - started;
+        }
+    }
+
+    // Swapped in only once the fresh copy has read every file, so readers never see an empty store
+    private void resync() {
+        try {
+            JsonFileService fresh = new JsonFileService(dataDir);
+            fresh.catchUp();
+            store = fresh;
+            caughtUpAt = System.currentTimeMillis();
+            failuresInARow = 0;
+            resyncs++;
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+        }
+    }
+
+    /**
+     * lagMillis bounds how stale reads are: every write the primary saved more than that long ago is applied.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lagMillis", caughtUpAt == 0 ? null : System.currentTimeMillis() - caughtUpAt);
+        stats.put("lastPollMillis", lastPollMillis);
+        stats.put("recordsApplied", applied);
+        stats.put("failedPolls", failedPolls);
+        stats.put("resyncs", resyncs);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Read-only follower: send writes to the primary");
+    }
+
+    // --- READS ---
+    @Override
+    public Optional<User> findUserByUsername(String username) { return store.findUserByUsername(username); }
+
+    @Override
+    public Optional<User> findUserByID(String id) { return store.findUserByID(id); }
+
+    @Override
+    public List<User> findAllUsers() { return store.findAllUsers(); }
+
+    @Override
+    public List<Account> findAccountsByUserID(String userID) { return store.findAccountsByUserID(userID); }
+
+    @Override
+    public List<Account> findAllAccounts() { return store.findAllAccounts(); }
+
+    @Override
+    public Optional<Account> findAccountByNumber(String accountNumber) { return store.findAccountByNumber(accountNumber); }
+
+    @Override
+    public Optional<String> findAccountOwner(String accountNumber) { return store.findAccountOwner(accountNumber); }
+
+    @Override
+    public List<Transaction> findTransactionsByAccount(String accountNumber) { return store.findTransactionsByAccount(accountNumber); }
+
+    @Override
+    public List<Transaction> findRecentTransactionsByAccount(String accountNumber, int limit) { return store.findRecentTransactionsByAccount(accountNumber, limit); }
+
+    @Override
+    public AccountIndex.Page findAccountsByRange(AccountIndex.Field field, long from, long to, String after, int limit) {
+        return store.findAccountsByRange(field, from, to, after, limit);
+    }
+
+    @Override
+    public void forEachTransactionSince(String fromTimestamp, Consumer<Transaction> visitor) { store.forEachTransactionSince(fromTimestamp, visitor); }
+
+    @Override
+    public List<AuditLog> findAllAuditLogs() { return store.findAllAuditLogs(); }
+
+    // --- WRITES ---
+    @Override
+    public void saveUser(User user) { throw readOnly(); }
+
+    @Override
+    public boolean saveIfVersion(User user) { throw readOnly(); }
+
+    @Override
+    public void saveAccount(Account account) { throw readOnly(); }
+
+    @Override
+    public boolean saveIfVersion(Account account) { throw readOnly(); }
+
+    @Override
+    public void saveAccounts(Collection<Account> accounts) { throw readOnly(); }
+
+    @Override
+    public boolean saveAccountsIfVersion(Collection<Account> accounts) { throw readOnly(); }
+
+    @Override
+    public void logTransaction(Transaction transaction) { throw readOnly(); }
+
+    @Override
+    public void logTransactions(List<Transaction> transactions) { throw readOnly(); }
+
+    @Override
+    public void logAudit(AuditLog log) { throw readOnly(); }
+}
@@ -0,0 +1,296 @@
+package data;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import model.Account;
+import model.AuditLog;
+import model.ScheduledTransfer;
+import model.Transaction;
+import model.User;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static data.ClusterProtocol.MAPPER;
+
+/**
+ * A peer node reached over HTTP (see ClusterProtocol). Every call is one
+ * request; a peer that is down or answers with an error surfaces as an
+ * IllegalStateException, like a failed query on the local backends.
+ */
+public class HttpClusterNode implements ClusterNode {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration BATCH_TIMEOUT = Duration.ofMinutes(30); // A month of statements for a whole partition
+
+    private final String baseUrl;
+    private final String credential; // See ClusterProtocol.peerCredential
+    private final HttpClient client;
+
+    /**
+     * @param baseUrl e.g. "http://127.0.0.1:8081"
+     * @param secret  shared cluster secret; peers reject requests without it
+     */
+    public HttpClusterNode(String baseUrl, String secret) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.credential = ClusterProtocol.peerCredential(secret);
+        this.client = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+    }
+
+    private JsonNode call(String operation, Object... keysAndValues) {
+        return call(REQUEST_TIMEOUT, operation, keysAndValues);
+    }
+
+    private JsonNode call(Duration timeout, String operation, Object... keysAndValues) {
+        Map<String, Object> args = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            args.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ClusterProtocol.PATH_PREFIX + operation))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header(ClusterProtocol.SECRET_HEADER, credential)
+                    .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(args)))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Node " + baseUrl + " failed " + operation + ": HTTP "
+                        + response.statusCode() + " " + response.body());
+            }
+            return MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            throw new IllegalStateException("Node " + baseUrl + " is unreachable", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling node " + baseUrl, e);
+        }
+    }
+
+    private static <T> T read(JsonNode node, Class<T> type) {
+        if (node == null || node.isNull()) return null;
+        try {
+            return MAPPER.treeToValue(node, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed response from peer", e);
+        }
+    }
+
+    // --- USER OPERATIONS ---
+    @Override
+    public Optional<User> findUserByUsername(String username) {
+        if (username == null) return Optional.empty();
+        return Optional.ofNullable(read(call("findUserByUsername", "username", username), User.class));
+    }
+
+    @Override
+    public Optional<User> findUserByID(String id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(read(call("findUserByID", "id", id), User.class));
+    }
+
+    @Override
+    public List<User> findAllUsers() {
+        return MAPPER.convertValue(call("findAllUsers"), ClusterProtocol.USERS);
+    }
+
+    @Override
+    public void saveUser(User user) {
+        user.setVersion(read(call("saveUser", "user", user), User.class).getVersion());
+    }
+
+    @Override
+    public boolean saveIfVersion(User user) {
+        JsonNode result = call("saveUserIfVersion", "user", user);
+        if (!result.path("saved").asBoolean()) {
+            return false;
+        }
+        user.setVersion(read(result.get("value"), User.class).getVersion());
+        return true;
+    }
+
+    // --- ACCOUNT OPERATIONS ---
+    @Override
+    public List<Account> findAccountsByUserID(String userID) {
+        return MAPPER.convertValue(call("findAccountsByUserID", "userID", userID), ClusterProtocol.ACCOUNTS);
+    }
+
+    @Override
+    public Optional<Account> findAccountByNumber(String accountNumber) {
+        if (accountNumber == null) return Optional.empty();
+        return Optional.ofNullable(read(call("findAccountByNumber", "accountNumber", accountNumber), Account.class));
+    }
+
+    @Override
+    public void saveAccount(Account account) {
+        account.setVersion(read(call("saveAccount", "account", account), Account.class).getVersion());
+    }
+
+    @Override
+    public boolean saveIfVersion(Account account) {
+        JsonNode result = call("saveAccountIfVersion", "account", account);
+        if (!result.path("saved").asBoolean()) {
+            return false;
+        }
+        account.setVersion(read(result.get("value"), Account.class).getVersion());
+        return true;
+    }
+
+    @Override
+    public void saveAccounts(Collection<Account> accounts) {
+        copyVersions(accounts, MAPPER.convertValue(call("saveAccounts", "accounts", accounts), ClusterProtocol.ACCOUNTS));
+    }
+
+    @Override
+    public boolean saveAccountsIfVersion(Collection<Account> accounts) {
+        JsonNode result = call("saveAccountsIfVersion", "accounts", accounts);
+        if (!result.path("saved").asBoolean()) {
+            return false;
+        }
+        copyVersions(accounts, MAPPER.convertValue(result.get("value"), ClusterProtocol.ACCOUNTS));
+        return true;
+    }
+
+    // Peers answer with the accounts in the order they were sent
+    static void copyVersions(Collection<Account> accounts, List<Account> saved) {
+        int i = 0;
+        for (Account account : accounts) {
+            account.setVersion(saved.get(i++).getVersion());
+        }
+    }
+
+    // --- TRANSACTION OPERATIONS ---
+    @Override
+    public void logTransaction(Transaction transaction) {
+        logTransactions(List.of(transaction));
+    }
+
+    @Override
+    public void logTransactions(List<Transaction> transactions) {
+        call("logTransactions", "transactions", transactions);
+    }
+
+    @Override
+    public List<Transaction> findTransactionsByAccount(String accountNumber) {
+        return MAPPER.convertValue(call("findTransactionsByAccount", "accountNumber", accountNumber), ClusterProtocol.TRANSACTIONS);
+    }
+
+    @Override
+    public AccountIndex.Page findAccountsByRange(AccountIndex.Field field, long from, long to, String after, int limit) {
+        return read(call("findAccountsByRange", "field", field, "from", from, "to", to, "after", after, "limit", limit),
+                AccountIndex.Page.class);
+    }
+
+    @Override
+    public List<Transaction> findRecentTransactionsByAccount(String accountNumber, int limit) {
+        return MAPPER.convertValue(call("findRecentTransactionsByAccount", "accountNumber", accountNumber, "limit", limit),
+                ClusterProtocol.TRANSACTIONS);
+    }
+
+    // --- AUDIT OPERATIONS ---
+    @Override
+    public void logAudit(AuditLog log) {
+        call("logAudit", "log", log);
+    }
+
+    @Override
+    public List<AuditLog> findAllAuditLogs() {
+        return MAPPER.convertValue(call("findAllAuditLogs"), ClusterProtocol.AUDIT_LOGS);
+    }
+
+    // --- TWO-PHASE COMMIT ---
+    @Override
+    public boolean prepare(String txId, Collection<Account> accounts, int decider) {
+        return call("prepare", "txId", txId, "accounts", new ArrayList<>(accounts), "decider", decider).asBoolean();
+    }
+
+    @Override
+    public List<Account> commit(String txId) {
+        return MAPPER.convertValue(call("commit", "txId", txId), ClusterProtocol.ACCOUNTS);
+    }
+
+    @Override
+    public void abort(String txId) {
+        call("abort", "txId", txId);
+    }
+
+    @Override
+    public boolean decide(String txId) {
+        return call("decide", "txId", txId).asBoolean();
+    }
+
+    @Override
+    public boolean outcome(String txId) {
+        return call("outcome", "txId", txId).asBoolean();
+    }
+
+    // --- SESSION REVOCATIONS ---
+    @Override
+    public void addRevocations(Map<String, Map<String, Long>> revoked) {
+        call("addRevocations", "revoked", revoked);
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> revocations() {
+        return MAPPER.convertValue(call("revocations"), ClusterProtocol.REVOCATIONS);
+    }
+
+    // --- STATEMENTS ---
+    @Override
+    public Map<String, Object> generateStatements(String month, String format) {
+        return MAPPER.convertValue(call(BATCH_TIMEOUT, "generateStatements", "month", month, "format", format), ClusterProtocol.STATS);
+    }
+
+    @Override
+    public String statement(String month, String accountNumber, String format) {
+        JsonNode result = call("statement", "month", month, "accountNumber", accountNumber, "format", format);
+        return result.isNull() ? null : result.asText();
+    }
+
+    // --- STANDING ORDERS ---
+    @Override
+    public void addSchedule(ScheduledTransfer schedule) {
+        call("addSchedule", "schedule", schedule);
+    }
+
+    @Override
+    public List<ScheduledTransfer> schedulesByOwner(String ownerUserId) {
+        return MAPPER.convertValue(call("schedulesByOwner", "ownerUserID", ownerUserId), ClusterProtocol.SCHEDULES);
+    }
+
+    @Override
+    public ScheduledTransfer schedule(String scheduleId) {
+        return read(call("schedule", "scheduleID", scheduleId), ScheduledTransfer.class);
+    }
+
+    @Override
+    public boolean cancelSchedule(String scheduleId) {
+        return call("cancelSchedule", "scheduleID", scheduleId).asBoolean();
+    }
+
+    // --- LIMITS ---
+    @Override
+    public String reserveLimit(String accountNumber, Transaction.Type type, long amountMinor, long at) {
+        JsonNode result = call("reserveLimit", "accountNumber", accountNumber, "type", type, "amountMinor", amountMinor, "at", at);
+        return result.isNull() ? null : result.asText();
+    }
+
+    @Override
+    public void cancelLimit(String accountNumber, Transaction.Type type, long amountMinor, long at) {
+        call("cancelLimit", "accountNumber", accountNumber, "type", type, "amountMinor", amountMinor, "at", at);
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
@@ -1,6 +1,7 @@
 package data;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -8,39 +9,285 @@ import model.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 public class JsonFileService implements DatabaseRepository {
 
-    private static final String DATA_DIR = "data/";
-    private static final String USERS_FILE = DATA_DIR + "users.json";
-    private static final String ACCOUNTS_FILE = DATA_DIR + "accounts.json";
-    private static final String TRANSACTIONS_FILE = DATA_DIR + "transactions.json";
-    private static final String AUDIT_FILE = DATA_DIR + "audit_logs.json";
+    public static final String DEFAULT_DATA_DIR = "data/";
 
-    private List<User> users;
-    private List<Account> accounts;
-    private List<Transaction> transactions;
-    private List<AuditLog> auditLogs;
+    private final String usersFile;
+    private final String accountsFile;
+    private final String transactionsFile;
+    private final String auditFile;
+    private final String checkpointFile; // Binary image of the ledger and audit log, see Checkpoint
+
+    // Users and audit logs are immutable snapshots behind a volatile reference: readers
+    // take the current one without locking, writers (synchronized) publish the next
+    private volatile PersistentVector<User> users;
+    private final Map<String, Integer> userPositions = new ConcurrentHashMap<>();     // userID -> index in users
+    private final Map<String, Integer> usernamePositions = new ConcurrentHashMap<>(); // lower-cased username -> index
+    private AccountTable accounts = new AccountTable(); // Columnar; Accounts are materialized per call
+    private TransactionStore transactions = new TransactionStore(); // Dictionary-encoded columns with per-account postings
+    private final Map<AccountIndex.Field, AccountIndex> indexes = new EnumMap<>(AccountIndex.Field.class); // Range queries
+    private volatile PersistentVector<AuditLog> auditLogs;
     private ObjectMapper mapper;
 
+    // Startup and checkpoint figures, for the metrics endpoint
+    private final Map<String, Object> startup = new LinkedHashMap<>();
+    private int checkpointedTransactions = -1;
+    private int checkpointedAuditLogs = -1;
+    private long checkpointsWritten;
+    private long lastCheckpointMillis;
+    private long lastCheckpointBytes;
+    private ScheduledExecutorService checkpointer;
+
+    // How far catchUp() has read the files, when another process writes them
+    private Checkpoint.Anchor transactionsRead; // Nullable: position unknown
+    private Checkpoint.Anchor auditLogsRead;    // Nullable: position unknown
+    private String usersStamp;                  // Nullable: not read since startup
+    private String accountsStamp;               // Nullable: not read since startup
+
     public JsonFileService() {
+        this(DEFAULT_DATA_DIR);
+    }
+
+    /**
+     * @param dataDir directory holding the JSON files, e.g. "data/node1/" for one node of a cluster.
+     */
+    public JsonFileService(String dataDir) {
+        String dir = dataDir.endsWith("/") ? dataDir : dataDir + "/";
+        this.usersFile = dir + "users.json";
+        this.accountsFile = dir + "accounts.json";
+        this.transactionsFile = dir + "transactions.json";
+        this.auditFile = dir + "audit_logs.json";
+        this.checkpointFile = dir + "checkpoint.bin";
+
         // Initialize Jackson Mapper
         this.mapper = new ObjectMapper();
         this.mapper.enable(SerializationFeature.INDENT_OUTPUT); // Pretty print JSON
         this.mapper.registerModule(new JavaTimeModule());       // Handle Java 8 Dates
 
         // Ensure data directory exists
-        new File(DATA_DIR).mkdirs();
+        new File(dir).mkdirs();
 
         // Load Data
-        this.users = loadData(USERS_FILE, new TypeReference<List<User>>(){});
-        this.accounts = loadData(ACCOUNTS_FILE, new TypeReference<List<Account>>(){});
-        this.transactions = loadData(TRANSACTIONS_FILE, new TypeReference<List<Transaction>>(){});
-        this.auditLogs = loadData(AUDIT_FILE, new TypeReference<List<AuditLog>>(){});
+        long start = System.nanoTime();
+        this.users = PersistentVector.empty();
+        for (User user : loadData(usersFile, new TypeReference<List<User>>(){})) {
+            addUser(user);
+        }
+        for (Account account : loadData(accountsFile, new TypeReference<List<Account>>(){})) {
+            this.accounts.upsert(account);
+        }
+        // History (ledger, audit log) only grows, so it comes from the last checkpoint plus what was appended since
+        long historyStart = System.nanoTime();
+        if (!loadHistoryFromCheckpoint()) {
+            for (Transaction transaction : loadHistory(transactionsFile, new TypeReference<List<Transaction>>(){}, true)) {
+                this.transactions.append(transaction);
+            }
+            this.auditLogs = PersistentVector.of(loadHistory(auditFile, new TypeReference<List<AuditLog>>(){}, false));
+            startup.putIfAbsent("historySource", "json");
+            startup.put("transactions", transactions.size());
+            startup.put("auditLogs", auditLogs.size());
+        }
+        startup.put("historyMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - historyStart));
+
+        for (AccountIndex.Field field : AccountIndex.Field.values()) {
+            indexes.put(field, new AccountIndex());
+        }
+        for (Account account : accounts.findAll()) {
+            index(account);
+            List<Transaction> history = transactions.findByAccount(account.getAccountNumber());
+            if (!history.isEmpty()) {
+                indexes.get(AccountIndex.Field.LAST_ACTIVITY).raise(account.getAccountNumber(),
+                        AccountIndex.timestampKey(history.get(history.size() - 1).getTimestamp()));
+            }
+        }
+        startup.put("loadMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // A whole history file, noting where it ends for catchUp(); without that position if it can only be parsed as a whole
+    private <T> List<T> loadHistory(String filePath, TypeReference<List<T>> typeRef, boolean isLedger) {
+        try {
+            Checkpoint.Tail<T> all = Checkpoint.EMPTY.readTail(Paths.get(filePath), mapper, typeRef);
+            if (isLedger) transactionsRead = all.next; else auditLogsRead = all.next;
+            return all.entries;
+        } catch (IOException e) {
+            return loadData(filePath, typeRef);
+        }
+    }
+
+    private boolean loadHistoryFromCheckpoint() {
+        Path image = Paths.get(checkpointFile);
+        if (!image.toFile().exists()) {
+            return false;
+        }
+        try {
+            Checkpoint checkpoint = Checkpoint.read(image);
+            Checkpoint.Tail<Transaction> transactionTail = checkpoint.transactionsAnchor.readTail(
+                    Paths.get(transactionsFile), mapper, new TypeReference<List<Transaction>>(){});
+            Checkpoint.Tail<AuditLog> auditTail = checkpoint.auditAnchor.readTail(
+                    Paths.get(auditFile), mapper, new TypeReference<List<AuditLog>>(){});
+            List<Transaction> newTransactions = transactionTail.entries;
+            List<AuditLog> newAuditLogs = auditTail.entries;
+
+            this.transactions = checkpoint.transactions;
+            for (Transaction transaction : newTransactions) {
+                this.transactions.append(transaction);
+            }
+            PersistentVector<AuditLog> logs = PersistentVector.of(checkpoint.auditLogs);
+            for (AuditLog log : newAuditLogs) {
+                logs = logs.append(log);
+            }
+            this.auditLogs = logs;
+            this.checkpointedTransactions = checkpoint.transactionsAnchor.count;
+            this.checkpointedAuditLogs = checkpoint.auditAnchor.count;
+            this.transactionsRead = transactionTail.next;
+            this.auditLogsRead = auditTail.next;
+
+            startup.put("historySource", "checkpoint");
+            startup.put("checkpointTransactions", checkpoint.transactionsAnchor.count);
+            startup.put("replayedTransactions", newTransactions.size());
+            startup.put("checkpointAuditLogs", checkpoint.auditAnchor.count);
+            startup.put("replayedAuditLogs", newAuditLogs.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring " + checkpointFile + ": " + e.getMessage());
+            startup.put("historySource", "json (checkpoint rejected: " + e.getMessage() + ")");
+            return false;
+        }
+    }
+
+    // --- CHECKPOINTS ---
+
+    /**
+     * Writes checkpoint.bin if the ledger or audit log grew since the last one.
+     * Holds the monitor while writing, so the image matches the files exactly.
+     * @return whether a checkpoint was written
+     */
+    public synchronized boolean checkpoint() {
+        int transactionCount = transactions.size();
+        int auditCount = auditLogs.size();
+        if (transactionCount == checkpointedTransactions && auditCount == checkpointedAuditLogs) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            lastCheckpointBytes = Checkpoint.write(Paths.get(checkpointFile), transactions, auditLogs,
+                    Checkpoint.Anchor.of(Paths.get(transactionsFile), transactionCount),
+                    Checkpoint.Anchor.of(Paths.get(auditFile), auditCount));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        lastCheckpointMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        checkpointsWritten++;
+        checkpointedTransactions = transactionCount;
+        checkpointedAuditLogs = auditCount;
+        return true;
+    }
+
+    /**
+     * Checkpoints in the background every intervalMillis.
+     */
+    public synchronized void startCheckpoints(long intervalMillis) {
+        if (checkpointer != null) return;
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "json-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpoint, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized Map<String, Object> checkpointStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(startup);
+        stats.put("checkpointsWritten", checkpointsWritten);
+        stats.put("lastCheckpointMillis", lastCheckpointMillis);
+        stats.put("lastCheckpointBytes", lastCheckpointBytes);
+        stats.put("transactionsSinceCheckpoint", transactions.size() - Math.max(0, checkpointedTransactions));
+        return stats;
+    }
+
+    // --- FOLLOWING ANOTHER PROCESS ---
+
+    /**
+     * Applies what another process (the primary, writing the same data directory) saved since
+     * the last call: entries appended to transactions.json and audit_logs.json are parsed from
+     * where the last call stopped; users.json and accounts.json are read again if they changed.
+     * Only for an instance that does not write itself, e.g. behind a FollowerRepository.
+     * @return records applied
+     * @throws IOException if a file is in the middle of a save (try again), or the history files
+     *                     were rewritten rather than appended to (open a new instance)
+     */
+    public synchronized int catchUp() throws IOException {
+        if (transactionsRead == null || auditLogsRead == null) {
+            throw new IOException("No read position in " + transactionsFile + " or " + auditFile);
+        }
+        int applied = 0;
+
+        // Stamps are taken before reading, so a save that lands during the read is seen next time
+        String stamp = stamp(usersFile);
+        if (!stamp.equals(usersStamp)) {
+            for (User user : mapper.readValue(new File(usersFile), new TypeReference<List<User>>(){})) {
+                Integer position = userPositions.get(user.getUserID());
+                if (position == null) {
+                    addUser(user);
+                } else {
+                    users = users.with(position, user.copy());
+                }
+                applied++;
+            }
+            usersStamp = stamp;
+        }
+        stamp = stamp(accountsFile);
+        if (!stamp.equals(accountsStamp)) {
+            for (Account account : mapper.readValue(new File(accountsFile), new TypeReference<List<Account>>(){})) {
+                accounts.upsert(account);
+                index(account);
+                applied++;
+            }
+            accountsStamp = stamp;
+        }
+
+        Checkpoint.Tail<Transaction> ledger = transactionsRead.readTail(Paths.get(transactionsFile), mapper, new TypeReference<List<Transaction>>(){});
+        Checkpoint.Tail<AuditLog> audit = auditLogsRead.readTail(Paths.get(auditFile), mapper, new TypeReference<List<AuditLog>>(){});
+        for (Transaction transaction : ledger.entries) {
+            transactions.append(transaction);
+            indexActivity(transaction);
+        }
+        PersistentVector<AuditLog> logs = auditLogs;
+        for (AuditLog log : audit.entries) {
+            logs = logs.append(log);
+        }
+        auditLogs = logs;
+        transactionsRead = ledger.next;
+        auditLogsRead = audit.next;
+        return applied + ledger.entries.size() + audit.entries.size();
+    }
+
+    private static String stamp(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        if (!Files.exists(path)) return "";
+        return Files.size(path) + "@" + Files.getLastModifiedTime(path); // Full precision the file system keeps
     }
 
     // --- GENERIC FILE IO ---
@@ -63,84 +310,256 @@ public class JsonFileService implements DatabaseRepository {
         }
     }
 
+    // The same file as saveData(), written one entry at a time, so a columnar store never has all its rows as objects at once
+    private void saveArray(String filePath, int count, IntFunction<?> entry) {
+        try (SequenceWriter out = mapper.writer().writeValuesAsArray(new File(filePath))) {
+            for (int i = 0; i < count; i++) {
+                out.write(entry.apply(i));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Adds entries to the end of a history file without rewriting it: the new entries go
+     * between the last one already there and the closing bracket, giving the same bytes a
+     * full save would. Cost is the size of the entries, not of the file. Falls back to
+     * rewriting the file with rewrite if it does not end like a JSON array.
+     */
+    private void appendData(String filePath, List<?> entries, Runnable rewrite) {
+        if (entries.isEmpty()) return;
+        try {
+            String array = mapper.writeValueAsString(entries); // "[ {...}, {...} ]"
+            if (!appendToArray(filePath, array)) {
+                rewrite.run();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // False, with the file untouched, if it is missing or does not end with "]"
+    private static boolean appendToArray(String filePath, String array) throws IOException {
+        if (!new File(filePath).exists()) return false;
+        try (RandomAccessFile raf = new RandomAccessFile(filePath, "rw")) {
+            long close = lastNonWhitespace(raf, raf.length() - 1);
+            long end = lastNonWhitespace(raf, close - 1) + 1;
+            if (close < 0 || readByte(raf, close) != ']' || end <= 0) {
+                return false;
+            }
+            String tail;
+            int last = readByte(raf, end - 1);
+            if (last == '[') {
+                end = 0; // Empty array: the file becomes just the new entries
+                tail = array;
+            } else if (last == '}') {
+                tail = ", " + array.substring(array.indexOf('[') + 1, array.lastIndexOf(']')).trim() + " ]";
+            } else {
+                return false;
+            }
+            raf.seek(end);
+            raf.write(tail.getBytes(StandardCharsets.UTF_8));
+            raf.setLength(raf.getFilePointer());
+            return true;
+        }
+    }
+
+    private static long lastNonWhitespace(RandomAccessFile raf, long pos) throws IOException {
+        while (pos >= 0 && Character.isWhitespace(readByte(raf, pos))) {
+            pos--;
+        }
+        return pos;
+    }
+
+    private static int readByte(RandomAccessFile raf, long pos) throws IOException {
+        raf.seek(pos);
+        return raf.read();
+    }
+
+    private void saveAccountsFile() {
+        saveArray(accountsFile, accounts.size(), accounts::get);
+    }
+
+    private void saveTransactionsFile() {
+        saveArray(transactionsFile, transactions.size(), transactions::get);
+    }
+
     // --- USER OPERATIONS ---
+    // Single users are handed out as copies, so saveIfVersion can tell a stale copy from the stored one
     @Override
     public Optional<User> findUserByUsername(String username) {
-        return users.stream().filter(u -> u.getUsername().equalsIgnoreCase(username)).findFirst();
+        if (username == null) return Optional.empty();
+        Integer position = usernamePositions.get(username.toLowerCase(Locale.ROOT));
+        return position == null ? Optional.empty() : Optional.of(users.get(position).copy());
     }
 
     @Override
     public Optional<User> findUserByID(String id) {
-        return users.stream().filter(u -> u.getUserID().equals(id)).findFirst();
+        return findStoredUser(id).map(User::copy);
     }
 
+    // The current snapshot itself (immutable, no copy); callers must not modify the users in it
     @Override
     public List<User> findAllUsers() {
-        return new ArrayList<>(users);
+        return users;
     }
 
     @Override
-    public void saveUser(User user) {
-        users.removeIf(u -> u.getUserID().equals(user.getUserID()));
-        users.add(user);
-        saveData(USERS_FILE, users);
+    public synchronized void saveUser(User user) {
+        Integer position = userPositions.get(user.getUserID());
+        if (position == null) {
+            addUser(user);
+        } else {
+            user.setVersion(users.get(position).getVersion() + 1);
+            users = users.with(position, user.copy()); // Updated users keep their place
+        }
+        saveData(usersFile, users);
+    }
+
+    // Caller is the constructor or holds the monitor
+    private void addUser(User user) {
+        int position = users.size();
+        users = users.append(user.copy());
+        // Publish the snapshot before the index entries that point into it
+        userPositions.put(user.getUserID(), position);
+        usernamePositions.putIfAbsent(user.getUsername().toLowerCase(Locale.ROOT), position);
+    }
+
+    @Override
+    public synchronized boolean saveIfVersion(User user) {
+        long stored = findStoredUser(user.getUserID()).map(User::getVersion).orElse(0L);
+        if (stored != user.getVersion()) {
+            return false;
+        }
+        saveUser(user);
+        return true;
+    }
+
+    private Optional<User> findStoredUser(String id) {
+        if (id == null) return Optional.empty();
+        Integer position = userPositions.get(id);
+        return position == null ? Optional.empty() : Optional.of(users.get(position));
     }
 
     // --- ACCOUNT OPERATIONS ---
     @Override
     public List<Account> findAccountsByUserID(String userID) {
-        return accounts.stream().filter(a -> a.getOwnerUserID().equals(userID)).collect(Collectors.toList());
+        return accounts.findByOwner(userID);
     }
 
     @Override
     public Optional<Account> findAccountByNumber(String accountNumber) {
-        return accounts.stream().filter(a -> a.getAccountNumber().equals(accountNumber)).findFirst();
+        return accounts.find(accountNumber);
     }
 
     @Override
-    public void saveAccount(Account account) {
-        // FIXED: Update in place to maintain order and avoid reference issues
-        boolean found = false;
-        for (int i = 0; i < accounts.size(); i++) {
-            if (accounts.get(i).getAccountNumber().equals(account.getAccountNumber())) {
-                accounts.set(i, account);  // Replace at same position
-                found = true;
-                break;
-            }
-        }
-        
-        // If not found, add new account
-        if (!found) {
-            accounts.add(account);
+    public List<Account> findAllAccounts() {
+        return accounts.findAll();
+    }
+
+    @Override
+    public Optional<String> findAccountOwner(String accountNumber) {
+        return Optional.ofNullable(accounts.ownerOf(accountNumber));
+    }
+
+    @Override
+    public synchronized void saveAccount(Account account) {
+        // Existing accounts keep their ordinal, so file order is stable
+        accounts.upsert(account);
+        index(account);
+        saveAccountsFile();
+    }
+
+    @Override
+    public synchronized boolean saveIfVersion(Account account) {
+        return saveAccountsIfVersion(List.of(account));
+    }
+
+    @Override
+    public synchronized boolean saveAccountsIfVersion(Collection<Account> batch) {
+        if (!accounts.upsertIfVersion(batch)) {
+            return false;
         }
-        
-        saveData(ACCOUNTS_FILE, accounts);
+        batch.forEach(this::index);
+        saveAccountsFile();
+        return true;
     }
 
     // --- TRANSACTION OPERATIONS ---
     @Override
-    public void logTransaction(Transaction transaction) {
-        transactions.add(transaction);
-        saveData(TRANSACTIONS_FILE, transactions);
+    public synchronized void logTransaction(Transaction transaction) {
+        int position = transactions.append(transaction);
+        indexActivity(transaction);
+        // Written as stored, so the file reads back to the same columns
+        appendData(transactionsFile, List.of(transactions.get(position)), this::saveTransactionsFile);
     }
 
     @Override
     public List<Transaction> findTransactionsByAccount(String accountNumber) {
-        return transactions.stream()
-                .filter(t -> t.getSourceAccountNumber().equals(accountNumber) ||
-                             (t.getTargetAccountNumber() != null && t.getTargetAccountNumber().equals(accountNumber)))
-                .collect(Collectors.toList());
+        return transactions.findByAccount(accountNumber);
+    }
+
+    @Override
+    public void forEachTransactionSince(String fromTimestamp, Consumer<Transaction> visitor) {
+        transactions.forEachSince(TransactionStore.parseTimestamp(fromTimestamp), visitor);
+    }
+
+    @Override
+    public AccountIndex.Page findAccountsByRange(AccountIndex.Field field, long from, long to, String after, int limit) {
+        return indexes.get(field).page(from, to, after, limit, accounts::find);
+    }
+
+    // Kept current by the (synchronized) writers; never-posted accounts sort first by activity
+    private void index(Account account) {
+        indexes.get(AccountIndex.Field.BALANCE).put(account.getAccountNumber(), account.getBalanceMoney().getMinorUnits());
+        indexes.get(AccountIndex.Field.CREATED).put(account.getAccountNumber(), AccountIndex.timestampKey(account.getCreationDate()));
+        indexes.get(AccountIndex.Field.LAST_ACTIVITY).raise(account.getAccountNumber(), AccountIndex.NONE);
+    }
+
+    private void indexActivity(Transaction transaction) {
+        long at = AccountIndex.timestampKey(transaction.getTimestamp());
+        AccountIndex activity = indexes.get(AccountIndex.Field.LAST_ACTIVITY);
+        if (accounts.ownerOf(transaction.getSourceAccountNumber()) != null) {
+            activity.raise(transaction.getSourceAccountNumber(), at);
+        }
+        if (transaction.getTargetAccountNumber() != null && accounts.ownerOf(transaction.getTargetAccountNumber()) != null) {
+            activity.raise(transaction.getTargetAccountNumber(), at);
+        }
+    }
+
+    // --- BATCH OPERATIONS ---
+    @Override
+    public synchronized void saveAccounts(Collection<Account> batch) {
+        for (Account account : batch) {
+            accounts.upsert(account);
+            index(account);
+        }
+
+        // One file write for the whole group instead of one per account
+        saveAccountsFile();
+    }
+
+    @Override
+    public synchronized void logTransactions(List<Transaction> batch) {
+        List<Transaction> stored = new ArrayList<>(batch.size());
+        for (Transaction transaction : batch) {
+            stored.add(transactions.get(transactions.append(transaction)));
+            indexActivity(transaction);
+        }
+        appendData(transactionsFile, stored, this::saveTransactionsFile);
     }
 
     // --- AUDIT OPERATIONS ---
     @Override
-    public void logAudit(AuditLog log) {
-        auditLogs.add(log);
-        saveData(AUDIT_FILE, auditLogs);
+    public synchronized void logAudit(AuditLog log) {
+        auditLogs = auditLogs.append(log);
+        appendData(auditFile, List.of(log), () -> saveData(auditFile, auditLogs));
     }
 
+    // Immutable snapshot; AuditLog has no setters
     @Override
     public List<AuditLog> findAllAuditLogs() {
-        return new ArrayList<>(auditLogs);
+        return auditLogs;
     }
 }
\ No newline at end of file
@@ -0,0 +1,570 @@
+package data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.Account;
+import model.AuditLog;
+import model.ScheduledTransfer;
+import model.Transaction;
+import model.Transaction;
+import model.User;
+import util.TokenRevocations;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * This node's own partition: the storage backend plus the 2PC participant
+ * state. Accounts in a prepared transfer are locked until it commits or
+ * aborts; versioned saves that touch them fail meanwhile (the caller retries,
+ * as for any version conflict).
+ *
+ * Every transfer has a decider, its lowest-numbered participant, on which the
+ * coordinator records the commit decision before any node writes (decide).
+ * A participant that has not heard the outcome PREPARE_TIMEOUT_MILLIS after
+ * preparing (the coordinator crashed, or its commit call failed) asks the
+ * decider (outcome) instead of guessing, so a transfer is never applied on one
+ * node and dropped on another. A decider asked about a transfer it has no
+ * decision for presumes it aborted and records that, so a late coordinator
+ * cannot commit it any more. While the decider cannot be reached the accounts
+ * stay locked.
+ *
+ * With a state file, prepared transfers and decisions survive a restart:
+ * prepared accounts are locked again and resolved as above.
+ *
+ * It also holds this node's session revocations (setRevocations). Those made
+ * here are sent to every peer at once; in the background each node also pulls
+ * its peers' revocations, so one that was down or unreachable catches up.
+ *
+ * Statements of this partition's accounts are made here by the service set
+ * with setStatements, and standing orders paid from them are kept and run here
+ * by the one set with setSchedules, whichever node the request came in on.
+ * Likewise the withdrawal and transfer limits of its accounts are counted
+ * here only (setLimits), so every node's postings count against them.
+ */
+public class LocalClusterNode implements ClusterNode {
+    public static final long PREPARE_TIMEOUT_MILLIS = 30_000;
+    static final long DECISION_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(1); // Far longer than anyone stays in doubt
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Public fields for Jackson (the state file)
+    static class Prepared {
+        public List<Account> accounts;
+        public int decider;
+        public long deadline; // Epoch ms; when to ask the decider. Reset on load, so a restart asks at once
+
+        public Prepared() {}
+
+        Prepared(List<Account> accounts, int decider, long deadline) {
+            this.accounts = accounts;
+            this.decider = decider;
+            this.deadline = deadline;
+        }
+    }
+
+    static class Decision {
+        public boolean committed;
+        public long at; // Epoch ms
+
+        public Decision() {}
+
+        Decision(boolean committed, long at) {
+            this.committed = committed;
+            this.at = at;
+        }
+    }
+
+    /**
+     * Serves generateStatements and statement for this partition; StatementGenerator
+     * over the partition's accounts.
+     */
+    public interface Statements {
+        Map<String, Object> generateStatements(String month, String format);
+
+        String statement(String month, String accountNumber, String format);
+    }
+
+    /**
+     * Serves the standing order calls for this partition; ScheduledTransferManager.
+     */
+    public interface Schedules {
+        void addSchedule(ScheduledTransfer schedule);
+
+        List<ScheduledTransfer> schedulesByOwner(String ownerUserId);
+
+        ScheduledTransfer schedule(String scheduleId);
+
+        boolean cancelSchedule(String scheduleId);
+    }
+
+    /**
+     * Serves the limit checks for this partition's accounts; VelocityLimits.
+     */
+    public interface Limits {
+        String reserveLimit(String accountNumber, Transaction.Type type, long amountMinor, long at);
+
+        void cancelLimit(String accountNumber, Transaction.Type type, long amountMinor, long at);
+    }
+
+    static class State {
+        public Map<String, Prepared> prepared = new LinkedHashMap<>();
+        public Map<String, Decision> decisions = new LinkedHashMap<>(); // Of the transfers this node decides
+    }
+
+    private final DatabaseRepository storage;
+    private final Path stateFile; // Nullable: in memory only
+    private final long timeoutMillis;
+    // Guarded by this; versioned account saves take the same monitor so a save
+    // cannot slip in between a prepare's version check and its commit
+    private final State state;
+    private final Map<String, String> lockedAccounts = new HashMap<>(); // accountNumber -> txId
+    private volatile List<? extends ClusterNode> cluster = List.of();
+    private volatile TokenRevocations revocations; // Nullable until setRevocations
+    private volatile Statements statements; // Nullable until setStatements
+    private volatile Schedules schedules; // Nullable until setSchedules
+    private volatile Limits limits; // Nullable until setLimits
+    private ScheduledExecutorService background;
+
+    public LocalClusterNode(DatabaseRepository storage) {
+        this(storage, null, PREPARE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param stateFile     where prepared transfers and decisions are kept across restarts, or null
+     * @param timeoutMillis how long a prepared transfer waits for the coordinator before asking its decider
+     */
+    public LocalClusterNode(DatabaseRepository storage, Path stateFile, long timeoutMillis) {
+        this.storage = storage;
+        this.stateFile = stateFile;
+        this.timeoutMillis = timeoutMillis;
+        State loaded = new State();
+        if (stateFile != null && Files.exists(stateFile)) {
+            try {
+                loaded = MAPPER.readValue(stateFile.toFile(), State.class);
+            } catch (IOException e) {
+                // Without it, accounts of in-doubt transfers would be unlocked and possibly half-applied
+                throw new IllegalStateException("Cannot read " + stateFile, e);
+            }
+        }
+        this.state = loaded;
+        for (Map.Entry<String, Prepared> entry : state.prepared.entrySet()) {
+            entry.getValue().deadline = 0;
+            lock(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * The cluster's nodes, in the order used for decider numbers (this node included).
+     */
+    public void setCluster(List<? extends ClusterNode> nodes) {
+        this.cluster = new ArrayList<>(nodes);
+    }
+
+    /**
+     * The session revocations this node enforces; revocations made in them from now
+     * on are sent to the other nodes of the cluster.
+     */
+    public void setRevocations(TokenRevocations revocations) {
+        this.revocations = revocations;
+        revocations.setReplication(this::replicateRevocations);
+    }
+
+    /**
+     * What makes and serves the statements of this partition's accounts.
+     */
+    public void setStatements(Statements statements) {
+        this.statements = statements;
+    }
+
+    /**
+     * What keeps and runs the standing orders paid from this partition's accounts.
+     */
+    public void setSchedules(Schedules schedules) {
+        this.schedules = schedules;
+    }
+
+    /**
+     * What counts the postings of this partition's accounts against their limits.
+     */
+    public void setLimits(Limits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Resolves in-doubt transfers and pulls peers' revocations every intervalMillis in the background.
+     */
+    public synchronized void start(long intervalMillis) {
+        if (background != null) return;
+        background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        background.scheduleWithFixedDelay(() -> {
+            resolveInDoubt();
+            syncRevocations();
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // --- TWO-PHASE COMMIT ---
+    @Override
+    public synchronized boolean prepare(String txId, Collection<Account> accounts, int decider) {
+        for (Account account : accounts) {
+            if (lockedAccounts.containsKey(account.getAccountNumber())) {
+                return false;
+            }
+            long stored = storage.findAccountByNumber(account.getAccountNumber()).map(Account::getVersion).orElse(0L);
+            if (stored != account.getVersion()) {
+                return false;
+            }
+        }
+        List<Account> copies = new ArrayList<>();
+        for (Account account : accounts) {
+            copies.add(account.copy());
+        }
+        Prepared transfer = new Prepared(copies, decider, System.currentTimeMillis() + timeoutMillis);
+        state.prepared.put(txId, transfer);
+        // A yes vote must survive a restart, or the node could not keep its promise to commit
+        try {
+            saveState();
+        } catch (IOException e) {
+            state.prepared.remove(txId);
+            e.printStackTrace();
+            return false;
+        }
+        lock(txId, transfer);
+        return true;
+    }
+
+    @Override
+    public synchronized List<Account> commit(String txId) {
+        Prepared transfer = state.prepared.get(txId);
+        if (transfer == null) {
+            throw new IllegalStateException("Unknown or already resolved transfer " + txId);
+        }
+        // Versions cannot have moved while the accounts were locked
+        if (!storage.saveAccountsIfVersion(transfer.accounts)) {
+            throw new IllegalStateException("Prepared accounts changed before commit of transfer " + txId);
+        }
+        release(txId, transfer);
+        return transfer.accounts;
+    }
+
+    @Override
+    public synchronized void abort(String txId) {
+        Prepared transfer = state.prepared.get(txId);
+        if (transfer != null) {
+            release(txId, transfer);
+        }
+    }
+
+    @Override
+    public synchronized boolean decide(String txId) {
+        Decision decision = state.decisions.get(txId);
+        if (decision != null) {
+            return decision.committed; // Repeated call, or presumed aborted meanwhile
+        }
+        boolean committed = state.prepared.containsKey(txId);
+        state.decisions.put(txId, new Decision(committed, System.currentTimeMillis()));
+        try {
+            saveState();
+        } catch (IOException e) {
+            // Not recorded, so not decided: the coordinator must not commit
+            state.decisions.remove(txId);
+            throw new IllegalStateException("Could not record the decision for transfer " + txId, e);
+        }
+        return committed;
+    }
+
+    @Override
+    public synchronized boolean outcome(String txId) {
+        Decision decision = state.decisions.get(txId);
+        if (decision != null) {
+            return decision.committed;
+        }
+        // Not decided by now: presumed aborted, for good, here as well
+        state.decisions.put(txId, new Decision(false, System.currentTimeMillis()));
+        Prepared own = state.prepared.get(txId);
+        if (own != null) {
+            release(txId, own);
+        } else {
+            saveStateQuietly();
+        }
+        return false;
+    }
+
+    /**
+     * Asks the decider of every prepared transfer that has waited past its deadline
+     * how it ended, and commits or aborts it here accordingly.
+     * @return transfers resolved; those whose decider could not be reached are tried again next time
+     */
+    public int resolveInDoubt() {
+        Map<String, Prepared> stale = new LinkedHashMap<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            state.prepared.forEach((txId, transfer) -> {
+                if (transfer.deadline <= now) stale.put(txId, transfer);
+            });
+        }
+        int resolved = 0;
+        for (Map.Entry<String, Prepared> entry : stale.entrySet()) {
+            String txId = entry.getKey();
+            int decider = entry.getValue().decider;
+            List<? extends ClusterNode> nodes = cluster;
+            if (decider >= nodes.size()) continue; // setCluster not called yet
+            boolean committed;
+            try {
+                // Outside the monitor: the decider may be a peer, or this node
+                committed = nodes.get(decider).outcome(txId);
+            } catch (RuntimeException e) {
+                System.err.println("Transfer " + txId + " stays locked; its decider (node " + decider + ") did not answer: " + e.getMessage());
+                continue;
+            }
+            synchronized (this) {
+                Prepared transfer = state.prepared.get(txId);
+                if (transfer == null) continue; // The coordinator got through meanwhile
+                if (committed && !storage.saveAccountsIfVersion(transfer.accounts)) {
+                    // Only possible after a restart that came between the write and the state save
+                    System.err.println("Transfer " + txId + " was already applied");
+                }
+                release(txId, transfer);
+            }
+            resolved++;
+        }
+        return resolved;
+    }
+
+    // --- SESSION REVOCATIONS ---
+    @Override
+    public void addRevocations(Map<String, Map<String, Long>> revoked) {
+        TokenRevocations current = revocations;
+        if (current != null) current.merge(revoked);
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> revocations() {
+        TokenRevocations current = revocations;
+        return current != null ? current.entries() : Map.of();
+    }
+
+    /**
+     * Adds every peer's revocations to this node's, covering any that were not
+     * delivered when they were made.
+     * @return peers that answered
+     */
+    public int syncRevocations() {
+        TokenRevocations current = revocations;
+        if (current == null) return 0;
+        int reached = 0;
+        for (ClusterNode node : cluster) {
+            if (node == this) continue;
+            try {
+                current.merge(node.revocations());
+                reached++;
+            } catch (RuntimeException e) {
+                // Down for now; its revocations are pulled next time
+            }
+        }
+        return reached;
+    }
+
+    // Sends a revocation made here to every peer; one that misses it pulls it in syncRevocations
+    private void replicateRevocations(Map<String, Map<String, Long>> revoked) {
+        for (ClusterNode node : cluster) {
+            if (node == this) continue;
+            try {
+                node.addRevocations(revoked);
+            } catch (RuntimeException e) {
+                System.err.println("Revocation not delivered to " + node + " yet: " + e.getMessage());
+            }
+        }
+    }
+
+    // --- STATEMENTS ---
+    @Override
+    public Map<String, Object> generateStatements(String month, String format) {
+        return statements().generateStatements(month, format);
+    }
+
+    @Override
+    public String statement(String month, String accountNumber, String format) {
+        return statements().statement(month, accountNumber, format);
+    }
+
+    private Statements statements() {
+        Statements current = statements;
+        if (current == null) {
+            throw new IllegalStateException("Statements are not set up on this node yet");
+        }
+        return current;
+    }
+
+    // --- STANDING ORDERS ---
+    @Override
+    public void addSchedule(ScheduledTransfer schedule) { schedules().addSchedule(schedule); }
+
+    @Override
+    public List<ScheduledTransfer> schedulesByOwner(String ownerUserId) { return schedules().schedulesByOwner(ownerUserId); }
+
+    @Override
+    public ScheduledTransfer schedule(String scheduleId) { return schedules().schedule(scheduleId); }
+
+    @Override
+    public boolean cancelSchedule(String scheduleId) { return schedules().cancelSchedule(scheduleId); }
+
+    private Schedules schedules() {
+        Schedules current = schedules;
+        if (current == null) {
+            throw new IllegalStateException("Standing orders are not set up on this node yet");
+        }
+        return current;
+    }
+
+    // --- LIMITS ---
+    @Override
+    public String reserveLimit(String accountNumber, Transaction.Type type, long amountMinor, long at) {
+        return limits().reserveLimit(accountNumber, type, amountMinor, at);
+    }
+
+    @Override
+    public void cancelLimit(String accountNumber, Transaction.Type type, long amountMinor, long at) {
+        limits().cancelLimit(accountNumber, type, amountMinor, at);
+    }
+
+    private Limits limits() {
+        Limits current = limits;
+        if (current == null) {
+            throw new IllegalStateException("Limits are not set up on this node yet");
+        }
+        return current;
+    }
+
+    // Caller is the constructor or holds the monitor
+    private void lock(String txId, Prepared transfer) {
+        for (Account account : transfer.accounts) {
+            lockedAccounts.put(account.getAccountNumber(), txId);
+        }
+    }
+
+    // Caller holds the monitor
+    private void release(String txId, Prepared transfer) {
+        state.prepared.remove(txId);
+        for (Account account : transfer.accounts) {
+            lockedAccounts.remove(account.getAccountNumber());
+        }
+        // If this save is lost, the restart resolves the transfer again: an abort is a no-op,
+        // a commit finds the versions moved and is skipped
+        saveStateQuietly();
+    }
+
+    // Caller holds the monitor
+    private void saveState() throws IOException {
+        if (stateFile == null) return;
+        long cutoff = System.currentTimeMillis() - DECISION_RETENTION_MILLIS;
+        state.decisions.values().removeIf(decision -> decision.at < cutoff);
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        MAPPER.writeValue(temp.toFile(), state);
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void saveStateQuietly() {
+        try {
+            saveState();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean anyLocked(Collection<Account> accounts) {
+        for (Account account : accounts) {
+            if (lockedAccounts.containsKey(account.getAccountNumber())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // --- USER OPERATIONS ---
+    @Override
+    public Optional<User> findUserByUsername(String username) { return storage.findUserByUsername(username); }
+
+    @Override
+    public Optional<User> findUserByID(String id) { return storage.findUserByID(id); }
+
+    @Override
+    public List<User> findAllUsers() { return storage.findAllUsers(); }
+
+    @Override
+    public void saveUser(User user) { storage.saveUser(user); }
+
+    @Override
+    public boolean saveIfVersion(User user) { return storage.saveIfVersion(user); }
+
+    // --- ACCOUNT OPERATIONS ---
+    @Override
+    public List<Account> findAccountsByUserID(String userID) { return storage.findAccountsByUserID(userID); }
+
+    @Override
+    public Optional<Account> findAccountByNumber(String accountNumber) { return storage.findAccountByNumber(accountNumber); }
+
+    @Override
+    public List<Account> findAllAccounts() { return storage.findAllAccounts(); }
+
+    @Override
+    public Optional<String> findAccountOwner(String accountNumber) { return storage.findAccountOwner(accountNumber); }
+
+    @Override
+    public void saveAccount(Account account) { storage.saveAccount(account); }
+
+    @Override
+    public synchronized boolean saveIfVersion(Account account) {
+        return !anyLocked(List.of(account)) && storage.saveIfVersion(account);
+    }
+
+    @Override
+    public void saveAccounts(Collection<Account> accounts) { storage.saveAccounts(accounts); }
+
+    @Override
+    public synchronized boolean saveAccountsIfVersion(Collection<Account> accounts) {
+        return !anyLocked(accounts) && storage.saveAccountsIfVersion(accounts);
+    }
+
+    // --- TRANSACTION OPERATIONS ---
+    @Override
+    public void logTransaction(Transaction transaction) { storage.logTransaction(transaction); }
+
+    @Override
+    public void logTransactions(List<Transaction> transactions) { storage.logTransactions(transactions); }
+
+    @Override
+    public List<Transaction> findTransactionsByAccount(String accountNumber) { return storage.findTransactionsByAccount(accountNumber); }
+
+    @Override
+    public List<Transaction> findRecentTransactionsByAccount(String accountNumber, int limit) { return storage.findRecentTransactionsByAccount(accountNumber, limit); }
+
+    @Override
+    public AccountIndex.Page findAccountsByRange(AccountIndex.Field field, long from, long to, String after, int limit) {
+        return storage.findAccountsByRange(field, from, to, after, limit);
+    }
+
+    @Override
+    public void forEachTransactionSince(String fromTimestamp, Consumer<Transaction> visitor) { storage.forEachTransactionSince(fromTimestamp, visitor); }
+
+    // --- AUDIT OPERATIONS ---
+    @Override
+    public void logAudit(AuditLog log) { storage.logAudit(log); }
+
+    @Override
+    public List<AuditLog> findAllAuditLogs() { return storage.findAllAuditLogs(); }
+}
@@ -0,0 +1,30 @@
+package data;
+
+/**
+ * Maps user IDs and account numbers to the cluster node that stores them.
+ * Uses String.hashCode, which the JLS pins down, so every JVM in the cluster
+ * agrees on the owner of a key.
+ */
+public final class Partitioner {
+    private final int nodeCount;
+
+    public Partitioner(int nodeCount) {
+        if (nodeCount < 1) {
+            throw new IllegalArgumentException("A cluster needs at least one node");
+        }
+        this.nodeCount = nodeCount;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int nodeFor(String key) {
+        int h = key.hashCode();
+        // Spread the bits; sequential IDs like A001, A002 differ only in the low bits
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        h ^= h >>> 16;
+        return Math.floorMod(h, nodeCount);
+    }
+}
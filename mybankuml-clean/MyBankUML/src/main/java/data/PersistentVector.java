@@ -0,0 +1,148 @@
+package data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list with cheap updates through structural sharing (a 32-way trie
+ * plus a tail block, as in Clojure's vector). append() and with() return a new
+ * vector that shares all untouched nodes with the old one, copying only the
+ * O(log32 n) nodes on the path to the change, so old versions stay valid and
+ * can be read by other threads without locking.
+ *
+ * The List mutators (add, set, remove...) throw UnsupportedOperationException.
+ */
+public final class PersistentVector<T> extends AbstractList<T> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, new Object[WIDTH], new Object[0]);
+
+    private final int size;
+    private final int shift;       // Bits consumed by the root level
+    private final Object[] root;   // Full leaf blocks of WIDTH elements
+    private final Object[] tail;   // Last, partially filled block
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    public static <T> PersistentVector<T> of(Iterable<? extends T> values) {
+        PersistentVector<T> vector = empty();
+        for (T value : values) {
+            vector = vector.append(value);
+        }
+        return vector;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return (T) blockFor(index)[index & MASK];
+    }
+
+    /**
+     * @return a new vector with value added at the end.
+     */
+    public PersistentVector<T> append(T value) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = value;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+
+        // Tail is full: move it into the trie and start a new one
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            // Root is full too; grow the trie by one level
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[] {value});
+    }
+
+    /**
+     * @return a new vector with the element at index replaced by value.
+     */
+    public PersistentVector<T> with(int index, T value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = value;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(shift, root, index, value), tail);
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] blockFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int slot = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[slot] = tailNode;
+        } else {
+            Object[] child = (Object[]) parent[slot];
+            copy[slot] = child != null ? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    private static Object[] assoc(int level, Object[] node, int index, Object value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int slot = (index >>> level) & MASK;
+            copy[slot] = assoc(level - BITS, (Object[]) node[slot], index, value);
+        }
+        return copy;
+    }
+}
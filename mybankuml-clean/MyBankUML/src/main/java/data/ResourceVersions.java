@@ -0,0 +1,72 @@
+package data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version counters for cacheable API resources.
+ *
+ * Counters are bumped after every write that changes what a resource returns,
+ * so a client's ETag can be checked without reading the repository.
+ * The boot epoch is part of every tag so tags from a previous run never match.
+ */
+public class ResourceVersions {
+    private static final Base64.Encoder KEY_ENCODER = Base64.getUrlEncoder().withoutPadding(); // Keeps keys within ETag characters
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<String, AtomicLong> accountVersions = new ConcurrentHashMap<>();  // account number -> balance/details
+    private final Map<String, AtomicLong> ownerVersions = new ConcurrentHashMap<>();    // user ID -> list of that user's accounts
+    private final Map<String, AtomicLong> historyVersions = new ConcurrentHashMap<>();  // account number -> transaction history
+
+    public long accountVersion(String accountNumber) {
+        return get(accountVersions, accountNumber);
+    }
+
+    public long ownerVersion(String userID) {
+        return get(ownerVersions, userID);
+    }
+
+    public long historyVersion(String accountNumber) {
+        return get(historyVersions, accountNumber);
+    }
+
+    void accountChanged(String accountNumber, String ownerUserID) {
+        bump(accountVersions, accountNumber);
+        bump(ownerVersions, ownerUserID);
+    }
+
+    void historyChanged(String sourceAccountNumber, String targetAccountNumber) {
+        bump(historyVersions, sourceAccountNumber);
+        bump(historyVersions, targetAccountNumber);
+    }
+
+    /**
+     * Builds a strong ETag, e.g. "k3x9a1-owner-12".
+     */
+    public String etag(String kind, long version) {
+        return "\"" + epoch + "-" + kind + "-" + version + "\"";
+    }
+
+    /**
+     * ETag of one key's resource, e.g. "k3x9a1-owner.VTAwMQ-12". The key is part of the tag, so
+     * two resources (say two users' account lists served at the same URL) never share one.
+     */
+    public String etag(String kind, String key, long version) {
+        return etag(kind + "." + KEY_ENCODER.encodeToString(key.getBytes(StandardCharsets.UTF_8)), version);
+    }
+
+    private long get(Map<String, AtomicLong> versions, String key) {
+        if (key == null) return 0;
+        AtomicLong version = versions.get(key);
+        return version == null ? 0 : version.get();
+    }
+
+    private void bump(Map<String, AtomicLong> versions, String key) {
+        if (key == null) return;
+        versions.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+    }
+}
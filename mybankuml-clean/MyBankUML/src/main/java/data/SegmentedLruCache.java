@@ -0,0 +1,120 @@
+package data;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded segmented-LRU cache.
+ *
+ * New entries go into a probation segment; a second hit promotes them to the
+ * protected segment (80% of capacity). One-off reads, such as a scan over
+ * every account, therefore only churn probation and cannot flush the hot set.
+ *
+ * Loads race with writes: a reader may fetch a value, a writer then updates
+ * the backend and the cache, and the reader's stale value arrives last. Readers
+ * take a stamp() before loading and store with putIfUnchanged(), which drops
+ * the value if any write happened in between.
+ */
+class SegmentedLruCache<K, V> {
+    private final int probationCapacity;
+    private final int protectedCapacity;
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long writeStamp;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    SegmentedLruCache(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Cache capacity must be at least 2");
+        }
+        this.protectedCapacity = capacity * 4 / 5;
+        this.probationCapacity = capacity - protectedCapacity;
+    }
+
+    /**
+     * @return the cached value, or null on a miss.
+     */
+    synchronized V get(K key) {
+        V value = protectedSegment.get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+            return value;
+        }
+        value = probation.remove(key);
+        if (value == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        protectedSegment.put(key, value);
+        if (protectedSegment.size() > protectedCapacity) {
+            // Demote the coldest protected entry back to probation
+            Iterator<Map.Entry<K, V>> eldest = protectedSegment.entrySet().iterator();
+            Map.Entry<K, V> demoted = eldest.next();
+            eldest.remove();
+            insertProbation(demoted.getKey(), demoted.getValue());
+        }
+        return value;
+    }
+
+    synchronized long stamp() {
+        return writeStamp;
+    }
+
+    /**
+     * Stores a value loaded from the backend, unless a write happened since stamp was taken.
+     */
+    synchronized void putIfUnchanged(K key, V value, long stamp) {
+        if (stamp == writeStamp) {
+            store(key, value);
+        }
+    }
+
+    /**
+     * Stores a value that was just written to the backend.
+     */
+    synchronized void put(K key, V value) {
+        writeStamp++;
+        store(key, value);
+    }
+
+    synchronized void invalidate(K key) {
+        writeStamp++;
+        protectedSegment.remove(key);
+        probation.remove(key);
+    }
+
+    synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    long hits() { return hits.get(); }
+    long misses() { return misses.get(); }
+    long evictions() { return evictions.get(); }
+
+    // Caller holds the monitor
+    private void store(K key, V value) {
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+        } else {
+            probation.remove(key);
+            insertProbation(key, value);
+        }
+    }
+
+    // Caller holds the monitor
+    private void insertProbation(K key, V value) {
+        probation.put(key, value);
+        if (probation.size() > probationCapacity) {
+            Iterator<K> eldest = probation.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+}
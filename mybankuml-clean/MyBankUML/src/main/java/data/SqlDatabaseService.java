@@ -0,0 +1,666 @@
+package data;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * DatabaseRepository on an embedded H2 database (file mode, no server).
+ *
+ * Connections come from a HikariCP pool. Statements are plain prepared SQL
+ * constants; H2 keeps a per-connection cache of parsed statements
+ * (QUERY_CACHE_SIZE), and since pooled connections are long-lived the parse
+ * cost is paid once per connection rather than per call.
+ */
+public class SqlDatabaseService implements DatabaseRepository, AutoCloseable {
+
+    public static final String DEFAULT_URL = "jdbc:h2:file:./data/mybankuml;QUERY_CACHE_SIZE=64";
+    private static final int POOL_SIZE = 8;
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS users (" +
+            "seq BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "user_id VARCHAR(64) NOT NULL UNIQUE, " +
+            "username VARCHAR(255) NOT NULL, " +
+            "username_key VARCHAR(255) NOT NULL, " + // lower(username); lookups are case-insensitive
+            "password_hash VARCHAR(255), " +
+            "full_name VARCHAR(255), " +
+            "role VARCHAR(16) NOT NULL, " +
+            "status VARCHAR(16), " +
+            "failed_login_attempts INT NOT NULL DEFAULT 0, " +
+            "two_factor_enabled BOOLEAN NOT NULL DEFAULT FALSE, " +
+            "version BIGINT NOT NULL DEFAULT 0)",
+        "CREATE INDEX IF NOT EXISTS idx_users_username ON users(username_key)",
+
+        "CREATE TABLE IF NOT EXISTS accounts (" +
+            "seq BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "account_number VARCHAR(64) NOT NULL UNIQUE, " +
+            "owner_user_id VARCHAR(64) NOT NULL, " +
+            "type VARCHAR(16), " +
+            "balance_minor BIGINT NOT NULL, " +
+            "creation_date VARCHAR(40), " +
+            "interest_paid_through VARCHAR(10), " +
+            "version BIGINT NOT NULL DEFAULT 0)",
+        "CREATE INDEX IF NOT EXISTS idx_accounts_owner ON accounts(owner_user_id)",
+        "CREATE INDEX IF NOT EXISTS idx_accounts_balance ON accounts(balance_minor, account_number)",
+
+        "CREATE TABLE IF NOT EXISTS transactions (" +
+            "seq BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "transaction_id VARCHAR(64) NOT NULL, " +
+            "source_account VARCHAR(64) NOT NULL, " +
+            "target_account VARCHAR(64), " +
+            "amount_minor BIGINT NOT NULL, " +
+            "type VARCHAR(16), " +
+            "timestamp VARCHAR(40))",
+        "CREATE INDEX IF NOT EXISTS idx_tx_source ON transactions(source_account, timestamp)",
+        "CREATE INDEX IF NOT EXISTS idx_tx_target ON transactions(target_account, timestamp)",
+
+        "CREATE TABLE IF NOT EXISTS audit_logs (" +
+            "seq BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "log_id VARCHAR(64), " +
+            "admin_id VARCHAR(64), " +
+            "action VARCHAR(255), " +
+            "target_user_id VARCHAR(64), " +
+            "timestamp VARCHAR(40))",
+
+        "CREATE TABLE IF NOT EXISTS schema_info (" +
+            "name VARCHAR(64) PRIMARY KEY, " +
+            "val VARCHAR(255))",
+
+        // Databases created before optimistic concurrency
+        "ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0",
+        "ALTER TABLE accounts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0",
+        // ... and before interest accrual recorded the day it paid through
+        "ALTER TABLE accounts ADD COLUMN IF NOT EXISTS interest_paid_through VARCHAR(10)"
+    };
+
+    private static final String USER_COLUMNS =
+        "user_id, username, password_hash, full_name, role, status, failed_login_attempts, two_factor_enabled, version";
+    private static final String SELECT_USER_BY_USERNAME =
+        "SELECT " + USER_COLUMNS + " FROM users WHERE username_key = ? ORDER BY seq LIMIT 1";
+    private static final String SELECT_USER_BY_ID =
+        "SELECT " + USER_COLUMNS + " FROM users WHERE user_id = ?";
+    private static final String SELECT_ALL_USERS =
+        "SELECT " + USER_COLUMNS + " FROM users ORDER BY seq";
+    // Updates return the bumped version in the same round trip
+    private static final String UPDATE_USER_SET =
+        "UPDATE users SET username = ?, username_key = ?, password_hash = ?, full_name = ?, role = ?, status = ?, " +
+        "failed_login_attempts = ?, two_factor_enabled = ?, version = version + 1 WHERE user_id = ?";
+    private static final String UPDATE_USER =
+        "SELECT version FROM FINAL TABLE (" + UPDATE_USER_SET + ")";
+    private static final String UPDATE_USER_IF_VERSION =
+        "SELECT version FROM FINAL TABLE (" + UPDATE_USER_SET + " AND version = ?)";
+    private static final String INSERT_USER =
+        "INSERT INTO users (username, username_key, password_hash, full_name, role, status, " +
+        "failed_login_attempts, two_factor_enabled, user_id, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ACCOUNT_COLUMNS = "account_number, owner_user_id, type, balance_minor, creation_date, interest_paid_through, version";
+    private static final String SELECT_ACCOUNTS_BY_OWNER =
+        "SELECT " + ACCOUNT_COLUMNS + " FROM accounts WHERE owner_user_id = ? ORDER BY seq";
+    private static final String SELECT_ALL_ACCOUNTS =
+        "SELECT " + ACCOUNT_COLUMNS + " FROM accounts ORDER BY seq";
+    private static final String SELECT_ACCOUNT_BY_NUMBER =
+        "SELECT " + ACCOUNT_COLUMNS + " FROM accounts WHERE account_number = ?";
+    // Keyset paging: rows after the cursor (balance, account number) in index order
+    private static final String SELECT_ACCOUNTS_BY_BALANCE =
+        "SELECT " + ACCOUNT_COLUMNS + " FROM accounts WHERE balance_minor >= ? AND balance_minor < ? " +
+        "AND (balance_minor > ? OR (balance_minor = ? AND account_number > ?)) ORDER BY balance_minor, account_number LIMIT ?";
+    private static final String UPDATE_ACCOUNT_SET =
+        "UPDATE accounts SET owner_user_id = ?, type = ?, balance_minor = ?, creation_date = ?, interest_paid_through = ?, " +
+        "version = version + 1 " +
+        "WHERE account_number = ?";
+    private static final String UPDATE_ACCOUNT =
+        "SELECT version FROM FINAL TABLE (" + UPDATE_ACCOUNT_SET + ")";
+    private static final String UPDATE_ACCOUNT_IF_VERSION =
+        "SELECT version FROM FINAL TABLE (" + UPDATE_ACCOUNT_SET + " AND version = ?)";
+    private static final String INSERT_ACCOUNT =
+        "INSERT INTO accounts (owner_user_id, type, balance_minor, creation_date, interest_paid_through, account_number, version) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String TX_COLUMNS = "seq, transaction_id, source_account, target_account, amount_minor, type, timestamp";
+    private static final String SELECT_TX_SINCE =
+        "SELECT " + TX_COLUMNS + " FROM transactions WHERE timestamp >= ? ORDER BY seq";
+    // Two index range scans instead of one OR scan; UNION also collapses self-transfers
+    private static final String SELECT_TX_BY_ACCOUNT =
+        "SELECT " + TX_COLUMNS + " FROM transactions WHERE source_account = ? " +
+        "UNION SELECT " + TX_COLUMNS + " FROM transactions WHERE target_account = ? ORDER BY seq";
+    private static final String SELECT_RECENT_TX_BY_ACCOUNT =
+        "SELECT " + TX_COLUMNS + " FROM transactions WHERE source_account = ? " +
+        "UNION SELECT " + TX_COLUMNS + " FROM transactions WHERE target_account = ? ORDER BY seq DESC LIMIT ?";
+    private static final String INSERT_TX =
+        "INSERT INTO transactions (transaction_id, source_account, target_account, amount_minor, type, timestamp) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_ALL_AUDIT =
+        "SELECT log_id, admin_id, action, target_user_id, timestamp FROM audit_logs ORDER BY seq";
+    private static final String INSERT_AUDIT =
+        "INSERT INTO audit_logs (log_id, admin_id, action, target_user_id, timestamp) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String MIGRATED_KEY = "json_migrated";
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final HikariDataSource dataSource;
+    private final ObjectMapper mapper = new ObjectMapper(); // Builds the polymorphic User/AuditLog objects from rows
+
+    public SqlDatabaseService() {
+        this(DEFAULT_URL);
+    }
+
+    public SqlDatabaseService(String jdbcUrl) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setPoolName("mybankuml-db");
+        this.dataSource = new HikariDataSource(config);
+        createSchema();
+    }
+
+    private void createSchema() {
+        try (Connection c = dataSource.getConnection(); Statement st = c.createStatement()) {
+            for (String ddl : SCHEMA) {
+                st.execute(ddl);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create database schema", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    // --- MIGRATION ---
+
+    /**
+     * One-shot import of the JSON data files (users, accounts, transactions,
+     * audit logs) in a single database transaction. Does nothing if an import
+     * already ran against this database.
+     * @return true if the files were imported by this call.
+     */
+    public boolean migrateFromJson(String dataDir) {
+        ObjectMapper json = new ObjectMapper();
+        try (Connection c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                if (readInfo(c, MIGRATED_KEY) != null) {
+                    c.rollback();
+                    return false;
+                }
+                for (User user : readJson(json, dataDir + "users.json", new TypeReference<List<User>>(){})) {
+                    writeUser(c, user, false);
+                }
+                for (Account account : readJson(json, dataDir + "accounts.json", new TypeReference<List<Account>>(){})) {
+                    writeAccount(c, account, false);
+                }
+                insertTransactions(c, readJson(json, dataDir + "transactions.json", new TypeReference<List<Transaction>>(){}));
+                for (AuditLog log : readJson(json, dataDir + "audit_logs.json", new TypeReference<List<AuditLog>>(){})) {
+                    insertAudit(c, log);
+                }
+                try (PreparedStatement ps = c.prepareStatement("INSERT INTO schema_info (name, val) VALUES (?, ?)")) {
+                    ps.setString(1, MIGRATED_KEY);
+                    ps.setString(2, java.time.LocalDateTime.now().toString());
+                    ps.executeUpdate();
+                }
+                c.commit();
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("JSON migration failed", e);
+        }
+    }
+
+    private <T> List<T> readJson(ObjectMapper json, String path, TypeReference<List<T>> typeRef) {
+        File file = new File(path);
+        if (!file.exists()) return new ArrayList<>();
+        try {
+            return json.readValue(file, typeRef);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + path, e);
+        }
+    }
+
+    private String readInfo(Connection c, String name) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT val FROM schema_info WHERE name = ?")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    // --- USER OPERATIONS ---
+    @Override
+    public Optional<User> findUserByUsername(String username) {
+        if (username == null) return Optional.empty();
+        return queryOne(SELECT_USER_BY_USERNAME, this::mapUser, username.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public Optional<User> findUserByID(String id) {
+        return queryOne(SELECT_USER_BY_ID, this::mapUser, id);
+    }
+
+    @Override
+    public List<User> findAllUsers() {
+        return query(SELECT_ALL_USERS, this::mapUser);
+    }
+
+    @Override
+    public void saveUser(User user) {
+        try (Connection c = dataSource.getConnection()) {
+            writeUser(c, user, false);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not save user " + user.getUserID(), e);
+        }
+    }
+
+    @Override
+    public boolean saveIfVersion(User user) {
+        try (Connection c = dataSource.getConnection()) {
+            return writeUser(c, user, true);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not save user " + user.getUserID(), e);
+        }
+    }
+
+    /**
+     * Update-else-insert. With ifVersion the update only matches the version the
+     * caller read, and false means someone else saved first.
+     */
+    private boolean writeUser(Connection c, User user, boolean ifVersion) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(ifVersion ? UPDATE_USER_IF_VERSION : UPDATE_USER)) {
+            bindUser(ps, user);
+            if (ifVersion) {
+                ps.setLong(10, user.getVersion());
+            }
+            if (readNewVersion(ps, user::setVersion)) {
+                return true;
+            }
+        }
+        if (ifVersion && user.getVersion() != 0) {
+            return false; // Stale copy of a user that is gone
+        }
+        try (PreparedStatement ps = c.prepareStatement(INSERT_USER)) {
+            bindUser(ps, user);
+            ps.setLong(10, user.getVersion());
+            ps.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (ifVersion && UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                return false; // Row exists at another version, or a concurrent insert won
+            }
+            throw e;
+        }
+    }
+
+    private void bindUser(PreparedStatement ps, User user) throws SQLException {
+        ps.setString(1, user.getUsername());
+        ps.setString(2, user.getUsername().toLowerCase(Locale.ROOT));
+        ps.setString(3, user.getPasswordHash());
+        ps.setString(4, user.getFullName());
+        ps.setString(5, user.getRole().name());
+        ps.setString(6, user.getStatus() == null ? null : user.getStatus().name());
+        ps.setInt(7, user.getFailedLoginAttempts());
+        ps.setBoolean(8, user.isTwoFactorEnabled());
+        ps.setString(9, user.getUserID());
+    }
+
+    private static boolean readNewVersion(PreparedStatement ps, java.util.function.LongConsumer setVersion) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) {
+                return false;
+            }
+            setVersion.accept(rs.getLong(1));
+            return true;
+        }
+    }
+
+    private User mapUser(ResultSet rs) throws SQLException {
+        // Same shape as users.json, so Jackson picks the subclass from "role"
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("userID", rs.getString("user_id"));
+        row.put("username", rs.getString("username"));
+        row.put("passwordHash", rs.getString("password_hash"));
+        row.put("fullName", rs.getString("full_name"));
+        row.put("role", rs.getString("role"));
+        row.put("status", rs.getString("status"));
+        row.put("failedLoginAttempts", rs.getInt("failed_login_attempts"));
+        row.put("twoFactorEnabled", rs.getBoolean("two_factor_enabled"));
+        row.put("version", rs.getLong("version"));
+        return mapper.convertValue(row, User.class);
+    }
+
+    // --- ACCOUNT OPERATIONS ---
+    @Override
+    public List<Account> findAccountsByUserID(String userID) {
+        return query(SELECT_ACCOUNTS_BY_OWNER, this::mapAccount, userID);
+    }
+
+    @Override
+    public List<Account> findAllAccounts() {
+        return query(SELECT_ALL_ACCOUNTS, this::mapAccount);
+    }
+
+    @Override
+    public AccountIndex.Page findAccountsByRange(AccountIndex.Field field, long from, long to, String after, int limit) {
+        if (field != AccountIndex.Field.BALANCE) {
+            // Creation dates are strings and last activity is not a column; scan as the default does
+            return DatabaseRepository.super.findAccountsByRange(field, from, to, after, limit);
+        }
+        long afterKey = after != null ? AccountIndex.cursorKey(after) : from;
+        String afterAccount = after != null ? AccountIndex.cursorAccount(after) : "";
+        try (Connection c = dataSource.getConnection(); PreparedStatement ps = c.prepareStatement(SELECT_ACCOUNTS_BY_BALANCE)) {
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            ps.setLong(3, afterKey);
+            ps.setLong(4, afterKey);
+            ps.setString(5, afterAccount);
+            ps.setInt(6, limit + 1); // One more tells whether there is a next page
+            List<AccountIndex.Hit> hits = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Account account = mapAccount(rs);
+                    hits.add(new AccountIndex.Hit(account.getBalanceMoney().getMinorUnits(), account));
+                }
+            }
+            return AccountIndex.page(hits, from, to, after, limit);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Query failed: " + SELECT_ACCOUNTS_BY_BALANCE, e);
+        }
+    }
+
+    @Override
+    public Optional<Account> findAccountByNumber(String accountNumber) {
+        return queryOne(SELECT_ACCOUNT_BY_NUMBER, this::mapAccount, accountNumber);
+    }
+
+    @Override
+    public void saveAccount(Account account) {
+        try (Connection c = dataSource.getConnection()) {
+            writeAccount(c, account, false);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not save account " + account.getAccountNumber(), e);
+        }
+    }
+
+    @Override
+    public boolean saveIfVersion(Account account) {
+        try (Connection c = dataSource.getConnection()) {
+            return writeAccount(c, account, true);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not save account " + account.getAccountNumber(), e);
+        }
+    }
+
+    // Same update-else-insert scheme as writeUser
+    private boolean writeAccount(Connection c, Account account, boolean ifVersion) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(ifVersion ? UPDATE_ACCOUNT_IF_VERSION : UPDATE_ACCOUNT)) {
+            bindAccount(ps, account);
+            if (ifVersion) {
+                ps.setLong(7, account.getVersion());
+            }
+            if (readNewVersion(ps, account::setVersion)) {
+                return true;
+            }
+        }
+        if (ifVersion && account.getVersion() != 0) {
+            return false;
+        }
+        try (PreparedStatement ps = c.prepareStatement(INSERT_ACCOUNT)) {
+            bindAccount(ps, account);
+            ps.setLong(7, account.getVersion());
+            ps.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (ifVersion && UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private void bindAccount(PreparedStatement ps, Account account) throws SQLException {
+        ps.setString(1, account.getOwnerUserID());
+        ps.setString(2, account.getType() == null ? null : account.getType().name());
+        ps.setLong(3, account.getBalanceMoney().getMinorUnits());
+        ps.setString(4, account.getCreationDate());
+        ps.setString(5, account.getInterestPaidThrough());
+        ps.setString(6, account.getAccountNumber());
+    }
+
+    private Account mapAccount(ResultSet rs) throws SQLException {
+        Account account = new Account();
+        account.setAccountNumber(rs.getString("account_number"));
+        account.setOwnerUserID(rs.getString("owner_user_id"));
+        String type = rs.getString("type");
+        account.setType(type == null ? null : Account.AccountType.valueOf(type));
+        account.setBalanceMoney(Money.ofMinor(rs.getLong("balance_minor")));
+        account.setCreationDate(rs.getString("creation_date"));
+        account.setInterestPaidThrough(rs.getString("interest_paid_through"));
+        account.setVersion(rs.getLong("version"));
+        return account;
+    }
+
+    // --- TRANSACTION OPERATIONS ---
+    @Override
+    public void logTransaction(Transaction transaction) {
+        logTransactions(List.of(transaction));
+    }
+
+    @Override
+    public List<Transaction> findTransactionsByAccount(String accountNumber) {
+        return query(SELECT_TX_BY_ACCOUNT, this::mapTransaction, accountNumber, accountNumber);
+    }
+
+    @Override
+    public List<Transaction> findRecentTransactionsByAccount(String accountNumber, int limit) {
+        try (Connection c = dataSource.getConnection(); PreparedStatement ps = c.prepareStatement(SELECT_RECENT_TX_BY_ACCOUNT)) {
+            ps.setString(1, accountNumber);
+            ps.setString(2, accountNumber);
+            ps.setInt(3, limit);
+            List<Transaction> result = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(mapTransaction(rs));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Query failed: " + SELECT_RECENT_TX_BY_ACCOUNT, e);
+        }
+    }
+
+    @Override
+    public void forEachTransactionSince(String fromTimestamp, Consumer<Transaction> visitor) {
+        // Streamed in pages of rows rather than loaded into a list; ISO timestamps compare as strings
+        try (Connection c = dataSource.getConnection(); PreparedStatement ps = c.prepareStatement(SELECT_TX_SINCE)) {
+            ps.setFetchSize(1000);
+            ps.setString(1, fromTimestamp);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    visitor.accept(mapTransaction(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Query failed: " + SELECT_TX_SINCE, e);
+        }
+    }
+
+    private void insertTransactions(Connection c, List<Transaction> batch) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(INSERT_TX)) {
+            for (Transaction tx : batch) {
+                ps.setString(1, tx.getTransactionID());
+                ps.setString(2, tx.getSourceAccountNumber());
+                if (tx.getTargetAccountNumber() == null) {
+                    ps.setNull(3, Types.VARCHAR);
+                } else {
+                    ps.setString(3, tx.getTargetAccountNumber());
+                }
+                ps.setLong(4, tx.getAmountMoney().getMinorUnits());
+                ps.setString(5, tx.getType() == null ? null : tx.getType().name());
+                ps.setString(6, tx.getTimestamp());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private Transaction mapTransaction(ResultSet rs) throws SQLException {
+        Transaction tx = new Transaction();
+        tx.setTransactionID(rs.getString("transaction_id"));
+        tx.setSourceAccountNumber(rs.getString("source_account"));
+        tx.setTargetAccountNumber(rs.getString("target_account"));
+        tx.setAmountMoney(Money.ofMinor(rs.getLong("amount_minor")));
+        String type = rs.getString("type");
+        tx.setType(type == null ? null : Transaction.Type.valueOf(type));
+        tx.setTimestamp(rs.getString("timestamp"));
+        return tx;
+    }
+
+    // --- BATCH OPERATIONS ---
+    @Override
+    public void saveAccounts(Collection<Account> batch) {
+        inTransaction(c -> {
+            for (Account account : batch) {
+                writeAccount(c, account, false);
+            }
+        });
+    }
+
+    @Override
+    public boolean saveAccountsIfVersion(Collection<Account> batch) {
+        long[] readVersions = batch.stream().mapToLong(Account::getVersion).toArray();
+        boolean[] saved = {true};
+        inTransaction(c -> {
+            for (Account account : batch) {
+                if (!writeAccount(c, account, true)) {
+                    saved[0] = false;
+                    c.rollback();
+                    return;
+                }
+            }
+        });
+        if (!saved[0]) {
+            // Nothing was written, so hand back the versions the caller read
+            int i = 0;
+            for (Account account : batch) {
+                account.setVersion(readVersions[i++]);
+            }
+        }
+        return saved[0];
+    }
+
+    @Override
+    public void logTransactions(List<Transaction> batch) {
+        inTransaction(c -> insertTransactions(c, batch));
+    }
+
+    // --- AUDIT OPERATIONS ---
+    @Override
+    public void logAudit(AuditLog log) {
+        try (Connection c = dataSource.getConnection()) {
+            insertAudit(c, log);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not write audit log", e);
+        }
+    }
+
+    private void insertAudit(Connection c, AuditLog log) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(INSERT_AUDIT)) {
+            ps.setString(1, log.getLogID());
+            ps.setString(2, log.getAdminID());
+            ps.setString(3, log.getAction());
+            ps.setString(4, log.getTargetUserID());
+            ps.setString(5, log.getTimestamp());
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<AuditLog> findAllAuditLogs() {
+        return query(SELECT_ALL_AUDIT, rs -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("logID", rs.getString("log_id"));
+            row.put("adminID", rs.getString("admin_id"));
+            row.put("action", rs.getString("action"));
+            row.put("targetUserID", rs.getString("target_user_id"));
+            row.put("timestamp", rs.getString("timestamp"));
+            return mapper.convertValue(row, AuditLog.class);
+        });
+    }
+
+    // --- JDBC HELPERS ---
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        void run(Connection c) throws SQLException;
+    }
+
+    private <T> List<T> query(String sql, RowMapper<T> rowMapper, String... params) {
+        try (Connection c = dataSource.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setString(i + 1, params[i]);
+            }
+            List<T> result = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(rowMapper.map(rs));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Query failed: " + sql, e);
+        }
+    }
+
+    private <T> Optional<T> queryOne(String sql, RowMapper<T> rowMapper, String... params) {
+        List<T> rows = query(sql, rowMapper, params);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    private void inTransaction(SqlWork work) {
+        try (Connection c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                work.run(c);
+                c.commit();
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Database write failed", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns strings (account numbers, user IDs) to dense int ordinals so columns
+ * can store an int instead of a String reference. Not thread-safe; owners guard it.
+ */
+class StringDictionary {
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * @return the ordinal for value, assigning the next one if it is new.
+     */
+    int intern(String value) {
+        Integer ordinal = ordinals.get(value);
+        if (ordinal == null) {
+            ordinal = values.size();
+            ordinals.put(value, ordinal);
+            values.add(value);
+        }
+        return ordinal;
+    }
+
+    /**
+     * @return the ordinal, or -1 if value was never interned.
+     */
+    int lookup(String value) {
+        Integer ordinal = ordinals.get(value);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    String get(int ordinal) {
+        return values.get(ordinal);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,354 @@
+package data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import model.Money;
+import model.Transaction;
+
+/**
+ * Append-only, column-oriented ledger.
+ *
+ * Account numbers are interned to int ordinals, UUID transaction IDs are kept as
+ * two longs, amounts as cents and timestamps as epoch nanoseconds, all in growable
+ * primitive arrays indexed by ledger position. Each account has an int posting
+ * list of the positions that touch it, so history lookups never scan the ledger.
+ * Reads return list views that build Transaction objects only as they are accessed.
+ */
+public class TransactionStore {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int SCAN_CHUNK = 4096;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final Transaction.Type[] TYPES = Transaction.Type.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final StringDictionary accountNumbers = new StringDictionary();
+    private final List<IntList> postingsByAccount = new ArrayList<>();
+    // IDs that are not canonical UUIDs (e.g. seeded "T001") and unparseable timestamps are kept verbatim
+    private final Map<Integer, String> customIds = new HashMap<>();
+    private final Map<Integer, String> customTimestamps = new HashMap<>();
+
+    // Columns, indexed by ledger position
+    private long[] idHigh = new long[INITIAL_CAPACITY];
+    private long[] idLow = new long[INITIAL_CAPACITY];
+    private int[] sources = new int[INITIAL_CAPACITY];
+    private int[] targets = new int[INITIAL_CAPACITY];     // -1 when there is no target
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY]; // Epoch nanos of the local timestamp
+    private int size;
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the ledger position of the appended transaction.
+     */
+    public int append(Transaction tx) {
+        lock.writeLock().lock();
+        try {
+            int position = size++;
+            ensureCapacity(size);
+
+            UUID uuid = parseUUID(tx.getTransactionID());
+            if (uuid != null) {
+                idHigh[position] = uuid.getMostSignificantBits();
+                idLow[position] = uuid.getLeastSignificantBits();
+            } else {
+                customIds.put(position, tx.getTransactionID());
+            }
+
+            sources[position] = internAccount(tx.getSourceAccountNumber());
+            targets[position] = tx.getTargetAccountNumber() == null ? -1 : internAccount(tx.getTargetAccountNumber());
+            amounts[position] = tx.getAmountMoney().getMinorUnits();
+            types[position] = tx.getType() == null ? -1 : (byte) tx.getType().ordinal();
+            timestamps[position] = parseTimestamp(tx.getTimestamp());
+            if (timestamps[position] == NO_TIMESTAMP && tx.getTimestamp() != null) {
+                customTimestamps.put(position, tx.getTimestamp());
+            }
+
+            postingsByAccount.get(sources[position]).add(position);
+            if (targets[position] >= 0 && targets[position] != sources[position]) {
+                postingsByAccount.get(targets[position]).add(position);
+            }
+            return position;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Transaction get(int position) {
+        lock.readLock().lock();
+        try {
+            if (position < 0 || position >= size) {
+                throw new IndexOutOfBoundsException("No transaction at position " + position);
+            }
+            return materialize(position);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Transactions where the account is source or target, in ledger order.
+     * The returned list is a fixed view of the postings at call time.
+     */
+    public List<Transaction> findByAccount(String accountNumber) {
+        lock.readLock().lock();
+        try {
+            int account = accountNumbers.lookup(accountNumber);
+            if (account < 0) {
+                return new ArrayList<>();
+            }
+            return new PositionView(postingsByAccount.get(account).toArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The whole ledger as a view, e.g. for writing transactions.json.
+     */
+    public List<Transaction> findAll() {
+        int count = size();
+        return new AbstractList<Transaction>() {
+            @Override
+            public Transaction get(int index) {
+                if (index >= count) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+                return TransactionStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Visits, in ledger order, every transaction whose timestamp is at or after
+     * fromNanos (as returned by parseTimestamp). Only the timestamp column is read
+     * for the others; the visitor is called outside the lock, a chunk at a time.
+     */
+    public void forEachSince(long fromNanos, Consumer<Transaction> visitor) {
+        int count = size();
+        List<Transaction> chunk = new ArrayList<>(SCAN_CHUNK);
+        for (int start = 0; start < count; start += SCAN_CHUNK) {
+            lock.readLock().lock();
+            try {
+                for (int position = start; position < Math.min(count, start + SCAN_CHUNK); position++) {
+                    if (timestamps[position] != NO_TIMESTAMP && timestamps[position] >= fromNanos) {
+                        chunk.add(materialize(position));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            chunk.forEach(visitor);
+            chunk.clear();
+        }
+    }
+
+    private class PositionView extends AbstractList<Transaction> {
+        private final int[] positions;
+
+        PositionView(int[] positions) {
+            this.positions = positions;
+        }
+
+        @Override
+        public Transaction get(int index) {
+            return TransactionStore.this.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
+
+    /**
+     * Writes the columns, dictionary and posting lists for a checkpoint, so
+     * readFrom() can restore them without parsing or re-indexing the ledger.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(size);
+            out.writeInt(accountNumbers.size());
+            for (int i = 0; i < accountNumbers.size(); i++) {
+                out.writeUTF(accountNumbers.get(i));
+            }
+            for (int i = 0; i < size; i++) out.writeLong(idHigh[i]);
+            for (int i = 0; i < size; i++) out.writeLong(idLow[i]);
+            for (int i = 0; i < size; i++) out.writeInt(sources[i]);
+            for (int i = 0; i < size; i++) out.writeInt(targets[i]);
+            for (int i = 0; i < size; i++) out.writeLong(amounts[i]);
+            out.write(types, 0, size);
+            for (int i = 0; i < size; i++) out.writeLong(timestamps[i]);
+            writeStrings(out, customIds);
+            writeStrings(out, customTimestamps);
+            for (IntList postings : postingsByAccount) {
+                out.writeInt(postings.size());
+                for (int i = 0; i < postings.size(); i++) {
+                    out.writeInt(postings.get(i));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static TransactionStore readFrom(DataInputStream in) throws IOException {
+        TransactionStore store = new TransactionStore();
+        int size = in.readInt();
+        store.size = size;
+        store.ensureCapacity(size);
+        int accounts = in.readInt();
+        for (int i = 0; i < accounts; i++) {
+            store.internAccount(in.readUTF());
+        }
+        for (int i = 0; i < size; i++) store.idHigh[i] = in.readLong();
+        for (int i = 0; i < size; i++) store.idLow[i] = in.readLong();
+        for (int i = 0; i < size; i++) store.sources[i] = in.readInt();
+        for (int i = 0; i < size; i++) store.targets[i] = in.readInt();
+        for (int i = 0; i < size; i++) store.amounts[i] = in.readLong();
+        in.readFully(store.types, 0, size);
+        for (int i = 0; i < size; i++) store.timestamps[i] = in.readLong();
+        readStrings(in, store.customIds);
+        readStrings(in, store.customTimestamps);
+        for (IntList postings : store.postingsByAccount) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                postings.add(in.readInt());
+            }
+        }
+        return store;
+    }
+
+    private static void writeStrings(DataOutputStream out, Map<Integer, String> byPosition) throws IOException {
+        out.writeInt(byPosition.size());
+        for (Map.Entry<Integer, String> entry : byPosition.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    private static void readStrings(DataInputStream in, Map<Integer, String> byPosition) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            byPosition.put(in.readInt(), in.readUTF());
+        }
+    }
+
+    // Caller holds a lock
+    private Transaction materialize(int position) {
+        Transaction tx = new Transaction();
+        String customId = customIds.get(position);
+        tx.setTransactionID(customId != null ? customId : new UUID(idHigh[position], idLow[position]).toString());
+        tx.setSourceAccountNumber(accountNumbers.get(sources[position]));
+        tx.setTargetAccountNumber(targets[position] < 0 ? null : accountNumbers.get(targets[position]));
+        tx.setAmountMoney(Money.ofMinor(amounts[position]));
+        tx.setType(types[position] < 0 ? null : TYPES[types[position]]);
+        tx.setTimestamp(timestamps[position] != NO_TIMESTAMP
+                ? formatTimestamp(timestamps[position])
+                : customTimestamps.get(position));
+        return tx;
+    }
+
+    // Caller holds the write lock
+    private int internAccount(String accountNumber) {
+        int ordinal = accountNumbers.intern(accountNumber);
+        if (ordinal == postingsByAccount.size()) {
+            postingsByAccount.add(new IntList());
+        }
+        return ordinal;
+    }
+
+    private static UUID parseUUID(String id) {
+        if (id == null || id.length() != 36) return null;
+        try {
+            UUID uuid = UUID.fromString(id);
+            // fromString is lenient; only keep IDs that print back identically
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static long parseTimestamp(String timestamp) {
+        if (timestamp == null) return NO_TIMESTAMP;
+        try {
+            LocalDateTime t = LocalDateTime.parse(timestamp);
+            return Math.addExact(Math.multiplyExact(t.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L), t.getNano());
+        } catch (DateTimeParseException | ArithmeticException e) {
+            return NO_TIMESTAMP;
+        }
+    }
+
+    /**
+     * Same shape as LocalDateTime.toString(), except seconds are always printed,
+     * matching the timestamps already in transactions.json.
+     */
+    static String formatTimestamp(long epochNanos) {
+        if (epochNanos == NO_TIMESTAMP) return null;
+        LocalDateTime t = LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                (int) Math.floorMod(epochNanos, 1_000_000_000L), ZoneOffset.UTC);
+
+        StringBuilder sb = new StringBuilder(29);
+        sb.append(t.toLocalDate()).append('T');
+        append2(sb, t.getHour()).append(':');
+        append2(sb, t.getMinute()).append(':');
+        append2(sb, t.getSecond());
+
+        int nano = t.getNano();
+        if (nano > 0) {
+            if (nano % 1_000_000 == 0) {
+                sb.append('.').append(Integer.toString(nano / 1_000_000 + 1_000).substring(1));
+            } else if (nano % 1_000 == 0) {
+                sb.append('.').append(Integer.toString(nano / 1_000 + 1_000_000).substring(1));
+            } else {
+                sb.append('.').append(Integer.toString(nano + 1_000_000_000).substring(1));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static StringBuilder append2(StringBuilder sb, int value) {
+        if (value < 10) sb.append('0');
+        return sb.append(value);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= amounts.length) return;
+        int newCapacity = Math.max(capacity, amounts.length * 2);
+        idHigh = Arrays.copyOf(idHigh, newCapacity);
+        idLow = Arrays.copyOf(idLow, newCapacity);
+        sources = Arrays.copyOf(sources, newCapacity);
+        targets = Arrays.copyOf(targets, newCapacity);
+        amounts = Arrays.copyOf(amounts, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        timestamps = Arrays.copyOf(timestamps, newCapacity);
+    }
+}
@@ -0,0 +1,218 @@
+package data;
+
+import model.Account;
+import model.AuditLog;
+import model.Transaction;
+import model.User;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Wraps any DatabaseRepository and bumps ResourceVersions after each account
+ * or ledger write, so controllers can answer conditional GETs from the counters.
+ *
+ * It also skips writes that would not change anything: users and accounts it
+ * hands out, or has just saved, are marked unchanged, and their setters clear
+ * the mark only when a value really changes. A versioned save of an unchanged
+ * record costs a version lookup instead of a write (and still fails if someone
+ * else saved in between). writeStats() counts writes done and avoided.
+ */
+public class VersionTrackingRepository implements DatabaseRepository {
+    private final DatabaseRepository delegate;
+    private final ResourceVersions versions = new ResourceVersions();
+    private final AtomicLong userWrites = new AtomicLong();
+    private final AtomicLong userWritesAvoided = new AtomicLong();
+    private final AtomicLong accountWrites = new AtomicLong();
+    private final AtomicLong accountWritesAvoided = new AtomicLong();
+
+    public VersionTrackingRepository(DatabaseRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    public ResourceVersions getVersions() {
+        return versions;
+    }
+
+    // --- USER OPERATIONS ---
+    @Override
+    public Optional<User> findUserByUsername(String username) { return tracked(delegate.findUserByUsername(username)); }
+
+    @Override
+    public Optional<User> findUserByID(String id) { return tracked(delegate.findUserByID(id)); }
+
+    @Override
+    public List<User> findAllUsers() { return delegate.findAllUsers(); }
+
+    @Override
+    public void saveUser(User user) {
+        if (!user.hasChanges()) {
+            userWritesAvoided.incrementAndGet();
+            return;
+        }
+        delegate.saveUser(user);
+        userWrites.incrementAndGet();
+        user.markUnchanged();
+    }
+
+    @Override
+    public boolean saveIfVersion(User user) {
+        if (!user.hasChanges()) {
+            userWritesAvoided.incrementAndGet();
+            return delegate.findUserByID(user.getUserID()).map(User::getVersion).orElse(0L) == user.getVersion();
+        }
+        if (!delegate.saveIfVersion(user)) {
+            return false;
+        }
+        userWrites.incrementAndGet();
+        user.markUnchanged();
+        return true;
+    }
+
+    // --- ACCOUNT OPERATIONS ---
+    @Override
+    public List<Account> findAccountsByUserID(String userID) {
+        List<Account> accounts = delegate.findAccountsByUserID(userID);
+        accounts.forEach(Account::markUnchanged);
+        return accounts;
+    }
+
+    @Override
+    public List<Account> findAllAccounts() {
+        List<Account> accounts = delegate.findAllAccounts();
+        accounts.forEach(Account::markUnchanged);
+        return accounts;
+    }
+
+    @Override
+    public Optional<Account> findAccountByNumber(String accountNumber) {
+        Optional<Account> account = delegate.findAccountByNumber(accountNumber);
+        account.ifPresent(Account::markUnchanged);
+        return account;
+    }
+
+    @Override
+    public Optional<String> findAccountOwner(String accountNumber) { return delegate.findAccountOwner(accountNumber); }
+
+    @Override
+    public void saveAccount(Account account) {
+        if (!account.hasChanges()) {
+            accountWritesAvoided.incrementAndGet();
+            return;
+        }
+        delegate.saveAccount(account);
+        accountSaved(account);
+    }
+
+    @Override
+    public boolean saveIfVersion(Account account) {
+        if (!account.hasChanges()) {
+            accountWritesAvoided.incrementAndGet();
+            return storedVersionMatches(account);
+        }
+        if (!delegate.saveIfVersion(account)) {
+            return false;
+        }
+        accountSaved(account);
+        return true;
+    }
+
+    // --- TRANSACTION OPERATIONS ---
+    @Override
+    public void logTransaction(Transaction transaction) {
+        delegate.logTransaction(transaction);
+        versions.historyChanged(transaction.getSourceAccountNumber(), transaction.getTargetAccountNumber());
+    }
+
+    @Override
+    public List<Transaction> findTransactionsByAccount(String accountNumber) { return delegate.findTransactionsByAccount(accountNumber); }
+
+    @Override
+    public List<Transaction> findRecentTransactionsByAccount(String accountNumber, int limit) { return delegate.findRecentTransactionsByAccount(accountNumber, limit); }
+
+    @Override
+    public AccountIndex.Page findAccountsByRange(AccountIndex.Field field, long from, long to, String after, int limit) {
+        AccountIndex.Page page = delegate.findAccountsByRange(field, from, to, after, limit);
+        page.hits.forEach(hit -> hit.account.markUnchanged());
+        return page;
+    }
+
+    @Override
+    public void forEachTransactionSince(String fromTimestamp, Consumer<Transaction> visitor) { delegate.forEachTransactionSince(fromTimestamp, visitor); }
+
+    // --- AUDIT OPERATIONS ---
+    @Override
+    public void logAudit(AuditLog log) { delegate.logAudit(log); }
+
+    @Override
+    public List<AuditLog> findAllAuditLogs() { return delegate.findAllAuditLogs(); }
+
+    // --- BATCH OPERATIONS ---
+    @Override
+    public void saveAccounts(Collection<Account> accounts) {
+        List<Account> changed = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            if (account.hasChanges()) {
+                changed.add(account);
+            } else {
+                accountWritesAvoided.incrementAndGet();
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        delegate.saveAccounts(changed);
+        changed.forEach(this::accountSaved);
+    }
+
+    @Override
+    public void logTransactions(List<Transaction> transactions) {
+        delegate.logTransactions(transactions);
+        for (Transaction transaction : transactions) {
+            versions.historyChanged(transaction.getSourceAccountNumber(), transaction.getTargetAccountNumber());
+        }
+    }
+
+    @Override
+    public boolean saveAccountsIfVersion(Collection<Account> accounts) {
+        // Unchanged accounts still take part in the version check, so only a batch with no changes at all is skipped
+        if (accounts.stream().noneMatch(Account::hasChanges)) {
+            accountWritesAvoided.addAndGet(accounts.size());
+            return accounts.stream().allMatch(this::storedVersionMatches);
+        }
+        if (!delegate.saveAccountsIfVersion(accounts)) {
+            return false;
+        }
+        accounts.forEach(this::accountSaved);
+        return true;
+    }
+
+    private void accountSaved(Account account) {
+        accountWrites.incrementAndGet();
+        account.markUnchanged();
+        versions.accountChanged(account.getAccountNumber(), account.getOwnerUserID());
+    }
+
+    private boolean storedVersionMatches(Account account) {
+        return delegate.findAccountByNumber(account.getAccountNumber()).map(Account::getVersion).orElse(0L) == account.getVersion();
+    }
+
+    private static Optional<User> tracked(Optional<User> user) {
+        user.ifPresent(User::markUnchanged);
+        return user;
+    }
+
+    public Map<String, Object> writeStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("userWrites", userWrites.get());
+        stats.put("userWritesAvoided", userWritesAvoided.get());
+        stats.put("accountWrites", accountWrites.get());
+        stats.put("accountWritesAvoided", accountWritesAvoided.get());
+        return stats;
+    }
+}
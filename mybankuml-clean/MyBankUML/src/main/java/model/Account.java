@@ -1,8 +1,13 @@
 package model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Objects;
 
+@JsonPropertyOrder({"accountNumber", "ownerUserID", "type", "balance", "creationDate", "interestPaidThrough", "version"}) // Keep the data files' field order
 public class Account {
 
     public Account() {} 
@@ -12,14 +17,18 @@ public class Account {
     private String accountNumber;
     private String ownerUserID; // Foreign key linking to User
     private AccountType type;
-    private BigDecimal balance;
+    private long balanceMinor; // Cents; exposed as BigDecimal only for JSON
     private String creationDate;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String interestPaidThrough; // Nullable; last day (yyyy-MM-dd) whose interest is in the balance, see InterestAccrual
+    private long version; // Bumped by the repository on every save; see DatabaseRepository.saveIfVersion
+    private transient boolean unchanged; // Known to equal the stored record; see markUnchanged
 
     public Account(String accountNumber, String ownerUserID, AccountType type, BigDecimal balance) {
         this.accountNumber = accountNumber;
         this.ownerUserID = ownerUserID;
         this.type = type;
-        this.balance = balance;
+        this.balanceMinor = Money.toMinor(balance);
         this.creationDate = LocalDateTime.now().toString();
     }
 
@@ -27,16 +36,56 @@ public class Account {
     public String getAccountNumber() { return accountNumber; }
     public String getOwnerUserID() { return ownerUserID; }
     public AccountType getType() { return type; }
-    public BigDecimal getBalance() { return balance; }
+    public BigDecimal getBalance() { return Money.toBigDecimal(balanceMinor); }
+    @JsonIgnore
+    public Money getBalanceMoney() { return Money.ofMinor(balanceMinor); }
     public String getCreationDate() { return creationDate; }
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getInterestPaidThrough() { return interestPaidThrough; }
+    public long getVersion() { return version; }
     
-    public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
-    public void setOwnerUserID(String ownerUserID) { this.ownerUserID = ownerUserID; }
-    public void setType(AccountType type) { this.type = type; }
-    public void setCreationDate(String creationDate) { this.creationDate = creationDate; }
+    public void setAccountNumber(String accountNumber) { changed(!Objects.equals(this.accountNumber, accountNumber)); this.accountNumber = accountNumber; }
+    public void setOwnerUserID(String ownerUserID) { changed(!Objects.equals(this.ownerUserID, ownerUserID)); this.ownerUserID = ownerUserID; }
+    public void setType(AccountType type) { changed(this.type != type); this.type = type; }
+    public void setCreationDate(String creationDate) { changed(!Objects.equals(this.creationDate, creationDate)); this.creationDate = creationDate; }
+    public void setInterestPaidThrough(String day) { changed(!Objects.equals(this.interestPaidThrough, day)); this.interestPaidThrough = day; }
+    public void setVersion(long version) { this.version = version; }
     
     // Setter used by AccountManager after validation
     public void setBalance(BigDecimal balance) { 
-        this.balance = balance; 
+        setBalanceMinor(Money.toMinor(balance));
+    }
+
+    @JsonIgnore
+    public void setBalanceMoney(Money balance) {
+        setBalanceMinor(balance.getMinorUnits());
+    }
+
+    private void setBalanceMinor(long balanceMinor) {
+        changed(this.balanceMinor != balanceMinor);
+        this.balanceMinor = balanceMinor;
+    }
+
+    // --- Change tracking (see User) ---
+
+    public void markUnchanged() { this.unchanged = true; }
+
+    public boolean hasChanges() { return !unchanged; }
+
+    private void changed(boolean changed) {
+        if (changed) this.unchanged = false;
+    }
+
+    // Detached copy, e.g. for caches that must not share instances with callers
+    public Account copy() {
+        Account copy = new Account();
+        copy.accountNumber = accountNumber;
+        copy.ownerUserID = ownerUserID;
+        copy.type = type;
+        copy.balanceMinor = balanceMinor;
+        copy.creationDate = creationDate;
+        copy.interestPaidThrough = interestPaidThrough;
+        copy.version = version;
+        return copy;
     }
 }
\ No newline at end of file
@@ -20,6 +20,15 @@ public class AuditLog {
         this.timestamp = LocalDateTime.now().toString();
     }
 
+    // Restores a stored entry as is
+    public AuditLog(String logID, String adminID, String action, String targetUserID, String timestamp) {
+        this.logID = logID;
+        this.adminID = adminID;
+        this.action = action;
+        this.targetUserID = targetUserID;
+        this.timestamp = timestamp;
+    }
+
     // Getters
     public String getLogID() { return logID; }
     public String getAdminID() { return adminID; }
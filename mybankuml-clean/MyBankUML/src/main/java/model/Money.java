@@ -0,0 +1,88 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point amount stored as a long of minor units (cents).
+ *
+ * Used on the transaction hot path instead of BigDecimal; values are converted
+ * back to BigDecimal (scale 2) only when they cross the JSON boundary.
+ * Amounts with fractions of a cent are rejected rather than rounded, and all
+ * arithmetic throws ArithmeticException on overflow.
+ */
+public final class Money implements Comparable<Money> {
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return ofMinor(toMinor(amount));
+    }
+
+    /**
+     * Converts a BigDecimal to minor units without allocating a Money.
+     * @throws ArithmeticException if the amount has fractions of a cent or does not fit in a long.
+     */
+    public static long toMinor(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            if (amount.stripTrailingZeros().scale() > SCALE) {
+                throw new ArithmeticException("Amount cannot have more than " + SCALE + " decimal places");
+            }
+            throw new ArithmeticException("Amount is out of range");
+        }
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public long getMinorUnits() { return minorUnits; }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minorUnits);
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public boolean isPositive() { return minorUnits > 0; }
+
+    public boolean isLessThan(Money other) { return minorUnits < other.minorUnits; }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
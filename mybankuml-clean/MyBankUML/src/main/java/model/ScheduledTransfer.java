@@ -0,0 +1,87 @@
+package model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A standing order: a transfer made once or repeatedly at a set time.
+ */
+@JsonPropertyOrder({"scheduleID", "ownerUserID", "sourceAccountNumber", "targetAccountNumber", "amount",
+        "recurrence", "nextRun", "status", "runs", "failures", "lastRun", "lastError"})
+public class ScheduledTransfer {
+
+    public ScheduledTransfer() {}
+
+    public enum Recurrence { ONCE, DAILY, WEEKLY, MONTHLY }
+
+    public enum Status { ACTIVE, COMPLETED, FAILED, CANCELLED }
+
+    private String scheduleID;
+    private String ownerUserID; // Who created it
+    private String sourceAccountNumber;
+    private String targetAccountNumber;
+    private long amountMinor; // Cents; exposed as BigDecimal only for JSON
+    private Recurrence recurrence;
+    private String nextRun;   // Local date-time, like Transaction timestamps
+    private Status status;
+    private int runs;
+    private int failures;
+    private String lastRun;   // Nullable
+    private String lastError; // Nullable; the last occurrence that did not go through
+
+    public ScheduledTransfer(String scheduleID, String ownerUserID, String sourceAccountNumber, String targetAccountNumber,
+                             Money amount, Recurrence recurrence, LocalDateTime firstRun) {
+        this.scheduleID = scheduleID;
+        this.ownerUserID = ownerUserID;
+        this.sourceAccountNumber = sourceAccountNumber;
+        this.targetAccountNumber = targetAccountNumber;
+        this.amountMinor = amount.getMinorUnits();
+        this.recurrence = recurrence;
+        this.nextRun = firstRun.toString();
+        this.status = Status.ACTIVE;
+    }
+
+    /**
+     * The occurrence after the given one, or null if there is none.
+     */
+    public static LocalDateTime following(LocalDateTime run, Recurrence recurrence) {
+        switch (recurrence) {
+            case DAILY: return run.plusDays(1);
+            case WEEKLY: return run.plusWeeks(1);
+            case MONTHLY: return run.plusMonths(1);
+            default: return null;
+        }
+    }
+
+    // Getters
+    public String getScheduleID() { return scheduleID; }
+    public String getOwnerUserID() { return ownerUserID; }
+    public String getSourceAccountNumber() { return sourceAccountNumber; }
+    public String getTargetAccountNumber() { return targetAccountNumber; }
+    public BigDecimal getAmount() { return Money.toBigDecimal(amountMinor); }
+    @JsonIgnore
+    public Money getAmountMoney() { return Money.ofMinor(amountMinor); }
+    public Recurrence getRecurrence() { return recurrence; }
+    public String getNextRun() { return nextRun; }
+    public Status getStatus() { return status; }
+    public int getRuns() { return runs; }
+    public int getFailures() { return failures; }
+    public String getLastRun() { return lastRun; }
+    public String getLastError() { return lastError; }
+
+    // Setters
+    public void setScheduleID(String scheduleID) { this.scheduleID = scheduleID; }
+    public void setOwnerUserID(String ownerUserID) { this.ownerUserID = ownerUserID; }
+    public void setSourceAccountNumber(String sourceAccountNumber) { this.sourceAccountNumber = sourceAccountNumber; }
+    public void setTargetAccountNumber(String targetAccountNumber) { this.targetAccountNumber = targetAccountNumber; }
+    public void setAmount(BigDecimal amount) { this.amountMinor = Money.toMinor(amount); }
+    public void setRecurrence(Recurrence recurrence) { this.recurrence = recurrence; }
+    public void setNextRun(String nextRun) { this.nextRun = nextRun; }
+    public void setStatus(Status status) { this.status = status; }
+    public void setRuns(int runs) { this.runs = runs; }
+    public void setFailures(int failures) { this.failures = failures; }
+    public void setLastRun(String lastRun) { this.lastRun = lastRun; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
@@ -1,8 +1,11 @@
 package model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+@JsonPropertyOrder({"transactionID", "sourceAccountNumber", "targetAccountNumber", "amount", "type", "timestamp"}) // Keep the data files' field order
 public class Transaction {
 
     public Transaction() {} 
@@ -12,15 +15,19 @@ public class Transaction {
     private String transactionID;
     private String sourceAccountNumber;
     private String targetAccountNumber; // Nullable (only for transfers)
-    private BigDecimal amount;
+    private long amountMinor; // Cents; exposed as BigDecimal only for JSON
     private Type type;
     private String timestamp;
 
     public Transaction(String transactionID, String sourceAccountNumber, String targetAccountNumber, BigDecimal amount, Type type) {
+        this(transactionID, sourceAccountNumber, targetAccountNumber, Money.of(amount), type);
+    }
+
+    public Transaction(String transactionID, String sourceAccountNumber, String targetAccountNumber, Money amount, Type type) {
         this.transactionID = transactionID;
         this.sourceAccountNumber = sourceAccountNumber;
         this.targetAccountNumber = targetAccountNumber;
-        this.amount = amount;
+        this.amountMinor = amount.getMinorUnits();
         this.type = type;
         this.timestamp = LocalDateTime.now().toString();
     }
@@ -29,7 +36,9 @@ public class Transaction {
     public String getTransactionID() { return transactionID; }
     public String getSourceAccountNumber() { return sourceAccountNumber; }
     public String getTargetAccountNumber() { return targetAccountNumber; }
-    public BigDecimal getAmount() { return amount; }
+    public BigDecimal getAmount() { return Money.toBigDecimal(amountMinor); }
+    @JsonIgnore
+    public Money getAmountMoney() { return Money.ofMinor(amountMinor); }
     public Type getType() { return type; }
     public String getTimestamp() { return timestamp; }
     
@@ -37,7 +46,9 @@ public class Transaction {
     public void setTransactionID(String transactionID) { this.transactionID = transactionID; }
     public void setSourceAccountNumber(String sourceAccountNumber) { this.sourceAccountNumber = sourceAccountNumber; }
     public void setTargetAccountNumber(String targetAccountNumber) { this.targetAccountNumber = targetAccountNumber; }
-    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public void setAmount(BigDecimal amount) { this.amountMinor = Money.toMinor(amount); }
+    @JsonIgnore
+    public void setAmountMoney(Money amount) { this.amountMinor = amount.getMinorUnits(); }
     public void setType(Type type) { this.type = type; }
     public void setTimestamp(String timestamp) { this.timestamp = timestamp; }
 }
\ No newline at end of file
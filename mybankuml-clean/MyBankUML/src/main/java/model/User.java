@@ -3,6 +3,7 @@ package model;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.Objects;
 import java.io.Serializable;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -29,6 +30,8 @@ public abstract class User implements Serializable {
     private Status status;
     private int failedLoginAttempts;
     private boolean twoFactorEnabled; 
+    private long version; // Bumped by the repository on every save; see DatabaseRepository.saveIfVersion
+    private transient boolean unchanged; // Known to equal the stored record; see markUnchanged
 
     public User() {}
 
@@ -52,16 +55,57 @@ public abstract class User implements Serializable {
     public Status getStatus() { return status; }
     public int getFailedLoginAttempts() { return failedLoginAttempts; }
     public boolean isTwoFactorEnabled() { return twoFactorEnabled; }
+    public long getVersion() { return version; }
 
-    // Setters
-    public void setStatus(Status status) { this.status = status; }
-    public void incrementFailedAttempts() { this.failedLoginAttempts++; }
-    public void resetFailedAttempts() { this.failedLoginAttempts = 0; }
-    public void setRole(Role role) { this.role = role; }
-    public void setTwoFactorEnabled(boolean enabled) { this.twoFactorEnabled = enabled; }
+    // Setters (each one that changes a value makes the user need saving again)
+    public void setStatus(Status status) { changed(this.status != status); this.status = status; }
+    public void incrementFailedAttempts() { changed(true); this.failedLoginAttempts++; }
+    public void resetFailedAttempts() { changed(this.failedLoginAttempts != 0); this.failedLoginAttempts = 0; }
+    public void setRole(Role role) { changed(this.role != role); this.role = role; }
+    public void setTwoFactorEnabled(boolean enabled) { changed(this.twoFactorEnabled != enabled); this.twoFactorEnabled = enabled; }
+    public void setVersion(long version) { this.version = version; }
     
     // CRITICAL FOR ADMIN TEST
-    public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
+    public void setPasswordHash(String passwordHash) { changed(!Objects.equals(this.passwordHash, passwordHash)); this.passwordHash = passwordHash; }
+
+    // --- Change tracking ---
+    // The repository marks users it hands out or has just saved; saving one that
+    // was not modified since is skipped. New users are never marked.
+
+    public void markUnchanged() { this.unchanged = true; }
+
+    public boolean hasChanges() { return !unchanged; }
+
+    private void changed(boolean changed) {
+        if (changed) this.unchanged = false;
+    }
 
     public abstract String getDashboardRoute();
+
+    // Detached copy, so a caller's edits stay local until saved. Of the subclass for the
+    // role, as when the user is read back from JSON (a user whose role changed becomes that role)
+    public User copy() {
+        User copy = ofRole(role);
+        copy.userID = userID;
+        copy.username = username;
+        copy.passwordHash = passwordHash;
+        copy.fullName = fullName;
+        copy.role = role;
+        copy.status = status;
+        copy.failedLoginAttempts = failedLoginAttempts;
+        copy.twoFactorEnabled = twoFactorEnabled;
+        copy.version = version;
+        return copy;
+    }
+
+    private static User ofRole(Role role) {
+        if (role == null) {
+            throw new IllegalStateException("User has no role");
+        }
+        switch (role) {
+            case TELLER: return new Teller();
+            case ADMIN: return new Administrator();
+            default: return new Customer();
+        }
+    }
 }
\ No newline at end of file
@@ -1,15 +1,21 @@
 package presentation;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import application.AccountManager;
-import application.AuthenticationManager;
+import application.BatchTransactionManager;
 import application.RoleManager;
 import application.TransactionManager;
+import data.ResourceVersions;
 import io.javalin.http.Context;
 import model.Account;
 import model.Transaction;
@@ -18,15 +24,17 @@ import model.User;
 public class AccountController {
     private AccountManager accountManager;
     private TransactionManager transactionManager;
-    private AuthenticationManager authManager;
+    private BatchTransactionManager batchManager;
     private RoleManager roleManager;
+    private ResourceVersions versions; // Nullable: conditional GETs are skipped without it
     private ObjectMapper mapper = new ObjectMapper();
 
-    public AccountController(AccountManager am, TransactionManager tm, AuthenticationManager auth, RoleManager role) {
+    public AccountController(AccountManager am, TransactionManager tm, BatchTransactionManager bm, RoleManager role, ResourceVersions versions) {
         this.accountManager = am;
         this.transactionManager = tm;
-        this.authManager = auth;
+        this.batchManager = bm;
         this.roleManager = role;
+        this.versions = versions;
     }
 
     /**
@@ -35,22 +43,18 @@ public class AccountController {
      */
     public void getAccounts(Context ctx) {
         try {
-            // 1. Verify Session
-            String token = ctx.header("Authorization");
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7); // Remove "Bearer " prefix
-            }
-            
-            User user = authManager.getUserByToken(token);
-            if (user == null) {
-                ctx.status(401).json(Map.of("error", "Unauthorized"));
+            // 1. Logged-in user (authenticated by AuthFilter)
+            User user = AuthFilter.principal(ctx);
+
+            // 2. Answer from the version counter if the client's copy is current
+            if (versions != null && notModified(ctx, versions.etag("owner", user.getUserID(), versions.ownerVersion(user.getUserID())))) {
                 return;
             }
 
-            // 2. Get accounts for this user
+            // 3. Get accounts for this user
             List<Account> accounts = accountManager.getAccountsByUserId(user.getUserID());
             
-            // 3. Return accounts as JSON
+            // 4. Return accounts as JSON
             ctx.status(200).json(accounts);
 
         } catch (Exception e) {
@@ -61,34 +65,21 @@ public class AccountController {
     /**
      * NEW: Get accounts for a specific user (Teller/Admin only)
      * Endpoint: GET /api/accounts/user/{userId}
+     * Route requires SEARCH_CUSTOMERS; checked by AuthFilter
      */
     public void getAccountsByUser(Context ctx) {
         try {
-            // 1. Verify Session
-            String token = ctx.header("Authorization");
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            User currentUser = authManager.getUserByToken(token);
-            if (currentUser == null) {
-                ctx.status(401).json(Map.of("error", "Unauthorized"));
-                return;
-            }
+            // 1. Get target user ID from path parameter
+            String targetUserId = ctx.pathParam("userId");
 
-            // 2. Check Permissions (only Teller/Admin can view other users' accounts)
-            if (!roleManager.canAccess(currentUser, RoleManager.Feature.SEARCH_CUSTOMERS)) {
-                ctx.status(403).json(Map.of("error", "Access Denied"));
+            if (versions != null && notModified(ctx, versions.etag("owner", targetUserId, versions.ownerVersion(targetUserId)))) {
                 return;
             }
-
-            // 3. Get target user ID from path parameter
-            String targetUserId = ctx.pathParam("userId");
             
-            // 4. Get accounts for that user
+            // 2. Get accounts for that user
             List<Account> accounts = accountManager.getAccountsByUserId(targetUserId);
             
-            // 5. Return accounts as JSON
+            // 3. Return accounts as JSON
             ctx.status(200).json(accounts);
 
         } catch (Exception e) {
@@ -102,33 +93,25 @@ public class AccountController {
      */
     public void getTransactionHistory(Context ctx) {
         try {
-            // 1. Verify Session
-            String token = ctx.header("Authorization");
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            User user = authManager.getUserByToken(token);
-            if (user == null) {
-                ctx.status(401).json(Map.of("error", "Unauthorized"));
-                return;
-            }
+            // 1. Logged-in user (authenticated by AuthFilter)
+            User user = AuthFilter.principal(ctx);
 
             // 2. Get account number from path parameter
             String accountNumber = ctx.pathParam("accountNumber");
             
-            // 3. Verify the account belongs to the user (or user is Teller/Admin)
-            List<Account> userAccounts = accountManager.getAccountsByUserId(user.getUserID());
-            boolean isOwnAccount = userAccounts.stream()
-                .anyMatch(acc -> acc.getAccountNumber().equals(accountNumber));
-            
-            boolean isTellerOrAdmin = roleManager.canAccess(user, RoleManager.Feature.SEARCH_CUSTOMERS);
-            
-            if (!isOwnAccount && !isTellerOrAdmin) {
+            // 3. Verify the user is Teller/Admin or the account belongs to them
+            boolean allowed = roleManager.canAccess(user, RoleManager.Feature.SEARCH_CUSTOMERS)
+                || accountManager.isOwner(user.getUserID(), accountNumber);
+
+            if (!allowed) {
                 ctx.status(403).json(Map.of("error", "Access Denied"));
                 return;
             }
 
+            if (versions != null && notModified(ctx, versions.etag("history", accountNumber, versions.historyVersion(accountNumber)))) {
+                return;
+            }
+
             // 4. Get transaction history using TransactionManager
             List<Transaction> transactions = transactionManager.getTransactionsByAccount(accountNumber);
             
@@ -140,22 +123,10 @@ public class AccountController {
         }
     }
 
+    // Route requires PROCESS_TRANSACTION; checked by AuthFilter
     public void handleTransaction(Context ctx) {
         try {
-            // 1. Verify Session
-            String token = ctx.header("Authorization");
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7); // Remove "Bearer " prefix
-            }
-            
-            User user = authManager.getUserByToken(token);
-
-            // 2. Check Permissions (RBAC)
-            if (!roleManager.canAccess(user, RoleManager.Feature.PROCESS_TRANSACTION)) {
-                throw new Exception("Access Denied");
-            }
-
-            // 3. Parse Request (Using Jackson)
+            // 1. Parse Request (Using Jackson)
             @SuppressWarnings("unchecked")
             Map<String, Object> req = mapper.readValue(ctx.body(), Map.class);
             
@@ -167,7 +138,7 @@ public class AccountController {
             if (amountObj == null) throw new Exception("Amount is required");
             BigDecimal amount = new BigDecimal(String.valueOf(amountObj));
 
-            // 4. Execute Logic
+            // 2. Execute Logic
             if (type == null) throw new Exception("Transaction type is required");
 
             switch (type.toUpperCase()) {
@@ -192,4 +163,104 @@ public class AccountController {
             ctx.status(400).json(Map.of("error", e.getMessage() != null ? e.getMessage() : "Transaction Failed"));
         }
     }
+
+    /**
+     * Bulk submission of deposits/withdrawals/transfers as JSON-lines (one transaction object per line).
+     * Endpoint: POST /api/transactions/bulk
+     * Route requires PROCESS_TRANSACTION; checked by AuthFilter
+     */
+    public void handleBulkTransactions(Context ctx) {
+        try {
+            // 1. Parse the body line by line; a malformed line fails on its own
+            List<BatchTransactionManager.Item> items = new ArrayList<>();
+            Map<Integer, String> parseErrors = new LinkedHashMap<>();
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(ctx.bodyInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.trim().isEmpty()) continue;
+                    if (items.size() + parseErrors.size() >= BatchTransactionManager.MAX_BATCH_SIZE) {
+                        throw new Exception("Batch exceeds maximum of " + BatchTransactionManager.MAX_BATCH_SIZE + " items");
+                    }
+                    try {
+                        items.add(parseItem(lineNumber, line));
+                    } catch (Exception e) {
+                        parseErrors.put(lineNumber, e.getMessage() != null ? e.getMessage() : "Malformed line");
+                    }
+                }
+            }
+
+            // 2. Execute Logic
+            List<BatchTransactionManager.Result> results = new ArrayList<>(batchManager.execute(items));
+            for (Map.Entry<Integer, String> error : parseErrors.entrySet()) {
+                results.add(BatchTransactionManager.Result.failed(error.getKey(), error.getValue()));
+            }
+            results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+
+            long succeeded = results.stream().filter(BatchTransactionManager.Result::isSuccess).count();
+
+            // 3. Return per-line results
+            ctx.status(200).json(Map.of(
+                "submitted", results.size(),
+                "succeeded", succeeded,
+                "failed", results.size() - succeeded,
+                "results", results
+            ));
+
+        } catch (Exception e) {
+            ctx.status(400).json(Map.of("error", e.getMessage() != null ? e.getMessage() : "Bulk submission failed"));
+        }
+    }
+
+    /**
+     * Sets the ETag and answers 304 when the client already holds this version.
+     * The tag must be computed before the data is read so it can only lag, never lead.
+     */
+    private boolean notModified(Context ctx, String etag) {
+        ctx.header("ETag", etag);
+        ctx.header("Cache-Control", "private, no-cache");
+        ctx.header("Vary", "Authorization"); // e.g. /api/accounts is a different list for every user
+
+        String ifNoneMatch = ctx.header("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals(etag) || tag.equals("*")) {
+                ctx.status(304);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BatchTransactionManager.Item parseItem(int lineNumber, String line) throws Exception {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> req = mapper.readValue(line, Map.class);
+
+        String type = (String) req.get("type");
+        if (type == null) throw new Exception("Transaction type is required");
+
+        Transaction.Type txType;
+        try {
+            txType = Transaction.Type.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Invalid transaction type");
+        }
+
+        Object amountObj = req.get("amount");
+        if (amountObj == null) throw new Exception("Amount is required");
+
+        return new BatchTransactionManager.Item(
+            lineNumber,
+            txType,
+            (String) req.get("accountNumber"),
+            (String) req.get("targetAccount"),
+            new BigDecimal(String.valueOf(amountObj))
+        );
+    }
 }
\ No newline at end of file
@@ -6,40 +6,35 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import application.AdminManager;
 import application.AuthenticationManager;
-import application.RoleManager;
 import io.javalin.http.Context;
 import model.Administrator;
 import model.Customer;
 import model.Teller;
 import model.User;
+import util.Metrics;
 import util.SecurityUtils;
 
 public class AdminController {
     private AdminManager adminManager;
-    private AuthenticationManager authManager;
-    private RoleManager roleManager;
+    private AuthenticationManager authManager; // Ends sessions of users who are locked or change role
+    private Metrics metrics;
     private ObjectMapper mapper = new ObjectMapper();
 
-    public AdminController(AdminManager admin, AuthenticationManager auth, RoleManager role) {
+    public AdminController(AdminManager admin, AuthenticationManager auth) {
+        this(admin, auth, new Metrics());
+    }
+
+    public AdminController(AdminManager admin, AuthenticationManager auth, Metrics metrics) {
         this.adminManager = admin;
         this.authManager = auth;
-        this.roleManager = role;
+        this.metrics = metrics;
     }
 
+    // Routes here require MANAGE_USERS or VIEW_AUDIT_LOGS (Admin); checked by AuthFilter
     public void createUser(Context ctx) {
         try {
-            String token = ctx.header("Authorization");
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            User admin = authManager.getUserByToken(token);
-            
-            if (!roleManager.canAccess(admin, RoleManager.Feature.MANAGE_USERS)) {
-                ctx.status(403).json(Map.of("error", "Forbidden")); 
-                return;
-            }
-            
+            User admin = AuthFilter.principal(ctx);
+
             @SuppressWarnings("unchecked")
             Map<String, String> req = mapper.readValue(ctx.body(), Map.class);
             
@@ -66,30 +61,22 @@ public class AdminController {
 
     public void updateUser(Context ctx) {
         try {
-            String token = ctx.header("Authorization");
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            User admin = authManager.getUserByToken(token);
-
-            if (!roleManager.canAccess(admin, RoleManager.Feature.MANAGE_USERS)) {
-                ctx.status(403).json(Map.of("error", "Forbidden"));
-                return;
-            }
+            User admin = AuthFilter.principal(ctx);
 
             String targetUserId = ctx.pathParam("id");
             @SuppressWarnings("unchecked")
             Map<String, Object> req = mapper.readValue(ctx.body(), Map.class);
 
-            if (req.containsKey("status")) {
-                adminManager.updateUserStatus(admin, targetUserId, (String) req.get("status"));
-            }
-            if (req.containsKey("role")) {
-                adminManager.updateUserRole(admin, targetUserId, (String) req.get("role"));
-            }
-            if (req.containsKey("twoFactorEnabled")) {
-                adminManager.toggle2FA(admin, targetUserId, (boolean) req.get("twoFactorEnabled"));
+            String status = (String) req.get("status");
+            String role = (String) req.get("role");
+            Boolean twoFactorEnabled = (Boolean) req.get("twoFactorEnabled");
+
+            // All fields in one save
+            adminManager.updateUser(admin, targetUserId, status, role, twoFactorEnabled);
+
+            if ((status != null && !"ACTIVE".equalsIgnoreCase(status)) // Locked out now, not when their token expires
+                    || role != null) {                                  // Their tokens carry the old role
+                authManager.revokeSessions(targetUserId);
             }
 
             ctx.json(Map.of("message", "User updated successfully"));
@@ -102,27 +89,20 @@ public class AdminController {
     // Get Audit Logs
     public void getAuditLogs(Context ctx) {
         try {
-            String token = ctx.header("Authorization");
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            User admin = authManager.getUserByToken(token);
-            
-            if (admin == null) {
-                ctx.status(401).json(Map.of("error", "Invalid session"));
-                return;
-            }
-
-            if (!roleManager.canAccess(admin, RoleManager.Feature.MANAGE_USERS)) {
-                ctx.status(403).json(Map.of("error", "Forbidden - Admin access required"));
-                return;
-            }
-
             ctx.json(adminManager.getAllAuditLogs());
             
         } catch (Exception e) {
             ctx.status(500).json(Map.of("error", "Failed to fetch audit logs: " + e.getMessage()));
         }
     }
+
+    // Get runtime metrics (cache hit rates etc.)
+    public void getMetrics(Context ctx) {
+        try {
+            ctx.json(metrics.snapshot());
+
+        } catch (Exception e) {
+            ctx.status(500).json(Map.of("error", "Failed to fetch metrics: " + e.getMessage()));
+        }
+    }
 }
\ No newline at end of file
@@ -39,7 +39,7 @@ public class AuthController {
     }
 
     public void logout(Context ctx) {
-        String token = ctx.header("Authorization");
+        String token = AuthFilter.token(ctx);
         if (token != null) {
             authManager.logout(token);
         }
@@ -48,18 +48,8 @@ public class AuthController {
 
     public void changePassword(Context ctx) {
         try {
-            // Get token
-            String token = ctx.header("Authorization");
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            
-            User user = authManager.getUserByToken(token);
-            
-            if (user == null) {
-                ctx.status(401).json(Map.of("error", "Invalid session"));
-                return;
-            }
+            // Logged-in user (authenticated by AuthFilter)
+            User user = AuthFilter.principal(ctx);
 
             // Parse request
             @SuppressWarnings("unchecked")
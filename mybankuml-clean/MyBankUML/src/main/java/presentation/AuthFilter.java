@@ -0,0 +1,201 @@
+package presentation;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import application.AuthenticationManager;
+import application.RoleManager;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.security.AccessManager;
+import io.javalin.security.RouteRole;
+import model.User;
+import util.SessionTokens;
+
+/**
+ * Authenticates each request once and enforces the requirements a route was
+ * registered with, e.g.
+ *
+ *   app.get("/api/search", searchController::searchUsers, AuthFilter.requires(Feature.SEARCH_CUSTOMERS));
+ *
+ * Routes registered without requirements are public. For the others the
+ * session token (Authorization: Bearer ..., or ?token= on the event stream
+ * only) must be valid (401 otherwise) and the user must have at least one of the listed
+ * features (403 otherwise). Handlers read the user with principal(ctx).
+ *
+ * The token is verified once per request, by verify() (registered as the first
+ * before-handler) or by whichever of RateLimitFilter and manage() asks first;
+ * the result is kept on the request for the other.
+ *
+ * Sessions are short-lived; once one is past half its lifetime the response
+ * carries a replacement token in RENEWED_TOKEN_HEADER for the client to use
+ * from then on.
+ */
+public class AuthFilter implements AccessManager {
+    public static final String PRINCIPAL = "principal";
+    public static final String SESSION = "session";                  // Verified SessionTokens.Claims
+    private static final String SESSION_ERROR = "sessionError";      // Why the token was rejected
+    // The one route whose token may come in the query string: EventSource cannot send headers
+    public static final String EVENTS_PATH = "/api/events";
+    public static final String RENEWED_TOKEN_HEADER = "X-Session-Token";
+
+    /**
+     * A route requirement: a logged-in user, optionally with a RoleManager feature.
+     */
+    public static final class Requirement implements RouteRole {
+        private final RoleManager.Feature feature; // Null: any logged-in user
+
+        private Requirement(RoleManager.Feature feature) {
+            this.feature = feature;
+        }
+
+        @Override
+        public String toString() {
+            return feature == null ? "AUTHENTICATED" : feature.name();
+        }
+    }
+
+    public static final Requirement AUTHENTICATED = new Requirement(null);
+    private static final Map<RoleManager.Feature, Requirement> FEATURES = new EnumMap<>(RoleManager.Feature.class);
+    static {
+        for (RoleManager.Feature feature : RoleManager.Feature.values()) {
+            FEATURES.put(feature, new Requirement(feature));
+        }
+    }
+
+    public static Requirement requires(RoleManager.Feature feature) {
+        return FEATURES.get(feature);
+    }
+
+    private final AuthenticationManager authManager;
+    private final RoleManager roleManager;
+
+    // Cost of authentication, in one place
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong unauthorized = new AtomicLong();
+    private final AtomicLong forbidden = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    public AuthFilter(AuthenticationManager authManager, RoleManager roleManager) {
+        this.authManager = authManager;
+        this.roleManager = roleManager;
+    }
+
+    @Override
+    public void manage(Handler handler, Context ctx, Set<? extends RouteRole> requirements) throws Exception {
+        if (requirements.isEmpty()) {
+            handler.handle(ctx);
+            return;
+        }
+
+        long start = System.nanoTime();
+        SessionTokens.Claims claims;
+        User user;
+        try {
+            claims = session(ctx);
+            user = authManager.getUser(claims);
+        } catch (Exception e) {
+            record(start, unauthorized);
+            ctx.status(401).json(Map.of("error", e.getMessage() != null ? e.getMessage() : "Unauthorized"));
+            return;
+        }
+        if (!satisfies(user, requirements)) {
+            record(start, forbidden);
+            ctx.status(403).json(Map.of("error", "Access Denied"));
+            return;
+        }
+        record(start, null);
+
+        String renewed = authManager.renewSession(claims);
+        if (renewed != null) {
+            ctx.header(RENEWED_TOKEN_HEADER, renewed);
+        }
+        ctx.attribute(PRINCIPAL, user);
+        handler.handle(ctx);
+    }
+
+    /**
+     * Before-handler that verifies the request's session token, if any, for everything after it.
+     */
+    public void verify(Context ctx) {
+        if (ctx.attribute(SESSION) != null || ctx.attribute(SESSION_ERROR) != null) {
+            return;
+        }
+        try {
+            ctx.attribute(SESSION, authManager.verifySession(token(ctx)));
+        } catch (Exception e) {
+            ctx.attribute(SESSION_ERROR, e.getMessage() != null ? e.getMessage() : "Unauthorized");
+        }
+    }
+
+    // The verified session of the request, verifying it now if no before-handler did
+    private SessionTokens.Claims session(Context ctx) throws Exception {
+        verify(ctx);
+        SessionTokens.Claims claims = ctx.attribute(SESSION);
+        if (claims == null) {
+            throw new Exception(ctx.<String>attribute(SESSION_ERROR));
+        }
+        return claims;
+    }
+
+    /**
+     * The user ID of the request's valid session, as verified by verify(); null if it has none
+     * (or verify() has not run).
+     */
+    public static String sessionUserId(Context ctx) {
+        SessionTokens.Claims claims = ctx.attribute(SESSION);
+        return claims != null ? claims.getUserId() : null;
+    }
+
+    private boolean satisfies(User user, Set<? extends RouteRole> requirements) {
+        for (RouteRole requirement : requirements) {
+            RoleManager.Feature feature = ((Requirement) requirement).feature;
+            if (feature == null || roleManager.canAccess(user, feature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void record(long start, AtomicLong outcome) {
+        nanos.addAndGet(System.nanoTime() - start);
+        checked.incrementAndGet();
+        if (outcome != null) {
+            outcome.incrementAndGet();
+        }
+    }
+
+    /**
+     * The authenticated user of a route registered with requirements.
+     */
+    public static User principal(Context ctx) {
+        return ctx.attribute(PRINCIPAL);
+    }
+
+    /**
+     * Session token from "Authorization: Bearer ...", a bare Authorization
+     * header, or ?token= on EVENTS_PATH; null if none. Elsewhere a token in
+     * the URL is ignored, so it does not end up in access logs, browser
+     * history and Referer headers.
+     */
+    public static String token(Context ctx) {
+        String header = ctx.header("Authorization");
+        if (header != null) {
+            return header.startsWith("Bearer ") ? header.substring(7) : header;
+        }
+        return ctx.path().equals(EVENTS_PATH) ? ctx.queryParam("token") : null;
+    }
+
+    public Map<String, Object> stats() {
+        long count = checked.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("checked", count);
+        stats.put("unauthorized", unauthorized.get());
+        stats.put("forbidden", forbidden.get());
+        stats.put("avgMicros", count == 0 ? 0.0 : nanos.get() / 1000.0 / count);
+        return stats;
+    }
+}
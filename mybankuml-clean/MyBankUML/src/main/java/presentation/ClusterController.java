@@ -0,0 +1,40 @@
+package presentation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+import data.ClusterNode;
+import data.ClusterProtocol;
+import io.javalin.http.Context;
+
+/**
+ * Node-to-node endpoint (POST /internal/cluster/{operation}) through which
+ * peers read and write this node's partition. Only callers presenting the
+ * credential derived from the shared cluster secret are served.
+ */
+public class ClusterController {
+
+    private final ClusterNode localNode;
+    private final byte[] credential; // See ClusterProtocol.peerCredential
+
+    public ClusterController(ClusterNode localNode, String secret) {
+        this.localNode = localNode;
+        this.credential = ClusterProtocol.peerCredential(secret).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void handle(Context ctx) {
+        String presented = ctx.header(ClusterProtocol.SECRET_HEADER);
+        if (presented == null || !MessageDigest.isEqual(credential, presented.getBytes(StandardCharsets.UTF_8))) {
+            ctx.status(403).json(Map.of("error", "Unknown cluster peer"));
+            return;
+        }
+        try {
+            ctx.contentType("application/json").result(ClusterProtocol.handle(localNode, ctx.pathParam("operation"), ctx.body()));
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            ctx.status(500).json(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package presentation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import application.AccountEventPublisher;
+import application.AccountManager;
+import application.RoleManager;
+import io.javalin.http.sse.SseClient;
+import model.Account;
+import model.User;
+
+public class EventController {
+    private AccountEventPublisher publisher;
+    private AccountManager accountManager;
+    private RoleManager roleManager;
+
+    public EventController(AccountEventPublisher publisher, AccountManager am, RoleManager role) {
+        this.publisher = publisher;
+        this.accountManager = am;
+        this.roleManager = role;
+    }
+
+    /**
+     * Live balance and transaction updates for a dashboard.
+     * Endpoint: GET /api/events?token=...[&userId=...]
+     *
+     * EventSource cannot send headers, so the session token comes as a query parameter
+     * (AuthFilter accepts it there).
+     * Customers get their own accounts; Tellers/Admins may pass userId to watch a customer.
+     */
+    public void streamEvents(SseClient client) {
+        try {
+            // 1. Logged-in user (authenticated by AuthFilter)
+            User user = AuthFilter.principal(client.ctx());
+
+            // 2. Resolve which accounts this connection may watch
+            String targetUserId = client.ctx().queryParam("userId");
+            if (targetUserId == null || targetUserId.equals(user.getUserID())) {
+                targetUserId = user.getUserID();
+            } else if (!roleManager.canAccess(user, RoleManager.Feature.SEARCH_CUSTOMERS)) {
+                client.sendEvent("error", Map.of("error", "Access Denied"));
+                client.close();
+                return;
+            }
+
+            List<String> accountNumbers = accountManager.getAccountsByUserId(targetUserId).stream()
+                .map(Account::getAccountNumber)
+                .collect(Collectors.toList());
+
+            // 3. Subscribe and keep the connection open until the browser goes away
+            AccountEventPublisher.Subscription subscription = publisher.subscribe(accountNumbers, new AccountEventPublisher.Sink() {
+                @Override
+                public void send(String event, Object data) {
+                    client.sendEvent(event, data);
+                }
+
+                @Override
+                public boolean isClosed() {
+                    return client.terminated();
+                }
+            });
+            client.onClose(() -> publisher.unsubscribe(subscription));
+            client.keepAlive();
+
+            client.sendEvent("subscribed", Map.of("accounts", accountNumbers));
+
+        } catch (Exception e) {
+            client.sendEvent("error", Map.of("error", e.getMessage() != null ? e.getMessage() : "Unauthorized"));
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package presentation;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HandlerType;
+import io.javalin.http.TooManyRequestsResponse;
+import util.RateLimiter;
+import util.RateLimiter.Budget;
+
+/**
+ * Before-handler that rate limits /api/* so one client cannot starve the rest.
+ *
+ * Every request counts against its client IP. On top of that, login and
+ * password changes (each a BCrypt hash) have a tight per-IP budget, search
+ * (a scan over all users) a tight per-user budget, and everything else a
+ * per-user budget (per IP for anonymous callers). Refused requests get
+ * 429 with Retry-After.
+ *
+ * The client IP is the socket peer unless that peer is a trusted proxy (a load
+ * balancer), in which case it is the last X-Forwarded-For address not added
+ * by a trusted proxy. Anyone else can put what they like in that header, so
+ * it is ignored for them.
+ *
+ * Node-to-node calls (/internal/...) and static files are not limited.
+ * Registered after AuthFilter.verify, whose verified session it reads.
+ */
+public class RateLimitFilter implements Handler {
+    static final Budget PER_IP = new Budget("ip", 200, 100);
+    static final Budget LOGIN = new Budget("login", 5, 0.2);   // 5 at once, then one per 5 s
+    static final Budget SEARCH = new Budget("search", 10, 2);
+    static final Budget DEFAULT = new Budget("api", 60, 20);
+
+    private final RateLimiter limiter;
+    private final Set<String> trustedProxies;
+
+    public RateLimitFilter(RateLimiter limiter) {
+        this(limiter, Set.of());
+    }
+
+    /**
+     * @param trustedProxies addresses of the proxies in front of the server, as
+     *                       ctx.ip() reports them; their X-Forwarded-For is believed
+     */
+    public RateLimitFilter(RateLimiter limiter, Set<String> trustedProxies) {
+        this.limiter = limiter;
+        this.trustedProxies = trustedProxies;
+    }
+
+    @Override
+    public void handle(Context ctx) {
+        String path = ctx.path();
+        if (!path.startsWith("/api/") || ctx.method() == HandlerType.OPTIONS) {
+            return;
+        }
+        String ip = clientIp(ctx);
+        check(ctx, limiter.acquire(ip, PER_IP));
+
+        if (ctx.method() == HandlerType.POST && (path.equals("/api/login") || path.equals("/api/change-password"))) {
+            check(ctx, limiter.acquire(ip, LOGIN));
+            return;
+        }
+        String userId = AuthFilter.sessionUserId(ctx);
+        String key = userId != null ? "user:" + userId : "ip:" + ip;
+        check(ctx, limiter.acquire(key, path.startsWith("/api/search") ? SEARCH : DEFAULT));
+    }
+
+    /**
+     * Walks X-Forwarded-For from the right (the hop nearest us) past the trusted
+     * proxies; entries further left were written by the client and could be forged.
+     */
+    private String clientIp(Context ctx) {
+        String ip = ctx.ip();
+        String forwarded = ctx.header("X-Forwarded-For");
+        if (forwarded == null || !trustedProxies.contains(ip)) {
+            return ip;
+        }
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                break;
+            }
+            ip = hop;
+            if (!trustedProxies.contains(hop)) {
+                break;
+            }
+        }
+        return ip;
+    }
+
+    private static void check(Context ctx, long waitNanos) {
+        if (waitNanos > 0) {
+            long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            ctx.header("Retry-After", String.valueOf(seconds));
+            throw new TooManyRequestsResponse();
+        }
+    }
+}
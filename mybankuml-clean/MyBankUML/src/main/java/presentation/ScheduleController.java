@@ -0,0 +1,92 @@
+package presentation;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import application.AccountManager;
+import application.RoleManager;
+import application.ScheduledTransferManager;
+import io.javalin.http.Context;
+import model.ScheduledTransfer;
+import model.User;
+
+public class ScheduleController {
+    private ScheduledTransferManager scheduleManager;
+    private AccountManager accountManager;
+    private RoleManager roleManager;
+    private ObjectMapper mapper = new ObjectMapper();
+
+    public ScheduleController(ScheduledTransferManager scheduleManager, AccountManager am, RoleManager role) {
+        this.scheduleManager = scheduleManager;
+        this.accountManager = am;
+        this.roleManager = role;
+    }
+
+    /**
+     * Create a standing order: {sourceAccount, targetAccount, amount, firstRun?, recurrence?}
+     * Endpoint: POST /api/schedules
+     * Route requires PROCESS_TRANSACTION; checked by AuthFilter
+     */
+    public void createSchedule(Context ctx) {
+        try {
+            User user = AuthFilter.principal(ctx);
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> req = mapper.readValue(ctx.body(), Map.class);
+            String source = (String) req.get("sourceAccount");
+            Object amountObj = req.get("amount");
+            if (amountObj == null) throw new Exception("Amount is required");
+
+            // Teller/Admin may schedule from any account, customers only from their own
+            if (!mayManage(user, source)) {
+                ctx.status(403).json(Map.of("error", "Access Denied"));
+                return;
+            }
+
+            ScheduledTransfer schedule = scheduleManager.create(user.getUserID(), source, (String) req.get("targetAccount"),
+                    new BigDecimal(String.valueOf(amountObj)), (String) req.get("firstRun"), (String) req.get("recurrence"));
+            ctx.status(201).json(schedule);
+
+        } catch (Exception e) {
+            ctx.status(400).json(Map.of("error", e.getMessage() != null ? e.getMessage() : "Failed to create schedule"));
+        }
+    }
+
+    /**
+     * Standing orders created by the logged-in user
+     * Endpoint: GET /api/schedules
+     */
+    public void getSchedules(Context ctx) {
+        List<ScheduledTransfer> schedules = scheduleManager.getSchedulesByOwner(AuthFilter.principal(ctx).getUserID());
+        ctx.status(200).json(schedules);
+    }
+
+    /**
+     * Endpoint: DELETE /api/schedules/{scheduleId}
+     */
+    public void cancelSchedule(Context ctx) {
+        try {
+            User user = AuthFilter.principal(ctx);
+            ScheduledTransfer schedule = scheduleManager.getSchedule(ctx.pathParam("scheduleId"));
+
+            if (!user.getUserID().equals(schedule.getOwnerUserID()) && !mayManage(user, schedule.getSourceAccountNumber())) {
+                ctx.status(403).json(Map.of("error", "Access Denied"));
+                return;
+            }
+
+            scheduleManager.cancel(schedule.getScheduleID());
+            ctx.status(200).json(Map.of("message", "Schedule cancelled"));
+
+        } catch (Exception e) {
+            ctx.status(400).json(Map.of("error", e.getMessage() != null ? e.getMessage() : "Failed to cancel schedule"));
+        }
+    }
+
+    private boolean mayManage(User user, String sourceAccount) {
+        return roleManager.canAccess(user, RoleManager.Feature.SEARCH_CUSTOMERS)
+            || (sourceAccount != null && accountManager.isOwner(user.getUserID(), sourceAccount));
+    }
+}
@@ -3,45 +3,24 @@ package presentation;
 import java.util.List;
 import java.util.Map;
 
-import application.AuthenticationManager;
-import application.RoleManager;
 import application.SearchManager;
 import io.javalin.http.Context;
 import model.User;
 
 public class SearchController {
+    private static final int DEFAULT_RECENT_TRANSACTIONS = 10;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     private SearchManager searchManager;
-    private AuthenticationManager authManager;
-    private RoleManager roleManager;
 
-    public SearchController(SearchManager searchManager, AuthenticationManager authManager, RoleManager roleManager) {
+    public SearchController(SearchManager searchManager) {
         this.searchManager = searchManager;
-        this.authManager = authManager;
-        this.roleManager = roleManager;
     }
 
+    // Route requires SEARCH_CUSTOMERS (Teller/Admin); checked by AuthFilter
     public void searchUsers(Context ctx) {
         try {
-            // 1. Verify Authentication
-            String token = ctx.header("Authorization");
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7); // Remove "Bearer " prefix
-            }
-            
-            User currentUser = authManager.getUserByToken(token);
-            
-            if (currentUser == null) {
-                ctx.status(401).json(Map.of("error", "Invalid session"));
-                return;
-            }
-
-            // 2. Verify Role (RBAC) - Only Teller or Admin can search
-            if (!roleManager.canAccess(currentUser, RoleManager.Feature.SEARCH_CUSTOMERS)) {
-                ctx.status(403).json(Map.of("error", "Access Denied: Insufficient Permissions"));
-                return;
-            }
-
-            // 3. Get Query Parameter - Support both 'q' and 'query'
+            // 1. Get Query Parameter - Support both 'q' and 'query'
             String query = ctx.queryParam("q");
             if (query == null) {
                 query = ctx.queryParam("query");
@@ -52,10 +31,10 @@ public class SearchController {
                 return;
             }
             
-            // 4. Execute Search (Logic Layer)
+            // 2. Execute Search (Logic Layer)
             List<User> results = searchManager.searchUsers(query);
 
-            // 5. Return Results
+            // 3. Return Results
             ctx.json(results);
 
         } catch (Exception e) {
@@ -64,4 +43,48 @@ public class SearchController {
             ctx.status(status).json(Map.of("error", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Profile, accounts with balances and each account's latest transactions, for the teller screen
+     * Endpoint: GET /api/customers/{userId}/overview?transactions=10
+     * Route requires SEARCH_CUSTOMERS; checked by AuthFilter
+     */
+    public void getCustomerOverview(Context ctx) {
+        try {
+            String count = ctx.queryParam("transactions");
+            int recent;
+            try {
+                recent = count == null ? DEFAULT_RECENT_TRANSACTIONS : Integer.parseInt(count);
+            } catch (NumberFormatException e) {
+                throw new Exception("Transaction count must be a number");
+            }
+            ctx.json(searchManager.customerOverview(ctx.pathParam("userId"), recent));
+
+        } catch (Exception e) {
+            int status = "User not found".equals(e.getMessage()) ? 404 : 400;
+            ctx.status(status).json(Map.of("error", e.getMessage() != null ? e.getMessage() : "Failed to fetch overview"));
+        }
+    }
+
+    /**
+     * Accounts in a range of balance, creation date or last activity, a page at a time
+     * Endpoint: GET /api/search/accounts?by=balance|created|lastActivity&min=&max=&limit=&after=
+     * Route requires SEARCH_CUSTOMERS; checked by AuthFilter
+     */
+    public void searchAccounts(Context ctx) {
+        try {
+            String size = ctx.queryParam("limit");
+            int limit;
+            try {
+                limit = size == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(size);
+            } catch (NumberFormatException e) {
+                throw new Exception("Page size must be a number");
+            }
+            ctx.json(searchManager.findAccounts(ctx.queryParam("by"), ctx.queryParam("min"), ctx.queryParam("max"),
+                    ctx.queryParam("after"), limit));
+
+        } catch (Exception e) {
+            ctx.status(400).json(Map.of("error", e.getMessage() != null ? e.getMessage() : "Failed to search accounts"));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package presentation;
+
+import java.io.InputStream;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+import application.AccountManager;
+import application.RoleManager;
+import application.StatementGenerator;
+import io.javalin.http.Context;
+import model.User;
+
+public class StatementController {
+    private StatementGenerator statementGenerator;
+    private AccountManager accountManager;
+    private RoleManager roleManager;
+
+    public StatementController(StatementGenerator generator, AccountManager am, RoleManager role) {
+        this.statementGenerator = generator;
+        this.accountManager = am;
+        this.roleManager = role;
+    }
+
+    /**
+     * Generate every account's statement for a month
+     * Endpoint: POST /api/admin/statements/{month}?format=csv|json
+     * Route requires MANAGE_USERS; checked by AuthFilter
+     */
+    public void generateStatements(Context ctx) {
+        try {
+            YearMonth month = parseMonth(ctx.pathParam("month"));
+            Map<String, Object> stats = statementGenerator.generate(month, parseFormat(ctx.queryParam("format")));
+            ctx.status(200).json(stats);
+        } catch (Exception e) {
+            ctx.status(400).json(Map.of("error", e.getMessage() != null ? e.getMessage() : "Failed to generate statements"));
+        }
+    }
+
+    /**
+     * Download one account's statement
+     * Endpoint: GET /api/statements/{accountNumber}/{month}?format=csv|json
+     */
+    public void getStatement(Context ctx) {
+        try {
+            User user = AuthFilter.principal(ctx);
+            String accountNumber = ctx.pathParam("accountNumber");
+
+            // Teller/Admin or the account's owner, as for transaction history
+            boolean allowed = roleManager.canAccess(user, RoleManager.Feature.SEARCH_CUSTOMERS)
+                || accountManager.isOwner(user.getUserID(), accountNumber);
+            if (!allowed) {
+                ctx.status(403).json(Map.of("error", "Access Denied"));
+                return;
+            }
+            accountManager.getBalance(accountNumber); // Throws for unknown accounts, so the file asked for is a real one
+
+            StatementGenerator.Format format = parseFormat(ctx.queryParam("format"));
+            InputStream statement = statementGenerator.openStatement(parseMonth(ctx.pathParam("month")), accountNumber, format);
+            if (statement == null) {
+                ctx.status(404).json(Map.of("error", "No statement for that month"));
+                return;
+            }
+            ctx.contentType(format == StatementGenerator.Format.CSV ? "text/csv" : "application/json");
+            ctx.result(statement);
+
+        } catch (Exception e) {
+            ctx.status(400).json(Map.of("error", e.getMessage() != null ? e.getMessage() : "Failed to fetch statement"));
+        }
+    }
+
+    private static YearMonth parseMonth(String month) throws Exception {
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new Exception("Month must look like 2026-09");
+        }
+    }
+
+    private static StatementGenerator.Format parseFormat(String format) throws Exception {
+        if (format == null) return StatementGenerator.Format.CSV;
+        try {
+            return StatementGenerator.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Format must be csv or json");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-size Bloom filter over strings: mightContain never returns false for
+ * an added key, and for other keys returns true only with a small probability.
+ * Not thread-safe while being filled; publish it once built.
+ */
+class BloomFilter {
+    private static final int HASHES = 4;
+
+    private final long[] bits;
+    private final int mask;
+
+    /**
+     * @param sizeBits rounded up to a power of two (at least 64)
+     */
+    BloomFilter(int sizeBits) {
+        int size = Integer.highestOneBit(Math.max(64, sizeBits - 1) << 1);
+        this.bits = new long[size >>> 6];
+        this.mask = size - 1;
+    }
+
+    void add(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 64-bit FNV-1a with a final mix; the two halves drive double hashing
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h | 1L << 32; // Odd h2: with a power-of-two table an odd step never repeats a probe
+    }
+}
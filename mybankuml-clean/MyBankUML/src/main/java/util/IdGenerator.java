@@ -0,0 +1,16 @@
+package util;
+
+import java.util.UUID;
+
+/**
+ * Source of record IDs (transactions, audit entries, users). IDs are UUID-shaped
+ * strings, which TransactionStore keeps as two longs.
+ */
+public interface IdGenerator {
+    /**
+     * Random version 4 UUIDs; every call goes through one shared SecureRandom.
+     */
+    IdGenerator RANDOM = () -> UUID.randomUUID().toString();
+
+    String nextId();
+}
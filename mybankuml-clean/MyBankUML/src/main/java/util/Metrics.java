@@ -0,0 +1,27 @@
+package util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Named gauges read on demand, e.g. cache hit rates. Components register a
+ * supplier once at startup; GET /api/admin/metrics returns a snapshot.
+ */
+public class Metrics {
+    private final Map<String, Supplier<Object>> gauges = new ConcurrentHashMap<>();
+
+    public void register(String name, Supplier<Object> gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Current value of every gauge, sorted by name.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        gauges.forEach((name, gauge) -> snapshot.put(name, gauge.get()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,110 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by caller (user, IP...) and budget, without locks.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it will be
+ * full again (the "theoretical arrival time" form of a token bucket): taking a
+ * token pushes that time one refill interval further, and a request is
+ * refused if that would put it more than burst intervals in the future.
+ * A CAS loop on the one long is all the coordination needed.
+ *
+ * A bucket whose time has passed is full, i.e. indistinguishable from a new
+ * one, so such buckets are dropped every SWEEP_INTERVAL. Keys beyond maxKeys
+ * share one overflow bucket per budget, which keeps memory bounded even if
+ * callers keep changing keys.
+ */
+public class RateLimiter {
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final String OVERFLOW_KEY = "*";
+
+    /**
+     * burst requests at once, refilled at perSecond.
+     */
+    public static final class Budget {
+        private final String name;
+        private final int burst;
+        private final long intervalNanos;
+
+        public Budget(String name, int burst, double perSecond) {
+            this.name = name;
+            this.burst = burst;
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        }
+
+        public String getName() { return name; }
+    }
+
+    private final LongSupplier clock;
+    private final int maxKeys;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>(); // budget:key -> time the bucket is full again
+    private final AtomicLong lastSweep;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public RateLimiter(int maxKeys) {
+        this(System::nanoTime, maxKeys);
+    }
+
+    public RateLimiter(LongSupplier nanoClock, int maxKeys) {
+        this.clock = nanoClock;
+        this.maxKeys = maxKeys;
+        this.lastSweep = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Takes one token from key's bucket for budget.
+     * @return 0 if allowed, otherwise how many nanoseconds until a token is available
+     */
+    public long acquire(String key, Budget budget) {
+        long now = clock.getAsLong();
+        sweepIfDue(now);
+        AtomicLong bucket = bucket(budget.name + ":" + key, budget);
+        long burstNanos = budget.burst * budget.intervalNanos;
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + budget.intervalNanos;
+            long wait = next - burstNanos - now;
+            if (wait > 0) {
+                rejected.incrementAndGet();
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucket(String id, Budget budget) {
+        AtomicLong bucket = buckets.get(id);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            id = budget.name + ":" + OVERFLOW_KEY;
+        }
+        return buckets.computeIfAbsent(id, k -> new AtomicLong(Long.MIN_VALUE / 2));
+    }
+
+    // A thread still holding a swept bucket may take one token from it unseen; harmless
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.values().removeIf(full -> full.get() <= now);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("buckets", buckets.size());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+}
@@ -1,7 +1,11 @@
 package util;
 
 import org.mindrot.jbcrypt.BCrypt;
-import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 
 public class SecurityUtils {
 
@@ -25,9 +29,35 @@ public class SecurityUtils {
     }
 
     /**
-     * Generates a unique string ID for users/transactions.
+     * A key for one purpose derived from a shared secret (HMAC-SHA256 of the purpose,
+     * keyed with the secret), so keys for different purposes cannot stand in for each
+     * other and none of them reveals the secret.
+     * @param purpose e.g. "session-tokens"
+     */
+    public static byte[] deriveKey(String secret, String purpose) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(purpose.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static volatile IdGenerator idGenerator = new TimeOrderedIds();
+
+    /**
+     * Generates a unique string ID for users/transactions/audit entries.
+     * Time-ordered by default; see setIdGenerator.
      */
     public static String generateUUID() {
-        return UUID.randomUUID().toString();
+        return idGenerator.nextId();
+    }
+
+    /**
+     * Replaces the ID source, e.g. IdGenerator.RANDOM (-Dmybank.ids=random).
+     */
+    public static void setIdGenerator(IdGenerator generator) {
+        idGenerator = generator;
     }
 }
\ No newline at end of file
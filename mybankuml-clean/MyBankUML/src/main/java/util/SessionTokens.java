@@ -0,0 +1,218 @@
+package util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stateless session tokens: "kid.base64url(claims).base64url(HMAC-SHA256)",
+ * where claims are userId|role|issuedAt|expiresAt|tokenId and kid names the
+ * key that signed them. Any server holding the key can check a token without
+ * a session table, so sessions survive restarts and work on every cluster node.
+ *
+ * Several keys can be loaded at once (the first signs, all verify), so a key
+ * can be rotated without logging everyone out. Tokens revoked before they
+ * expire are tracked in TokenRevocations.
+ */
+public class SessionTokens {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * What a verified token says about its holder.
+     */
+    public static class Claims {
+        private final String keyId;
+        private final String userId;
+        private final String role;
+        private final long issuedAt;  // Epoch ms
+        private final long expiresAt; // Epoch ms
+        private final String tokenId;
+
+        Claims(String keyId, String userId, String role, long issuedAt, long expiresAt, String tokenId) {
+            this.keyId = keyId;
+            this.userId = userId;
+            this.role = role;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+
+        public String getKeyId() { return keyId; }
+        public String getUserId() { return userId; }
+        public String getRole() { return role; }
+        public long getIssuedAt() { return issuedAt; }
+        public long getExpiresAt() { return expiresAt; }
+        public String getTokenId() { return tokenId; }
+    }
+
+    private final Map<String, SecretKeySpec> keys; // kid -> key; the first entry signs
+    private final String signingKeyId;
+    private final long lifetimeMillis;
+    private final TokenRevocations revocations;
+
+    public SessionTokens(List<byte[]> keys, long lifetimeMillis, TokenRevocations revocations) {
+        this.keys = new LinkedHashMap<>();
+        for (byte[] key : keys) {
+            this.keys.put(keyId(key), new SecretKeySpec(key, ALGORITHM));
+        }
+        this.signingKeyId = this.keys.keySet().iterator().next();
+        this.lifetimeMillis = lifetimeMillis;
+        this.revocations = revocations;
+    }
+
+    /**
+     * Tokens signed with a key derived from a shared secret (see secretKey); revocations kept in memory.
+     */
+    public static SessionTokens fromSecret(String secret, long lifetimeMillis) {
+        return new SessionTokens(List.of(secretKey(secret)), lifetimeMillis, new TokenRevocations(lifetimeMillis, null));
+    }
+
+    /**
+     * The signing key for a shared secret such as the cluster secret. It is derived rather
+     * than the secret itself, so seeing whatever else the secret is used for (e.g. the
+     * credential cluster nodes present to each other) does not allow forging tokens.
+     */
+    public static byte[] secretKey(String secret) {
+        return SecurityUtils.deriveKey(secret, "session-tokens");
+    }
+
+    /**
+     * Tokens signed with a fresh random key; they stop working when this object goes away.
+     */
+    public static SessionTokens withRandomKey(long lifetimeMillis) {
+        return new SessionTokens(List.of(newKey()), lifetimeMillis, new TokenRevocations(lifetimeMillis, null));
+    }
+
+    /**
+     * Keys from keyFile (one base64 key per line, the first signs), creating it
+     * with a new random key the first time.
+     */
+    public static List<byte[]> loadKeys(Path keyFile) throws IOException {
+        if (!Files.exists(keyFile)) {
+            Files.write(keyFile, List.of(Base64.getEncoder().encodeToString(newKey())));
+            try {
+                Files.setPosixFilePermissions(keyFile, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Not a POSIX file system; rely on the directory's permissions
+            }
+        }
+        List<byte[]> keys = new ArrayList<>();
+        for (String line : Files.readAllLines(keyFile)) {
+            if (!line.isBlank()) {
+                keys.add(Base64.getDecoder().decode(line.trim()));
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new IOException(keyFile + " has no keys");
+        }
+        return keys;
+    }
+
+    private static byte[] newKey() {
+        byte[] key = new byte[32];
+        RANDOM.nextBytes(key);
+        return key;
+    }
+
+    // Short public name for a key: the start of its SHA-256
+    private static String keyId(byte[] key) {
+        try {
+            return ENCODER.encodeToString(MessageDigest.getInstance("SHA-256").digest(key)).substring(0, 8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public String issue(String userId, String role) {
+        long now = System.currentTimeMillis();
+        byte[] tokenId = new byte[12];
+        RANDOM.nextBytes(tokenId);
+        String claims = userId + "|" + role + "|" + now + "|" + (now + lifetimeMillis) + "|" + ENCODER.encodeToString(tokenId);
+        String signed = signingKeyId + "." + ENCODER.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        return signed + "." + ENCODER.encodeToString(sign(keys.get(signingKeyId), signed));
+    }
+
+    /**
+     * A fresh token for the same session once less than half of this one's lifetime is
+     * left, so an active user stays logged in while an idle one is logged out after
+     * the (short) lifetime; null while this one is still fresh.
+     */
+    public String renewIfDue(Claims claims) {
+        if (claims.getExpiresAt() - System.currentTimeMillis() >= lifetimeMillis / 2) {
+            return null;
+        }
+        return issue(claims.getUserId(), claims.getRole());
+    }
+
+    /**
+     * @throws Exception "Invalid session" if malformed, not signed by one of our keys or revoked,
+     *                   "Session expired" if past its lifetime
+     */
+    public Claims verify(String token) throws Exception {
+        int first = token == null ? -1 : token.indexOf('.');
+        int last = token == null ? -1 : token.lastIndexOf('.');
+        if (first < 0 || last == first) {
+            throw new Exception("Invalid session");
+        }
+        String keyId = token.substring(0, first);
+        SecretKeySpec key = keys.get(keyId);
+        if (key == null) {
+            throw new Exception("Invalid session");
+        }
+        String[] fields;
+        try {
+            // Constant-time comparison, so response timing does not reveal how much of a forged signature matched
+            if (!MessageDigest.isEqual(sign(key, token.substring(0, last)), DECODER.decode(token.substring(last + 1)))) {
+                throw new Exception("Invalid session");
+            }
+            fields = new String(DECODER.decode(token.substring(first + 1, last)), StandardCharsets.UTF_8).split("\\|");
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Invalid session");
+        }
+        if (fields.length != 5) {
+            throw new Exception("Invalid session");
+        }
+        Claims claims = new Claims(keyId, fields[0], fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]), fields[4]);
+        if (claims.getExpiresAt() < System.currentTimeMillis()) {
+            throw new Exception("Session expired");
+        }
+        if (revocations.isRevoked(claims.getTokenId(), claims.getUserId(), claims.getIssuedAt())) {
+            throw new Exception("Invalid session");
+        }
+        return claims;
+    }
+
+    public void revoke(Claims claims) {
+        revocations.revokeToken(claims.getTokenId(), claims.getExpiresAt());
+    }
+
+    // Every token issued to the user so far; new logins are unaffected
+    public void revokeUser(String userId) {
+        revocations.revokeUser(userId);
+    }
+
+    private static byte[] sign(SecretKeySpec key, String data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
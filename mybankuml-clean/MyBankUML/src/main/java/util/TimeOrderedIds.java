@@ -0,0 +1,67 @@
+package util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Version 7 UUIDs: 48 bits of Unix milliseconds, then a 12-bit per-thread
+ * sequence, then 62 random bits. IDs sort by creation time (so new records
+ * land at the end of time-ordered indexes) and each thread's IDs strictly
+ * increase, even within a millisecond or if the clock steps back.
+ *
+ * All state is per thread and the random bits come from ThreadLocalRandom,
+ * so threads never contend. These IDs are unique, not secret: anything that
+ * must be unguessable (session tokens) uses SecureRandom instead.
+ */
+public class TimeOrderedIds implements IdGenerator {
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final class State {
+        long millis = Long.MIN_VALUE;
+        long sequence;
+    }
+
+    private final LongSupplier clock;
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    public TimeOrderedIds() {
+        this(System::currentTimeMillis);
+    }
+
+    public TimeOrderedIds(LongSupplier millisClock) {
+        this.clock = millisClock;
+    }
+
+    @Override
+    public String nextId() {
+        return next().toString();
+    }
+
+    public UUID next() {
+        State s = state.get();
+        long now = clock.getAsLong();
+        if (now > s.millis) {
+            s.millis = now;
+            // Start low but not at zero, so sequences from different threads interleave less predictably
+            s.sequence = ThreadLocalRandom.current().nextInt(1 << (SEQUENCE_BITS - 2));
+        } else if (s.sequence < MAX_SEQUENCE) {
+            s.sequence++;          // Same millisecond, or the clock went back: keep counting
+        } else {
+            s.millis++;            // Sequence exhausted: borrow the next millisecond
+            s.sequence = 0;
+        }
+
+        long msb = (s.millis << 16) | (0x7L << 12) | s.sequence;
+        long lsb = (ThreadLocalRandom.current().nextLong() >>> 2) | 0x8000_0000_0000_0000L; // Variant 10
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Creation time of a version 7 ID, in Unix milliseconds.
+     */
+    public static long timestampOf(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
@@ -0,0 +1,120 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: holds items until their due time, with O(1)
+ * scheduling and per-tick work proportional to the items that come due, not
+ * to the number of items waiting.
+ *
+ * Level 0 has one slot per tick for the next SLOTS ticks, level 1 one slot per
+ * SLOTS ticks for the next SLOTS^2 ticks, and so on; items further out than the
+ * top level wait in an overflow list. When the clock enters a higher-level
+ * slot its items are re-filed into the levels below, so each item moves at
+ * most LEVELS times before it fires. With 1-second ticks the four levels reach
+ * about 194 days ahead.
+ *
+ * Not thread-safe; the owner serializes schedule() and advance().
+ */
+public class TimingWheel<T> {
+    static final int SLOTS = 64;
+    static final int LEVELS = 4;
+    private static final int BITS = 6; // log2(SLOTS)
+
+    private static final class Entry<T> {
+        final T item;
+        final long dueTick;
+
+        Entry(T item, long dueTick) {
+            this.item = item;
+            this.dueTick = dueTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<Entry<T>>[][] wheels;
+    private List<Entry<T>> overflow = new ArrayList<>();
+    private List<T> ready = new ArrayList<>(); // Due at or before the current tick
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.wheels = new List[LEVELS][SLOTS];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    public void schedule(T item, long dueMillis) {
+        file(new Entry<>(item, dueMillis / tickMillis));
+        size++;
+    }
+
+    /**
+     * Moves the clock forward to nowMillis.
+     * @return the items that came due, in due-tick order
+     */
+    public List<T> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            // Higher levels first: their items may land in the lower slot about to be emptied
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            List<Entry<T>> slot = take(0, (int) (currentTick & (SLOTS - 1)));
+            if (slot != null) {
+                for (Entry<T> e : slot) ready.add(e.item);
+            }
+        }
+        List<T> due = ready;
+        ready = new ArrayList<>();
+        size -= due.size();
+        return due;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void file(Entry<T> e) {
+        long delta = e.dueTick - currentTick;
+        if (delta <= 0) {
+            ready.add(e.item);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (BITS * (level + 1))) {
+                int slot = (int) ((e.dueTick >>> (BITS * level)) & (SLOTS - 1));
+                List<Entry<T>> entries = wheels[level][slot];
+                if (entries == null) {
+                    entries = wheels[level][slot] = new ArrayList<>();
+                }
+                entries.add(e);
+                return;
+            }
+        }
+        overflow.add(e);
+    }
+
+    private void cascade(int level) {
+        List<Entry<T>> slot = take(level, (int) ((currentTick >>> (BITS * level)) & (SLOTS - 1)));
+        if (slot != null) {
+            slot.forEach(this::file);
+        }
+        if (level == LEVELS - 1 && !overflow.isEmpty()) {
+            List<Entry<T>> waiting = overflow;
+            overflow = new ArrayList<>();
+            waiting.forEach(this::file);
+        }
+    }
+
+    private List<Entry<T>> take(int level, int slot) {
+        List<Entry<T>> entries = wheels[level][slot];
+        wheels[level][slot] = null;
+        return entries;
+    }
+}
@@ -0,0 +1,183 @@
+package util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Signed tokens that must stop working before they expire: single tokens
+ * (logout) and every token a user was issued up to some moment (admin
+ * lockout, role change).
+ *
+ * Checked on every request, so the common case (nothing revoked for this
+ * token or user) is answered by a Bloom filter without touching the exact
+ * sets. Entries are dropped once the tokens they cover have expired, so the
+ * sets stay small; the filter is rebuilt from them on every change.
+ *
+ * On a cluster every node keeps the whole set: new revocations are handed to
+ * the replication callback (which sends them to the peers), and merge() adds
+ * those received from them. Both travel in the form of the file:
+ * {"tokens": {tokenId: expiresAt}, "users": {userId: cutoff}}.
+ */
+public class TokenRevocations {
+    private static final int FILTER_BITS = 1 << 16;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final long lifetimeMillis;
+    private final Path file; // Nullable: in-memory only
+    private final boolean readOnly; // Another process owns the file; see reload()
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>(); // tokenId -> its expiry (epoch ms)
+    private final Map<String, Long> users = new ConcurrentHashMap<>();  // userId -> tokens issued at or before this are revoked
+    private volatile BloomFilter filter = new BloomFilter(FILTER_BITS);
+    private volatile Consumer<Map<String, Map<String, Long>>> replication = revoked -> {};
+
+    /**
+     * @param lifetimeMillis the longest a token can live, i.e. how long a user-wide revocation must be kept
+     * @param file           where revocations are kept across restarts, or null
+     */
+    public TokenRevocations(long lifetimeMillis, Path file) {
+        this(lifetimeMillis, file, false);
+    }
+
+    /**
+     * @param readOnly the file is written by another process (e.g. the primary a follower reads
+     *                 from): it is never saved here, and reload() picks up its changes
+     */
+    public TokenRevocations(long lifetimeMillis, Path file, boolean readOnly) {
+        this.lifetimeMillis = lifetimeMillis;
+        this.file = file;
+        this.readOnly = readOnly;
+        if (file != null && Files.exists(file)) {
+            try {
+                read();
+            } catch (IOException e) {
+                // Starting empty would make every revoked token valid again until it expires
+                throw new IllegalStateException("Cannot read " + file, e);
+            }
+        }
+        refresh();
+    }
+
+    /**
+     * Adds the revocations saved in the file since it was last read. Revocations only
+     * accumulate (until they expire), so nothing is removed. Saves replace the file in
+     * one rename, so a reload never sees half of one.
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized void reload() throws IOException {
+        if (file == null || !Files.exists(file)) return;
+        read();
+        refresh();
+    }
+
+    private void read() throws IOException {
+        Map<String, Map<String, Long>> saved = MAPPER.readValue(file.toFile(), new TypeReference<Map<String, Map<String, Long>>>(){});
+        tokens.putAll(saved.getOrDefault("tokens", Map.of()));
+        users.putAll(saved.getOrDefault("users", Map.of()));
+    }
+
+    public boolean isRevoked(String tokenId, String userId, long issuedAt) {
+        BloomFilter current = filter;
+        if (current.mightContain("t:" + tokenId) && tokens.containsKey(tokenId)) {
+            return true;
+        }
+        if (current.mightContain("u:" + userId)) {
+            Long cutoff = users.get(userId);
+            return cutoff != null && issuedAt <= cutoff;
+        }
+        return false;
+    }
+
+    public void revokeToken(String tokenId, long expiresAt) {
+        synchronized (this) {
+            tokens.put(tokenId, expiresAt);
+            refresh();
+        }
+        replication.accept(Map.of("tokens", Map.of(tokenId, expiresAt)));
+    }
+
+    public void revokeUser(String userId) {
+        long cutoff = System.currentTimeMillis();
+        synchronized (this) {
+            users.merge(userId, cutoff, Math::max);
+            refresh();
+        }
+        replication.accept(Map.of("users", Map.of(userId, cutoff)));
+    }
+
+    /**
+     * Called, outside the monitor, with every revocation made here (not those merged in).
+     */
+    public void setReplication(Consumer<Map<String, Map<String, Long>>> replication) {
+        this.replication = replication;
+    }
+
+    /**
+     * Adds revocations made elsewhere; the later cutoff wins for a user revoked in both places.
+     */
+    public synchronized void merge(Map<String, Map<String, Long>> revoked) {
+        boolean changed = false;
+        for (Map.Entry<String, Long> entry : revoked.getOrDefault("tokens", Map.of()).entrySet()) {
+            changed |= !entry.getValue().equals(tokens.put(entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<String, Long> entry : revoked.getOrDefault("users", Map.of()).entrySet()) {
+            Long before = users.get(entry.getKey());
+            if (before == null || before < entry.getValue()) {
+                users.put(entry.getKey(), entry.getValue());
+                changed = true;
+            }
+        }
+        if (changed) {
+            refresh();
+        }
+    }
+
+    /**
+     * Everything currently revoked, in the form merge() takes.
+     */
+    public synchronized Map<String, Map<String, Long>> entries() {
+        Map<String, Map<String, Long>> entries = new HashMap<>();
+        entries.put("tokens", new HashMap<>(tokens));
+        entries.put("users", new HashMap<>(users));
+        return entries;
+    }
+
+    public int size() {
+        return tokens.size() + users.size();
+    }
+
+    // Caller is the constructor or holds the monitor
+    private void refresh() {
+        long now = System.currentTimeMillis();
+        tokens.values().removeIf(expiresAt -> expiresAt < now);
+        users.values().removeIf(cutoff -> cutoff + lifetimeMillis < now);
+
+        // Exact sets first, then the filter, so a reader never sees a filter hit without the entry
+        BloomFilter next = new BloomFilter(FILTER_BITS);
+        tokens.keySet().forEach(id -> next.add("t:" + id));
+        users.keySet().forEach(id -> next.add("u:" + id));
+        filter = next;
+
+        if (file != null && !readOnly) {
+            Map<String, Map<String, Long>> saved = new HashMap<>();
+            saved.put("tokens", tokens);
+            saved.put("users", users);
+            // Written next to the file and renamed, so a crash leaves the old or the new set
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                MAPPER.writeValue(temp.toFile(), saved);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
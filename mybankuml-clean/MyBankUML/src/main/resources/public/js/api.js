@@ -4,6 +4,17 @@ class BankAPI {
         this.token = sessionStorage.getItem('token');
     }
 
+    // fetch, picking up the replacement token the server sends when the session is halfway to expiring
+    async send(url, options) {
+        const response = await fetch(url, options);
+        const renewed = response.headers.get('X-Session-Token');
+        if (renewed) {
+            this.token = renewed;
+            sessionStorage.setItem('token', renewed);
+        }
+        return response;
+    }
+
     async login(username, password) {
         const response = await fetch(`${this.baseURL}/login`, {
             method: 'POST',
@@ -32,7 +43,7 @@ class BankAPI {
     }
 
     async logout() {
-        const response = await fetch(`${this.baseURL}/logout`, {
+        const response = await this.send(`${this.baseURL}/logout`, {
             method: 'POST',
             headers: {
                 'Authorization': `Bearer ${this.token}`
@@ -50,7 +61,7 @@ class BankAPI {
     }
 
     async getAccounts() {
-        const response = await fetch(`${this.baseURL}/accounts`, {
+        const response = await this.send(`${this.baseURL}/accounts`, {
             method: 'GET',
             headers: {
                 'Authorization': `Bearer ${this.token}`
@@ -66,7 +77,7 @@ class BankAPI {
     }
 
     async getAccountsByUser(userId) {
-        const response = await fetch(`${this.baseURL}/accounts/user/${userId}`, {
+        const response = await this.send(`${this.baseURL}/accounts/user/${userId}`, {
             method: 'GET',
             headers: {
                 'Authorization': `Bearer ${this.token}`
@@ -82,7 +93,7 @@ class BankAPI {
     }
 
     async getTransactionHistory(accountNumber) {
-        const response = await fetch(`${this.baseURL}/transactions/${accountNumber}`, {
+        const response = await this.send(`${this.baseURL}/transactions/${accountNumber}`, {
             method: 'GET',
             headers: {
                 'Authorization': `Bearer ${this.token}`
@@ -97,8 +108,26 @@ class BankAPI {
         return await response.json();
     }
 
+    // Profile, accounts and each account's latest transactions (newest first) in one request
+    async getCustomerOverview(userId, transactions) {
+        const query = transactions !== undefined ? `?transactions=${transactions}` : '';
+        const response = await this.send(`${this.baseURL}/customers/${encodeURIComponent(userId)}/overview${query}`, {
+            method: 'GET',
+            headers: {
+                'Authorization': `Bearer ${this.token}`
+            }
+        });
+
+        if (!response.ok) {
+            const error = await response.text();
+            throw new Error(error || 'Failed to fetch customer overview');
+        }
+
+        return await response.json();
+    }
+
     async makeTransaction(transactionData) {
-        const response = await fetch(`${this.baseURL}/transaction`, {
+        const response = await this.send(`${this.baseURL}/transaction`, {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json',
@@ -116,7 +145,7 @@ class BankAPI {
     }
 
     async createUser(userData) {
-        const response = await fetch(`${this.baseURL}/admin/create-user`, {
+        const response = await this.send(`${this.baseURL}/admin/create-user`, {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json',
@@ -134,7 +163,7 @@ class BankAPI {
     }
 
     async updateUser(userId, userData) {
-        const response = await fetch(`${this.baseURL}/admin/users/${userId}`, {
+        const response = await this.send(`${this.baseURL}/admin/users/${userId}`, {
             method: 'PATCH',
             headers: {
                 'Content-Type': 'application/json',
@@ -152,7 +181,7 @@ class BankAPI {
     }
 
     async updatePassword({ currentPassword, newPassword }) {
-    const response = await fetch('/api/change-password', {
+    const response = await this.send('/api/change-password', {
         method: 'POST',
         headers: { 
             'Content-Type': 'application/json',
@@ -171,8 +200,25 @@ class BankAPI {
 
 
 
+    // Live balance/transaction updates (Server-Sent Events).
+    // EventSource cannot send headers, so the token goes in the query string.
+    subscribeEvents(userId, handlers) {
+        let url = `${this.baseURL}/events?token=${encodeURIComponent(this.token)}`;
+        if (userId) {
+            url += `&userId=${encodeURIComponent(userId)}`;
+        }
+
+        const source = new EventSource(url);
+        ['balance', 'transaction', 'resync', 'error'].forEach(type => {
+            if (handlers[type]) {
+                source.addEventListener(type, (e) => handlers[type](e.data ? JSON.parse(e.data) : null));
+            }
+        });
+        return source;
+    }
+
     async searchUsers(query) {
-        const response = await fetch(`${this.baseURL}/search?q=${encodeURIComponent(query)}`, {
+        const response = await this.send(`${this.baseURL}/search?q=${encodeURIComponent(query)}`, {
             headers: {
                 'Authorization': `Bearer ${this.token}`
             }
@@ -187,7 +233,7 @@ class BankAPI {
     }
 
     async getAuditLogs() {
-        const response = await fetch(`${this.baseURL}/admin/audit-logs`, {
+        const response = await this.send(`${this.baseURL}/admin/audit-logs`, {
             headers: {
                 'Authorization': `Bearer ${this.token}`
             }
@@ -0,0 +1,76 @@
+import application.AccountEventPublisher;
+import application.AccountManager;
+import model.Account;
+import model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountEventPublisherTest {
+    private MockDatabase db;
+    private AccountEventPublisher publisher;
+    private RecordingSink sink;
+
+    static class RecordingSink implements AccountEventPublisher.Sink {
+        List<String> events = new ArrayList<>();
+        List<Object> payloads = new ArrayList<>();
+
+        @Override
+        public void send(String event, Object data) {
+            events.add(event);
+            payloads.add(data);
+        }
+
+        @Override
+        public boolean isClosed() { return false; }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        db = new MockDatabase();
+        publisher = new AccountEventPublisher(0); // flushed manually below
+        sink = new RecordingSink();
+
+        db.saveAccount(new Account("A100", "U001", Account.AccountType.CHECKING, new BigDecimal("500.00")));
+        publisher.subscribe(List.of("A100"), sink);
+    }
+
+    @Test
+    public void testRapidBalanceUpdatesAreCoalesced() throws Exception {
+        AccountManager accountManager = new AccountManager(db, publisher);
+        accountManager.deposit("A100", new BigDecimal("10.00"));
+        accountManager.deposit("A100", new BigDecimal("10.00"));
+        accountManager.withdraw("A100", new BigDecimal("5.00"));
+
+        publisher.flushAll();
+
+        assertEquals(3, sink.events.stream().filter("transaction"::equals).count());
+        assertEquals(1, sink.events.stream().filter("balance"::equals).count());
+        Map<?, ?> balance = (Map<?, ?>) sink.payloads.get(sink.events.indexOf("balance"));
+        assertEquals(new BigDecimal("515.00"), balance.get("balance"));
+    }
+
+    @Test
+    public void testOverflowDropsOldestAndRequestsResync() {
+        for (int i = 0; i < AccountEventPublisher.MAX_PENDING_TRANSACTIONS + 5; i++) {
+            publisher.publishTransaction(new Transaction("T" + i, "A100", null, BigDecimal.ONE, Transaction.Type.DEPOSIT));
+        }
+
+        publisher.flushAll();
+
+        assertEquals("resync", sink.events.get(0));
+        assertEquals(AccountEventPublisher.MAX_PENDING_TRANSACTIONS, sink.events.stream().filter("transaction"::equals).count());
+        assertEquals("T5", ((Transaction) sink.payloads.get(1)).getTransactionID());
+    }
+
+    @Test
+    public void testOtherAccountsAreNotDelivered() {
+        publisher.publishTransaction(new Transaction("T1", "A999", null, BigDecimal.ONE, Transaction.Type.DEPOSIT));
+        publisher.flushAll();
+        assertTrue(sink.events.isEmpty());
+    }
+}
@@ -0,0 +1,95 @@
+import data.AccountIndex;
+import data.DatabaseRepository;
+import data.JsonFileService;
+import model.Account;
+import model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountIndexTest {
+    private Path dir;
+    private JsonFileService db;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mybank-index");
+        db = new JsonFileService(dir.toString());
+        account("A1", "10.00", "2026-01-01T09:00:00");
+        account("A2", "50.00", "2026-02-01T09:00:00");
+        account("A3", "50.00", "2026-03-01T09:00:00");
+        account("A4", "200.00", "2026-04-01T09:00:00");
+        account("A5", "1000.00", "2026-05-01T09:00:00");
+
+        log("A1", null, "2026-01-10T12:00:00");
+        log("A4", "A5", "2026-09-01T12:00:00");
+    }
+
+    private void account(String number, String balance, String created) {
+        Account account = new Account(number, "U001", Account.AccountType.CHECKING, new BigDecimal(balance));
+        account.setCreationDate(created);
+        db.saveAccount(account);
+    }
+
+    private void log(String source, String target, String timestamp) {
+        Transaction tx = new Transaction(UUID.randomUUID().toString(), source, target, new BigDecimal("1.00"),
+                target == null ? Transaction.Type.DEPOSIT : Transaction.Type.TRANSFER);
+        tx.setTimestamp(timestamp);
+        db.logTransaction(tx);
+    }
+
+    private static List<String> numbers(AccountIndex.Page page) {
+        return page.hits.stream().map(h -> h.account.getAccountNumber()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testBalancePagesFollowUpdates() {
+        AccountIndex.Page first = db.findAccountsByRange(AccountIndex.Field.BALANCE, 5000, Long.MAX_VALUE, null, 2);
+        assertEquals(List.of("A2", "A3"), numbers(first));
+        assertNotNull(first.next);
+        AccountIndex.Page second = db.findAccountsByRange(AccountIndex.Field.BALANCE, 5000, Long.MAX_VALUE, first.next, 2);
+        assertEquals(List.of("A4", "A5"), numbers(second));
+        assertNull(second.next);
+
+        // A save moves the account to its new place
+        Account a2 = db.findAccountByNumber("A2").get();
+        a2.setBalance(new BigDecimal("500.00"));
+        db.saveAccount(a2);
+        assertEquals(List.of("A3", "A4", "A2"), numbers(db.findAccountsByRange(AccountIndex.Field.BALANCE, 5000, 100_000, null, 10)));
+    }
+
+    @Test
+    public void testActivityAndCreationSurviveRestart() {
+        long june = AccountIndex.timestampKey("2026-06-01T00:00");
+        for (DatabaseRepository repo : List.of(db, new JsonFileService(dir.toString()))) {
+            // Never posted to first, then by latest posting
+            assertEquals(List.of("A2", "A3", "A1"), numbers(repo.findAccountsByRange(AccountIndex.Field.LAST_ACTIVITY, Long.MIN_VALUE, june, null, 10)));
+            assertEquals(List.of("A4", "A5"), numbers(repo.findAccountsByRange(AccountIndex.Field.CREATED,
+                    AccountIndex.timestampKey("2026-04-01T00:00"), Long.MAX_VALUE, null, 10)));
+        }
+    }
+
+    @Test
+    public void testMergedPagesMatchIndexedPages() {
+        // What backends without an index, and a cluster merging node pages, return
+        List<AccountIndex.Hit> hits = new ArrayList<>();
+        for (Account account : db.findAllAccounts()) {
+            hits.add(new AccountIndex.Hit(AccountIndex.keyOf(AccountIndex.Field.BALANCE, account, db), account));
+        }
+        String after = null;
+        do {
+            AccountIndex.Page expected = db.findAccountsByRange(AccountIndex.Field.BALANCE, 0, Long.MAX_VALUE, after, 2);
+            AccountIndex.Page merged = AccountIndex.page(hits, 0, Long.MAX_VALUE, after, 2);
+            assertEquals(numbers(expected), numbers(merged));
+            assertEquals(expected.next, merged.next);
+            after = expected.next;
+        } while (after != null);
+    }
+}
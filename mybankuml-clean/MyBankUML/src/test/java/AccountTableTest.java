@@ -0,0 +1,73 @@
+import data.AccountTable;
+import model.Account;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountTableTest {
+    private AccountTable table;
+
+    @BeforeEach
+    public void setUp() {
+        table = new AccountTable();
+        table.upsert(new Account("A001", "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        table.upsert(new Account("A002", "U001", Account.AccountType.SAVINGS, new BigDecimal("250.50")));
+        table.upsert(new Account("A003", "U002", Account.AccountType.CHECKING, new BigDecimal("0.00")));
+    }
+
+    @Test
+    public void testMaterializesAllFields() {
+        Account account = table.find("A002").get();
+        assertEquals("U001", account.getOwnerUserID());
+        assertEquals(Account.AccountType.SAVINGS, account.getType());
+        assertEquals(new BigDecimal("250.50"), account.getBalance());
+        assertNotNull(account.getCreationDate());
+        assertEquals(25050, table.balanceMinor(table.ordinalOf("A002")));
+    }
+
+    @Test
+    public void testOwnerIndex() {
+        assertEquals("U001", table.ownerOf("A002"));
+        assertEquals("U002", table.ownerOf("A003"));
+        assertNull(table.ownerOf("A999"));
+    }
+
+    @Test
+    public void testMaterializedAccountsAreDetached() {
+        Account account = table.find("A001").get();
+        account.setBalance(new BigDecimal("999.00"));
+        assertEquals(new BigDecimal("100.00"), table.find("A001").get().getBalance());
+
+        table.upsert(account);
+        assertEquals(new BigDecimal("999.00"), table.find("A001").get().getBalance());
+        assertEquals(1, table.version(table.ordinalOf("A001")));
+    }
+
+    @Test
+    public void testFindByOwnerAndOwnerChange() {
+        assertEquals(2, table.findByOwner("U001").size());
+        assertTrue(table.findByOwner("U404").isEmpty());
+
+        Account moved = table.find("A002").get();
+        moved.setOwnerUserID("U002");
+        table.upsert(moved);
+
+        assertEquals(List.of("A001"), table.findByOwner("U001").stream().map(Account::getAccountNumber).toList());
+        assertEquals(2, table.findByOwner("U002").size());
+    }
+
+    @Test
+    public void testGrowsAndKeepsInsertionOrder() {
+        for (int i = 0; i < 1000; i++) {
+            table.upsert(new Account("B" + i, "U" + (i % 7), Account.AccountType.CHECKING, BigDecimal.valueOf(i)));
+        }
+        assertEquals(1003, table.size());
+        assertEquals(-1, table.ordinalOf("nope"));
+        List<Account> all = table.findAll();
+        assertEquals("A001", all.get(0).getAccountNumber());
+        assertEquals("B999", all.get(1002).getAccountNumber());
+        assertEquals(new BigDecimal("999.00"), all.get(1002).getBalance());
+    }
+}
@@ -0,0 +1,187 @@
+import application.AuthenticationManager;
+import application.RoleManager;
+import application.RoleManager.Feature;
+import io.javalin.Javalin;
+import model.Administrator;
+import model.Customer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import presentation.AuthFilter;
+import presentation.RateLimitFilter;
+import util.SecurityUtils;
+import util.RateLimiter;
+import util.SessionTokens;
+import util.TokenRevocations;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuthFilterTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private AuthenticationManager authManager;
+    private AuthFilter authFilter;
+    private Javalin app;
+
+    @BeforeEach
+    public void setUp() {
+        MockDatabase db = new MockDatabase();
+        String hash = SecurityUtils.hashPassword("pass123");
+        db.saveUser(new Customer("U001", "customer", hash, "Customer"));
+        db.saveUser(new Administrator("U002", "admin", hash, "Admin"));
+        authManager = new AuthenticationManager(db);
+        authFilter = new AuthFilter(authManager, new RoleManager());
+
+        app = Javalin.create(config -> config.accessManager(authFilter)).start(0);
+        app.before(authFilter::verify);
+        app.get("/public", ctx -> ctx.result("open"));
+        app.get("/me", ctx -> ctx.result(AuthFilter.principal(ctx).getUserID()), AuthFilter.AUTHENTICATED);
+        app.get(AuthFilter.EVENTS_PATH, ctx -> ctx.result(AuthFilter.principal(ctx).getUserID()), AuthFilter.AUTHENTICATED);
+        app.get("/admin", ctx -> ctx.result("admin"), AuthFilter.requires(Feature.MANAGE_USERS));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        app.stop();
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + app.port() + path));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testPublicRoutesSkipAuthentication() throws Exception {
+        assertEquals(200, get("/public", null).statusCode());
+        assertEquals(0L, authFilter.stats().get("checked"));
+    }
+
+    @Test
+    public void testPrincipalIsSetOnce() throws Exception {
+        String token = authManager.login("customer", "pass123");
+
+        HttpResponse<String> response = get("/me", token);
+        assertEquals(200, response.statusCode());
+        assertEquals("U001", response.body());
+
+        // EventSource clients pass the token as a query parameter; no other route accepts it there
+        assertEquals("U001", get(AuthFilter.EVENTS_PATH + "?token=" + token, null).body());
+        assertEquals(401, get("/me?token=" + token, null).statusCode());
+        assertEquals(3L, authFilter.stats().get("checked"));
+    }
+
+    @Test
+    public void testMissingSessionAndMissingFeature() throws Exception {
+        assertEquals(401, get("/me", null).statusCode());
+        assertEquals(401, get("/me", "forged.token.value").statusCode());
+
+        String customer = authManager.login("customer", "pass123");
+        assertEquals(403, get("/admin", customer).statusCode());
+
+        String admin = authManager.login("admin", "pass123");
+        assertEquals(200, get("/admin", admin).statusCode());
+
+        assertEquals(2L, authFilter.stats().get("unauthorized"));
+        assertEquals(1L, authFilter.stats().get("forbidden"));
+    }
+
+    @Test
+    public void testSessionIsRenewedPastHalfItsLifetime() throws Exception {
+        MockDatabase db = new MockDatabase();
+        db.saveUser(new Customer("U003", "short", SecurityUtils.hashPassword("pass123"), "Short"));
+        AuthenticationManager shortLived = new AuthenticationManager(db, SessionTokens.withRandomKey(1_000));
+        Javalin other = Javalin.create(config -> config.accessManager(new AuthFilter(shortLived, new RoleManager()))).start(0);
+        try {
+            other.get("/me", ctx -> ctx.result(AuthFilter.principal(ctx).getUserID()), AuthFilter.AUTHENTICATED);
+            String token = shortLived.login("short", "pass123");
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + other.port() + "/me"));
+
+            HttpResponse<String> fresh = client.send(request.header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+            assertTrue(fresh.headers().firstValue(AuthFilter.RENEWED_TOKEN_HEADER).isEmpty());
+
+            Thread.sleep(600);
+            HttpResponse<String> aging = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            String renewed = aging.headers().firstValue(AuthFilter.RENEWED_TOKEN_HEADER).orElseThrow();
+
+            // The replacement outlives the original
+            Thread.sleep(500);
+            assertThrows(Exception.class, () -> shortLived.getUserByToken(token));
+            assertEquals("U003", shortLived.getUserByToken(renewed).getUserID());
+        } finally {
+            other.stop();
+        }
+    }
+
+    @Test
+    public void testTokenIsVerifiedOncePerRequest() throws Exception {
+        AtomicInteger verified = new AtomicInteger();
+        SessionTokens counting = new SessionTokens(List.of(new byte[32]), 60_000, new TokenRevocations(60_000, null)) {
+            @Override
+            public Claims verify(String token) throws Exception {
+                verified.incrementAndGet();
+                return super.verify(token);
+            }
+        };
+        MockDatabase db = new MockDatabase();
+        db.saveUser(new Customer("U004", "counted", SecurityUtils.hashPassword("pass123"), "Counted"));
+        AuthenticationManager counted = new AuthenticationManager(db, counting);
+        AuthFilter filter = new AuthFilter(counted, new RoleManager());
+        Javalin other = Javalin.create(config -> config.accessManager(filter)).start(0);
+        try {
+            other.before(filter::verify);
+            other.before(new RateLimitFilter(new RateLimiter(1_000)));
+            other.get("/api/me", ctx -> ctx.result(AuthFilter.principal(ctx).getUserID()), AuthFilter.AUTHENTICATED);
+            String token = counted.login("counted", "pass123");
+
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + other.port() + "/api/me"))
+                    .header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals("U004", response.body());
+            assertEquals(1, verified.get()); // Shared by the rate limiter (per-user budget) and the access check
+        } finally {
+            other.stop();
+        }
+    }
+
+    @Test
+    public void testForwardedClientIpIsOnlyBelievedFromTrustedProxies() throws Exception {
+        Javalin proxied = Javalin.create().start(0);
+        Javalin direct = Javalin.create().start(0);
+        try {
+            proxied.before(new RateLimitFilter(new RateLimiter(1_000), Set.of("127.0.0.1")));
+            proxied.post("/api/login", ctx -> ctx.result("ok"));
+            direct.before(new RateLimitFilter(new RateLimiter(1_000)));
+            direct.post("/api/login", ctx -> ctx.result("ok"));
+
+            // Behind the trusted proxy each client has its own login budget (5)
+            for (int i = 0; i < 5; i++) {
+                assertEquals(200, login(proxied, "203.0.113.1"));
+            }
+            assertEquals(429, login(proxied, "203.0.113.1"));
+            assertEquals(429, login(proxied, "198.51.100.9, 203.0.113.1")); // Made-up entries to the left don't help
+            assertEquals(200, login(proxied, "203.0.113.2"));
+
+            // From anyone else the header is ignored: all of these are the same client
+            for (int i = 0; i < 5; i++) {
+                assertEquals(200, login(direct, "203.0.113." + i));
+            }
+            assertEquals(429, login(direct, "203.0.113.99"));
+        } finally {
+            proxied.stop();
+            direct.stop();
+        }
+    }
+
+    private int login(Javalin server, String forwardedFor) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/api/login"))
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString()).statusCode();
+    }
+}
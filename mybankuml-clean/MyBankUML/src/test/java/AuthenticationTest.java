@@ -2,8 +2,13 @@ import application.AuthenticationManager;
 import model.Customer;
 import model.User;
 import util.SecurityUtils;
+import util.SessionTokens;
+import util.TokenRevocations;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AuthenticationTest {
@@ -50,4 +55,54 @@ public class AuthenticationTest {
         assertTrue(exception.getMessage().contains("locked"));
         assertEquals(User.Status.LOCKED, db.findUserByUsername("testuser").get().getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLogoutRevokesOnlyThatToken() throws Exception {
+        String first = authManager.login("testuser", "pass123");
+        String second = authManager.login("testuser", "pass123");
+
+        authManager.logout(first);
+        assertEquals("Invalid session", assertThrows(Exception.class, () -> authManager.getUserByToken(first)).getMessage());
+        assertEquals("U001", authManager.getUserByToken(second).getUserID());
+
+        authManager.revokeSessions("U001");
+        assertThrows(Exception.class, () -> authManager.getUserByToken(second));
+    }
+
+    @Test
+    public void testTamperedAndForeignTokensAreRejected() throws Exception {
+        String token = authManager.login("testuser", "pass123");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(Exception.class, () -> authManager.getUserByToken(tampered));
+
+        // Signed with another key
+        AuthenticationManager otherServer = new AuthenticationManager(db);
+        assertEquals("Invalid session", assertThrows(Exception.class, () -> otherServer.getUserByToken(token)).getMessage());
+    }
+
+    @Test
+    public void testSessionsAndRevocationsSurviveRestart() throws Exception {
+        Path dir = Files.createTempDirectory("mybank-tokens");
+        Path keyFile = dir.resolve("token.key");
+        Path revokedFile = dir.resolve("revoked_tokens.json");
+        List<byte[]> keys = SessionTokens.loadKeys(keyFile);
+
+        AuthenticationManager before = new AuthenticationManager(db, new SessionTokens(keys, 60_000, new TokenRevocations(60_000, revokedFile)));
+        String kept = before.login("testuser", "pass123");
+        String loggedOut = before.login("testuser", "pass123");
+        before.logout(loggedOut);
+
+        // "Restart": same key file, fresh objects
+        AuthenticationManager after = new AuthenticationManager(db,
+                new SessionTokens(SessionTokens.loadKeys(keyFile), 60_000, new TokenRevocations(60_000, revokedFile)));
+        assertEquals("U001", after.getUserByToken(kept).getUserID());
+        assertThrows(Exception.class, () -> after.getUserByToken(loggedOut));
+    }
+
+    @Test
+    public void testUnreadableRevocationFileStopsStartup() throws Exception {
+        Path revokedFile = Files.createTempDirectory("mybank-tokens").resolve("revoked_tokens.json");
+        Files.writeString(revokedFile, "{\"tokens\": {");
+        assertThrows(IllegalStateException.class, () -> new TokenRevocations(60_000, revokedFile));
+    }
+}
@@ -0,0 +1,84 @@
+import application.BatchTransactionManager;
+import application.BatchTransactionManager.Item;
+import application.BatchTransactionManager.Result;
+import model.Account;
+import model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchTransactionTest {
+    private MockDatabase db;
+    private BatchTransactionManager batchManager;
+
+    @BeforeEach
+    public void setUp() {
+        db = new MockDatabase();
+        batchManager = new BatchTransactionManager(db);
+
+        db.saveAccount(new Account("A100", "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        db.saveAccount(new Account("A200", "U002", Account.AccountType.CHECKING, new BigDecimal("0.00")));
+        db.saveAccount(new Account("A300", "U003", Account.AccountType.SAVINGS, new BigDecimal("50.00")));
+    }
+
+    @Test
+    public void testItemsOnSameAccountRunInOrder() throws Exception {
+        List<Item> items = List.of(
+            new Item(1, Transaction.Type.TRANSFER, "A100", "A200", new BigDecimal("100.00")),
+            new Item(2, Transaction.Type.TRANSFER, "A200", "A300", new BigDecimal("60.00")),
+            new Item(3, Transaction.Type.WITHDRAWAL, "A100", null, new BigDecimal("1.00"))
+        );
+
+        List<Result> results = batchManager.execute(items);
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("Insufficient Funds", results.get(2).getError());
+
+        assertEquals(new BigDecimal("0.00"), db.findAccountByNumber("A100").get().getBalance());
+        assertEquals(new BigDecimal("40.00"), db.findAccountByNumber("A200").get().getBalance());
+        assertEquals(new BigDecimal("110.00"), db.findAccountByNumber("A300").get().getBalance());
+        assertEquals(2, db.transactions.size());
+    }
+
+    @Test
+    public void testInvalidItemsFailIndividually() throws Exception {
+        List<Item> items = List.of(
+            new Item(1, Transaction.Type.DEPOSIT, "A999", null, new BigDecimal("10.00")),
+            new Item(2, Transaction.Type.DEPOSIT, "A100", null, new BigDecimal("-5")),
+            new Item(3, Transaction.Type.TRANSFER, "A100", "A100", new BigDecimal("5.00")),
+            new Item(4, Transaction.Type.DEPOSIT, "A100", null, new BigDecimal("25.00"))
+        );
+
+        List<Result> results = batchManager.execute(items);
+
+        assertEquals("Account not found: A999", results.get(0).getError());
+        assertEquals("Deposit amount must be positive", results.get(1).getError());
+        assertEquals("Cannot transfer to the same account", results.get(2).getError());
+        assertTrue(results.get(3).isSuccess());
+        assertEquals(new BigDecimal("125.00"), db.findAccountByNumber("A100").get().getBalance());
+    }
+
+    @Test
+    public void testIndependentAccountsAllPosted() throws Exception {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String account = i % 2 == 0 ? "A200" : "A300";
+            items.add(new Item(i + 1, Transaction.Type.DEPOSIT, account, null, new BigDecimal("1.00")));
+        }
+
+        List<Result> results = batchManager.execute(items);
+
+        assertTrue(results.stream().allMatch(Result::isSuccess));
+        assertEquals(new BigDecimal("150.00"), db.findAccountByNumber("A200").get().getBalance());
+        assertEquals(new BigDecimal("200.00"), db.findAccountByNumber("A300").get().getBalance());
+        assertEquals(300, db.transactions.size());
+        // Ledger keeps submission order
+        assertEquals("A200", db.transactions.get(0).getSourceAccountNumber());
+        assertEquals("A300", db.transactions.get(1).getSourceAccountNumber());
+    }
+}
@@ -0,0 +1,82 @@
+import data.CachingRepository;
+import model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingRepositoryTest {
+
+    // Counts backend reads so tests can tell hits from misses
+    static class CountingDatabase extends MockDatabase {
+        int userReads;
+        int accountReads;
+
+        @Override
+        public Optional<User> findUserByUsername(String username) {
+            userReads++;
+            return super.findUserByUsername(username);
+        }
+
+        @Override
+        public Optional<Account> findAccountByNumber(String accountNumber) {
+            accountReads++;
+            return super.findAccountByNumber(accountNumber);
+        }
+    }
+
+    private CountingDatabase backend;
+    private CachingRepository cache;
+
+    @BeforeEach
+    public void setUp() {
+        backend = new CountingDatabase();
+        backend.accounts.add(new Account("A001", "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        cache = new CachingRepository(backend, 10, 10);
+    }
+
+    @Test
+    public void testAccountReadsHitCacheAndWritesRefreshIt() {
+        cache.findAccountByNumber("A001");
+        Account account = cache.findAccountByNumber("A001").get();
+        assertEquals(1, backend.accountReads);
+
+        // Handed-out copies do not leak unsaved changes into the cache
+        account.setBalance(new BigDecimal("1.00"));
+        assertEquals(new BigDecimal("100.00"), cache.findAccountByNumber("A001").get().getBalance());
+
+        cache.saveAccount(account);
+        assertEquals(new BigDecimal("1.00"), cache.findAccountByNumber("A001").get().getBalance());
+        assertEquals(1, backend.accountReads);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnknownUsernamesAreNegativelyCached() {
+        assertTrue(cache.findUserByUsername("ghost").isEmpty());
+        assertTrue(cache.findUserByUsername("GHOST").isEmpty());
+        assertEquals(1, backend.userReads);
+
+        cache.saveUser(new Customer("U009", "Ghost", "hash", "Now Real"));
+        assertEquals("U009", cache.findUserByUsername("ghost").get().getUserID());
+        assertEquals(1, backend.userReads);
+
+        Map<String, Object> stats = (Map<String, Object>) cache.stats().get("usersByUsername");
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCapacityIsBounded() {
+        for (int i = 0; i < 50; i++) {
+            backend.accounts.add(new Account("B" + i, "U001", Account.AccountType.SAVINGS, BigDecimal.ONE));
+            cache.findAccountByNumber("B" + i);
+        }
+        Map<String, Object> stats = (Map<String, Object>) cache.stats().get("accountsByNumber");
+        assertTrue((int) stats.get("size") <= 10);
+        assertTrue((long) stats.get("evictions") > 0);
+    }
+}
@@ -0,0 +1,115 @@
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import data.JsonFileService;
+import model.AuditLog;
+import model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointTest {
+    private Path dir;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mybank-checkpoint");
+    }
+
+    private static Transaction deposit(String accountNumber, String amount) {
+        return new Transaction(UUID.randomUUID().toString(), accountNumber, null, new BigDecimal(amount), Transaction.Type.DEPOSIT);
+    }
+
+    @Test
+    public void testRestartReplaysOnlyTheTail() {
+        JsonFileService first = new JsonFileService(dir.toString());
+        for (int i = 0; i < 50; i++) {
+            first.logTransaction(deposit(i % 2 == 0 ? "A1" : "A2", "1.00"));
+        }
+        first.logTransaction(new Transaction("T-custom", "A1", "A2", new BigDecimal("5.25"), Transaction.Type.TRANSFER));
+        first.logAudit(new AuditLog("L1", "U001", "CREATED_USER", "U002"));
+        assertTrue(first.checkpoint());
+        assertFalse(first.checkpoint()); // Nothing new
+
+        first.logTransaction(deposit("A2", "2.00"));
+        first.logAudit(new AuditLog("L2", "U001", "CHANGED_ROLE", "U002"));
+
+        JsonFileService restarted = new JsonFileService(dir.toString());
+        assertEquals("checkpoint", restarted.checkpointStats().get("historySource"));
+        assertEquals(51, restarted.checkpointStats().get("checkpointTransactions"));
+        assertEquals(1, restarted.checkpointStats().get("replayedTransactions"));
+        assertEquals(1, restarted.checkpointStats().get("replayedAuditLogs"));
+
+        assertEquals(first.findTransactionsByAccount("A1").size(), restarted.findTransactionsByAccount("A1").size());
+        assertEquals(27, restarted.findTransactionsByAccount("A2").size());
+        Transaction last = restarted.findTransactionsByAccount("A2").get(26);
+        assertEquals(new BigDecimal("2.00"), last.getAmount());
+        assertEquals("T-custom", restarted.findTransactionsByAccount("A1").get(25).getTransactionID());
+        assertEquals("CHANGED_ROLE", restarted.findAllAuditLogs().get(1).getAction());
+    }
+
+    @Test
+    public void testCorruptCheckpointFallsBackToJson() throws Exception {
+        JsonFileService first = new JsonFileService(dir.toString());
+        first.logTransaction(deposit("A1", "1.00"));
+        first.logTransaction(deposit("A1", "3.00"));
+        assertTrue(first.checkpoint());
+
+        Path image = dir.resolve("checkpoint.bin");
+        byte[] bytes = Files.readAllBytes(image);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(image, bytes);
+
+        JsonFileService restarted = new JsonFileService(dir.toString());
+        assertTrue(((String) restarted.checkpointStats().get("historySource")).startsWith("json"));
+        assertEquals(2, restarted.findTransactionsByAccount("A1").size());
+    }
+
+    @Test
+    public void testRewrittenLedgerFallsBackToJson() throws Exception {
+        JsonFileService first = new JsonFileService(dir.toString());
+        first.logTransaction(deposit("A1", "1.00"));
+        first.logTransaction(deposit("A1", "3.00"));
+        assertTrue(first.checkpoint());
+
+        // Someone edits history behind the server's back
+        Path ledger = dir.resolve("transactions.json");
+        Files.writeString(ledger, Files.readString(ledger).replace("3.00", "4.00"));
+
+        JsonFileService restarted = new JsonFileService(dir.toString());
+        assertTrue(((String) restarted.checkpointStats().get("historySource")).startsWith("json"));
+        assertEquals(new BigDecimal("4.00"), restarted.findTransactionsByAccount("A1").get(1).getAmount());
+    }
+
+    @Test
+    public void testAppendsWriteWhatAFullSaveWould() throws Exception {
+        JsonFileService db = new JsonFileService(dir.toString());
+        db.logTransaction(deposit("A1", "1.00"));
+        db.logTransactions(List.of(deposit("A1", "2.00"), deposit("A2", "3.50")));
+        db.logTransaction(new Transaction("T-custom", "A1", "A2", new BigDecimal("5.25"), Transaction.Type.TRANSFER));
+        db.logAudit(new AuditLog("L1", "U001", "CREATED_USER", "U002"));
+        db.logAudit(new AuditLog("L2", "U001", "CHANGED_ROLE", "U002"));
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Path ledger = dir.resolve("transactions.json");
+        List<Transaction> transactions = mapper.readValue(ledger.toFile(), new TypeReference<List<Transaction>>(){});
+        assertEquals(4, transactions.size());
+        assertEquals(mapper.writeValueAsString(transactions), Files.readString(ledger));
+        Path audit = dir.resolve("audit_logs.json");
+        List<AuditLog> logs = mapper.readValue(audit.toFile(), new TypeReference<List<AuditLog>>(){});
+        assertEquals(2, logs.size());
+        assertEquals(mapper.writeValueAsString(logs), Files.readString(audit));
+
+        // Appends leave the checkpointed part alone, so a restart still replays only the tail
+        assertTrue(db.checkpoint());
+        db.logTransaction(deposit("A2", "7.00"));
+        JsonFileService restarted = new JsonFileService(dir.toString());
+        assertEquals(1, restarted.checkpointStats().get("replayedTransactions"));
+        assertEquals(3, restarted.findTransactionsByAccount("A2").size());
+    }
+}
@@ -0,0 +1,267 @@
+import application.AuthenticationManager;
+import application.TransactionManager;
+import data.ClusterNode;
+import data.ClusterProtocol;
+import data.ClusterRepository;
+import data.HttpClusterNode;
+import data.LocalClusterNode;
+import data.Partitioner;
+import data.SqlDatabaseService;
+import io.javalin.Javalin;
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import presentation.ClusterController;
+import util.SecurityUtils;
+import util.SessionTokens;
+import util.TokenRevocations;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterRepositoryTest {
+    private static final String SECRET = "test-cluster-secret";
+
+    // Three nodes in one JVM; each LocalClusterNode stands in for a peer reached over HTTP
+    private final List<SqlDatabaseService> backends = new ArrayList<>();
+    private final List<LocalClusterNode> nodes = new ArrayList<>();
+    private final Partitioner partitioner = new Partitioner(3);
+    private ClusterRepository cluster;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < 3; i++) {
+            SqlDatabaseService backend = new SqlDatabaseService("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+            backends.add(backend);
+            nodes.add(new LocalClusterNode(backend));
+        }
+        cluster = new ClusterRepository(nodes);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        backends.forEach(SqlDatabaseService::close);
+    }
+
+    // First key with the given prefix that hashes to the node
+    private String keyOn(int node, String prefix) {
+        for (int i = 0; ; i++) {
+            if (partitioner.nodeFor(prefix + i) == node) return prefix + i;
+        }
+    }
+
+    @Test
+    public void testRecordsLiveOnTheirOwningNode() {
+        String userId = keyOn(2, "U");
+        cluster.saveUser(new Customer(userId, "alice", "hash", "Alice"));
+        String first = keyOn(0, "A");
+        String second = keyOn(1, "A");
+        cluster.saveAccount(new Account(first, userId, Account.AccountType.CHECKING, new BigDecimal("10.00")));
+        cluster.saveAccount(new Account(second, userId, Account.AccountType.SAVINGS, new BigDecimal("20.00")));
+
+        assertTrue(backends.get(2).findUserByID(userId).isPresent());
+        assertTrue(backends.get(0).findUserByID(userId).isEmpty());
+        assertTrue(backends.get(0).findAccountByNumber(first).isPresent());
+        assertTrue(backends.get(1).findAccountByNumber(first).isEmpty());
+
+        // Lookups that are not by partition key ask every node
+        assertEquals(userId, cluster.findUserByUsername("ALICE").get().getUserID());
+        assertEquals(2, cluster.findAccountsByUserID(userId).size());
+    }
+
+    @Test
+    public void testCrossPartitionTransferCommitsOnBothNodes() throws Exception {
+        String source = keyOn(0, "A");
+        String target = keyOn(1, "A");
+        cluster.saveAccount(new Account(source, "U1", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        cluster.saveAccount(new Account(target, "U2", Account.AccountType.CHECKING, new BigDecimal("5.00")));
+
+        new TransactionManager(cluster).transfer(source, target, new BigDecimal("30.00"));
+
+        assertEquals(new BigDecimal("70.00"), backends.get(0).findAccountByNumber(source).get().getBalance());
+        assertEquals(new BigDecimal("35.00"), backends.get(1).findAccountByNumber(target).get().getBalance());
+        // Each side's ledger has the transfer, so either node can answer history for its account
+        assertEquals(1, backends.get(0).findTransactionsByAccount(source).size());
+        assertEquals(1, backends.get(1).findTransactionsByAccount(target).size());
+    }
+
+    @Test
+    public void testFailedPrepareAbortsOnEveryNode() {
+        String first = keyOn(0, "A");
+        String second = keyOn(1, "A");
+        cluster.saveAccount(new Account(first, "U1", Account.AccountType.CHECKING, new BigDecimal("10.00")));
+        cluster.saveAccount(new Account(second, "U1", Account.AccountType.CHECKING, new BigDecimal("10.00")));
+
+        // Another transfer holds the second account
+        Account held = cluster.findAccountByNumber(second).get();
+        assertTrue(nodes.get(1).prepare("other-transfer", List.of(held), 1));
+
+        Account a = cluster.findAccountByNumber(first).get();
+        Account b = cluster.findAccountByNumber(second).get();
+        a.setBalance(BigDecimal.ZERO);
+        b.setBalance(new BigDecimal("20.00"));
+        assertFalse(cluster.saveAccountsIfVersion(List.of(a, b)));
+
+        // Node 0 prepared first and was told to abort, so its account is not left locked
+        Account retry = cluster.findAccountByNumber(first).get();
+        retry.setBalance(new BigDecimal("11.00"));
+        assertTrue(cluster.saveIfVersion(retry));
+        assertEquals(new BigDecimal("10.00"), cluster.findAccountByNumber(second).get().getBalance());
+
+        nodes.get(1).abort("other-transfer");
+        Account released = cluster.findAccountByNumber(second).get();
+        released.setBalance(new BigDecimal("12.00"));
+        assertTrue(cluster.saveIfVersion(released));
+    }
+
+    // Accounts S on node 0 and T on node 1, prepared for a transfer of 30.00 from S to T that node 0 decides
+    private void prepareTransfer(List<LocalClusterNode> pair, String txId) {
+        backends.get(0).saveAccount(new Account("S", "U1", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        backends.get(1).saveAccount(new Account("T", "U2", Account.AccountType.CHECKING, new BigDecimal("5.00")));
+        Account source = backends.get(0).findAccountByNumber("S").get();
+        Account target = backends.get(1).findAccountByNumber("T").get();
+        source.setBalance(new BigDecimal("70.00"));
+        target.setBalance(new BigDecimal("35.00"));
+        assertTrue(pair.get(0).prepare(txId, List.of(source), 0));
+        assertTrue(pair.get(1).prepare(txId, List.of(target), 0));
+    }
+
+    @Test
+    public void testParticipantAppliesACommitItNeverReceived() throws Exception {
+        Path dir = Files.createTempDirectory("mybank-2pc");
+        List<LocalClusterNode> pair = List.of(new LocalClusterNode(backends.get(0), dir.resolve("node0.json"), 0),
+                new LocalClusterNode(backends.get(1), dir.resolve("node1.json"), 0));
+        prepareTransfer(pair, "tx1");
+        assertTrue(pair.get(0).decide("tx1"));
+        pair.get(0).commit("tx1");
+        // The coordinator dies here, before node 1 gets its commit, and both nodes restart
+
+        List<LocalClusterNode> restarted = List.of(new LocalClusterNode(backends.get(0), dir.resolve("node0.json"), 0),
+                new LocalClusterNode(backends.get(1), dir.resolve("node1.json"), 0));
+        restarted.forEach(node -> node.setCluster(restarted));
+        Account locked = backends.get(1).findAccountByNumber("T").get();
+        locked.setBalance(BigDecimal.ONE);
+        assertFalse(restarted.get(1).saveIfVersion(locked)); // Still prepared
+
+        assertEquals(1, restarted.get(1).resolveInDoubt());
+        assertEquals(new BigDecimal("70.00"), backends.get(0).findAccountByNumber("S").get().getBalance());
+        assertEquals(new BigDecimal("35.00"), backends.get(1).findAccountByNumber("T").get().getBalance());
+        Account released = backends.get(1).findAccountByNumber("T").get();
+        released.setBalance(new BigDecimal("36.00"));
+        assertTrue(restarted.get(1).saveIfVersion(released));
+    }
+
+    @Test
+    public void testUndecidedTransferIsAbortedEverywhere() {
+        List<LocalClusterNode> pair = List.of(new LocalClusterNode(backends.get(0), null, 0),
+                new LocalClusterNode(backends.get(1), null, 0));
+        pair.forEach(node -> node.setCluster(pair));
+        prepareTransfer(pair, "tx2");
+
+        // The coordinator went quiet before deciding; node 1 asks the decider
+        assertEquals(1, pair.get(1).resolveInDoubt());
+        assertFalse(pair.get(0).decide("tx2")); // Too late to commit now
+        assertEquals(new BigDecimal("100.00"), backends.get(0).findAccountByNumber("S").get().getBalance());
+        assertEquals(new BigDecimal("5.00"), backends.get(1).findAccountByNumber("T").get().getBalance());
+        // The decider released its own prepare as well
+        Account source = backends.get(0).findAccountByNumber("S").get();
+        source.setBalance(new BigDecimal("90.00"));
+        assertTrue(pair.get(0).saveIfVersion(source));
+    }
+
+    @Test
+    public void testRevocationsReachEveryNode() throws Exception {
+        String userId = keyOn(0, "U");
+        cluster.saveUser(new Customer(userId, "carol", SecurityUtils.hashPassword("pw"), "Carol"));
+        List<AuthenticationManager> managers = new ArrayList<>();
+        for (LocalClusterNode node : nodes) {
+            TokenRevocations revocations = new TokenRevocations(60_000, null);
+            node.setCluster(nodes);
+            node.setRevocations(revocations);
+            managers.add(new AuthenticationManager(cluster, new SessionTokens(List.of(SessionTokens.secretKey(SECRET)), 60_000, revocations)));
+        }
+
+        // Logged out through node 0, rejected by the others at once
+        String token = managers.get(0).login("carol", "pw");
+        managers.get(0).logout(token);
+        assertThrows(Exception.class, () -> managers.get(2).getUserByToken(token));
+
+        // Node 2 was unreachable when node 1 locked the user out; it catches up by pulling
+        String kept = managers.get(1).login("carol", "pw");
+        nodes.get(1).setCluster(nodes.subList(0, 2));
+        managers.get(1).revokeSessions(userId);
+        assertEquals(userId, managers.get(2).getUserByToken(kept).getUserID());
+        assertEquals(2, nodes.get(2).syncRevocations());
+        assertThrows(Exception.class, () -> managers.get(2).getUserByToken(kept));
+    }
+
+    @Test
+    public void testLockedUserIsRejectedBeforeTheRevocationArrives() throws Exception {
+        String userId = keyOn(1, "U");
+        cluster.saveUser(new Customer(userId, "dave", SecurityUtils.hashPassword("pw"), "Dave"));
+        AuthenticationManager auth = new AuthenticationManager(cluster, SessionTokens.fromSecret(SECRET, 60_000));
+        String token = auth.login("dave", "pw");
+
+        User user = cluster.findUserByID(userId).get();
+        user.setStatus(User.Status.LOCKED);
+        cluster.saveUser(user);
+        assertThrows(Exception.class, () -> auth.getUserByToken(token));
+    }
+
+    @Test
+    public void testNodesServeEachOtherOverHttpAndShareSessions() throws Exception {
+        // Node 1 behind a real HTTP endpoint, node 0 local
+        ClusterController controller = new ClusterController(nodes.get(1), SECRET);
+        Javalin peer = Javalin.create().post("/internal/cluster/{operation}", controller::handle).start(0);
+        try {
+            List<ClusterNode> viewFromNode0 = List.of(nodes.get(0), new HttpClusterNode("http://127.0.0.1:" + peer.port(), SECRET));
+            ClusterRepository remote = new ClusterRepository(viewFromNode0);
+            Partitioner two = new Partitioner(2);
+            String userId = "U0";
+            while (two.nodeFor(userId) != 1) userId += "x";
+            String source = "A0";
+            while (two.nodeFor(source) != 0) source += "x";
+            String target = "B0";
+            while (two.nodeFor(target) != 1) target += "x";
+
+            remote.saveUser(new Customer(userId, "bob", SecurityUtils.hashPassword("pw"), "Bob"));
+            remote.saveAccount(new Account(source, userId, Account.AccountType.CHECKING, new BigDecimal("50.00")));
+            remote.saveAccount(new Account(target, userId, Account.AccountType.SAVINGS, BigDecimal.ZERO));
+            assertTrue(backends.get(1).findUserByID(userId).isPresent());
+
+            new TransactionManager(remote).transfer(source, target, new BigDecimal("20.00"));
+            assertEquals(new BigDecimal("20.00"), remote.findAccountByNumber(target).get().getBalance());
+            assertEquals(1, remote.findTransactionsByAccount(target).size());
+
+            // A token issued through one node is accepted by another with the same secret
+            String token = new AuthenticationManager(remote, SessionTokens.fromSecret(SECRET, 60_000)).login("bob", "pw");
+            ClusterRepository viewFromNode1 = new ClusterRepository(List.of(nodes.get(0), nodes.get(1)));
+            assertEquals(userId, new AuthenticationManager(viewFromNode1, SessionTokens.fromSecret(SECRET, 60_000)).getUserByToken(token).getUserID());
+            assertThrows(Exception.class, () -> new AuthenticationManager(viewFromNode1, SessionTokens.fromSecret("other", 60_000)).getUserByToken(token));
+
+            // What peers send each other is neither the secret nor a key that signs tokens
+            String credential = ClusterProtocol.peerCredential(SECRET);
+            assertNotEquals(SECRET, credential);
+            String forged = new SessionTokens(List.of(Base64.getUrlDecoder().decode(credential)), 60_000,
+                    new TokenRevocations(60_000, null)).issue(userId, "ADMIN");
+            assertThrows(Exception.class, () -> SessionTokens.fromSecret(SECRET, 60_000).verify(forged));
+            HttpResponse<String> withRawSecret = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + peer.port() + ClusterProtocol.PATH_PREFIX + "findAllUsers"))
+                    .header(ClusterProtocol.SECRET_HEADER, SECRET).POST(HttpRequest.BodyPublishers.ofString("{}")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(403, withRawSecret.statusCode());
+        } finally {
+            peer.stop();
+        }
+    }
+}
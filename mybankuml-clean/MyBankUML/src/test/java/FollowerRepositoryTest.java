@@ -0,0 +1,77 @@
+import data.AccountIndex;
+import data.FollowerRepository;
+import data.JsonFileService;
+import model.Account;
+import model.AuditLog;
+import model.Customer;
+import model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FollowerRepositoryTest {
+    private Path dir;
+    private JsonFileService primary;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mybank-follower");
+        primary = new JsonFileService(dir.toString());
+        primary.saveUser(new Customer("U001", "mike_scott", "hash", "Michael Scott"));
+        primary.saveAccount(new Account("A1", "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        log("T1");
+    }
+
+    private void log(String id) {
+        primary.logTransaction(new Transaction(id, "A1", null, new BigDecimal("1.00"), Transaction.Type.DEPOSIT));
+    }
+
+    @Test
+    public void testFollowsAppendsAndRewrites() {
+        primary.checkpoint();
+        log("T2"); // After the checkpoint, so the follower starts from image plus tail
+        FollowerRepository follower = new FollowerRepository(dir.toString());
+        assertEquals(2, follower.findTransactionsByAccount("A1").size());
+
+        log("T3");
+        primary.logAudit(new AuditLog(UUID.randomUUID().toString(), "ADMIN1", "Test", "U001"));
+        primary.saveUser(new Customer("U002", "dwight_s", "hash", "Dwight Schrute"));
+        Account a1 = primary.findAccountByNumber("A1").get();
+        a1.setBalance(new BigDecimal("250.00"));
+        primary.saveAccount(a1);
+
+        assertTrue(follower.poll());
+        assertEquals("T3", follower.findRecentTransactionsByAccount("A1", 1).get(0).getTransactionID());
+        assertEquals(1, follower.findAllAuditLogs().size());
+        assertTrue(follower.findUserByID("U002").isPresent());
+        assertEquals(new BigDecimal("250.00"), follower.findAccountByNumber("A1").get().getBalance());
+        // Indexes follow as well
+        assertEquals(1, follower.findAccountsByRange(AccountIndex.Field.BALANCE, 20_000, Long.MAX_VALUE, null, 10).hits.size());
+        assertEquals(0L, ((Number) follower.stats().get("failedPolls")).longValue());
+
+        assertThrows(UnsupportedOperationException.class, () -> follower.logTransaction(
+                new Transaction("T9", "A1", null, new BigDecimal("1.00"), Transaction.Type.DEPOSIT)));
+    }
+
+    @Test
+    public void testRetriesFileCaughtMidSave() throws Exception {
+        FollowerRepository follower = new FollowerRepository(dir.toString());
+        log("T2");
+        Path ledger = dir.resolve("transactions.json");
+        String saved = Files.readString(ledger, StandardCharsets.UTF_8);
+
+        // What a reader can see while the primary is rewriting the file
+        Files.writeString(ledger, saved.substring(0, saved.length() - 20), StandardCharsets.UTF_8);
+        assertFalse(follower.poll());
+        assertEquals(1, follower.findTransactionsByAccount("A1").size());
+
+        Files.writeString(ledger, saved, StandardCharsets.UTF_8);
+        assertTrue(follower.poll());
+        assertEquals(2, follower.findTransactionsByAccount("A1").size());
+    }
+}
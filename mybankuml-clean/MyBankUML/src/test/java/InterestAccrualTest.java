@@ -0,0 +1,111 @@
+import application.InterestAccrual;
+import data.JsonFileService;
+import model.Account;
+import model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterestAccrualTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+    private static final BigDecimal RATE = new BigDecimal("0.0365"); // 1 cent a day per 100.00
+
+    private Path dir;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mybank-interest");
+    }
+
+    private void seed(JsonFileService db, int savings) {
+        for (int i = 0; i < savings; i++) {
+            db.saveAccount(new Account("S" + i, "U001", Account.AccountType.SAVINGS, new BigDecimal("1000.00")));
+        }
+        db.saveAccount(new Account("C1", "U001", Account.AccountType.CHECKING, new BigDecimal("1000.00")));
+        db.saveAccount(new Account("S-small", "U001", Account.AccountType.SAVINGS, new BigDecimal("0.40")));
+    }
+
+    private BigDecimal balance(JsonFileService db, String accountNumber) {
+        return db.findAccountByNumber(accountNumber).get().getBalance();
+    }
+
+    @Test
+    public void testCreditsSavingsOncePerDay() {
+        JsonFileService db = new JsonFileService(dir.toString());
+        seed(db, 200);
+        InterestAccrual interest = new InterestAccrual(db, RATE, dir.resolve("interest.json"));
+
+        assertEquals(200, interest.accrue(DAY));
+        assertEquals(0, interest.accrue(DAY)); // Already done
+        assertEquals(new BigDecimal("1000.10"), balance(db, "S7"));
+        assertEquals(new BigDecimal("1000.00"), balance(db, "C1"));
+        assertEquals(new BigDecimal("0.40"), balance(db, "S-small")); // Rounds to zero
+        List<Transaction> posted = db.findTransactionsByAccount("S7");
+        assertEquals(1, posted.size());
+        assertEquals(Transaction.Type.DEPOSIT, posted.get(0).getType());
+
+        // Days missed while down are caught up, and the progress file survives restarts
+        InterestAccrual restarted = new InterestAccrual(db, RATE, dir.resolve("interest.json"));
+        restarted.catchUp(DAY.plusDays(2));
+        assertEquals(new BigDecimal("1000.30"), balance(db, "S7"));
+        assertEquals(DAY.plusDays(2).toString(), restarted.stats().get("lastCompletedDay"));
+    }
+
+    // Every S<i> credited exactly once and posted exactly once, after a crash and a resumed run
+    private InterestAccrual resumeAfterCrash(JsonFileService failing, int savings) {
+        seed(failing, savings);
+        assertThrows(IllegalStateException.class, () -> new InterestAccrual(failing, RATE, dir.resolve("interest.json")).accrue(DAY));
+        ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS); // Partitions already running finish
+
+        JsonFileService db = new JsonFileService(dir.toString());
+        InterestAccrual resumed = new InterestAccrual(db, RATE, dir.resolve("interest.json"));
+        int credited = resumed.accrue(DAY);
+        assertTrue(credited > 0 && credited < savings);
+        for (int i = 0; i < savings; i++) {
+            assertEquals(new BigDecimal("1000.10"), balance(db, "S" + i), "S" + i);
+            assertEquals(1, db.findTransactionsByAccount("S" + i).size(), "S" + i);
+        }
+        return resumed;
+    }
+
+    @Test
+    public void testCrashBetweenLedgerAndBalancesIsCreditedFromTheLedger() {
+        AtomicInteger commits = new AtomicInteger();
+        JsonFileService failing = new JsonFileService(dir.toString()) {
+            @Override
+            public synchronized void logTransactions(List<Transaction> batch) {
+                super.logTransactions(batch);
+                if (commits.incrementAndGet() == 10) {
+                    throw new IllegalStateException("Crashed after the ledger write"); // Before the balances are saved
+                }
+            }
+        };
+        resumeAfterCrash(failing, 500);
+    }
+
+    @Test
+    public void testCrashAfterBalancesIsNotCreditedAgain() {
+        AtomicInteger commits = new AtomicInteger();
+        JsonFileService failing = new JsonFileService(dir.toString()) {
+            @Override
+            public synchronized boolean saveAccountsIfVersion(Collection<Account> batch) {
+                boolean saved = super.saveAccountsIfVersion(batch);
+                if (batch.size() > 1 && commits.incrementAndGet() == 10) {
+                    throw new IllegalStateException("Crashed after the balance save"); // Before the partition is marked done
+                }
+                return saved;
+            }
+        };
+        InterestAccrual resumed = resumeAfterCrash(failing, 500);
+        assertTrue((Long) resumed.stats().get("skippedAlreadyCredited") > 0);
+    }
+}
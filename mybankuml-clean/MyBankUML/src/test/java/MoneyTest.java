@@ -0,0 +1,52 @@
+import model.Money;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    // Same arithmetic the managers used before Money: add/subtract/compareTo on BigDecimal
+    @Test
+    public void testMatchesBigDecimalArithmetic() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal a = BigDecimal.valueOf(random.nextInt(100_000_000) - 50_000_000, 2);
+            BigDecimal b = BigDecimal.valueOf(random.nextInt(100_000), random.nextInt(3)); // scale 0, 1 or 2
+
+            Money ma = Money.of(a);
+            Money mb = Money.of(b);
+
+            assertEquals(0, a.add(b).compareTo(ma.plus(mb).toBigDecimal()));
+            assertEquals(0, a.subtract(b).compareTo(ma.minus(mb).toBigDecimal()));
+            assertEquals(Integer.signum(a.compareTo(b)), Integer.signum(ma.compareTo(mb)));
+            assertEquals(b.compareTo(BigDecimal.ZERO) > 0, mb.isPositive());
+        }
+    }
+
+    @Test
+    public void testTwoDecimalResultsKeepTheirScale() {
+        // AccountTest compares balances with equals(), which is scale-sensitive
+        Money balance = Money.of(new BigDecimal("500.00")).plus(Money.of(new BigDecimal("100")));
+        assertEquals(new BigDecimal("600.00"), balance.toBigDecimal());
+        assertEquals(new BigDecimal("0.10"), Money.of(new BigDecimal("0.1")).toBigDecimal());
+    }
+
+    @Test
+    public void testTrailingZerosBeyondCentsAreAccepted() {
+        assertEquals(1250, Money.of(new BigDecimal("12.5000")).getMinorUnits());
+    }
+
+    @Test
+    public void testFractionsOfACentAreRejectedNotRounded() {
+        ArithmeticException e = assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.005")));
+        assertEquals("Amount cannot have more than 2 decimal places", e.getMessage());
+    }
+
+    @Test
+    public void testOverflowIsDetected() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1e30")));
+    }
+}
@@ -0,0 +1,135 @@
+import application.AccountManager;
+import application.AdminManager;
+import application.TransactionManager;
+import data.SqlDatabaseService;
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptimisticConcurrencyTest {
+    private SqlDatabaseService db;
+
+    @BeforeEach
+    public void setUp() {
+        db = new SqlDatabaseService("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        db.saveAccount(new Account("A001", "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        db.saveUser(new Customer("U001", "john", "hash", "John Doe"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void testStaleCopyIsRejected() {
+        Account first = db.findAccountByNumber("A001").get();
+        Account second = db.findAccountByNumber("A001").get();
+
+        first.setBalance(new BigDecimal("50.00"));
+        assertTrue(db.saveIfVersion(first));
+        assertEquals(first.getVersion(), db.findAccountByNumber("A001").get().getVersion());
+
+        second.setBalance(new BigDecimal("0.00"));
+        assertFalse(db.saveIfVersion(second));
+        assertEquals(new BigDecimal("50.00"), db.findAccountByNumber("A001").get().getBalance());
+    }
+
+    @Test
+    public void testAdminUpdateKeepsConcurrentFailedLoginCount() throws Exception {
+        // A login attempt read the user before the admin's change and saves after it
+        User loginCopy = db.findUserByID("U001").get();
+        new AdminManager(db).toggle2FA(new Administrator("ADM", "admin", "hash", "Admin"), "U001", true);
+
+        loginCopy.incrementFailedAttempts();
+        assertFalse(db.saveIfVersion(loginCopy));
+
+        User stored = db.findUserByID("U001").get();
+        assertTrue(stored.isTwoFactorEnabled());
+    }
+
+    @Test
+    public void testUserCopyIsDetached() {
+        User stored = new Teller("T01", "teller", "hash", "Teller");
+        stored.incrementFailedAttempts();
+        stored.setVersion(7);
+
+        User copy = stored.copy();
+        assertTrue(copy instanceof Teller);
+        assertEquals("teller", copy.getUsername());
+        assertEquals(1, copy.getFailedLoginAttempts());
+        assertEquals(7, copy.getVersion());
+
+        copy.setStatus(User.Status.LOCKED);
+        assertEquals(User.Status.ACTIVE, stored.getStatus());
+        // A promoted user comes back as the class of the new role, as from JSON
+        stored.setRole(User.Role.ADMIN);
+        assertTrue(stored.copy() instanceof Administrator);
+    }
+
+    @Test
+    public void testConcurrentDepositsAreNotLost() throws Exception {
+        AccountManager manager = new AccountManager(db);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(pool.submit(() -> {
+                try {
+                    manager.deposit("A001", new BigDecimal("1.00"));
+                    return true;
+                } catch (Exception e) {
+                    return false; // Gave up after the bounded retries
+                }
+            }));
+        }
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) succeeded++;
+        }
+        pool.shutdown();
+
+        assertTrue(succeeded > 0);
+        assertEquals(new BigDecimal("100.00").add(BigDecimal.valueOf(succeeded)).setScale(2),
+                db.findAccountByNumber("A001").get().getBalance());
+        assertEquals(succeeded, db.findTransactionsByAccount("A001").size());
+    }
+
+    @Test
+    public void testConcurrentTransfersMoveMoneyAllOrNothing() throws Exception {
+        db.saveAccount(new Account("A002", "U001", Account.AccountType.SAVINGS, new BigDecimal("100.00")));
+        TransactionManager manager = new TransactionManager(db);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            boolean outgoing = i % 2 == 0;
+            results.add(pool.submit(() -> {
+                try {
+                    manager.transfer(outgoing ? "A001" : "A002", outgoing ? "A002" : "A001", new BigDecimal("3.00"));
+                    return true;
+                } catch (Exception e) {
+                    return false; // Gave up after the bounded retries, or short of funds
+                }
+            }));
+        }
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) succeeded++;
+        }
+        pool.shutdown();
+
+        // Every transfer either moved its money both ways or not at all
+        BigDecimal a1 = db.findAccountByNumber("A001").get().getBalance();
+        BigDecimal a2 = db.findAccountByNumber("A002").get().getBalance();
+        assertEquals(new BigDecimal("200.00"), a1.add(a2));
+        assertEquals(succeeded, db.findTransactionsByAccount("A001").size()); // Every transfer touches A001
+    }
+}
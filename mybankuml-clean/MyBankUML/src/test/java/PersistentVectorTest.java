@@ -0,0 +1,45 @@
+import data.PersistentVector;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentVectorTest {
+
+    @Test
+    public void testAppendAcrossTrieLevels() {
+        // 40_000 elements need a three-level trie; two levels hold at most 32 * 32 * 32 = 32_768
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            vector = vector.append(i);
+            expected.add(i);
+        }
+        assertEquals(expected, vector);
+        assertEquals(39_999, vector.get(39_999));
+        assertThrows(IndexOutOfBoundsException.class, () -> PersistentVector.<Integer>empty().get(0));
+    }
+
+    @Test
+    public void testOldVersionsAreUnchanged() {
+        PersistentVector<String> v1 = PersistentVector.of(List.of("a", "b", "c"));
+        for (int i = 0; i < 100; i++) {
+            v1 = v1.append("x" + i);
+        }
+        PersistentVector<String> v2 = v1.with(1, "B").with(90, "X").append("end");
+
+        assertEquals("b", v1.get(1));
+        assertEquals("x87", v1.get(90));
+        assertEquals(103, v1.size());
+        assertEquals("B", v2.get(1));
+        assertEquals("X", v2.get(90));
+        assertEquals("end", v2.get(103));
+    }
+
+    @Test
+    public void testIsReadOnly() {
+        PersistentVector<String> vector = PersistentVector.of(List.of("a"));
+        assertThrows(UnsupportedOperationException.class, () -> vector.add("b"));
+        assertThrows(UnsupportedOperationException.class, () -> vector.set(0, "b"));
+    }
+}
@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+import util.RateLimiter;
+import util.RateLimiter.Budget;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final Budget budget = new Budget("test", 3, 1); // 3 at once, then one per second
+
+    @Test
+    public void testBurstThenRefill() {
+        RateLimiter limiter = new RateLimiter(now::get, 100);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire("alice", budget));
+        }
+        long wait = limiter.acquire("alice", budget);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+
+        // Other callers have their own bucket
+        assertEquals(0, limiter.acquire("bob", budget));
+
+        now.addAndGet(wait);
+        assertEquals(0, limiter.acquire("alice", budget));
+        assertTrue(limiter.acquire("alice", budget) > 0);
+    }
+
+    @Test
+    public void testConcurrentCallersNeverExceedTheBurst() throws Exception {
+        RateLimiter limiter = new RateLimiter(now::get, 100);
+        Budget big = new Budget("big", 500, 1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                int allowed = 0;
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.acquire("shared", big) == 0) allowed++;
+                }
+                return allowed;
+            }));
+        }
+        int allowed = 0;
+        for (Future<Integer> result : results) {
+            allowed += result.get();
+        }
+        pool.shutdown();
+        assertEquals(500, allowed); // The clock never moved, so exactly the burst got through
+    }
+
+    @Test
+    public void testMemoryIsBounded() {
+        RateLimiter limiter = new RateLimiter(now::get, 10);
+        for (int i = 0; i < 1000; i++) {
+            limiter.acquire("ip-" + i, budget);
+        }
+        assertTrue((int) limiter.stats().get("buckets") <= 11); // 10 keys plus the shared overflow bucket
+
+        // Idle buckets are full again and get dropped
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        limiter.acquire("late", budget);
+        assertEquals(1, limiter.stats().get("buckets"));
+    }
+}
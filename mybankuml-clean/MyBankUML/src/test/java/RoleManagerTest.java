@@ -1,6 +1,7 @@
 import application.RoleManager;
 import model.*;
 import org.junit.jupiter.api.Test;
+import java.util.Properties;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class RoleManagerTest {
@@ -31,4 +32,20 @@ public class RoleManagerTest {
         assertTrue(roleManager.canAccess(admin, RoleManager.Feature.MANAGE_USERS));
         assertTrue(roleManager.canAccess(admin, RoleManager.Feature.VIEW_AUDIT_LOGS));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPolicyIsConfigurable() {
+        Properties policy = new Properties();
+        policy.setProperty("TELLER", "SEARCH_CUSTOMERS, VIEW_AUDIT_LOGS");
+        RoleManager custom = new RoleManager(policy);
+        User teller = new Teller("U2", "teller", "hash", "Name");
+
+        assertTrue(custom.canAccess(teller, RoleManager.Feature.VIEW_AUDIT_LOGS));
+        assertFalse(custom.canAccess(teller, RoleManager.Feature.PROCESS_TRANSACTION));
+        // Roles the policy leaves out get nothing
+        assertFalse(custom.canAccess(new Customer("U1", "cust", "hash", "Name"), RoleManager.Feature.VIEW_OWN_ACCOUNT));
+
+        policy.setProperty("ADMIN", "EVERYTHING");
+        assertThrows(IllegalArgumentException.class, () -> new RoleManager(policy));
+    }
+}
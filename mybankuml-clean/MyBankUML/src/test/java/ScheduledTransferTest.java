@@ -0,0 +1,183 @@
+import application.BatchTransactionManager;
+import application.ScheduledTransferManager;
+import data.ClusterRepository;
+import data.LocalClusterNode;
+import data.Partitioner;
+import model.Account;
+import model.ScheduledTransfer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.TimingWheel;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduledTransferTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 31, 9, 0);
+
+    private MockDatabase db;
+    private AtomicLong now;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        db = new MockDatabase();
+        db.saveAccount(new Account("A100", "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        db.saveAccount(new Account("A200", "U002", Account.AccountType.CHECKING, new BigDecimal("0.00")));
+        now = new AtomicLong(millis(START));
+        file = Files.createTempDirectory("mybank-schedules").resolve("schedules.json");
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private ScheduledTransferManager manager() {
+        return new ScheduledTransferManager(db, new BatchTransactionManager(db), file, now::get);
+    }
+
+    private BigDecimal balance(String accountNumber) {
+        return db.findAccountByNumber(accountNumber).get().getBalance();
+    }
+
+    @Test
+    public void testTimingWheelFiresInDueOrder() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        Random random = new Random(42);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            long due = random.nextInt(1 << 26); // Spans all levels and the overflow list
+            wheel.schedule(due, due);
+            expected.add(due);
+        }
+        expected.sort(null);
+
+        List<Long> fired = new ArrayList<>();
+        for (long t = 0; t < 1 << 26; t += 1 + random.nextInt(5000)) {
+            List<Long> due = wheel.advance(t);
+            for (long d : due) assertTrue(d <= t);
+            due.sort(null); // Same-tick order is unspecified
+            fired.addAll(due);
+        }
+        fired.addAll(wheel.advance(1 << 26));
+        assertEquals(expected, fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRecurringTransferCatchesUpAfterDowntime() throws Exception {
+        ScheduledTransferManager first = manager();
+        ScheduledTransfer rent = first.create("U001", "A100", "A200", new BigDecimal("30.00"), START.plusHours(1).toString(), "monthly");
+        assertEquals(0, first.runDue());
+
+        // Down for two months and a bit: three occurrences are owed, made one per tick, oldest first
+        now.set(millis(START.plusMonths(2).plusHours(2)));
+        ScheduledTransferManager restarted = manager();
+        assertEquals(1, restarted.runDue());
+        now.addAndGet(ScheduledTransferManager.TICK_MILLIS);
+        assertEquals(1, restarted.runDue());
+        now.addAndGet(ScheduledTransferManager.TICK_MILLIS);
+        assertEquals(1, restarted.runDue());
+        now.addAndGet(ScheduledTransferManager.TICK_MILLIS);
+        assertEquals(0, restarted.runDue());
+
+        ScheduledTransfer saved = restarted.getSchedule(rent.getScheduleID());
+        assertEquals(3, saved.getRuns());
+        assertEquals(LocalDateTime.of(2026, 4, 28, 10, 0).toString(), saved.getNextRun()); // Jan 31 -> Feb 28 -> Mar 28 -> Apr 28
+        assertEquals(new BigDecimal("10.00"), balance("A100"));
+        assertEquals(new BigDecimal("90.00"), balance("A200"));
+    }
+
+    @Test
+    public void testFailedAndCancelledSchedules() throws Exception {
+        ScheduledTransferManager manager = manager();
+        ScheduledTransfer tooBig = manager.create("U001", "A100", "A200", new BigDecimal("500.00"), null, null);
+        ScheduledTransfer sweep = manager.create("U001", "A100", "A200", new BigDecimal("1.00"), START.plusSeconds(5).toString(), "DAILY");
+        ScheduledTransfer cancelled = manager.create("U001", "A100", "A200", new BigDecimal("2.00"), START.plusSeconds(5).toString(), "DAILY");
+        assertThrows(Exception.class, () -> manager.create("U001", "A100", "A100", new BigDecimal("1.00"), null, null));
+        assertThrows(Exception.class, () -> manager.create("U001", "A100", "A999", new BigDecimal("1.00"), null, null));
+
+        assertEquals(0, manager.runDue());
+        assertEquals(ScheduledTransfer.Status.FAILED, manager.getSchedule(tooBig.getScheduleID()).getStatus());
+        assertTrue(manager.getSchedule(tooBig.getScheduleID()).getLastError().endsWith("Insufficient Funds for Transfer"));
+
+        manager.cancel(cancelled.getScheduleID());
+        assertThrows(Exception.class, () -> manager.cancel(cancelled.getScheduleID()));
+        now.addAndGet(5_000);
+        assertEquals(1, manager.runDue());
+        assertEquals(new BigDecimal("99.00"), balance("A100"));
+        assertEquals(ScheduledTransfer.Status.ACTIVE, manager.getSchedule(sweep.getScheduleID()).getStatus());
+        assertEquals(3, manager.getSchedulesByOwner("U001").size());
+
+        assertEquals(ScheduledTransfer.Status.CANCELLED, manager().getSchedule(cancelled.getScheduleID()).getStatus());
+    }
+
+    @Test
+    public void testNothingIsPaidUnlessTheAdvancedRunIsSaved() throws Exception {
+        ScheduledTransferManager manager = manager();
+        manager.create("U001", "A100", "A200", new BigDecimal("5.00"), START.plusSeconds(5).toString(), "DAILY");
+        now.addAndGet(5_000);
+
+        // The save goes through a temp file; a directory in its place makes it fail
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectory(temp);
+        assertEquals(0, manager.runDue());
+        assertEquals(new BigDecimal("100.00"), balance("A100"));
+
+        Files.delete(temp);
+        now.addAndGet(ScheduledTransferManager.TICK_MILLIS);
+        assertEquals(1, manager.runDue());
+        assertEquals(new BigDecimal("95.00"), balance("A100"));
+    }
+
+    @Test
+    public void testUnreadableScheduleFileStopsStartup() throws Exception {
+        manager().create("U001", "A100", "A200", new BigDecimal("5.00"), null, null);
+        Files.writeString(file, "[{\"scheduleID\": ");
+        assertThrows(IllegalStateException.class, this::manager);
+    }
+
+    @Test
+    public void testSchedulesLiveOnTheSourceAccountsNode() throws Exception {
+        Partitioner two = new Partitioner(2);
+        String onNode1 = "A1";
+        while (two.nodeFor(onNode1) != 1) onNode1 += "x";
+        String onNode0 = "B1";
+        while (two.nodeFor(onNode0) != 0) onNode0 += "x";
+
+        List<LocalClusterNode> nodes = List.of(new LocalClusterNode(new MockDatabase()), new LocalClusterNode(new MockDatabase()));
+        ClusterRepository cluster = new ClusterRepository(nodes);
+        cluster.saveAccount(new Account(onNode1, "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        cluster.saveAccount(new Account(onNode0, "U002", Account.AccountType.CHECKING, new BigDecimal("0.00")));
+        List<ScheduledTransferManager> managers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ScheduledTransferManager manager = new ScheduledTransferManager(cluster, new BatchTransactionManager(cluster),
+                    file.resolveSibling("node" + i + ".json"), now::get);
+            manager.setCluster(nodes);
+            nodes.get(i).setSchedules(manager);
+            managers.add(manager);
+        }
+
+        // Created through node 0, kept and paid by node 1
+        ScheduledTransfer rent = managers.get(0).create("U001", onNode1, onNode0, new BigDecimal("30.00"), START.plusSeconds(5).toString(), "DAILY");
+        assertNull(managers.get(0).schedule(rent.getScheduleID()));
+        assertNotNull(managers.get(1).schedule(rent.getScheduleID()));
+        now.addAndGet(5_000);
+        assertEquals(0, managers.get(0).runDue());
+        assertEquals(1, managers.get(1).runDue());
+        assertEquals(new BigDecimal("30.00"), cluster.findAccountByNumber(onNode0).get().getBalance());
+
+        // Listed and cancelled through either node
+        assertEquals(1, managers.get(0).getSchedulesByOwner("U001").get(0).getRuns());
+        managers.get(0).cancel(rent.getScheduleID());
+        assertEquals(ScheduledTransfer.Status.CANCELLED, managers.get(1).getSchedule(rent.getScheduleID()).getStatus());
+        assertThrows(Exception.class, () -> managers.get(1).cancel(rent.getScheduleID()));
+    }
+}
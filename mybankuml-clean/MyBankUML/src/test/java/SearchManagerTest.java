@@ -1,9 +1,13 @@
 import application.SearchManager;
+import model.Account;
 import model.Customer;
+import model.Transaction;
 import model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SearchManagerTest {
@@ -52,4 +56,64 @@ public class SearchManagerTest {
         List<User> results = searchManager.searchUsers("Creed");
         assertEquals(0, results.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCustomerOverview() throws Exception {
+        db.saveAccount(new Account("A1", "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        db.saveAccount(new Account("A2", "U001", Account.AccountType.SAVINGS, new BigDecimal("50.00")));
+        db.saveAccount(new Account("A3", "U002", Account.AccountType.CHECKING, new BigDecimal("10.00")));
+        for (int i = 1; i <= 5; i++) {
+            db.logTransaction(new Transaction("T" + i, "A1", null, new BigDecimal(i), Transaction.Type.DEPOSIT));
+        }
+        db.logTransaction(new Transaction("T6", "A2", "A3", new BigDecimal("1.00"), Transaction.Type.TRANSFER));
+
+        // Sequential and pooled assembly give the same answer
+        for (SearchManager manager : List.of(searchManager, new SearchManager(db, true))) {
+            Map<String, Object> overview = manager.customerOverview("U001", 3);
+
+            Map<String, Object> profile = (Map<String, Object>) overview.get("profile");
+            assertEquals("mike_scott", profile.get("username"));
+            assertFalse(profile.containsKey("passwordHash"));
+
+            List<Map<String, Object>> accounts = (List<Map<String, Object>>) overview.get("accounts");
+            assertEquals(2, accounts.size());
+            assertEquals("A1", accounts.get(0).get("accountNumber"));
+            assertEquals(0, new BigDecimal("100.00").compareTo((BigDecimal) accounts.get(0).get("balance")));
+
+            // Newest first, at most the requested count
+            List<Transaction> recent = (List<Transaction>) accounts.get(0).get("recentTransactions");
+            assertEquals(3, recent.size());
+            assertEquals("T5", recent.get(0).getTransactionID());
+            assertEquals("T3", recent.get(2).getTransactionID());
+            List<Transaction> outgoing = (List<Transaction>) accounts.get(1).get("recentTransactions");
+            assertEquals(1, outgoing.size());
+            assertEquals("T6", outgoing.get(0).getTransactionID());
+        }
+    }
+
+    @Test
+    public void testCustomerOverviewRejectsUnknownUserAndBadCount() {
+        Exception notFound = assertThrows(Exception.class, () -> searchManager.customerOverview("U999", 10));
+        assertEquals("User not found", notFound.getMessage());
+        assertThrows(Exception.class, () -> searchManager.customerOverview("U001", SearchManager.MAX_RECENT_TRANSACTIONS + 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindAccountsByBalance() throws Exception {
+        db.saveAccount(new Account("A1", "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        db.saveAccount(new Account("A2", "U001", Account.AccountType.SAVINGS, new BigDecimal("50.00")));
+        db.saveAccount(new Account("A3", "U002", Account.AccountType.CHECKING, new BigDecimal("10.00")));
+
+        Map<String, Object> page = searchManager.findAccounts("balance", "50", null, null, 1);
+        List<Map<String, Object>> accounts = (List<Map<String, Object>>) page.get("accounts");
+        assertEquals("A2", accounts.get(0).get("accountNumber"));
+        page = searchManager.findAccounts("balance", "50", null, (String) page.get("next"), 1);
+        assertEquals("A1", ((List<Map<String, Object>>) page.get("accounts")).get(0).get("accountNumber"));
+        assertNull(page.get("next"));
+
+        assertThrows(Exception.class, () -> searchManager.findAccounts("owner", null, null, null, 10));
+        assertThrows(Exception.class, () -> searchManager.findAccounts("created", "yesterday", null, null, 10));
+    }
+}
@@ -0,0 +1,101 @@
+import data.AccountIndex;
+import data.SqlDatabaseService;
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlDatabaseServiceTest {
+    private SqlDatabaseService db;
+
+    @BeforeEach
+    public void setUp() {
+        db = new SqlDatabaseService("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void testUsersRoundTripWithRoleSubclass() {
+        Teller teller = new Teller("U100", "Teller01", "hash", "Tina Teller");
+        teller.setTwoFactorEnabled(true);
+        db.saveUser(teller);
+
+        User found = db.findUserByUsername("teller01").get();
+        assertTrue(found instanceof Teller);
+        assertEquals("U100", found.getUserID());
+        assertTrue(found.isTwoFactorEnabled());
+
+        found.setStatus(User.Status.LOCKED);
+        db.saveUser(found);
+        assertEquals(User.Status.LOCKED, db.findUserByID("U100").get().getStatus());
+        assertEquals(1, db.findAllUsers().size());
+        assertTrue(db.findUserByUsername("nobody").isEmpty());
+    }
+
+    @Test
+    public void testAccountsAndLedger() {
+        db.saveAccount(new Account("A001", "U001", Account.AccountType.CHECKING, new BigDecimal("100.00")));
+        db.saveAccounts(List.of(
+                new Account("A002", "U001", Account.AccountType.SAVINGS, new BigDecimal("5.50")),
+                new Account("A003", "U002", Account.AccountType.CHECKING, new BigDecimal("0.00"))));
+
+        Account a1 = db.findAccountByNumber("A001").get();
+        a1.setBalance(new BigDecimal("70.00"));
+        a1.setInterestPaidThrough("2026-10-18");
+        db.saveAccount(a1);
+        assertEquals(new BigDecimal("70.00"), db.findAccountByNumber("A001").get().getBalance());
+        assertEquals("2026-10-18", db.findAccountByNumber("A001").get().getInterestPaidThrough());
+        assertNull(db.findAccountByNumber("A002").get().getInterestPaidThrough());
+        assertEquals(List.of("A001", "A002"),
+                db.findAccountsByUserID("U001").stream().map(Account::getAccountNumber).toList());
+
+        db.logTransaction(new Transaction("T1", "A001", "A003", new BigDecimal("30.00"), Transaction.Type.TRANSFER));
+        db.logTransactions(List.of(new Transaction("T2", "A003", null, new BigDecimal("1.00"), Transaction.Type.DEPOSIT)));
+
+        assertEquals(1, db.findTransactionsByAccount("A001").size());
+        List<Transaction> history = db.findTransactionsByAccount("A003");
+        assertEquals(2, history.size());
+        assertEquals(Transaction.Type.TRANSFER, history.get(0).getType());
+        assertNull(history.get(1).getTargetAccountNumber());
+        assertEquals(List.of("T2"), db.findRecentTransactionsByAccount("A003", 1).stream().map(Transaction::getTransactionID).toList());
+
+        // Balance ranges page through the index
+        AccountIndex.Page page = db.findAccountsByRange(AccountIndex.Field.BALANCE, 1, Long.MAX_VALUE, null, 1);
+        assertEquals("A002", page.hits.get(0).account.getAccountNumber());
+        page = db.findAccountsByRange(AccountIndex.Field.BALANCE, 1, Long.MAX_VALUE, page.next, 1);
+        assertEquals("A001", page.hits.get(0).account.getAccountNumber());
+        assertNull(page.next);
+    }
+
+    @Test
+    public void testMigratesJsonFilesOnce() throws Exception {
+        Path dir = Files.createTempDirectory("mybank-json");
+        Files.writeString(dir.resolve("users.json"),
+                "[{\"userID\":\"U1\",\"username\":\"Ben123\",\"passwordHash\":\"h\",\"fullName\":\"Ben\"," +
+                "\"role\":\"CUSTOMER\",\"status\":\"ACTIVE\",\"failedLoginAttempts\":2,\"twoFactorEnabled\":false}]");
+        Files.writeString(dir.resolve("accounts.json"),
+                "[{\"accountNumber\":\"A1\",\"ownerUserID\":\"U1\",\"type\":\"SAVINGS\",\"balance\":12.5,\"creationDate\":\"2024-01-01T00:00\"}]");
+        Files.writeString(dir.resolve("transactions.json"),
+                "[{\"transactionID\":\"T001\",\"sourceAccountNumber\":\"A1\",\"amount\":12.5,\"type\":\"DEPOSIT\",\"timestamp\":\"2024-01-15T10:30:00\"}]");
+
+        String dataDir = dir.toString() + File.separator;
+        assertTrue(db.migrateFromJson(dataDir));
+        assertFalse(db.migrateFromJson(dataDir));
+
+        assertEquals(2, db.findUserByUsername("ben123").get().getFailedLoginAttempts());
+        assertEquals(new BigDecimal("12.50"), db.findAccountByNumber("A1").get().getBalance());
+        assertEquals("T001", db.findTransactionsByAccount("A1").get(0).getTransactionID());
+        assertTrue(db.findAllAuditLogs().isEmpty());
+    }
+}
@@ -0,0 +1,132 @@
+import application.StatementGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import data.ClusterNode;
+import data.ClusterProtocol;
+import data.ClusterRepository;
+import data.HttpClusterNode;
+import data.JsonFileService;
+import data.LocalClusterNode;
+import io.javalin.Javalin;
+import model.Account;
+import model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import presentation.ClusterController;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementGeneratorTest {
+    private static final YearMonth SEPTEMBER = YearMonth.of(2026, 9);
+
+    private Path dir;
+    private JsonFileService db;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mybank-statements");
+        db = new JsonFileService(dir.toString());
+        // Current balances, after all of the postings below
+        db.saveAccount(new Account("A1", "U001", Account.AccountType.CHECKING, new BigDecimal("170.00")));
+        db.saveAccount(new Account("A2", "U002", Account.AccountType.SAVINGS, new BigDecimal("530.00")));
+        db.saveAccount(new Account("A3", "U003", Account.AccountType.CHECKING, new BigDecimal("10.00")));
+
+        log("A1", null, "100.00", Transaction.Type.DEPOSIT, "2026-08-31T23:59:59");
+        log("A1", "A2", "30.00", Transaction.Type.TRANSFER, "2026-09-01T00:00:00");
+        log("A1", null, "20.00", Transaction.Type.WITHDRAWAL, "2026-09-15T12:00:00");
+        log("A2", null, "500.00", Transaction.Type.DEPOSIT, "2026-09-30T23:59:59.5");
+        log("A1", null, "40.00", Transaction.Type.DEPOSIT, "2026-10-01T00:00:00"); // After the month
+    }
+
+    private void log(String source, String target, String amount, Transaction.Type type, String timestamp) {
+        Transaction tx = new Transaction(UUID.randomUUID().toString(), source, target, new BigDecimal(amount), type);
+        tx.setTimestamp(timestamp);
+        db.logTransaction(tx);
+    }
+
+    @Test
+    public void testCsvStatementsFromOnePass() throws Exception {
+        StatementGenerator generator = new StatementGenerator(db, dir.resolve("statements"), 2);
+        Map<String, Object> stats = generator.generate(SEPTEMBER, StatementGenerator.Format.CSV);
+        assertEquals(3, stats.get("statements"));
+        assertEquals(3L, stats.get("postings"));
+
+        List<String> a1 = Files.readAllLines(generator.statementFile(SEPTEMBER, "A1", StatementGenerator.Format.CSV));
+        assertEquals("A1,2026-09", a1.get(1));
+        assertTrue(a1.get(3).endsWith(",TRANSFER,A2,-30.00"));
+        assertTrue(a1.get(4).endsWith(",WITHDRAWAL,,-20.00"));
+        assertEquals("180.00,130.00,2", a1.get(6)); // 170.00 now, less the 40.00 deposited in October
+
+        List<String> a3 = Files.readAllLines(generator.statementFile(SEPTEMBER, "A3", StatementGenerator.Format.CSV));
+        assertEquals("10.00,10.00,0", a3.get(a3.size() - 1));
+    }
+
+    @Test
+    public void testJsonStatements() throws Exception {
+        StatementGenerator generator = new StatementGenerator(db, dir.resolve("statements"), 3);
+        generator.generate(SEPTEMBER, StatementGenerator.Format.JSON);
+
+        JsonNode a2 = new ObjectMapper().readTree(generator.statementFile(SEPTEMBER, "A2", StatementGenerator.Format.JSON).toFile());
+        assertEquals("A2", a2.get("accountNumber").asText());
+        assertEquals(2, a2.get("transactions").size());
+        assertEquals("A1", a2.get("transactions").get(0).get("counterparty").asText());
+        assertEquals(0, new BigDecimal("30.00").compareTo(a2.get("transactions").get(0).get("amount").decimalValue()));
+        assertEquals(0, new BigDecimal("0.00").compareTo(a2.get("openingBalance").decimalValue()));
+        assertEquals(0, new BigDecimal("530.00").compareTo(a2.get("closingBalance").decimalValue()));
+    }
+
+    @Test
+    public void testEachNodeWritesAndServesItsOwnAccounts() throws Exception {
+        // Two nodes, the second behind HTTP; A2 lives on node 0, A1 and A3 on node 1
+        List<LocalClusterNode> locals = new ArrayList<>();
+        List<StatementGenerator> shares = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            LocalClusterNode node = new LocalClusterNode(new JsonFileService(dir.resolve("node" + i).toString()));
+            StatementGenerator share = new StatementGenerator(node, dir.resolve("node" + i).resolve("statements"), 2);
+            node.setStatements(share);
+            locals.add(node);
+            shares.add(share);
+        }
+        ClusterController controller = new ClusterController(locals.get(1), "secret");
+        Javalin peer = Javalin.create().post(ClusterProtocol.PATH_PREFIX + "{operation}", controller::handle).start(0);
+        try {
+            List<ClusterNode> nodes = List.of(locals.get(0), new HttpClusterNode("http://127.0.0.1:" + peer.port(), "secret"));
+            ClusterRepository cluster = new ClusterRepository(nodes);
+            for (Account account : db.findAllAccounts()) {
+                cluster.saveAccount(account.copy());
+            }
+            for (String accountNumber : List.of("A1", "A2")) {
+                for (Transaction tx : db.findTransactionsByAccount(accountNumber)) {
+                    if (accountNumber.equals(tx.getSourceAccountNumber())) cluster.logTransaction(tx);
+                }
+            }
+
+            StatementGenerator front = shares.get(0);
+            front.setCluster(nodes);
+            Map<String, Object> stats = front.generate(SEPTEMBER, StatementGenerator.Format.CSV);
+            assertEquals(3, stats.get("statements"));
+            assertEquals(2, stats.get("nodes"));
+            assertTrue(Files.exists(shares.get(1).statementFile(SEPTEMBER, "A1", StatementGenerator.Format.CSV)));
+            assertFalse(Files.exists(shares.get(0).statementFile(SEPTEMBER, "A1", StatementGenerator.Format.CSV)));
+
+            // Downloaded through node 0 from node 1, the same as on a single node
+            try (InputStream a1 = front.openStatement(SEPTEMBER, "A1", StatementGenerator.Format.CSV)) {
+                List<String> lines = List.of(new String(a1.readAllBytes(), StandardCharsets.UTF_8).split("\n"));
+                assertTrue(lines.get(3).endsWith(",TRANSFER,A2,-30.00"));
+                assertEquals("180.00,130.00,2", lines.get(6));
+            }
+            assertNull(front.openStatement(SEPTEMBER.plusMonths(1), "A1", StatementGenerator.Format.CSV));
+        } finally {
+            peer.stop();
+        }
+    }
+}
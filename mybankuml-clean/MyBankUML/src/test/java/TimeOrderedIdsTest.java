@@ -0,0 +1,56 @@
+import util.TimeOrderedIds;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedIdsTest {
+
+    @Test
+    public void testIdsAreVersion7AndSortByTime() {
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        TimeOrderedIds ids = new TimeOrderedIds(now::get);
+
+        String previous = ids.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 100 == 0) now.incrementAndGet();
+            if (i == 5_000) now.addAndGet(-50); // Clock steps back
+            String next = ids.nextId();
+            assertTrue(next.compareTo(previous) > 0, next + " should sort after " + previous);
+            previous = next;
+        }
+
+        UUID id = UUID.fromString(previous);
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertTrue(TimeOrderedIds.timestampOf(id) >= 1_700_000_000_000L);
+        assertEquals(previous, id.toString()); // Stored compactly by TransactionStore
+    }
+
+    @Test
+    public void testUniqueAcrossThreads() throws Exception {
+        TimeOrderedIds ids = new TimeOrderedIds(() -> 42L); // Every thread in the same millisecond
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                List<String> mine = new ArrayList<>();
+                for (int i = 0; i < 20_000; i++) mine.add(ids.nextId());
+                return mine;
+            }));
+        }
+        Set<String> all = new HashSet<>();
+        for (Future<List<String>> result : results) {
+            all.addAll(result.get());
+        }
+        pool.shutdown();
+        assertEquals(8 * 20_000, all.size());
+    }
+}
@@ -0,0 +1,79 @@
+import data.TransactionStore;
+import model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionStoreTest {
+    private TransactionStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new TransactionStore();
+    }
+
+    private Transaction tx(String id, String source, String target, String amount, Transaction.Type type, String timestamp) {
+        Transaction tx = new Transaction();
+        tx.setTransactionID(id);
+        tx.setSourceAccountNumber(source);
+        tx.setTargetAccountNumber(target);
+        tx.setAmount(new BigDecimal(amount));
+        tx.setType(type);
+        tx.setTimestamp(timestamp);
+        return tx;
+    }
+
+    @Test
+    public void testRoundTripsIdsAndTimestampsExactly() {
+        store.append(tx("T001", "A001", null, "50.00", Transaction.Type.DEPOSIT, "2024-01-15T10:30:00"));
+        store.append(tx("0b6a8f4e-2d1c-4e7b-9a55-3f0c2e6d8b71", "A001", null, "20.25", Transaction.Type.WITHDRAWAL,
+                "2025-11-27T19:55:43.581361100"));
+        store.append(tx("0B6A8F4E-2D1C-4E7B-9A55-3F0C2E6D8B71", "A001", null, "1.00", Transaction.Type.DEPOSIT,
+                "yesterday"));
+
+        Transaction seeded = store.get(0);
+        assertEquals("T001", seeded.getTransactionID());
+        assertEquals("2024-01-15T10:30:00", seeded.getTimestamp());
+        assertNull(seeded.getTargetAccountNumber());
+
+        Transaction generated = store.get(1);
+        assertEquals("0b6a8f4e-2d1c-4e7b-9a55-3f0c2e6d8b71", generated.getTransactionID());
+        assertEquals("2025-11-27T19:55:43.581361100", generated.getTimestamp());
+        assertEquals(new BigDecimal("20.25"), generated.getAmount());
+        assertEquals(Transaction.Type.WITHDRAWAL, generated.getType());
+
+        // Non-canonical IDs and unparseable timestamps are kept verbatim
+        assertEquals("0B6A8F4E-2D1C-4E7B-9A55-3F0C2E6D8B71", store.get(2).getTransactionID());
+        assertEquals("yesterday", store.get(2).getTimestamp());
+    }
+
+    @Test
+    public void testTransferIsPostedToBothAccounts() {
+        store.append(tx("T1", "A001", null, "100.00", Transaction.Type.DEPOSIT, "2025-01-01T00:00:00"));
+        store.append(tx("T2", "A001", "A002", "30.00", Transaction.Type.TRANSFER, "2025-01-02T00:00:00.5"));
+        store.append(tx("T3", "A003", null, "5.00", Transaction.Type.DEPOSIT, "2025-01-03T00:00:00"));
+
+        assertEquals(List.of("T1", "T2"), store.findByAccount("A001").stream().map(Transaction::getTransactionID).toList());
+        assertEquals(List.of("T2"), store.findByAccount("A002").stream().map(Transaction::getTransactionID).toList());
+        assertEquals("2025-01-02T00:00:00.500", store.findByAccount("A002").get(0).getTimestamp());
+        assertTrue(store.findByAccount("A404").isEmpty());
+    }
+
+    @Test
+    public void testViewsAreStableWhileLedgerGrows() {
+        store.append(tx("T1", "A001", null, "1.00", Transaction.Type.DEPOSIT, "2025-01-01T00:00:00"));
+        List<Transaction> history = store.findByAccount("A001");
+        List<Transaction> all = store.findAll();
+
+        for (int i = 0; i < 1000; i++) {
+            store.append(tx("T" + (i + 2), "A001", null, "1.00", Transaction.Type.DEPOSIT, "2025-01-01T00:00:00"));
+        }
+
+        assertEquals(1, history.size());
+        assertEquals(1, all.size());
+        assertEquals(1001, store.findByAccount("A001").size());
+        assertEquals("T1001", store.findAll().get(1000).getTransactionID());
+    }
+}
@@ -0,0 +1,130 @@
+import application.AccountManager;
+import application.BatchTransactionManager;
+import application.TransactionManager;
+import application.VelocityLimits;
+import data.ClusterRepository;
+import data.LocalClusterNode;
+import data.Partitioner;
+import model.Account;
+import model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VelocityLimitsTest {
+    private MockDatabase db;
+    private AtomicLong now;
+    private VelocityLimits limits;
+
+    @BeforeEach
+    public void setUp() {
+        db = new MockDatabase();
+        db.saveAccount(new Account("A100", "U001", Account.AccountType.CHECKING, new BigDecimal("1000.00")));
+        db.saveAccount(new Account("A200", "U001", Account.AccountType.SAVINGS, new BigDecimal("1000.00")));
+        now = new AtomicLong(System.currentTimeMillis()); // Ledger timestamps are wall-clock
+        limits = newLimits();
+    }
+
+    private VelocityLimits newLimits() {
+        Properties policy = new Properties();
+        policy.setProperty("CHECKING.WITHDRAWAL.amount", "300.00/1d");
+        policy.setProperty("CHECKING.TRANSFER.count", "2/1m");
+        return new VelocityLimits(db, policy, now::get);
+    }
+
+    @Test
+    public void testDailyWithdrawalLimitSlides() throws Exception {
+        AccountManager accounts = new AccountManager(db, null, limits);
+        accounts.withdraw("A100", new BigDecimal("200.00"));
+        Exception e = assertThrows(Exception.class, () -> accounts.withdraw("A100", new BigDecimal("100.01")));
+        assertEquals("Withdrawal limit of 300.00 per day exceeded", e.getMessage());
+        accounts.withdraw("A100", new BigDecimal("100.00"));
+
+        // Failed withdrawals do not count against the limit
+        now.addAndGet(23 * 3_600_000L);
+        assertThrows(Exception.class, () -> accounts.withdraw("A100", new BigDecimal("0.01")));
+        now.addAndGet(3_600_000L);
+        accounts.withdraw("A100", new BigDecimal("300.00"));
+        assertThrows(Exception.class, () -> accounts.withdraw("A200", new BigDecimal("5000.00"))); // Insufficient Funds
+        accounts.withdraw("A200", new BigDecimal("900.00")); // No rules for SAVINGS
+        assertEquals(2L, limits.stats().get("rejected"));
+        assertEquals(new BigDecimal("400.00"), db.findAccountByNumber("A100").get().getBalance());
+    }
+
+    @Test
+    public void testTransferVelocityAcrossPaths() throws Exception {
+        TransactionManager transfers = new TransactionManager(db, null, limits);
+        transfers.transfer("A100", "A200", new BigDecimal("1.00"));
+        assertThrows(Exception.class, () -> transfers.transfer("A100", "A200", new BigDecimal("5000.00")));
+
+        BatchTransactionManager batch = new BatchTransactionManager(db, null, limits);
+        List<BatchTransactionManager.Result> results = batch.execute(List.of(
+            new BatchTransactionManager.Item(0, Transaction.Type.TRANSFER, "A100", "A200", new BigDecimal("1.00")),
+            new BatchTransactionManager.Item(1, Transaction.Type.TRANSFER, "A100", "A200", new BigDecimal("1.00")),
+            new BatchTransactionManager.Item(2, Transaction.Type.TRANSFER, "A200", "A100", new BigDecimal("1.00"))
+        ));
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("Too many transfers (limit 2 per minute); try again later", results.get(1).getError());
+        assertTrue(results.get(2).isSuccess());
+
+        now.addAndGet(60_000L);
+        transfers.transfer("A100", "A200", new BigDecimal("1.00"));
+    }
+
+    @Test
+    public void testRebuiltFromLedgerOnRestart() throws Exception {
+        new AccountManager(db, null, limits).withdraw("A100", new BigDecimal("250.00"));
+
+        VelocityLimits restarted = newLimits();
+        AccountManager accounts = new AccountManager(db, null, restarted);
+        assertThrows(Exception.class, () -> accounts.withdraw("A100", new BigDecimal("60.00")));
+        accounts.withdraw("A100", new BigDecimal("50.00"));
+        assertEquals(1L, restarted.stats().get("rebuiltFromLedger"));
+    }
+
+    @Test
+    public void testMalformedRuleIsRejected() {
+        Properties policy = new Properties();
+        policy.setProperty("CHECKING.DEPOSIT.amount", "100.00/1d");
+        assertThrows(IllegalArgumentException.class, () -> new VelocityLimits(db, policy, now::get));
+        policy.clear();
+        policy.setProperty("CHECKING.WITHDRAWAL.count", "5/1w");
+        assertThrows(IllegalArgumentException.class, () -> new VelocityLimits(db, policy, now::get));
+    }
+
+    @Test
+    public void testEveryNodeCountsAgainstTheSameLimit() throws Exception {
+        List<LocalClusterNode> nodes = List.of(new LocalClusterNode(new MockDatabase()), new LocalClusterNode(new MockDatabase()));
+        ClusterRepository cluster = new ClusterRepository(nodes);
+        cluster.saveAccount(new Account("A100", "U001", Account.AccountType.CHECKING, new BigDecimal("1000.00")));
+        List<AccountManager> entryPoints = new ArrayList<>();
+        List<VelocityLimits> shares = new ArrayList<>();
+        for (LocalClusterNode node : nodes) {
+            Properties policy = new Properties();
+            policy.setProperty("CHECKING.WITHDRAWAL.amount", "300.00/1d");
+            VelocityLimits share = new VelocityLimits(cluster, policy, now::get);
+            share.setCluster(nodes);
+            node.setLimits(share);
+            shares.add(share);
+            entryPoints.add(new AccountManager(cluster, null, share));
+        }
+
+        // Withdrawals through either node use up the one daily limit
+        entryPoints.get(0).withdraw("A100", new BigDecimal("200.00"));
+        Exception e = assertThrows(Exception.class, () -> entryPoints.get(1).withdraw("A100", new BigDecimal("100.01")));
+        assertEquals("Withdrawal limit of 300.00 per day exceeded", e.getMessage());
+        entryPoints.get(1).withdraw("A100", new BigDecimal("100.00"));
+        assertThrows(Exception.class, () -> entryPoints.get(0).withdraw("A100", new BigDecimal("0.01")));
+
+        // Counted only where A100 lives
+        int owner = new Partitioner(2).nodeFor("A100");
+        assertEquals(1, shares.get(owner).stats().get("accounts"));
+        assertEquals(0, shares.get(1 - owner).stats().get("accounts"));
+        assertEquals(new BigDecimal("700.00"), cluster.findAccountByNumber("A100").get().getBalance());
+    }
+}
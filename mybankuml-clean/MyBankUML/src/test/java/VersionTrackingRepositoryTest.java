@@ -0,0 +1,141 @@
+import application.AccountManager;
+import application.AdminManager;
+import application.AuthenticationManager;
+import application.BatchTransactionManager;
+import application.RoleManager;
+import application.TransactionManager;
+import data.ResourceVersions;
+import data.VersionTrackingRepository;
+import model.Account;
+import model.Administrator;
+import model.Customer;
+import model.Transaction;
+import model.User;
+import io.javalin.Javalin;
+import presentation.AccountController;
+import presentation.AuthFilter;
+import util.SecurityUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionTrackingRepositoryTest {
+    private VersionTrackingRepository db;
+    private ResourceVersions versions;
+
+    @BeforeEach
+    public void setUp() {
+        db = new VersionTrackingRepository(new MockDatabase());
+        versions = db.getVersions();
+    }
+
+    @Test
+    public void testSaveAccountBumpsAccountAndOwner() {
+        String before = versions.etag("owner", versions.ownerVersion("U001"));
+
+        db.saveAccount(new Account("A100", "U001", Account.AccountType.CHECKING, new BigDecimal("10.00")));
+
+        assertEquals(1, versions.accountVersion("A100"));
+        assertEquals(1, versions.ownerVersion("U001"));
+        assertNotEquals(before, versions.etag("owner", versions.ownerVersion("U001")));
+        assertEquals(0, versions.ownerVersion("U002"));
+    }
+
+    @Test
+    public void testTransferBumpsBothHistories() {
+        db.logTransactions(List.of(
+            new Transaction("T1", "A100", "A200", BigDecimal.TEN, Transaction.Type.TRANSFER),
+            new Transaction("T2", "A100", null, BigDecimal.ONE, Transaction.Type.DEPOSIT)
+        ));
+
+        assertEquals(2, versions.historyVersion("A100"));
+        assertEquals(1, versions.historyVersion("A200"));
+        assertEquals(0, versions.accountVersion("A100"));
+    }
+
+    @Test
+    public void testUnchangedRecordsAreNotWritten() throws Exception {
+        db.saveUser(new Customer("U001", "alice", SecurityUtils.hashPassword("pw"), "Alice")); // New: written
+        db.saveAccount(new Account("A100", "U001", Account.AccountType.CHECKING, new BigDecimal("10.00")));
+
+        // Logins with no failed attempts to reset leave the user alone
+        AuthenticationManager auth = new AuthenticationManager(db);
+        auth.login("alice", "pw");
+        auth.login("alice", "pw");
+
+        Account account = db.findAccountByNumber("A100").get();
+        account.setBalance(new BigDecimal("10.00")); // Same value
+        assertTrue(db.saveIfVersion(account));
+        assertEquals(1, versions.accountVersion("A100")); // ETag not bumped either
+
+        account.setBalance(new BigDecimal("12.00"));
+        db.saveAccount(account);
+        db.saveAccount(account); // Already saved
+
+        assertEquals(1L, db.writeStats().get("userWrites"));
+        assertEquals(2L, db.writeStats().get("userWritesAvoided"));
+        assertEquals(2L, db.writeStats().get("accountWrites"));
+        assertEquals(2L, db.writeStats().get("accountWritesAvoided"));
+    }
+
+    @Test
+    public void testOneWritePerUserUpdate() throws Exception {
+        db.saveUser(new Customer("U001", "alice", "hash", "Alice"));
+        AdminManager admin = new AdminManager(db);
+        User root = new Administrator("ADM", "admin", "hash", "Admin");
+
+        admin.updateUser(root, "U001", "LOCKED", "TELLER", true);
+
+        User updated = db.findUserByID("U001").get();
+        assertEquals(User.Status.LOCKED, updated.getStatus());
+        assertEquals(User.Role.TELLER, updated.getRole());
+        assertTrue(updated.isTwoFactorEnabled());
+        assertEquals(2L, db.writeStats().get("userWrites")); // Create + one update
+        assertEquals(3, db.findAllAuditLogs().size());
+
+        // An invalid field means no write at all
+        assertThrows(Exception.class, () -> admin.updateUser(root, "U001", "ACTIVE", "KING", null));
+        assertEquals(User.Status.LOCKED, db.findUserByID("U001").get().getStatus());
+    }
+
+    @Test
+    public void testUsersWithEqualCountersDoNotShareETags() throws Exception {
+        String hash = SecurityUtils.hashPassword("pw");
+        db.saveUser(new Customer("U001", "alice", hash, "Alice"));
+        db.saveUser(new Customer("U002", "bob", hash, "Bob"));
+        db.saveAccount(new Account("A100", "U001", Account.AccountType.CHECKING, new BigDecimal("10.00")));
+        db.saveAccount(new Account("A200", "U002", Account.AccountType.CHECKING, new BigDecimal("20.00")));
+        assertEquals(versions.ownerVersion("U001"), versions.ownerVersion("U002"));
+
+        AuthenticationManager auth = new AuthenticationManager(db);
+        AuthFilter filter = new AuthFilter(auth, new RoleManager());
+        AccountController controller = new AccountController(new AccountManager(db), new TransactionManager(db),
+                new BatchTransactionManager(db), new RoleManager(), versions);
+        Javalin app = Javalin.create(config -> config.accessManager(filter)).start(0);
+        try {
+            app.get("/api/accounts", controller::getAccounts, AuthFilter.AUTHENTICATED);
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://127.0.0.1:" + app.port() + "/api/accounts");
+
+            // Alice's list is cached; then Bob logs in on the same browser and revalidates it
+            HttpResponse<String> alice = client.send(HttpRequest.newBuilder(uri)
+                    .header("Authorization", "Bearer " + auth.login("alice", "pw")).build(), HttpResponse.BodyHandlers.ofString());
+            String etag = alice.headers().firstValue("ETag").orElseThrow();
+            assertEquals("Authorization", alice.headers().firstValue("Vary").orElseThrow());
+
+            HttpResponse<String> bob = client.send(HttpRequest.newBuilder(uri)
+                    .header("Authorization", "Bearer " + auth.login("bob", "pw"))
+                    .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, bob.statusCode());
+            assertTrue(bob.body().contains("A200") && !bob.body().contains("A100"));
+        } finally {
+            app.stop();
+        }
+    }
+}